@@ -1,25 +1,38 @@
 package com.fitnesstracker;
 
+import com.fitnesstracker.api.HeadlessServer;
+import com.fitnesstracker.controller.DashboardController;
+import com.fitnesstracker.dao.TombstonePurger;
+import com.fitnesstracker.dao.UsernameFilter;
+import com.fitnesstracker.dao.WriteBehindQueue;
 import com.fitnesstracker.model.User;
+import com.fitnesstracker.session.SessionManager;
+import com.fitnesstracker.session.UserSession;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
-import org.hibernate.SessionFactory;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
 
 /**
  * Main application entry point for the Fitness Tracker application (JavaFX).
- * Manages the primary stage, scene switching, and the application's current user session.
+ * Manages the primary stage, scene switching, and the session of the user logged in to it.
  */
 public class App extends Application {
 
     // Static reference to the primary stage for scene switching
     private static Stage primaryStage;
 
-    private static User currentUser;
+    // All user sessions of this process; the desktop window uses one at a time
+    private static final SessionManager sessionManager = new SessionManager();
+
+    // Session shown in the primary window. Controllers are handed their session explicitly;
+    // this reference only exists so logout can close it.
+    private static UserSession windowSession;
 
     /**
      * The primary method for all JavaFX applications. Stores the stage reference.
@@ -36,6 +49,11 @@ public class App extends Application {
         primaryStage.setScene(new Scene(root));
         primaryStage.setResizable(false);
         primaryStage.show();
+
+        System.out.println("INFO: Login window shown " + millisSinceJvmStart() + " ms after JVM start.");
+
+        // Warm up the views opened right after login while the user types
+        ViewCache.preload("Dashboard", "WorkoutLogView", "MeasurementLogView");
     }
 
     /**
@@ -51,13 +69,15 @@ public class App extends Application {
     }
 
     public static void showDashboard(User user) throws Exception {
-        // CRITICAL: Set current user BEFORE loading FXML
-        // This ensures DashboardController.initialize() sees the correct user
-        setCurrentUser(user);
+        // Start a fresh session for the user who just logged in
+        sessionManager.close(windowSession);
+        windowSession = sessionManager.open(user);
 
-        // Create a NEW FXMLLoader instance to ensure fresh controller
-        FXMLLoader loader = new FXMLLoader(App.class.getResource("/Dashboard.fxml"));
-        Parent root = loader.load();
+        // Take a fresh (preloaded) Dashboard graph so the controller is never stale
+        FXMLLoader loader = ViewCache.take("Dashboard");
+        Parent root = loader.getRoot();
+        DashboardController controller = loader.getController();
+        controller.open(windowSession);
 
         primaryStage.setTitle("Fitness Tracker - Dashboard");
 
@@ -75,49 +95,74 @@ public class App extends Application {
         primaryStage.show();
     }
     /**
-     * Retrieves the currently logged-in user.
-     * @return The User object or null if no user is logged in.
-     */
-    public static User getCurrentUser() {
-        return currentUser;
-    }
-
-    /**
-     * Sets the user who just logged in.
-     * @param user The User object to set as the current session user.
+     * @return The manager of all user sessions in this process.
      */
-    public static void setCurrentUser(User user) {
-        currentUser = user;
+    public static SessionManager getSessionManager() {
+        return sessionManager;
     }
 
     /**
-     * Clears the current user session and returns to the login screen.
+     * Closes the window's user session and returns to the login screen.
      */
     public static void logout() throws IOException {
-        currentUser = null; // Clear the user session
+        sessionManager.close(windowSession); // Clear the user session
+        windowSession = null;
         // FIX: Use the corrected FXML name: 'login_register'
         setRoot("login"); // Go back to login screen
         primaryStage.setTitle("Fitness Tracker - Login/Register");
     }
 
-    // This is the main method that starts the Java application
-    // This is the main method that starts the Java application
-    public static void main(String[] args) {
-        // Initialize the Hibernate Session Factory (Database connection)
-        SessionFactory sessionFactory = HibernateUtil.getSessionFactory(); // CHANGED: Directly get the session factory
+    /**
+     * Milliseconds since the JVM started, used to report startup timings.
+     */
+    static long millisSinceJvmStart() {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
 
-        if (sessionFactory == null) {
-            System.err.println("FATAL: Could not initialize Hibernate Session Factory. Database setup failed.");
+    // This is the main method that starts the Java application
+    public static void main(String[] args) throws Exception {
+        // Serve the same services over a local HTTP API instead of showing the UI
+        if (Arrays.asList(args).contains("--headless")) {
+            HeadlessServer.main(args);
             return;
         }
 
-        System.out.println("INFO: Hibernate Session Factory initialized successfully.");
+        // Build the Hibernate Session Factory (Database connection) in parallel with showing the login window.
+        // LoginController waits for it only when the user submits.
+        HibernateUtil.buildSessionFactoryAsync().whenComplete((sessionFactory, error) -> {
+            if (error != null) {
+                System.err.println("FATAL: Could not initialize Hibernate Session Factory. Database setup failed.");
+            } else {
+                System.out.println("INFO: Hibernate Session Factory initialized " + millisSinceJvmStart()
+                        + " ms after JVM start.");
+                // Still on the bootstrap thread, so this does not delay the UI
+                UsernameFilter.getInstance().load();
+            }
+        });
+
+        // Replay any saves left in the write-behind journal by a previous run
+        if (WriteBehindQueue.isEnabled()) {
+            WriteBehindQueue.getInstance().start();
+        }
+
+        // Remove deleted rows in the background while the window is not in use
+        TombstonePurger purger = new TombstonePurger(sessionManager);
+        if (TombstonePurger.isEnabled()) {
+            purger.start();
+        }
 
         // Launch the JavaFX application
         Application.launch(App.class, args);
 
+        purger.shutdown();
+        sessionManager.shutdown();
+
+        // Drain queued saves before the database connection goes away
+        if (WriteBehindQueue.isEnabled()) {
+            WriteBehindQueue.getInstance().shutdown();
+        }
+
         // Shutdown when the application closes
-        sessionFactory.close();
-        System.out.println("INFO: Hibernate Session Factory closed.");
+        HibernateUtil.shutdown();
     }
 }
\ No newline at end of file
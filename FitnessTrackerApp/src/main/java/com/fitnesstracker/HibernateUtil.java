@@ -3,23 +3,77 @@ package com.fitnesstracker;
 import com.fitnesstracker.model.User;
 import com.fitnesstracker.model.Workout;
 import com.fitnesstracker.model.Measurement;
+import com.fitnesstracker.model.ActivityStats;
+import com.fitnesstracker.model.PersonalRecord;
+import com.fitnesstracker.model.Goal;
+import com.fitnesstracker.model.AppliedWrite;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.named.NamedObjectRepository;
+import org.hibernate.query.spi.QueryEngine;
 import org.hibernate.service.ServiceRegistry;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 /**
  * Handles the creation and management of the Hibernate SessionFactory.
  * This should be a singleton for the entire application lifecycle.
  */
 public class HibernateUtil {
 
-    private static SessionFactory sessionFactory;
+    private static volatile SessionFactory sessionFactory;
+
+    // Set while a background build started by buildSessionFactoryAsync() is running or has
+    // succeeded; cleared again if it fails
+    private static CompletableFuture<SessionFactory> bootstrap;
+
+    /**
+     * Starts building the SessionFactory on a background thread so the UI can come up
+     * while metadata is built and the first connection is made. If a previous build failed,
+     * the next call starts a new one.
+     * @return A future completed with the SessionFactory, or exceptionally if the build failed.
+     */
+    public static synchronized CompletableFuture<SessionFactory> buildSessionFactoryAsync() {
+        if (bootstrap == null) {
+            CompletableFuture<SessionFactory> build = new CompletableFuture<>();
+            bootstrap = build;
+            Thread bootstrapThread = new Thread(() -> {
+                try {
+                    buildSessionFactory();
+                    build.complete(sessionFactory);
+                } catch (Throwable t) {
+                    // Forget the failed build before reporting it, so a caller retrying from its
+                    // completion handler gets a fresh attempt instead of the same failure
+                    synchronized (HibernateUtil.class) {
+                        if (bootstrap == build) bootstrap = null;
+                    }
+                    build.completeExceptionally(t);
+                }
+            }, "hibernate-bootstrap");
+            bootstrapThread.setDaemon(true);
+            bootstrapThread.start();
+        }
+        return bootstrap;
+    }
+
+    /**
+     * @return true once the SessionFactory has been built and sessions can be opened without waiting.
+     */
+    public static boolean isReady() {
+        return sessionFactory != null;
+    }
 
     /**
      * Builds the SessionFactory by reading the hibernate.cfg.xml and registering entities.
      */
-    public static void buildSessionFactory() {
+    public static synchronized void buildSessionFactory() {
         try {
             if (sessionFactory == null) {
                 //reads configuration from hibernate.cfg.xml
@@ -28,11 +82,38 @@ public class HibernateUtil {
                 configuration.addAnnotatedClass(User.class);
                 configuration.addAnnotatedClass(Workout.class);
                 configuration.addAnnotatedClass(Measurement.class);
+                configuration.addAnnotatedClass(ActivityStats.class);
+                configuration.addAnnotatedClass(PersonalRecord.class);
+                configuration.addAnnotatedClass(Goal.class);
+                configuration.addAnnotatedClass(AppliedWrite.class);
+
+                // -Dhibernate.* overrides hibernate.cfg.xml, so tools can point at another database
+                for (String name : System.getProperties().stringPropertyNames()) {
+                    if (name.startsWith("hibernate.")) {
+                        configuration.setProperty(name, System.getProperty(name));
+                    }
+                }
+
+                String schemaMode = System.getProperty("fitnesstracker.schema.mode",
+                        configuration.getProperty("fitnesstracker.schema.mode"));
+                if ("update".equals(schemaMode)) {
+                    // Legacy development mode: let Hibernate introspect and alter the schema on every start
+                    configuration.setProperty("hibernate.hbm2ddl.auto", "update");
+                }
 
                 ServiceRegistry serviceRegistry = new StandardServiceRegistryBuilder().applySettings(configuration.getProperties()).build();
 
                 // 3. Build the SessionFactory
-                sessionFactory = configuration.buildSessionFactory(serviceRegistry);
+                SessionFactory built = configuration.buildSessionFactory(serviceRegistry);
+
+                // 2048 is Hibernate's default
+                String planCacheSize = configuration.getProperty(AvailableSettings.QUERY_PLAN_CACHE_MAX_SIZE);
+                verifyNamedQueries(built, planCacheSize != null ? Integer.parseInt(planCacheSize) : 2048);
+
+                if (!"update".equals(schemaMode)) {
+                    verifySchemaVersion(built);
+                }
+                sessionFactory = built;
             }
         } catch (Exception ex) {
             System.err.println("Initial SessionFactory creation failed. Check Oracle connection settings in hibernate.cfg.xml.");
@@ -41,8 +122,83 @@ public class HibernateUtil {
         }
     }
 
+    /**
+     * Parses every named query against the mapped entities, reporting each one that does not
+     * compile, so a query broken by a mapping change stops startup instead of failing on first use.
+     * The parsed queries are left in the query plan cache.
+     */
+    private static void verifyNamedQueries(SessionFactory factory, int planCacheSize) {
+        long start = System.nanoTime();
+        QueryEngine queryEngine = factory.unwrap(SessionFactoryImplementor.class).getQueryEngine();
+        NamedObjectRepository namedQueries = queryEngine.getNamedObjectRepository();
+        Map<String, HibernateException> errors;
+        try {
+            errors = namedQueries.checkNamedQueries(queryEngine);
+        } catch (RuntimeException e) {
+            factory.close();
+            throw e;
+        }
+
+        if (!errors.isEmpty()) {
+            errors.forEach((name, error) -> {
+                // Hibernate wraps the parser's explanation in a generic message
+                Throwable cause = error;
+                while (cause.getCause() != null) cause = cause.getCause();
+                System.err.println("ERROR: Named query " + name + " does not compile: " + cause.getMessage());
+            });
+            factory.close();
+            throw new IllegalStateException(errors.size() + " named queries do not compile: " + errors.keySet());
+        }
+
+        int[] count = new int[1];
+        namedQueries.visitSqmQueryMementos(memento -> count[0]++);
+        System.out.println("INFO: " + count[0] + " named queries compiled in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms.");
+        // Each select also caches a plan per result type; evicted entries are parsed again on use
+        if (count[0] * 2 > planCacheSize) {
+            System.out.println("INFO: Query plan cache (" + planCacheSize + " entries) may be too small for "
+                    + count[0] + " named queries; raise hibernate.query.plan_cache_max_size.");
+        }
+    }
+
+    /**
+     * Reads the stored version from SCHEMA_VERSION instead of introspecting the catalog,
+     * so startup cost does not grow with the size of the schema.
+     */
+    private static void verifySchemaVersion(SessionFactory factory) {
+        int[] version = new int[1];
+        try (Session session = factory.openSession()) {
+            session.doWork(connection -> version[0] = SchemaMigrator.readVersion(connection));
+        } catch (RuntimeException e) {
+            factory.close();
+            throw e;
+        }
+
+        if (version[0] != SchemaMigrator.LATEST_VERSION) {
+            factory.close();
+            throw new IllegalStateException("Database schema is at version " + version[0]
+                    + " but the application requires version " + SchemaMigrator.LATEST_VERSION
+                    + ". Run: mvn -Pmigrate compile exec:java -Dexec.args=migrate");
+        }
+        System.out.println("INFO: Database schema version " + version[0] + " verified.");
+    }
+
     public static SessionFactory getSessionFactory() {
         if (sessionFactory == null) {
+            CompletableFuture<SessionFactory> pending;
+            synchronized (HibernateUtil.class) {
+                pending = bootstrap;
+            }
+            if (pending != null) {
+                // A background build is running or done; wait for it rather than starting another.
+                // If it fails it is cleared, so the next call builds again.
+                try {
+                    return pending.join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof Error) throw (Error) e.getCause();
+                    throw new RuntimeException("SessionFactory bootstrap failed: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
             buildSessionFactory();
         }
         return sessionFactory;
@@ -0,0 +1,18 @@
+package com.fitnesstracker;
+
+import org.hibernate.dialect.DatabaseVersion;
+import org.hibernate.dialect.OracleDialect;
+
+/**
+ * OracleDialect pinned to Oracle 19c. Hibernate does not read JDBC metadata during bootstrap
+ * (see hibernate.cfg.xml), so it cannot ask the database for its version; a plain
+ * OracleDialect then assumes Oracle 8, which has no identity columns, and every insert of a
+ * User, Workout, Measurement or Goal fails. 19c is the oldest release the schema targets;
+ * the SQL generated for it also runs on later ones.
+ */
+public class Oracle19Dialect extends OracleDialect {
+
+    public Oracle19Dialect() {
+        super(DatabaseVersion.make(19));
+    }
+}
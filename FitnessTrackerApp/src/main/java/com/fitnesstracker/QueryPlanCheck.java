@@ -0,0 +1,166 @@
+package com.fitnesstracker;
+
+import com.fitnesstracker.bench.LoadGenerator;
+import org.hibernate.cfg.Configuration;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs EXPLAIN PLAN for the SQL behind each repository lookup and fails if any of them
+ * reads APP_USER, WORKOUT or MEASUREMENT with a full table scan.
+ *
+ * Against the configured Oracle database, the plans reflect the migrated schema and its
+ * optimizer statistics:
+ *   mvn -Pmigrate compile exec:java -Dexec.mainClass=com.fitnesstracker.QueryPlanCheck
+ *
+ * With db=embedded it creates the schema from the entity mappings in an in-memory H2
+ * database and checks that the indexes declared there serve each lookup. The loadtest
+ * profile runs this in the verify phase, so a lookup that loses its index fails the build:
+ *   mvn -Ploadtest verify
+ */
+public class QueryPlanCheck {
+
+    // Same shape as the SQL Hibernate generates for the named queries
+    private static final Map<String, String> QUERIES = new LinkedHashMap<>();
+    static {
+        QUERIES.put("Workout.findByUser",
+                "SELECT * FROM WORKOUT w WHERE w.USER_ID = :1 AND w.DELETED_AT IS NULL "
+                        + "AND w.WORKOUTDATE BETWEEN :2 AND :3 ORDER BY w.WORKOUTDATE");
+        QUERIES.put("Measurement.findByUser",
+                "SELECT * FROM MEASUREMENT m WHERE m.USER_ID = :1 AND m.DELETED_AT IS NULL "
+                        + "AND m.RECORDDATE BETWEEN :2 AND :3 ORDER BY m.RECORDDATE");
+        QUERIES.put("User.countByUsername",
+                "SELECT COUNT(u.USERID) FROM APP_USER u WHERE u.USERNAME = :1");
+        QUERIES.put("User.findByUsername",
+                "SELECT * FROM APP_USER u WHERE u.USERNAME = :1 AND u.DELETED_AT IS NULL");
+    }
+
+    private static final List<String> CHECKED_TABLES = List.of("APP_USER", "WORKOUT", "MEASUREMENT");
+
+    // H2 names the access path in a comment after each table: /* PUBLIC.WORKOUT.tableScan */
+    private static final Pattern H2_TABLE_SCAN = Pattern.compile("/\\* \\w+\\.(\\w+)\\.tableScan");
+
+    private final Properties settings;
+
+    public QueryPlanCheck(Properties settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * @return The names of the queries whose plan contains a full scan of a checked table.
+     */
+    public List<String> run() throws SQLException {
+        List<String> failures = new ArrayList<>();
+        boolean h2 = settings.getProperty("hibernate.connection.url").startsWith("jdbc:h2:");
+
+        try (Connection connection = DriverManager.getConnection(
+                settings.getProperty("hibernate.connection.url"),
+                settings.getProperty("hibernate.connection.username"),
+                settings.getProperty("hibernate.connection.password"))) {
+
+            for (Map.Entry<String, String> query : QUERIES.entrySet()) {
+                System.out.println("INFO: Plan for " + query.getKey() + ":");
+                boolean fullScan = h2
+                        ? h2FullScan(connection, query.getValue())
+                        : oracleFullScan(connection, query.getKey(), query.getValue());
+
+                if (fullScan) {
+                    System.err.println("ERROR: " + query.getKey() + " uses a full table scan");
+                    failures.add(query.getKey());
+                }
+            }
+        }
+        return failures;
+    }
+
+    private static boolean oracleFullScan(Connection connection, String name, String sql) throws SQLException {
+        String statementId = "FT_" + name.toUpperCase();
+        if (statementId.length() > 30) statementId = statementId.substring(0, 30);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM PLAN_TABLE WHERE STATEMENT_ID = '" + statementId + "'");
+            statement.execute("EXPLAIN PLAN SET STATEMENT_ID = '" + statementId + "' FOR " + sql);
+        }
+
+        boolean fullScan = false;
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT LPAD(' ', 2 * DEPTH) || OPERATION, OPTIONS, OBJECT_NAME, COST, CARDINALITY "
+                        + "FROM PLAN_TABLE WHERE STATEMENT_ID = ? ORDER BY ID")) {
+            statement.setString(1, statementId);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    String operation = rs.getString(1);
+                    String options = rs.getString(2);
+                    String object = rs.getString(3);
+                    System.out.printf("  %-30s %-22s %-28s cost=%s rows=%s%n", operation,
+                            options != null ? options : "", object != null ? object : "",
+                            rs.getString(4), rs.getString(5));
+
+                    if (operation.trim().equals("TABLE ACCESS") && "FULL".equals(options)
+                            && CHECKED_TABLES.contains(object)) {
+                        fullScan = true;
+                    }
+                }
+            }
+        }
+        return fullScan;
+    }
+
+    private static boolean h2FullScan(Connection connection, String sql) throws SQLException {
+        // H2 takes numbered parameters as ?1 rather than Oracle's :1
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql.replaceAll(":(\\d+)", "?$1"));
+             ResultSet rs = statement.executeQuery()) {
+            boolean fullScan = false;
+            while (rs.next()) {
+                String plan = rs.getString(1);
+                System.out.println(plan.indent(2).stripTrailing());
+                Matcher scan = H2_TABLE_SCAN.matcher(plan);
+                while (scan.find()) {
+                    if (CHECKED_TABLES.contains(scan.group(1))) fullScan = true;
+                }
+            }
+            return fullScan;
+        }
+    }
+
+    public static void main(String[] args) {
+        boolean embedded = List.of(args).contains("db=embedded");
+        if (embedded) {
+            LoadGenerator.useEmbeddedDatabase("plancheck", 2);
+            // Creates the tables and the indexes declared on the entities
+            HibernateUtil.getSessionFactory();
+        }
+        Properties settings = new Configuration().configure("hibernate.cfg.xml").getProperties();
+        // -Dhibernate.* overrides hibernate.cfg.xml, as in HibernateUtil
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("hibernate.")) {
+                settings.setProperty(name, System.getProperty(name));
+            }
+        }
+        try {
+            List<String> failures = new QueryPlanCheck(settings).run();
+            if (!failures.isEmpty()) {
+                System.err.println("ERROR: Full scans in: " + String.join(", ", failures));
+                System.exit(1);
+            }
+            System.out.println("INFO: All repository queries use index access paths.");
+            HibernateUtil.shutdown();
+        } catch (SQLException e) {
+            System.err.println("ERROR: Query plan check failed: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.fitnesstracker;
+
+import org.hibernate.cfg.Configuration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Applies the versioned schema migrations in resources/db/migration and records each
+ * applied version in SCHEMA_VERSION. The application itself never changes the schema;
+ * at startup it only checks that the stored version matches {@link #LATEST_VERSION}.
+ *
+ * Usage: mvn -Pmigrate compile exec:java -Dexec.args="migrate|baseline|status"
+ */
+public class SchemaMigrator {
+
+    // Ordered list of migrations; the version is the number after the leading 'V'
+    private static final String[] MIGRATIONS = {
+            "V1__baseline.sql",
+            "V2__activity_indexes.sql",
+            "V3__password_hash_length.sql",
+            "V4__optimistic_locking.sql",
+            "V5__soft_delete.sql",
+            "V6__activity_archive.sql",
+            "V7__activity_stats.sql",
+            "V8__goals.sql",
+            "V9__applied_writes.sql"
+    };
+
+    public static final int LATEST_VERSION = MIGRATIONS.length;
+
+    private final Properties settings;
+
+    public SchemaMigrator(Properties settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Reads the connection settings from hibernate.cfg.xml.
+     */
+    public static SchemaMigrator fromHibernateConfig() {
+        return new SchemaMigrator(new Configuration().configure("hibernate.cfg.xml").getProperties());
+    }
+
+    /**
+     * Applies every migration newer than the stored version, in order.
+     */
+    public void migrate() throws SQLException, IOException {
+        try (Connection connection = openConnection()) {
+            ensureVersionTable(connection);
+            int current = currentVersion(connection);
+            System.out.println("INFO: Current schema version: " + current);
+
+            for (int i = current; i < MIGRATIONS.length; i++) {
+                String name = MIGRATIONS[i];
+                System.out.println("INFO: Applying " + name);
+                try (Statement statement = connection.createStatement()) {
+                    for (String sql : readStatements(name)) {
+                        System.out.println("DEBUG: Executing: " + sql);
+                        statement.execute(sql);
+                    }
+                }
+                recordVersion(connection, i + 1, name);
+            }
+            System.out.println("INFO: Schema is at version " + currentVersion(connection));
+        }
+    }
+
+    /**
+     * Records version 1 as applied without running it, for databases whose tables were
+     * already created by hbm2ddl.
+     */
+    public void baseline() throws SQLException {
+        try (Connection connection = openConnection()) {
+            ensureVersionTable(connection);
+            if (currentVersion(connection) > 0) {
+                System.out.println("INFO: Schema already has a version; baseline skipped.");
+                return;
+            }
+            recordVersion(connection, 1, MIGRATIONS[0] + " (baseline)");
+            System.out.println("INFO: Baseline recorded at version 1. Run 'migrate' to apply the rest.");
+        }
+    }
+
+    public void status() throws SQLException {
+        try (Connection connection = openConnection()) {
+            int current = hasVersionTable(connection) ? currentVersion(connection) : 0;
+            System.out.println("INFO: Schema version " + current + " of " + LATEST_VERSION);
+            for (int i = current; i < MIGRATIONS.length; i++) {
+                System.out.println("INFO: Pending: " + MIGRATIONS[i]);
+            }
+        }
+    }
+
+    /**
+     * Reads the stored schema version over an existing connection.
+     * @return The highest applied version, or 0 if no migration has been recorded.
+     */
+    public static int readVersion(Connection connection) throws SQLException {
+        if (!hasVersionTable(connection)) {
+            return 0;
+        }
+        return currentVersion(connection);
+    }
+
+    private Connection openConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection(
+                settings.getProperty("hibernate.connection.url"),
+                settings.getProperty("hibernate.connection.username"),
+                settings.getProperty("hibernate.connection.password"));
+        connection.setAutoCommit(true);
+        return connection;
+    }
+
+    private static boolean hasVersionTable(Connection connection) throws SQLException {
+        // Ask the data dictionary for one table by name instead of reading the whole catalog
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT COUNT(*) FROM USER_TABLES WHERE TABLE_NAME = 'SCHEMA_VERSION'");
+             ResultSet rs = statement.executeQuery()) {
+            return rs.next() && rs.getInt(1) > 0;
+        }
+    }
+
+    private static void ensureVersionTable(Connection connection) throws SQLException {
+        if (hasVersionTable(connection)) return;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE SCHEMA_VERSION ("
+                    + "VERSION NUMBER(10) PRIMARY KEY, "
+                    + "DESCRIPTION VARCHAR2(200 CHAR) NOT NULL, "
+                    + "APPLIED_ON TIMESTAMP DEFAULT SYSTIMESTAMP NOT NULL)");
+        }
+    }
+
+    private static int currentVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT MAX(VERSION) FROM SCHEMA_VERSION")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void recordVersion(Connection connection, int version, String description) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO SCHEMA_VERSION (VERSION, DESCRIPTION) VALUES (?, ?)")) {
+            statement.setInt(1, version);
+            statement.setString(2, description);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Splits a migration script into statements on ';' at end of line, dropping '--' comments.
+     */
+    private static List<String> readStatements(String name) throws IOException {
+        String script;
+        try (InputStream in = SchemaMigrator.class.getResourceAsStream("/db/migration/" + name)) {
+            if (in == null) {
+                throw new IOException("Migration not found on classpath: " + name);
+            }
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : script.split("\r?\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) continue;
+            current.append(line).append('\n');
+            if (trimmed.endsWith(";")) {
+                String sql = current.toString().trim();
+                statements.add(sql.substring(0, sql.length() - 1));
+                current.setLength(0);
+            }
+        }
+        if (current.toString().trim().length() > 0) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+
+    public static void main(String[] args) {
+        String command = args.length > 0 ? args[0] : "status";
+        SchemaMigrator migrator = fromHibernateConfig();
+        try {
+            switch (command) {
+                case "migrate" -> migrator.migrate();
+                case "baseline" -> migrator.baseline();
+                case "status" -> migrator.status();
+                default -> {
+                    System.err.println("Usage: SchemaMigrator migrate|baseline|status");
+                    System.exit(2);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("ERROR: Schema migration failed: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.fitnesstracker;
+
+import javafx.fxml.FXMLLoader;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Keeps one ready-to-use instance of each frequently opened FXML view, loaded on a
+ * background thread so that opening the view does not pay for parsing the FXML,
+ * reflective controller injection and first-time class loading.
+ *
+ * A node can only live in one scene, so every {@link #take(String)} hands out the
+ * preloaded instance and immediately starts loading its replacement.
+ */
+public class ViewCache {
+
+    private static class Preloaded {
+        final FXMLLoader loader;
+        final LocalDate loadedOn;
+
+        Preloaded(FXMLLoader loader) {
+            this.loader = loader;
+            this.loadedOn = LocalDate.now();
+        }
+    }
+
+    private static final Map<String, Future<Preloaded>> preloaded = new ConcurrentHashMap<>();
+
+    private static final ExecutorService preloader = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "fxml-preloader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Starts loading the given views in the background.
+     * @param fxmls View names without extension (e.g., "Dashboard" for Dashboard.fxml)
+     */
+    public static void preload(String... fxmls) {
+        for (String fxml : fxmls) {
+            preloaded.computeIfAbsent(fxml, name -> preloader.submit(() -> new Preloaded(load(name))));
+        }
+    }
+
+    /**
+     * Returns a loaded FXMLLoader for the view; use getRoot() and getController() on it.
+     * Falls back to loading on the calling thread if the preloaded instance is not ready.
+     */
+    public static FXMLLoader take(String fxml) throws IOException {
+        Future<Preloaded> future = preloaded.remove(fxml);
+        FXMLLoader loader = null;
+
+        if (future != null && future.isDone()) {
+            try {
+                Preloaded entry = future.get();
+                // Controllers default their date pickers to the day they were loaded
+                if (entry.loadedOn.equals(LocalDate.now())) {
+                    loader = entry.loader;
+                }
+            } catch (Exception e) {
+                System.err.println("ERROR: Preloading " + fxml + ".fxml failed: " + e.getMessage());
+            }
+        } else if (future != null) {
+            // Still loading; keep it for next time rather than waiting on it now
+            preloaded.put(fxml, future);
+        }
+
+        if (loader == null) {
+            loader = load(fxml);
+        } else {
+            System.out.println("DEBUG: Using preloaded " + fxml + ".fxml");
+        }
+
+        preload(fxml);
+        return loader;
+    }
+
+    private static FXMLLoader load(String fxml) throws IOException {
+        FXMLLoader loader = new FXMLLoader(ViewCache.class.getResource("/" + fxml + ".fxml"));
+        loader.load();
+        return loader;
+    }
+}
@@ -0,0 +1,573 @@
+package com.fitnesstracker.api;
+
+import com.fitnesstracker.HibernateUtil;
+import com.fitnesstracker.dao.ActivityAnalytics;
+import com.fitnesstracker.dao.GoalTracker;
+import com.fitnesstracker.dao.Leaderboards;
+import com.fitnesstracker.dao.TombstonePurger;
+import com.fitnesstracker.model.Goal;
+import com.fitnesstracker.model.Measurement;
+import com.fitnesstracker.model.PersonalRecord;
+import com.fitnesstracker.model.User;
+import com.fitnesstracker.model.Workout;
+import com.fitnesstracker.service.AuthService;
+import com.fitnesstracker.service.GoalService;
+import com.fitnesstracker.service.LoginThrottledException;
+import com.fitnesstracker.service.MeasurementService;
+import com.fitnesstracker.service.ReportService;
+import com.fitnesstracker.service.WorkoutService;
+import com.fitnesstracker.session.SessionManager;
+import com.fitnesstracker.session.UserSession;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless entry point: serves the workout, measurement and report services over a
+ * local HTTP API instead of the JavaFX UI. Shares the same service and DAO classes.
+ *
+ * Requests use form-encoded bodies; responses are JSON (reports are plain text).
+ * Every call except login needs the X-Session-Id header returned by login.
+ *
+ *   POST /api/login          username, password
+ *   POST /api/logout
+ *   GET  /api/workouts
+ *   POST /api/workouts       date (yyyy-MM-dd), type, duration, calories (optional)
+ *   GET  /api/measurements
+ *   POST /api/measurements   date (yyyy-MM-dd), weight, height (optional)
+ *   GET  /api/report
+ *   GET  /api/stats
+ *   GET  /api/leaderboard    ?metric=calories|minutes|streak&period=week|month|all&type=&limit=10
+ *   GET  /api/goals
+ *   POST /api/goals          type (weight|minutes|calories), target
+ *   DELETE /api/goals        ?id=
+ *
+ * Start with: java ... com.fitnesstracker.App --headless  (port from -Dfitnesstracker.http.port, default 8080)
+ *
+ * Behind a reverse proxy on the same host, set -Dfitnesstracker.http.forwardedForHeader
+ * (e.g. X-Forwarded-For) so login attempts are limited per client address.
+ */
+public class HeadlessServer {
+
+    private static final Duration SESSION_IDLE_TIMEOUT = Duration.ofMinutes(30);
+    private static final int MAX_LEADERBOARD_LIMIT = 100;
+    // Header a trusted local proxy puts the client address in; unset when clients connect directly
+    private static final String FORWARDED_FOR_HEADER = System.getProperty("fitnesstracker.http.forwardedForHeader");
+
+    private final SessionManager sessions = new SessionManager();
+    private final TombstonePurger purger = new TombstonePurger(sessions);
+    private final AuthService authService = new AuthService();
+    private final WorkoutService workoutService = new WorkoutService();
+    private final MeasurementService measurementService = new MeasurementService();
+    private final ReportService reportService = new ReportService();
+    private final GoalService goalService = new GoalService();
+
+    private HttpServer server;
+    private ExecutorService requestExecutor;
+
+    /**
+     * Binds to the loopback interface only; this is not meant to be exposed publicly.
+     */
+    public void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        requestExecutor = newRequestExecutor();
+        server.setExecutor(requestExecutor);
+
+        server.createContext("/api/login", exchange -> handle(exchange, this::login));
+        server.createContext("/api/logout", exchange -> handle(exchange, this::logout));
+        server.createContext("/api/workouts", exchange -> handle(exchange, this::workouts));
+        server.createContext("/api/measurements", exchange -> handle(exchange, this::measurements));
+        server.createContext("/api/report", exchange -> handle(exchange, this::report));
+        server.createContext("/api/stats", exchange -> handle(exchange, this::stats));
+        server.createContext("/api/leaderboard", exchange -> handle(exchange, this::leaderboard));
+        server.createContext("/api/goals", exchange -> handle(exchange, this::goals));
+        server.start();
+
+        // Expire abandoned sessions so clients that never log out do not leak them
+        Thread reaper = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    Thread.sleep(60_000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                int closed = sessions.closeIdle(SESSION_IDLE_TIMEOUT);
+                if (closed > 0) {
+                    System.out.println("DEBUG: Closed " + closed + " idle API sessions");
+                }
+            }
+        }, "api-session-reaper");
+        reaper.setDaemon(true);
+        reaper.start();
+
+        if (TombstonePurger.isEnabled()) {
+            purger.start();
+        }
+        Leaderboards.getInstance().start();
+
+        System.out.println("INFO: Headless API listening on http://127.0.0.1:" + port + "/api");
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(1);
+        }
+        if (requestExecutor != null) {
+            requestExecutor.shutdown();
+            try {
+                requestExecutor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        purger.shutdown();
+        Leaderboards.getInstance().shutdown();
+        sessions.shutdown();
+    }
+
+    /**
+     * One virtual thread per request on Java 21+, so requests blocked on the database do not
+     * pin platform threads. Falls back to a cached platform-thread pool on older runtimes.
+     */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            System.out.println("INFO: Serving API requests on virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            System.out.println("INFO: Virtual threads unavailable on this JVM; using a platform thread pool");
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    // --- Request plumbing ---
+
+    private interface Endpoint {
+        Response handle(HttpExchange exchange) throws Exception;
+    }
+
+    private static class Response {
+        final int status;
+        final String contentType;
+        final String body;
+
+        Response(int status, String contentType, String body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        static Response json(int status, String body) {
+            return new Response(status, "application/json; charset=utf-8", body);
+        }
+
+        static Response error(int status, String message) {
+            return json(status, "{\"error\":" + quote(message) + "}");
+        }
+    }
+
+    private void handle(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        Response response;
+        try {
+            response = endpoint.handle(exchange);
+        } catch (IllegalArgumentException e) {
+            response = Response.error(400, e.getMessage());
+        } catch (LoginThrottledException e) {
+            response = Response.error(429, e.getMessage());
+        } catch (Exception e) {
+            System.err.println("ERROR: API request failed: " + e.getMessage());
+            e.printStackTrace();
+            response = Response.error(500, "Internal error: " + e.getMessage());
+        }
+
+        byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", response.contentType);
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private UserSession requireSession(HttpExchange exchange) {
+        UserSession session = sessions.get(exchange.getRequestHeaders().getFirst("X-Session-Id"));
+        if (session == null) {
+            throw new SecurityException("Missing or expired session");
+        }
+        return session;
+    }
+
+    /**
+     * The client address login attempts are limited by, or null if there is none to tell
+     * clients apart: the server only listens on loopback, so without a proxy header every
+     * client has the same address and one limit would lock them all out together.
+     */
+    private static String loginSource(HttpExchange exchange) {
+        InetAddress remote = exchange.getRemoteAddress().getAddress();
+        if (!remote.isLoopbackAddress()) {
+            return remote.getHostAddress();
+        }
+        if (FORWARDED_FOR_HEADER == null) {
+            return null;
+        }
+        List<String> values = exchange.getRequestHeaders().get(FORWARDED_FOR_HEADER);
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        // The proxy appends the address it saw; anything before that came from the client
+        String[] hops = values.get(values.size() - 1).split(",");
+        String client = hops[hops.length - 1].trim();
+        return client.isEmpty() ? null : client;
+    }
+
+    // --- Endpoints ---
+
+    private Response login(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) return Response.error(405, "Use POST");
+        Map<String, String> form = readForm(exchange);
+
+        User user = authService.authenticate(required(form, "username"), required(form, "password"),
+                loginSource(exchange));
+        if (user == null) {
+            return Response.error(401, "Invalid name or password.");
+        }
+        UserSession session = sessions.open(user);
+        return Response.json(200, "{\"sessionId\":" + quote(session.getId())
+                + ",\"userId\":" + user.getUserId() + ",\"name\":" + quote(user.getName()) + "}");
+    }
+
+    private Response logout(HttpExchange exchange) {
+        if (!exchange.getRequestMethod().equals("POST")) return Response.error(405, "Use POST");
+        UserSession session = sessions.get(exchange.getRequestHeaders().getFirst("X-Session-Id"));
+        sessions.close(session);
+        return Response.json(200, "{}");
+    }
+
+    private Response workouts(HttpExchange exchange) throws IOException {
+        UserSession session;
+        try {
+            session = requireSession(exchange);
+        } catch (SecurityException e) {
+            return Response.error(401, e.getMessage());
+        }
+
+        if (exchange.getRequestMethod().equals("GET")) {
+            List<Workout> workouts = workoutService.getWorkoutsByUser(session.getUserId());
+            StringBuilder json = new StringBuilder("[");
+            for (Workout w : workouts) {
+                if (json.length() > 1) json.append(',');
+                json.append("{\"id\":").append(w.getWorkoutId())
+                        .append(",\"date\":").append(quote(String.valueOf(w.getWorkoutDate())))
+                        .append(",\"type\":").append(quote(w.getWorkoutType()))
+                        .append(",\"duration\":").append(w.getDurationMinutes())
+                        .append(",\"calories\":").append(w.getCaloriesBurned())
+                        .append('}');
+            }
+            return Response.json(200, json.append(']').toString());
+        }
+
+        if (exchange.getRequestMethod().equals("POST")) {
+            Map<String, String> form = readForm(exchange);
+            Workout workout = new Workout(session.getUser(), parseDate(required(form, "date")),
+                    required(form, "type"), parseLong(form, "duration"),
+                    form.containsKey("calories") ? parseInt(form, "calories") : null);
+            workoutService.logWorkout(workout);
+            return Response.json(201, "{\"id\":" + workout.getWorkoutId() + "}");
+        }
+        return Response.error(405, "Use GET or POST");
+    }
+
+    private Response measurements(HttpExchange exchange) throws IOException {
+        UserSession session;
+        try {
+            session = requireSession(exchange);
+        } catch (SecurityException e) {
+            return Response.error(401, e.getMessage());
+        }
+
+        if (exchange.getRequestMethod().equals("GET")) {
+            List<Measurement> measurements = measurementService.getMeasurementsByUser(session.getUserId());
+            StringBuilder json = new StringBuilder("[");
+            for (Measurement m : measurements) {
+                if (json.length() > 1) json.append(',');
+                json.append("{\"id\":").append(m.getMeasurementId())
+                        .append(",\"date\":").append(quote(String.valueOf(m.getRecorddate())))
+                        .append(",\"weight\":").append(m.getWeight())
+                        .append(",\"height\":").append(m.getHeight())
+                        .append(",\"bmi\":").append(measurementService.calculateBmi(m))
+                        .append('}');
+            }
+            return Response.json(200, json.append(']').toString());
+        }
+
+        if (exchange.getRequestMethod().equals("POST")) {
+            Map<String, String> form = readForm(exchange);
+            Measurement measurement = new Measurement(session.getUser(), parseDate(required(form, "date")),
+                    parseDouble(form, "weight"), form.containsKey("height") ? parseDouble(form, "height") : null);
+            measurementService.logMeasurement(measurement);
+            return Response.json(201, "{\"id\":" + measurement.getMeasurementId() + "}");
+        }
+        return Response.error(405, "Use GET or POST");
+    }
+
+    private Response report(HttpExchange exchange) {
+        if (!exchange.getRequestMethod().equals("GET")) return Response.error(405, "Use GET");
+        UserSession session;
+        try {
+            session = requireSession(exchange);
+        } catch (SecurityException e) {
+            return Response.error(401, e.getMessage());
+        }
+        return new Response(200, "text/plain; charset=utf-8", reportService.generateReport(session.getUserId()));
+    }
+
+    private Response stats(HttpExchange exchange) {
+        if (!exchange.getRequestMethod().equals("GET")) return Response.error(405, "Use GET");
+        UserSession session;
+        try {
+            session = requireSession(exchange);
+        } catch (SecurityException e) {
+            return Response.error(401, e.getMessage());
+        }
+
+        ActivityAnalytics.Summary stats = workoutService.getActivityStats(session.getUserId());
+        if (stats == null) return Response.error(500, "Activity stats are unavailable");
+
+        StringBuilder records = new StringBuilder("[");
+        for (PersonalRecord r : stats.personalRecords()) {
+            if (records.length() > 1) records.append(',');
+            records.append("{\"type\":").append(quote(r.getWorkoutType()))
+                    .append(",\"sessions\":").append(r.getSessionCount())
+                    .append(",\"longestMinutes\":").append(r.getLongestMinutes())
+                    .append(",\"longestOn\":").append(quote(r.getLongestOn() != null ? r.getLongestOn().toString() : null))
+                    .append(",\"mostCalories\":").append(r.getMostCalories())
+                    .append(",\"mostCaloriesOn\":").append(quote(r.getMostCaloriesOn() != null ? r.getMostCaloriesOn().toString() : null))
+                    .append('}');
+        }
+        records.append(']');
+
+        return Response.json(200, "{\"workouts\":" + stats.workoutCount()
+                + ",\"totalMinutes\":" + stats.totalMinutes()
+                + ",\"dayStreak\":" + stats.dayStreak()
+                + ",\"bestDayStreak\":" + stats.bestDayStreak()
+                + ",\"weekStreak\":" + stats.weekStreak()
+                + ",\"bestWeekStreak\":" + stats.bestWeekStreak()
+                + ",\"weeklyMinutes\":" + String.format(Locale.ROOT, "%.1f", stats.weeklyMinutesAverage())
+                + ",\"consistency\":" + String.format(Locale.ROOT, "%.3f", stats.consistency())
+                + ",\"records\":" + records + "}");
+    }
+
+    private Response leaderboard(HttpExchange exchange) {
+        if (!exchange.getRequestMethod().equals("GET")) return Response.error(405, "Use GET");
+        UserSession session;
+        try {
+            session = requireSession(exchange);
+        } catch (SecurityException e) {
+            return Response.error(401, e.getMessage());
+        }
+
+        Map<String, String> query = parseForm(exchange.getRequestURI().getRawQuery());
+        Leaderboards.Metric metric = switch (query.getOrDefault("metric", "calories").toLowerCase(Locale.ROOT)) {
+            case "calories" -> Leaderboards.Metric.CALORIES;
+            case "minutes" -> Leaderboards.Metric.MINUTES;
+            case "streak" -> Leaderboards.Metric.DAY_STREAK;
+            default -> throw new IllegalArgumentException("metric must be calories, minutes or streak");
+        };
+        Leaderboards.Period period = switch (query.getOrDefault("period", "week").toLowerCase(Locale.ROOT)) {
+            case "week" -> Leaderboards.Period.WEEK;
+            case "month" -> Leaderboards.Period.MONTH;
+            case "all" -> Leaderboards.Period.ALL_TIME;
+            default -> throw new IllegalArgumentException("period must be week, month or all");
+        };
+        int limit = query.containsKey("limit") ? (int) (long) parseLong(query, "limit") : 10;
+        if (limit < 1 || limit > MAX_LEADERBOARD_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LEADERBOARD_LIMIT);
+        }
+
+        Leaderboards.Standing standing = workoutService.getLeaderboard(metric, period, query.get("type"),
+                session.getUserId(), limit);
+        if (standing == null) return Response.error(503, "Leaderboards are still loading");
+
+        StringBuilder top = new StringBuilder("[");
+        for (Leaderboards.Entry e : standing.top()) {
+            if (top.length() > 1) top.append(',');
+            top.append(entryJson(e, session.getUserId()));
+        }
+        top.append(']');
+
+        return Response.json(200, "{\"metric\":" + quote(standing.metric().name().toLowerCase(Locale.ROOT))
+                + ",\"period\":" + quote(standing.period().name().toLowerCase(Locale.ROOT))
+                + ",\"type\":" + quote(standing.workoutType())
+                + ",\"since\":" + quote(standing.since() != null ? standing.since().toString() : null)
+                + ",\"entries\":" + standing.entries()
+                + ",\"top\":" + top
+                + ",\"you\":" + entryJson(standing.mine(), session.getUserId()) + "}");
+    }
+
+    private Response goals(HttpExchange exchange) throws IOException {
+        UserSession session;
+        try {
+            session = requireSession(exchange);
+        } catch (SecurityException e) {
+            return Response.error(401, e.getMessage());
+        }
+
+        if (exchange.getRequestMethod().equals("GET")) {
+            List<GoalTracker.Progress> goals = goalService.getGoals(session.getUserId());
+            if (goals == null) return Response.error(500, "Goals are unavailable");
+            StringBuilder json = new StringBuilder("[");
+            for (GoalTracker.Progress p : goals) {
+                Goal goal = p.goal();
+                if (json.length() > 1) json.append(',');
+                json.append("{\"id\":").append(goal.getGoalId())
+                        .append(",\"type\":").append(quote(goal.getType().name().toLowerCase(Locale.ROOT)))
+                        .append(",\"target\":").append(goal.getTarget())
+                        .append(",\"current\":").append(String.format(Locale.ROOT, "%.1f", p.current()))
+                        .append(",\"progress\":").append(String.format(Locale.ROOT, "%.3f", p.fraction()))
+                        .append(",\"achieved\":").append(p.achieved())
+                        .append(",\"achievedOn\":").append(quote(goal.getAchievedOn() != null ? goal.getAchievedOn().toString() : null))
+                        .append(",\"since\":").append(quote(p.since().toString()))
+                        .append('}');
+            }
+            return Response.json(200, json.append(']').toString());
+        }
+
+        if (exchange.getRequestMethod().equals("POST")) {
+            Map<String, String> form = readForm(exchange);
+            Goal.Type type = switch (required(form, "type").toLowerCase(Locale.ROOT)) {
+                case "weight" -> Goal.Type.TARGET_WEIGHT;
+                case "minutes" -> Goal.Type.WEEKLY_MINUTES;
+                case "calories" -> Goal.Type.MONTHLY_CALORIES;
+                default -> throw new IllegalArgumentException("type must be weight, minutes or calories");
+            };
+            Goal goal = new Goal(session.getUserId(), type, parseDouble(form, "target"));
+            goalService.addGoal(goal);
+            return Response.json(201, "{\"id\":" + goal.getGoalId() + "}");
+        }
+
+        if (exchange.getRequestMethod().equals("DELETE")) {
+            Map<String, String> query = parseForm(exchange.getRequestURI().getRawQuery());
+            if (!goalService.deleteGoal(session.getUserId(), parseLong(query, "id"))) {
+                return Response.error(404, "No such goal");
+            }
+            return Response.json(200, "{}");
+        }
+        return Response.error(405, "Use GET, POST or DELETE");
+    }
+
+    private static String entryJson(Leaderboards.Entry entry, Long userId) {
+        return "{\"rank\":" + entry.rank()
+                + ",\"name\":" + quote(entry.name())
+                + ",\"score\":" + entry.score()
+                + ",\"you\":" + entry.userId().equals(userId) + "}";
+    }
+
+    // --- Parsing helpers ---
+
+    private static Map<String, String> readForm(HttpExchange exchange) throws IOException {
+        return parseForm(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, String> parseForm(String body) {
+        Map<String, String> form = new HashMap<>();
+        if (body == null) return form;
+        for (String pair : body.split("&")) {
+            if (pair.isEmpty()) continue;
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq >= 0 ? pair.substring(0, eq) : pair, StandardCharsets.UTF_8);
+            String value = eq >= 0 ? URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8) : "";
+            if (!value.isBlank()) form.put(key, value.trim());
+        }
+        return form;
+    }
+
+    private static String required(Map<String, String> form, String name) {
+        String value = form.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing field: " + name);
+        }
+        return value;
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Dates must be yyyy-MM-dd: " + value);
+        }
+    }
+
+    private static Long parseLong(Map<String, String> form, String name) {
+        try {
+            return Long.parseLong(required(form, name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a whole number");
+        }
+    }
+
+    private static Integer parseInt(Map<String, String> form, String name) {
+        try {
+            return Integer.parseInt(required(form, name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a whole number");
+        }
+    }
+
+    private static Double parseDouble(Map<String, String> form, String name) {
+        try {
+            return Double.parseDouble(required(form, name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+    }
+
+    private static String quote(String value) {
+        if (value == null) return "null";
+        StringBuilder out = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
+                    else out.append(c);
+                }
+            }
+        }
+        return out.append('"').toString();
+    }
+
+    public static void main(String[] args) throws Exception {
+        HibernateUtil.getSessionFactory();
+
+        HeadlessServer server = new HeadlessServer();
+        server.start(Integer.getInteger("fitnesstracker.http.port", 8080));
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            HibernateUtil.shutdown();
+        }, "api-shutdown"));
+
+        Thread.currentThread().join();
+    }
+}
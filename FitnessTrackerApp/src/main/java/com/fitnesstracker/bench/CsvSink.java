@@ -0,0 +1,68 @@
+package com.fitnesstracker.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+/**
+ * Writes one partition of generated data as CSV, one file per table, with the table's
+ * column names as header (for SQL*Loader, external tables or H2 CSVREAD).
+ * Files are named users-NNN.csv, workouts-NNN.csv and measurements-NNN.csv.
+ */
+public class CsvSink implements DataGenerator.Sink {
+
+    private final BufferedWriter users;
+    private final BufferedWriter workouts;
+    private final BufferedWriter measurements;
+
+    public CsvSink(Path directory, int partition) throws IOException {
+        Files.createDirectories(directory);
+        String suffix = String.format("-%03d.csv", partition);
+        users = open(directory.resolve("users" + suffix), "USERID,USERNAME,NAME,AGE,PASSWORD,GENDER");
+        workouts = open(directory.resolve("workouts" + suffix), "USER_ID,WORKOUTDATE,WORKOUTTYPE,DURATIONMINUTES,CALORIESBURNED");
+        measurements = open(directory.resolve("measurements" + suffix), "USER_ID,RECORDDATE,WEIGHT,HEIGHT");
+    }
+
+    public static DataGenerator.SinkFactory factory(Path directory) {
+        return partition -> new CsvSink(directory, partition);
+    }
+
+    private static BufferedWriter open(Path file, String header) throws IOException {
+        BufferedWriter writer = Files.newBufferedWriter(file);
+        writer.write(header);
+        writer.newLine();
+        return writer;
+    }
+
+    @Override
+    public void user(long userId, String username, String name, int age, String gender, String passwordHash) throws IOException {
+        users.write(userId + "," + quote(username) + "," + quote(name) + "," + age + "," + quote(passwordHash) + "," + gender);
+        users.newLine();
+    }
+
+    @Override
+    public void workout(long userId, LocalDate date, String type, long durationMinutes, int caloriesBurned) throws IOException {
+        workouts.write(userId + "," + date + "," + quote(type) + "," + durationMinutes + "," + caloriesBurned);
+        workouts.newLine();
+    }
+
+    @Override
+    public void measurement(long userId, LocalDate date, double weight, double height) throws IOException {
+        measurements.write(userId + "," + date + "," + weight + "," + height);
+        measurements.newLine();
+    }
+
+    private static String quote(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (users; workouts; measurements) {
+            // closes all three, even if one fails
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.fitnesstracker.bench;
+
+import com.fitnesstracker.HibernateUtil;
+import com.fitnesstracker.model.Workout;
+import com.fitnesstracker.service.CalorieEstimator;
+import com.fitnesstracker.service.PasswordHasher;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deterministic generator of synthetic users with workout and measurement histories.
+ * Every user is generated from its own random stream derived from (seed, user index), so
+ * the output depends only on the seed, user count, history length and end date, not on
+ * how many threads generate it or in which order.
+ *
+ * Users are split into contiguous partitions that are generated in parallel, each into
+ * its own {@link Sink} (a CSV file set or a batched JDBC connection).
+ *
+ * Usage: mvn -Ploadtest compile exec:java -Dexec.mainClass=com.fitnesstracker.bench.DataGenerator
+ *            -Dexec.args="users=100000 days=365 out=csv:target/data"
+ *
+ * Options (key=value): users=1000, days=365, seed=42, end=yyyy-MM-dd (default today),
+ * threads=number of CPUs, prefix=user, out=csv:DIR or out=db (database from hibernate.cfg.xml).
+ */
+public class DataGenerator {
+
+    /**
+     * Receives generated rows. One instance is used by a single thread.
+     */
+    public interface Sink extends AutoCloseable {
+        void user(long userId, String username, String name, int age, String gender, String passwordHash) throws Exception;
+
+        void workout(long userId, LocalDate date, String type, long durationMinutes, int caloriesBurned) throws Exception;
+
+        void measurement(long userId, LocalDate date, double weight, double height) throws Exception;
+
+        // Narrower than AutoCloseable's, so try-with-resources does not have to expect InterruptedException
+        @Override
+        void close() throws IOException;
+    }
+
+    /**
+     * Opens the sink for one partition of users.
+     */
+    public interface SinkFactory {
+        Sink open(int partition) throws Exception;
+    }
+
+    // Typical session length in minutes for each workout type on the form
+    private static final Map<String, Double> TYPICAL_MINUTES = new HashMap<>();
+    static {
+        TYPICAL_MINUTES.put("Running", 35.0);
+        TYPICAL_MINUTES.put("Cycling", 50.0);
+        TYPICAL_MINUTES.put("Swimming", 40.0);
+        TYPICAL_MINUTES.put("Weight Training", 55.0);
+        TYPICAL_MINUTES.put("Yoga", 50.0);
+        TYPICAL_MINUTES.put("Walking", 40.0);
+        TYPICAL_MINUTES.put("Cardio", 30.0);
+        TYPICAL_MINUTES.put("HIIT", 25.0);
+        TYPICAL_MINUTES.put("Basketball", 60.0);
+        TYPICAL_MINUTES.put("Soccer", 75.0);
+        TYPICAL_MINUTES.put("Tennis", 60.0);
+        TYPICAL_MINUTES.put("Boxing", 45.0);
+        TYPICAL_MINUTES.put("Dancing", 45.0);
+        TYPICAL_MINUTES.put("Pilates", 50.0);
+        TYPICAL_MINUTES.put("CrossFit", 45.0);
+        TYPICAL_MINUTES.put("Stretching", 15.0);
+        TYPICAL_MINUTES.put("Other", 30.0);
+    }
+
+    private static final String[] FIRST_NAMES = {"Alex", "Sam", "Jordan", "Taylor", "Morgan", "Casey",
+            "Riley", "Jamie", "Avery", "Quinn", "Priya", "Arjun", "Mei", "Luca", "Sofia", "Omar"};
+    private static final String[] LAST_NAMES = {"Smith", "Kumar", "Garcia", "Chen", "Müller", "Rossi",
+            "Okafor", "Silva", "Novak", "Tanaka", "Haddad", "Larsen"};
+
+    private final long seed;
+    private final int users;
+    private final int historyDays;
+    private final LocalDate endDate;
+    private String usernamePrefix = "user";
+    private long firstUserId = 1;
+    private String passwordHash;
+
+    private final AtomicLong userRows = new AtomicLong();
+    private final AtomicLong workoutRows = new AtomicLong();
+    private final AtomicLong measurementRows = new AtomicLong();
+
+    /**
+     * @param endDate Last day of generated history; fix it to get identical output on different days.
+     */
+    public DataGenerator(long seed, int users, int historyDays, LocalDate endDate) {
+        this.seed = seed;
+        this.users = users;
+        this.historyDays = historyDays;
+        this.endDate = endDate;
+    }
+
+    /**
+     * Usernames are prefix + user index, e.g. user0, user1, ...
+     */
+    public void setUsernamePrefix(String usernamePrefix) {
+        this.usernamePrefix = usernamePrefix;
+    }
+
+    /**
+     * User IDs are firstUserId + user index.
+     */
+    public void setFirstUserId(long firstUserId) {
+        this.firstUserId = firstUserId;
+    }
+
+    /**
+     * Hash stored for every user. Hashing one password per user would dominate generation time.
+     */
+    public void setPasswordHash(String passwordHash) {
+        this.passwordHash = passwordHash;
+    }
+
+    public long getUserRows() { return userRows.get(); }
+    public long getWorkoutRows() { return workoutRows.get(); }
+    public long getMeasurementRows() { return measurementRows.get(); }
+
+    /**
+     * Generates all users, split into one partition per thread.
+     */
+    public void generate(int threads, SinkFactory sinks) throws Exception {
+        if (passwordHash == null) {
+            passwordHash = PasswordHasher.hash("password");
+        }
+        int partitions = Math.max(1, Math.min(threads, users));
+        ExecutorService pool = Executors.newFixedThreadPool(partitions);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int p = 0; p < partitions; p++) {
+                int partition = p;
+                int from = (int) ((long) users * p / partitions);
+                int to = (int) ((long) users * (p + 1) / partitions);
+                results.add(pool.submit(() -> {
+                    try (Sink sink = sinks.open(partition)) {
+                        for (int i = from; i < to; i++) {
+                            generateUser(i, sink);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Generates one user and their full history.
+     */
+    public void generateUser(int index, Sink sink) throws Exception {
+        SplittableRandom random = new SplittableRandom(mix(seed, index));
+        long userId = firstUserId + index;
+
+        // Demographics
+        double g = random.nextDouble();
+        String gender = g < 0.49 ? "Male" : g < 0.98 ? "Female" : "Other";
+        int age = (int) clamp(38 + gaussian(random) * 12, 18, 80);
+        double height = switch (gender) {
+            case "Male" -> 176 + gaussian(random) * 7;
+            case "Female" -> 163 + gaussian(random) * 6.5;
+            default -> 170 + gaussian(random) * 8;
+        };
+        double weight = clamp(25 * Math.exp(gaussian(random) * 0.15), 16, 45) * Math.pow(height / 100, 2);
+        String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+
+        sink.user(userId, usernamePrefix + index, name, age, gender, passwordHash);
+        userRows.incrementAndGet();
+
+        // Habits: workouts per week (log-normal, median 3), 1-4 favourite types, weight drift and weigh-in cadence
+        double workoutsPerDay = clamp(3 * Math.exp(gaussian(random) * 0.6), 0.2, 14) / 7;
+        List<String> types = Workout.WORKOUT_TYPES;
+        String[] favourites = new String[1 + random.nextInt(4)];
+        for (int i = 0; i < favourites.length; i++) {
+            favourites[i] = types.get(random.nextInt(types.size()));
+        }
+        double driftPerDay = (gaussian(random) * 0.15 - 0.05) / 7;
+        double c = random.nextDouble();
+        double weighInsPerDay = c < 0.1 ? 0.9 : c < 0.7 ? 1.0 / 7 : 1.0 / 30;
+
+        boolean onBreak = false;
+        CalorieEstimator calories = null;
+        for (int day = historyDays - 1; day >= 0; day--) {
+            LocalDate date = endDate.minusDays(day);
+
+            // About one week in twenty is skipped entirely (holidays, illness)
+            if (day % 7 == 0) {
+                onBreak = random.nextDouble() < 0.05;
+            }
+            weight = Math.max(35, weight + driftPerDay + gaussian(random) * 0.1);
+
+            if (random.nextDouble() < weighInsPerDay || day == historyDays - 1) {
+                // Scale readings vary by about half a kilo from the underlying trend
+                double reading = round1(weight + gaussian(random) * 0.5);
+                sink.measurement(userId, date, reading, round1(height));
+                measurementRows.incrementAndGet();
+                // Calories follow the latest weigh-in, as they do in the app
+                calories = new CalorieEstimator(reading, round1(height), age, gender);
+            }
+
+            if (!onBreak && random.nextDouble() < workoutsPerDay * weekdayFactor(date)) {
+                String type = random.nextDouble() < 0.8
+                        ? favourites[random.nextInt(favourites.length)]
+                        : types.get(random.nextInt(types.size()));
+                double typical = TYPICAL_MINUTES.getOrDefault(type, 30.0);
+                long duration = Math.max(5, Math.round(typical * Math.exp(gaussian(random) * 0.3) / 5) * 5);
+                sink.workout(userId, date, type, duration, calories.estimate(type, duration));
+                workoutRows.incrementAndGet();
+            }
+        }
+    }
+
+    private static double weekdayFactor(LocalDate date) {
+        return switch (date.getDayOfWeek()) {
+            case SATURDAY, SUNDAY -> 1.3;
+            case FRIDAY -> 0.7;
+            default -> 1.0;
+        };
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        // Box-Muller; SplittableRandom has no nextGaussian on Java 17
+        double u = 1 - random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static double round1(double value) {
+        return Math.round(value * 10.0) / 10.0;
+    }
+
+    /**
+     * Derives an independent stream seed per user (SplitMix64 finalizer).
+     */
+    private static long mix(long seed, long index) {
+        long z = seed * 0x9E3779B97F4A7C15L + index;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                System.err.println("ERROR: Expected key=value, got: " + arg);
+                System.exit(2);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+
+        DataGenerator generator = new DataGenerator(
+                Long.parseLong(options.getOrDefault("seed", "42")),
+                Integer.parseInt(options.getOrDefault("users", "1000")),
+                Integer.parseInt(options.getOrDefault("days", "365")),
+                options.containsKey("end") ? LocalDate.parse(options.get("end")) : LocalDate.now());
+        generator.setUsernamePrefix(options.getOrDefault("prefix", "user"));
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        String out = options.getOrDefault("out", "csv:target/data");
+
+        long start = System.currentTimeMillis();
+        if (out.startsWith("csv:")) {
+            generator.generate(threads, CsvSink.factory(Paths.get(out.substring(4))));
+        } else if (out.equals("db")) {
+            generator.setFirstUserId(JdbcSink.nextUserId());
+            generator.generate(threads, JdbcSink.factory());
+            JdbcSink.resyncIdentities();
+            HibernateUtil.shutdown();
+        } else {
+            System.err.println("ERROR: out must be csv:DIR or db, got: " + out);
+            System.exit(2);
+        }
+
+        long millis = Math.max(1, System.currentTimeMillis() - start);
+        long rows = generator.getUserRows() + generator.getWorkoutRows() + generator.getMeasurementRows();
+        System.out.printf("INFO: Generated %d users, %d workouts, %d measurements in %d ms (%.0f rows/s)%n",
+                generator.getUserRows(), generator.getWorkoutRows(), generator.getMeasurementRows(),
+                millis, rows * 1000.0 / millis);
+    }
+}
@@ -0,0 +1,154 @@
+package com.fitnesstracker.bench;
+
+import com.fitnesstracker.HibernateUtil;
+import org.hibernate.Session;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+/**
+ * Inserts one partition of generated data with JDBC batches on its own connection,
+ * committing every {@link #BATCH_SIZE} rows. User IDs are supplied explicitly, so call
+ * {@link #resyncIdentities()} afterwards to move the identity past them.
+ */
+public class JdbcSink implements DataGenerator.Sink {
+
+    static final int BATCH_SIZE = 1000;
+
+    private final ConnectionProvider connections;
+    private final Connection connection;
+    private final PreparedStatement users;
+    private final PreparedStatement workouts;
+    private final PreparedStatement measurements;
+    private int pending;
+
+    public JdbcSink() throws SQLException {
+        // A connection of our own for the whole partition, from the same pool Hibernate uses
+        connections = HibernateUtil.getSessionFactory().unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(ConnectionProvider.class);
+        connection = connections.getConnection();
+        connection.setAutoCommit(false);
+        users = connection.prepareStatement(
+                "INSERT INTO APP_USER (USERID, USERNAME, NAME, AGE, PASSWORD, GENDER) VALUES (?, ?, ?, ?, ?, ?)");
+        workouts = connection.prepareStatement(
+                "INSERT INTO WORKOUT (USER_ID, WORKOUTDATE, WORKOUTTYPE, DURATIONMINUTES, CALORIESBURNED, VERSION) VALUES (?, ?, ?, ?, ?, 0)");
+        measurements = connection.prepareStatement(
+                "INSERT INTO MEASUREMENT (USER_ID, RECORDDATE, WEIGHT, HEIGHT, VERSION) VALUES (?, ?, ?, ?, 0)");
+    }
+
+    public static DataGenerator.SinkFactory factory() {
+        return partition -> new JdbcSink();
+    }
+
+    /**
+     * @return One past the highest existing user ID, where generated IDs should start.
+     */
+    public static long nextUserId() {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            return session.doReturningWork(connection -> {
+                try (Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(USERID), 0) + 1 FROM APP_USER")) {
+                    rs.next();
+                    return rs.getLong(1);
+                }
+            });
+        }
+    }
+
+    /**
+     * Restarts the APP_USER identity after the highest user ID, so rows inserted later by the
+     * application do not collide with the explicitly numbered generated users.
+     */
+    public static void resyncIdentities() {
+        long next = nextUserId();
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            session.doWork(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    if (connection.getMetaData().getDatabaseProductName().toLowerCase().contains("oracle")) {
+                        statement.execute("ALTER TABLE APP_USER MODIFY (USERID GENERATED BY DEFAULT AS IDENTITY (START WITH LIMIT VALUE))");
+                    } else {
+                        statement.execute("ALTER TABLE APP_USER ALTER COLUMN USERID RESTART WITH " + next);
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    public void user(long userId, String username, String name, int age, String gender, String passwordHash) throws SQLException {
+        users.setLong(1, userId);
+        users.setString(2, username);
+        users.setString(3, name);
+        users.setInt(4, age);
+        users.setString(5, passwordHash);
+        users.setString(6, gender);
+        users.addBatch();
+        added();
+    }
+
+    @Override
+    public void workout(long userId, LocalDate date, String type, long durationMinutes, int caloriesBurned) throws SQLException {
+        workouts.setLong(1, userId);
+        workouts.setDate(2, Date.valueOf(date));
+        workouts.setString(3, type);
+        workouts.setLong(4, durationMinutes);
+        workouts.setInt(5, caloriesBurned);
+        workouts.addBatch();
+        added();
+    }
+
+    @Override
+    public void measurement(long userId, LocalDate date, double weight, double height) throws SQLException {
+        measurements.setLong(1, userId);
+        measurements.setDate(2, Date.valueOf(date));
+        measurements.setDouble(3, weight);
+        measurements.setDouble(4, height);
+        measurements.addBatch();
+        added();
+    }
+
+    private void added() throws SQLException {
+        if (++pending >= BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    private void flush() throws SQLException {
+        if (pending > 0) {
+            // Users first, so the foreign keys of their workouts and measurements resolve
+            users.executeBatch();
+            workouts.executeBatch();
+            measurements.executeBatch();
+            connection.commit();
+            pending = 0;
+        }
+    }
+
+    /**
+     * Sends the last batch and releases the connection; a database error is reported as the
+     * IOException a Sink may throw.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            try {
+                flush();
+            } finally {
+                users.close();
+                workouts.close();
+                measurements.close();
+                connections.closeConnection(connection);
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to close JDBC sink: " + e.getMessage(), e);
+        }
+    }
+}
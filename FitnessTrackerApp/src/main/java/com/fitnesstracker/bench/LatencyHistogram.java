@@ -0,0 +1,96 @@
+package com.fitnesstracker.bench;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram in microseconds. Values below 32 us get their own bucket;
+ * above that every power of two is split into 16 linear buckets, so any recorded value
+ * is reported within about 6% of its true value.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 16;
+    private static final int BUCKETS = 1024;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(bucketOf(value));
+        total.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    public long count() {
+        return total.get();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    public double mean() {
+        long n = total.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /**
+     * @param percentile Between 0 and 100.
+     * @return The midpoint of the bucket holding that percentile, in microseconds.
+     */
+    public long percentile(double percentile) {
+        long n = total.get();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(max.get(), (lowerBound(i) + lowerBound(i + 1) - 1) / 2);
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Writes the non-empty buckets as CSV: lower and upper bound in microseconds, count, cumulative fraction.
+     */
+    public void writeCsv(Path file) throws IOException {
+        long n = total.get();
+        long seen = 0;
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println("from_us,to_us,count,cumulative");
+            for (int i = 0; i < BUCKETS; i++) {
+                long c = counts.get(i);
+                if (c == 0) continue;
+                seen += c;
+                out.printf("%d,%d,%d,%.6f%n", lowerBound(i), lowerBound(i + 1) - 1, c, (double) seen / n);
+            }
+        }
+    }
+
+    static int bucketOf(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - 4;
+        return Math.min(BUCKETS - 1, SUB_BUCKETS * shift + (int) (value >>> shift));
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+    }
+}
@@ -0,0 +1,315 @@
+package com.fitnesstracker.bench;
+
+import com.fitnesstracker.HibernateUtil;
+import com.fitnesstracker.dao.UserRepository;
+import com.fitnesstracker.model.Measurement;
+import com.fitnesstracker.model.User;
+import com.fitnesstracker.model.Workout;
+import com.fitnesstracker.service.AuthService;
+import com.fitnesstracker.service.MeasurementService;
+import com.fitnesstracker.service.PasswordHasher;
+import com.fitnesstracker.service.ReportService;
+import com.fitnesstracker.service.WorkoutService;
+import com.fitnesstracker.session.SessionManager;
+import com.fitnesstracker.session.UserSession;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives the service layer with simulated concurrent users and reports latency and
+ * throughput per operation. Each simulated user loops: pick an operation from the mix,
+ * run it, then wait an exponentially distributed think time.
+ *
+ * Usage: mvn -Ploadtest compile exec:java -Dexec.args="users=500 duration=120 think=1000"
+ *
+ * Options (key=value):
+ *   users=50        concurrent simulated users (each is seeded as loaduser0..N-1)
+ *   duration=60     measured seconds, after warmup
+ *   warmup=10       seconds run before measuring
+ *   think=1000      mean think time in milliseconds
+ *   mix=login:5,workout:25,measurement:10,dashboard:50,report:10
+ *   seed=42         makes seeding and operation choice repeatable
+ *   history=90      days of workouts and measurements seeded per user
+ *   db=embedded     in-memory H2 database (default), or "configured" for hibernate.cfg.xml
+ *   out=target/loadtest   directory for the per-operation histogram CSV files
+ *   quiet=true      discard the application's console logging while running
+ */
+public class LoadGenerator {
+
+    enum Operation { LOGIN, WORKOUT, MEASUREMENT, DASHBOARD, REPORT }
+
+    static final String PASSWORD = "loadtest";
+
+    private final Map<String, String> options;
+    private final Map<Operation, LatencyHistogram> histograms = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+
+    private final AuthService authService = new AuthService();
+    private final WorkoutService workoutService = new WorkoutService();
+    private final MeasurementService measurementService = new MeasurementService();
+    private final ReportService reportService = new ReportService();
+    private final SessionManager sessions = new SessionManager();
+
+    private Operation[] mixTable;
+    private volatile boolean measuring;
+
+    public LoadGenerator(Map<String, String> options) {
+        this.options = options;
+        for (Operation op : Operation.values()) {
+            histograms.put(op, new LatencyHistogram());
+            errors.put(op, new AtomicLong());
+        }
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return Integer.parseInt(option(name, String.valueOf(defaultValue)));
+    }
+
+    /**
+     * Points Hibernate at an in-memory H2 database in Oracle mode with the schema created from the entities.
+     * The H2 driver is only on the classpath with the loadtest profile. Hibernate's built-in pool
+     * fails instead of waiting when it is exhausted, so it needs a connection per concurrent user.
+     */
+    public static void useEmbeddedDatabase(String name, int poolSize) {
+        System.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+        System.setProperty("hibernate.connection.url", "jdbc:h2:mem:" + name + ";MODE=Oracle;DB_CLOSE_DELAY=-1");
+        System.setProperty("hibernate.connection.username", "sa");
+        System.setProperty("hibernate.connection.password", "");
+        System.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        System.setProperty("hibernate.connection.pool_size", String.valueOf(poolSize));
+        System.setProperty("hibernate.show_sql", "false");
+        System.setProperty("hibernate.format_sql", "false");
+        System.setProperty("fitnesstracker.schema.mode", "update");
+    }
+
+    private void buildMix(boolean embedded) {
+        // The report comes from an Oracle stored procedure, which the embedded database does not have
+        String defaultMix = embedded
+                ? "login:5,workout:25,measurement:10,dashboard:60,report:0"
+                : "login:5,workout:25,measurement:10,dashboard:50,report:10";
+        List<Operation> table = new ArrayList<>();
+        for (String entry : option("mix", defaultMix).split(",")) {
+            String[] parts = entry.trim().split(":");
+            Operation op = Operation.valueOf(parts[0].trim().toUpperCase());
+            for (int i = 0, weight = Integer.parseInt(parts[1].trim()); i < weight; i++) {
+                table.add(op);
+            }
+        }
+        if (table.isEmpty()) {
+            throw new IllegalArgumentException("Operation mix has no weight: " + option("mix", defaultMix));
+        }
+        mixTable = table.toArray(new Operation[0]);
+    }
+
+    /**
+     * Inserts loaduser0..count-1 with a history of workouts and measurements, unless they already exist.
+     */
+    private void seed(int count, int historyDays, long seed) throws Exception {
+        if (new UserRepository().usernameExists("loaduser0")) {
+            System.out.println("INFO: Load test users already present, skipping seeding.");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        DataGenerator generator = new DataGenerator(seed, count, historyDays, LocalDate.now());
+        generator.setUsernamePrefix("loaduser");
+        // One hash for every user keeps seeding fast; logins still pay the full verification cost
+        generator.setPasswordHash(PasswordHasher.hash(PASSWORD));
+        generator.setFirstUserId(JdbcSink.nextUserId());
+        generator.generate(Runtime.getRuntime().availableProcessors(), JdbcSink.factory());
+        JdbcSink.resyncIdentities();
+
+        System.out.println("INFO: Seeded " + generator.getUserRows() + " users, " + generator.getWorkoutRows()
+                + " workouts and " + generator.getMeasurementRows() + " measurements in "
+                + (System.currentTimeMillis() - start) + " ms.");
+    }
+
+    static Workout randomWorkout(User user, LocalDate date, Random random) {
+        List<String> types = Workout.WORKOUT_TYPES;
+        long duration = 15 + random.nextInt(76);
+        return new Workout(user, date, types.get(random.nextInt(types.size())), duration, (int) (duration * (5 + random.nextInt(8))));
+    }
+
+    private static double round1(double value) {
+        return Math.round(value * 10.0) / 10.0;
+    }
+
+    /**
+     * One simulated user: logs in once, then runs operations from the mix until the deadline.
+     */
+    private void runUser(int index, long seed, long thinkMillis, long deadlineNanos) {
+        Random random = new Random(seed ^ (index * 0x9E3779B97F4A7C15L));
+        String username = "loaduser" + index;
+        UserSession session = login(username);
+
+        while (System.nanoTime() < deadlineNanos) {
+            Operation op = mixTable[random.nextInt(mixTable.length)];
+            long start = System.nanoTime();
+            boolean ok;
+            try {
+                ok = switch (op) {
+                    case LOGIN -> {
+                        UserSession fresh = login(username);
+                        if (fresh != null) {
+                            sessions.close(session);
+                            session = fresh;
+                        }
+                        yield fresh != null;
+                    }
+                    case WORKOUT -> {
+                        if (session == null) yield false;
+                        workoutService.logWorkout(randomWorkout(session.getUser(), LocalDate.now(), random));
+                        yield true;
+                    }
+                    case MEASUREMENT -> {
+                        if (session == null) yield false;
+                        measurementService.logMeasurement(new Measurement(session.getUser(), LocalDate.now(),
+                                round1(60 + random.nextDouble() * 40), round1(160 + random.nextDouble() * 30)));
+                        yield true;
+                    }
+                    case DASHBOARD -> {
+                        if (session == null) yield false;
+                        // Same two reads DashboardController makes when it opens
+                        workoutService.getWorkoutsByUser(session.getUserId());
+                        measurementService.getMeasurementsByUser(session.getUserId());
+                        yield true;
+                    }
+                    case REPORT -> session != null
+                            && !reportService.generateReport(session.getUserId()).startsWith("Error");
+                };
+            } catch (Exception e) {
+                ok = false;
+            }
+            long micros = (System.nanoTime() - start) / 1000;
+
+            if (measuring) {
+                histograms.get(op).record(micros);
+                if (!ok) errors.get(op).incrementAndGet();
+            }
+
+            long think = (long) (-Math.log(1 - random.nextDouble()) * thinkMillis);
+            try {
+                Thread.sleep(Math.min(think, Math.max(0, (deadlineNanos - System.nanoTime()) / 1_000_000)));
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+        sessions.close(session);
+    }
+
+    private UserSession login(String username) {
+        try {
+            User user = authService.authenticate(username, PASSWORD);
+            return user != null ? sessions.open(user) : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    public void run() throws Exception {
+        int users = intOption("users", 50);
+        int durationSeconds = intOption("duration", 60);
+        int warmupSeconds = intOption("warmup", 10);
+        long thinkMillis = intOption("think", 1000);
+        long seed = Long.parseLong(option("seed", "42"));
+        boolean embedded = !"configured".equals(option("db", "embedded"));
+        Path outDir = Paths.get(option("out", "target/loadtest"));
+
+        if (embedded) {
+            useEmbeddedDatabase("loadtest", Math.max(users, Runtime.getRuntime().availableProcessors()) + 4);
+        }
+        buildMix(embedded);
+
+        PrintStream console = System.out;
+        try {
+            HibernateUtil.getSessionFactory();
+            seed(users, intOption("history", 90), seed);
+
+            if (Boolean.parseBoolean(option("quiet", "true"))) {
+                // The DAO logs every call; printing that from hundreds of threads would dominate the latencies
+                System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            }
+
+            console.printf("INFO: Running %d users for %d s (+%d s warmup), think time %d ms, %s database%n",
+                    users, durationSeconds, warmupSeconds, thinkMillis, embedded ? "embedded" : "configured");
+
+            long warmupEnd = System.nanoTime() + warmupSeconds * 1_000_000_000L;
+            long deadline = warmupEnd + durationSeconds * 1_000_000_000L;
+            CountDownLatch done = new CountDownLatch(users);
+            for (int i = 0; i < users; i++) {
+                int index = i;
+                Thread thread = new Thread(() -> {
+                    try {
+                        runUser(index, seed, thinkMillis, deadline);
+                    } finally {
+                        done.countDown();
+                    }
+                }, "load-user-" + i);
+                thread.setDaemon(true);
+                thread.start();
+            }
+
+            Thread.sleep(Math.max(0, (warmupEnd - System.nanoTime()) / 1_000_000));
+            measuring = true;
+            long measureStart = System.nanoTime();
+            done.await();
+            measuring = false;
+            double seconds = (System.nanoTime() - measureStart) / 1e9;
+
+            report(console, seconds, outDir);
+        } finally {
+            System.setOut(console);
+            sessions.shutdown();
+            HibernateUtil.shutdown();
+        }
+    }
+
+    private void report(PrintStream out, double seconds, Path outDir) throws IOException {
+        Files.createDirectories(outDir);
+        out.printf("%n%-12s %8s %7s %8s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "errors", "ops/s", "mean ms", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        long totalCount = 0;
+        for (Operation op : Operation.values()) {
+            LatencyHistogram h = histograms.get(op);
+            if (h.count() == 0) continue;
+            totalCount += h.count();
+            out.printf("%-12s %8d %7d %8.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    op.name().toLowerCase(), h.count(), errors.get(op).get(), h.count() / seconds,
+                    h.mean() / 1000, h.percentile(50) / 1000.0, h.percentile(90) / 1000.0,
+                    h.percentile(99) / 1000.0, h.percentile(99.9) / 1000.0, h.max() / 1000.0);
+            h.writeCsv(outDir.resolve(op.name().toLowerCase() + ".csv"));
+        }
+        out.printf("%-12s %8d %7s %8.1f%n", "total", totalCount, "", totalCount / seconds);
+        out.println("INFO: Histograms written to " + outDir.toAbsolutePath());
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                System.err.println("ERROR: Expected key=value, got: " + arg);
+                System.exit(2);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        new LoadGenerator(options).run();
+    }
+}
@@ -0,0 +1,173 @@
+package com.fitnesstracker.bench;
+
+import com.fitnesstracker.HibernateUtil;
+import com.fitnesstracker.dao.ActivityDAO;
+import com.fitnesstracker.dao.UserRepository;
+import com.fitnesstracker.dao.WorkoutRepository;
+import com.fitnesstracker.model.User;
+import com.fitnesstracker.model.Workout;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Single-threaded per-call cost of the repository reads against the ad-hoc HQL they
+ * replaced: each pair runs the same lookup once through a named query and once through a
+ * query string built and handed to Hibernate on every call, as ActivityDAO used to.
+ * Runs against the embedded H2 database, so the numbers are dominated by Hibernate's own
+ * overhead rather than by network round trips.
+ *
+ * Usage: mvn -Ploadtest compile exec:java -Dexec.mainClass=com.fitnesstracker.bench.RepositoryBench
+ *            -Dexec.args="iterations=20000"
+ *
+ * Options (key=value):
+ *   iterations=20000  measured calls per case
+ *   warmup=5000       calls per case before measuring
+ *   history=200       workouts seeded for the benchmark user
+ *   seed=42           makes the seeded history repeatable
+ */
+public class RepositoryBench {
+
+    private interface Call {
+        void run(int i);
+    }
+
+    private final Map<String, String> options;
+    private final WorkoutRepository workouts = new WorkoutRepository();
+    private final UserRepository users = new UserRepository();
+
+    private User user;
+    private List<Workout> history;
+
+    public RepositoryBench(Map<String, String> options) {
+        this.options = options;
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return Integer.parseInt(options.getOrDefault(name, String.valueOf(defaultValue)));
+    }
+
+    private void seed(int historyDays, long seed) {
+        Random random = new Random(seed);
+        user = new User();
+        user.setUsername("benchuser");
+        user.setName("Bench User");
+        user.setAge(30);
+        user.setGender("Male");
+        user.setPassword("unused");
+
+        LocalDate today = LocalDate.now();
+        new ActivityDAO().inTransaction("Benchmark seed", unit -> {
+            users.save(unit, user);
+            for (int day = historyDays; day > 0; day--) {
+                workouts.save(unit, LoadGenerator.randomWorkout(user, today.minusDays(day), random));
+            }
+            return null;
+        });
+        history = workouts.findByUser(user.getUserId());
+    }
+
+    public void run() {
+        int iterations = intOption("iterations", 20000);
+        int warmup = intOption("warmup", 5000);
+        LoadGenerator.useEmbeddedDatabase("bench", 4);
+
+        PrintStream console = System.out;
+        try {
+            HibernateUtil.getSessionFactory();
+            seed(intOption("history", 200), Long.parseLong(options.getOrDefault("seed", "42")));
+            // The DAO logs every call
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+            Long userId = user.getUserId();
+            String username = user.getUsername();
+            LocalDate from = LocalDate.now().minusDays(30);
+            LocalDate to = LocalDate.now();
+
+            Map<String, Call> cases = new LinkedHashMap<>();
+            cases.put("findByUser, ad-hoc HQL", i -> adHocWorkouts(userId, from, to));
+            cases.put("findByUser, named", i -> workouts.findByUser(userId, from, to));
+            cases.put("existsById, load entity", i -> loadWorkout(history.get(i % history.size()).getWorkoutId()));
+            cases.put("existsById, named count", i -> workouts.existsById(history.get(i % history.size()).getWorkoutId()));
+            cases.put("findByUsername, ad-hoc HQL", i -> adHocUser(username));
+            cases.put("findByUsername, named", i -> users.findByUsername(username));
+
+            console.printf("INFO: %d calls per case after %d warmup calls, %d workouts seeded%n",
+                    iterations, warmup, history.size());
+            console.printf("%n%-28s %10s %9s %9s %9s%n", "case", "ops/s", "mean us", "p50 us", "p99 us");
+            for (Map.Entry<String, Call> entry : cases.entrySet()) {
+                Call call = entry.getValue();
+                for (int i = 0; i < warmup; i++) {
+                    call.run(i);
+                }
+                LatencyHistogram histogram = new LatencyHistogram();
+                long totalNanos = 0;
+                for (int i = 0; i < iterations; i++) {
+                    long start = System.nanoTime();
+                    call.run(i);
+                    long nanos = System.nanoTime() - start;
+                    totalNanos += nanos;
+                    histogram.record(nanos / 1000);
+                }
+                double meanMicros = totalNanos / 1000.0 / iterations;
+                console.printf("%-28s %10.0f %9.1f %9d %9d%n", entry.getKey(), 1_000_000 / meanMicros,
+                        meanMicros, histogram.percentile(50), histogram.percentile(99));
+            }
+        } finally {
+            System.setOut(console);
+            HibernateUtil.shutdown();
+        }
+    }
+
+    // --- The previous ActivityDAO implementations, as the baseline ---
+
+    private List<Workout> adHocWorkouts(Long userId, LocalDate from, LocalDate to) {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            String hql = "FROM Workout w WHERE w.user.userId = :userId AND w.deletedAt IS NULL"
+                    + (from != null ? " AND w.workoutdate >= :from" : "")
+                    + (to != null ? " AND w.workoutdate <= :to" : "")
+                    + " ORDER BY w.workoutdate ASC";
+            Query<Workout> query = session.createQuery(hql, Workout.class);
+            query.setParameter("userId", userId);
+            if (from != null) query.setParameter("from", from);
+            if (to != null) query.setParameter("to", to);
+            return query.getResultList();
+        }
+    }
+
+    private Workout loadWorkout(Long id) {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            Workout workout = session.get(Workout.class, id);
+            return workout != null && workout.getDeletedAt() == null ? workout : null;
+        }
+    }
+
+    private User adHocUser(String username) {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            return session.createQuery("FROM User WHERE username = :username AND deletedAt IS NULL", User.class)
+                    .setParameter("username", username)
+                    .uniqueResult();
+        }
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                System.err.println("ERROR: Expected key=value, got: " + arg);
+                System.exit(2);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        new RepositoryBench(options).run();
+    }
+}
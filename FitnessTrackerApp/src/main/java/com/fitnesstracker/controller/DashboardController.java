@@ -1,8 +1,25 @@
 package com.fitnesstracker.controller;
 import com.fitnesstracker.App;
+import com.fitnesstracker.ViewCache;
+import com.fitnesstracker.dao.ActivityAnalytics;
 import com.fitnesstracker.dao.ActivityDAO;
+import com.fitnesstracker.dao.EditConflictException;
+import com.fitnesstracker.dao.GoalTracker;
+import com.fitnesstracker.dao.MeasurementRepository;
+import com.fitnesstracker.dao.SnapshotStore;
+import com.fitnesstracker.dao.WorkoutRepository;
+import com.fitnesstracker.dao.WriteBehindQueue;
+import com.fitnesstracker.event.DomainEvent;
+import com.fitnesstracker.event.DomainEventBus;
+import com.fitnesstracker.model.Goal;
 import com.fitnesstracker.model.Measurement;
+import com.fitnesstracker.model.PersonalRecord;
 import com.fitnesstracker.model.Workout;
+import com.fitnesstracker.service.GoalService;
+import com.fitnesstracker.service.WeightTrend;
+import com.fitnesstracker.session.UserSession;
+import com.fitnesstracker.validation.ValidationException;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
@@ -16,6 +33,9 @@ import javafx.scene.chart.BarChart;
 import javafx.scene.chart.LineChart;
 import javafx.scene.chart.XYChart;
 import javafx.scene.control.*;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
 import javafx.scene.text.Text;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
@@ -23,6 +43,8 @@ import javafx.stage.Stage;
 import java.io.IOException;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -56,21 +78,90 @@ public class DashboardController {
     @FXML private TableColumn<Workout, Integer> durationColumn;
     @FXML private TableColumn<Workout, Integer> caloriesColumn;
 
+    // Records & Streaks
+    @FXML private Label dayStreakLabel;
+    @FXML private Label weekStreakLabel;
+    @FXML private Label consistencyLabel;
+    @FXML private Label weeklyMinutesLabel;
+    @FXML private Label bestDayStreakLabel;
+    @FXML private Label bestWeekStreakLabel;
+    @FXML private Label topRecordsLabel;
+    @FXML private TableView<PersonalRecord> recordTable;
+    @FXML private TableColumn<PersonalRecord, String> recordTypeColumn;
+    @FXML private TableColumn<PersonalRecord, Integer> recordSessionsColumn;
+    @FXML private TableColumn<PersonalRecord, String> recordLongestColumn;
+    @FXML private TableColumn<PersonalRecord, String> recordCaloriesColumn;
+    @FXML private VBox goalsBox;
+
     private final ActivityDAO activityDAO = new ActivityDAO();
+    private final WorkoutRepository workoutRepository = new WorkoutRepository();
+    private final MeasurementRepository measurementRepository = new MeasurementRepository();
+    private final GoalService goalService = new GoalService();
     private final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MMM dd, yyyy");
 
+    // The logged-in user's session; set by open()
+    private UserSession session;
+
+    // Local snapshot rendered on open while the database sync runs in the background
+    private SnapshotStore snapshotStore;
+    // Only the most recently started sync is allowed to repaint the dashboard
+    private final AtomicLong syncGeneration = new AtomicLong();
+
+    // Changes to the user's data, from the dialogs, the write-behind queue or elsewhere
+    private static final long REFRESH_DELAY_MILLIS = 150;
+    private DomainEventBus.Subscription eventSubscription;
+    // Set while this dashboard makes a change it repaints itself; its events are not delivered
+    private volatile Thread localChangeThread;
+
     @FXML
     public void initialize() {
-        if (App.getCurrentUser() != null) {
-            String name = App.getCurrentUser().getName();
-            welcomeMessageText.setText("Welcome back, " + name + "!");
+        // Setup tables. Nothing here may depend on the current user: the view is
+        // preloaded before anyone logs in, and populated later by open().
+        setupMeasurementTable();
+        setupWorkoutTable();
+        setupRecordTable();
+    }
 
-            // Setup tables
-            setupMeasurementTable();
-            setupWorkoutTable();
+    /**
+     * Populate the dashboard for the session's user. Called by App after login.
+     */
+    public void open(UserSession session) {
+        this.session = session;
+        if (session != null) {
+            String name = session.getUser().getName();
+            welcomeMessageText.setText("Welcome back, " + name + "!");
 
-            // Load data
+            // Render instantly from the local snapshot, then reconcile with the database
+            snapshotStore = session.cached("snapshot", () -> new SnapshotStore(session.getUser()));
+            snapshotStore.load();
+            if (!snapshotStore.isEmpty()) {
+                List<Measurement> snapshotMeasurements = snapshotStore.getMeasurements();
+                // Not cached: the snapshot may be behind the database
+                renderSummaryData(snapshotStore.getWorkouts(), snapshotMeasurements, WeightTrend.of(snapshotMeasurements));
+            }
             loadSummaryData();
+
+            Long userId = session.getUserId();
+            if (eventSubscription != null) {
+                eventSubscription.close();
+            }
+            eventSubscription = DomainEventBus.getInstance().subscribe("dashboard",
+                    event -> userId.equals(event.userId()) && Thread.currentThread() != localChangeThread,
+                    REFRESH_DELAY_MILLIS, this::onDomainEvents);
+
+            if (WriteBehindQueue.isEnabled()) {
+                WriteBehindQueue.getInstance().setListener(new WriteBehindQueue.Listener() {
+                    @Override
+                    public void onFlushed(int count) {
+                        // Applied writes arrive through onDomainEvents
+                    }
+
+                    @Override
+                    public void onFailure(Object entity, Exception error) {
+                        Platform.runLater(() -> showQueuedSaveFailure(entity, error));
+                    }
+                });
+            }
         } else {
             try {
                 App.logout();
@@ -105,6 +196,9 @@ public class DashboardController {
             return new SimpleDoubleProperty(bmi).asObject();
         });
 
+        // Ctrl/Shift-click selects several rows for the bulk actions
+        measurementTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+
         // Add context menu to measurement table
         measurementTable.setRowFactory(tv -> {
             TableRow<Measurement> row = new TableRow<>();
@@ -120,13 +214,28 @@ public class DashboardController {
 
             MenuItem deleteItem = new MenuItem("Delete Measurement");
             deleteItem.setOnAction(event -> {
-                Measurement selectedMeasurement = measurementTable.getSelectionModel().getSelectedItem();
-                if (selectedMeasurement != null) {
-                    confirmAndDeleteMeasurement(selectedMeasurement);
+                List<Measurement> selected = new ArrayList<>(measurementTable.getSelectionModel().getSelectedItems());
+                selected.removeIf(Measurement::isArchived);
+                if (selected.size() > 1) {
+                    confirmAndDeleteMeasurements(selected);
+                } else if (!selected.isEmpty()) {
+                    confirmAndDeleteMeasurement(selected.get(0));
                 }
             });
 
-            contextMenu.getItems().addAll(editItem, deleteItem);
+            MenuItem shiftItem = new MenuItem("Shift Dates...");
+            shiftItem.setOnAction(event -> shiftSelectedMeasurements());
+
+            contextMenu.getItems().addAll(editItem, deleteItem, new SeparatorMenuItem(), shiftItem);
+            contextMenu.setOnShowing(event -> {
+                List<Measurement> selected = measurementTable.getSelectionModel().getSelectedItems();
+                int count = (int) selected.stream().filter(m -> !m.isArchived()).count();
+                // Archived months are read-only
+                editItem.setDisable(count != 1 || selected.size() != 1);
+                deleteItem.setDisable(count == 0);
+                shiftItem.setDisable(count == 0);
+                deleteItem.setText(count > 1 ? "Delete " + count + " Measurements" : "Delete Measurement");
+            });
 
             // Set context menu on row, but only display it on non-null items
             row.contextMenuProperty().bind(
@@ -161,6 +270,8 @@ public class DashboardController {
                 new SimpleIntegerProperty(cellData.getValue().getCaloriesBurned()).asObject()
         );
 
+        workoutTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+
         // Add context menu to workout table
         workoutTable.setRowFactory(tv -> {
             TableRow<Workout> row = new TableRow<>();
@@ -176,13 +287,32 @@ public class DashboardController {
 
             MenuItem deleteItem = new MenuItem("Delete Workout");
             deleteItem.setOnAction(event -> {
-                Workout selectedWorkout = workoutTable.getSelectionModel().getSelectedItem();
-                if (selectedWorkout != null) {
-                    confirmAndDeleteWorkout(selectedWorkout);
+                List<Workout> selected = new ArrayList<>(workoutTable.getSelectionModel().getSelectedItems());
+                selected.removeIf(Workout::isArchived);
+                if (selected.size() > 1) {
+                    confirmAndDeleteWorkouts(selected);
+                } else if (!selected.isEmpty()) {
+                    confirmAndDeleteWorkout(selected.get(0));
                 }
             });
 
-            contextMenu.getItems().addAll(editItem, deleteItem);
+            MenuItem retypeItem = new MenuItem("Change Type...");
+            retypeItem.setOnAction(event -> retypeSelectedWorkouts());
+
+            MenuItem shiftItem = new MenuItem("Shift Dates...");
+            shiftItem.setOnAction(event -> shiftSelectedWorkouts());
+
+            contextMenu.getItems().addAll(editItem, deleteItem, new SeparatorMenuItem(), retypeItem, shiftItem);
+            contextMenu.setOnShowing(event -> {
+                List<Workout> selected = workoutTable.getSelectionModel().getSelectedItems();
+                int count = (int) selected.stream().filter(w -> !w.isArchived()).count();
+                // Archived months are read-only
+                editItem.setDisable(count != 1 || selected.size() != 1);
+                deleteItem.setDisable(count == 0);
+                retypeItem.setDisable(count == 0);
+                shiftItem.setDisable(count == 0);
+                deleteItem.setText(count > 1 ? "Delete " + count + " Workouts" : "Delete Workout");
+            });
 
             // Set context menu on row, but only display it on non-null items
             row.contextMenuProperty().bind(
@@ -194,6 +324,31 @@ public class DashboardController {
         });
     }
 
+    /**
+     * Setup personal record table columns
+     */
+    private void setupRecordTable() {
+        recordTypeColumn.setCellValueFactory(cellData ->
+                new SimpleStringProperty(cellData.getValue().getWorkoutType())
+        );
+
+        recordSessionsColumn.setCellValueFactory(cellData ->
+                new SimpleIntegerProperty(cellData.getValue().getSessionCount()).asObject()
+        );
+
+        recordLongestColumn.setCellValueFactory(cellData -> {
+            PersonalRecord r = cellData.getValue();
+            return new SimpleStringProperty(r.getLongestMinutes() == null ? "-"
+                    : r.getLongestMinutes() + " min (" + r.getLongestOn().format(DATE_FORMATTER) + ")");
+        });
+
+        recordCaloriesColumn.setCellValueFactory(cellData -> {
+            PersonalRecord r = cellData.getValue();
+            return new SimpleStringProperty(r.getMostCalories() == null ? "-"
+                    : r.getMostCalories() + " kcal (" + r.getMostCaloriesOn().format(DATE_FORMATTER) + ")");
+        });
+    }
+
     /**
      * Calculate BMI from measurement
      */
@@ -207,15 +362,234 @@ public class DashboardController {
     }
 
     /**
-     * Load all summary data, charts, and tables
+     * Refresh after committed changes to the user's data, one reload per burst. Called on an
+     * event bus thread.
+     */
+    private void onDomainEvents(List<DomainEvent> events, boolean missed) {
+        boolean data = missed;
+        boolean measurements = missed;
+        boolean goals = false;
+        for (DomainEvent event : events) {
+            data |= event.affectsWorkouts() || event.affectsMeasurements();
+            measurements |= event.affectsMeasurements();
+            goals |= event instanceof DomainEvent.GoalChanged;
+        }
+        if (measurements) {
+            // Built from measurements that may predate the change, e.g. before a queued write was applied
+            session.evict(WorkoutLogController.CALORIE_ESTIMATOR_KEY);
+            session.evict(MeasurementLogController.WEIGHT_TREND_KEY);
+        }
+
+        boolean reload = data;
+        boolean reloadGoals = goals;
+        Platform.runLater(() -> {
+            if (session.isClosed()) return;
+            if (reload) {
+                loadSummaryData(); // Includes the goals
+            } else if (reloadGoals) {
+                loadGoals();
+            }
+        });
+    }
+
+    /**
+     * Run a change whose result this dashboard repaints from the rows on screen, so that its
+     * events do not trigger a reload as well
+     */
+    private <T> T applyLocally(Supplier<T> change) {
+        localChangeThread = Thread.currentThread();
+        try {
+            return change.get();
+        } finally {
+            localChangeThread = null;
+        }
+    }
+
+    /**
+     * Load all summary data from the database on a background thread, update the
+     * local snapshot, and repaint the dashboard when the results arrive
      */
     private void loadSummaryData() {
-        if (App.getCurrentUser() == null) return;
-        Long userId = App.getCurrentUser().getUserId();
+        if (session == null || session.isClosed()) return;
+        Long userId = session.getUserId();
+        long generation = syncGeneration.incrementAndGet();
+
+        session.execute(() -> {
+            Optional<List<Workout>> loadedWorkouts = workoutRepository.tryFindByUser(userId);
+            Optional<List<Measurement>> loadedMeasurements = measurementRepository.tryFindByUser(userId);
+            if (loadedWorkouts.isEmpty() || loadedMeasurements.isEmpty()) {
+                // Offline or failed: keep the snapshot on screen and on disk rather than reconcile it with nothing
+                System.err.println("ERROR: Dashboard sync failed; showing the last snapshot");
+                return;
+            }
+            List<Workout> workouts = loadedWorkouts.get();
+            List<Measurement> measurements = loadedMeasurements.get();
 
-        List<Workout> workouts = activityDAO.findAllWorkoutsByUserId(userId);
-        List<Measurement> measurements = activityDAO.findAllMeasurementsByUserId(userId);
+            WeightTrend trend = session.cached(MeasurementLogController.WEIGHT_TREND_KEY, () -> WeightTrend.of(measurements));
+
+            if (snapshotStore != null) {
+                snapshotStore.reconcile(workouts, measurements);
+            }
 
+            Platform.runLater(() -> {
+                if (generation == syncGeneration.get() && !session.isClosed()) {
+                    renderSummaryData(workouts, measurements, trend);
+                }
+            });
+        });
+        loadActivityStats();
+        loadGoals();
+    }
+
+    /**
+     * Read streaks and personal records on a background thread and show them when they arrive.
+     * These come from stored running totals, not from the rows loaded for the tables.
+     */
+    private void loadActivityStats() {
+        if (session == null || session.isClosed()) return;
+        Long userId = session.getUserId();
+
+        session.execute(() -> {
+            ActivityAnalytics.Summary stats = activityDAO.findActivityStats(userId);
+            if (stats == null) return;
+            Platform.runLater(() -> {
+                if (!session.isClosed()) {
+                    renderActivityStats(stats);
+                }
+            });
+        });
+    }
+
+    /**
+     * Populate the Records & Streaks tab
+     */
+    private void renderActivityStats(ActivityAnalytics.Summary stats) {
+        dayStreakLabel.setText(stats.dayStreak() + (stats.dayStreak() == 1 ? " day" : " days"));
+        weekStreakLabel.setText(stats.weekStreak() + (stats.weekStreak() == 1 ? " week" : " weeks"));
+        bestDayStreakLabel.setText("Best: " + stats.bestDayStreak() + " days");
+        bestWeekStreakLabel.setText("Best: " + stats.bestWeekStreak() + " weeks");
+
+        if (stats.workoutCount() == 0) {
+            consistencyLabel.setText("N/A");
+            weeklyMinutesLabel.setText("N/A");
+            topRecordsLabel.setText("Log a workout to start setting records.");
+        } else {
+            consistencyLabel.setText(String.format("%.0f%%", stats.consistency() * 100));
+            weeklyMinutesLabel.setText(String.format("%.0f min", stats.weeklyMinutesAverage()));
+
+            List<String> highlights = new ArrayList<>();
+            PersonalRecord longest = stats.longestSession();
+            if (longest != null) {
+                highlights.add("Longest session: " + longest.getWorkoutType() + ", " + longest.getLongestMinutes()
+                        + " min on " + longest.getLongestOn().format(DATE_FORMATTER));
+            }
+            PersonalRecord mostCalories = stats.mostCaloriesSession();
+            if (mostCalories != null) {
+                highlights.add("Most calories: " + mostCalories.getWorkoutType() + ", " + mostCalories.getMostCalories()
+                        + " kcal on " + mostCalories.getMostCaloriesOn().format(DATE_FORMATTER));
+            }
+            topRecordsLabel.setText(String.join("    ", highlights));
+        }
+
+        recordTable.setItems(FXCollections.observableArrayList(stats.personalRecords()));
+    }
+
+    /**
+     * Read the user's goals on a background thread and show them when they arrive.
+     * Progress is kept up to date as data is logged, so this does not read the history.
+     */
+    private void loadGoals() {
+        if (session == null || session.isClosed()) return;
+        Long userId = session.getUserId();
+
+        session.execute(() -> {
+            List<GoalTracker.Progress> goals = goalService.getGoals(userId);
+            if (goals == null) return;
+            Platform.runLater(() -> {
+                if (!session.isClosed()) {
+                    renderGoals(goals);
+                }
+            });
+        });
+    }
+
+    /**
+     * Populate the Goals section of the Records & Streaks tab
+     */
+    private void renderGoals(List<GoalTracker.Progress> goals) {
+        goalsBox.getChildren().clear();
+        if (goals.isEmpty()) {
+            goalsBox.getChildren().add(new Label("No goals yet. Use Log Data > Add Goal... to set one."));
+            return;
+        }
+
+        for (GoalTracker.Progress progress : goals) {
+            Goal goal = progress.goal();
+            String format = goal.getType() == Goal.Type.TARGET_WEIGHT ? "%.1f" : "%.0f";
+            String unit = " " + goal.getType().getUnit();
+            String text = goal.getType().getLabel() + ": " + String.format(format, progress.current()) + unit
+                    + " / " + String.format(format, goal.getTarget()) + unit;
+            if (goal.getType() == Goal.Type.TARGET_WEIGHT) {
+                text += goal.getAchievedOn() != null
+                        ? " (reached " + goal.getAchievedOn().format(DATE_FORMATTER) + ")"
+                        : " (from " + String.format(format, goal.getStartValue()) + unit + ")";
+            } else {
+                text += " since " + progress.since().format(DATE_FORMATTER);
+            }
+
+            Label label = new Label(text);
+            label.setMinWidth(380);
+            ProgressBar bar = new ProgressBar(progress.fraction());
+            bar.setPrefWidth(300);
+            bar.setStyle(progress.achieved() ? "-fx-accent: #4CAF50;" : "-fx-accent: #2196F3;");
+            HBox.setHgrow(bar, Priority.ALWAYS);
+
+            Button remove = new Button("Remove");
+            remove.setOnAction(e -> removeGoal(goal));
+
+            HBox row = new HBox(15, label, bar, remove);
+            row.setStyle("-fx-alignment: center-left;");
+            goalsBox.getChildren().add(row);
+        }
+    }
+
+    private void removeGoal(Goal goal) {
+        try {
+            goalService.deleteGoal(session.getUserId(), goal.getGoalId());
+        } catch (Exception e) {
+            System.err.println("Failed to remove goal: " + e.getMessage());
+            e.printStackTrace();
+            Alert errorAlert = new Alert(Alert.AlertType.ERROR);
+            errorAlert.setTitle("Error");
+            errorAlert.setHeaderText("Failed to Remove Goal");
+            errorAlert.setContentText("An error occurred while trying to remove the goal.");
+            errorAlert.showAndWait();
+        }
+    }
+
+    /**
+     * Repaint the dashboard from the rows already on screen after a bulk change, instead of
+     * reloading everything, and bring the local snapshot up to date in the background
+     */
+    private void refreshAfterBulkChange(List<Workout> workouts, List<Measurement> measurements) {
+        syncGeneration.incrementAndGet(); // A sync started before the change must not repaint over it
+        WeightTrend trend = session.cached(MeasurementLogController.WEIGHT_TREND_KEY, () -> WeightTrend.of(measurements));
+        renderSummaryData(new ArrayList<>(workouts), new ArrayList<>(measurements), trend);
+
+        if (snapshotStore != null) {
+            SnapshotStore store = snapshotStore;
+            List<Workout> workoutCopy = new ArrayList<>(workouts);
+            List<Measurement> measurementCopy = new ArrayList<>(measurements);
+            session.execute(() -> store.reconcile(workoutCopy, measurementCopy));
+        }
+        loadActivityStats();
+        loadGoals();
+    }
+
+    /**
+     * Populate summary metrics, charts, and tables
+     */
+    private void renderSummaryData(List<Workout> workouts, List<Measurement> measurements, WeightTrend trend) {
         System.out.println("DEBUG: Loaded " + workouts.size() + " workouts");
         System.out.println("DEBUG: Loaded " + measurements.size() + " measurements");
 
@@ -265,6 +639,7 @@ public class DashboardController {
 
         if (!weightSeries.getData().isEmpty()) {
             weightBmiChart.getData().add(weightSeries);
+            addTrendSeries(trend);
         }
 
         // Populate calorie chart
@@ -297,6 +672,65 @@ public class DashboardController {
         System.out.println("DEBUG: Tables populated - Measurements: " + measurements.size() + ", Workouts: " + workouts.size());
     }
 
+    /**
+     * Report a save that the write-behind queue could not apply after its dialog was closed
+     */
+    private void showQueuedSaveFailure(Object entity, Exception error) {
+        // Trigger errors can be wrapped several levels deep
+        StringBuilder messages = new StringBuilder();
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t.getMessage() != null) messages.append(t.getMessage()).append('\n');
+        }
+
+        String what;
+        String detail;
+        if (error instanceof EditConflictException) {
+            what = entity instanceof Workout ? "workout" : "measurement";
+            detail = "It was changed or deleted elsewhere before your edit was saved. The latest version is shown now.";
+        } else if (entity instanceof Workout) {
+            Workout workout = (Workout) entity;
+            what = "workout '" + workout.getWorkoutType() + "' from " + workout.getWorkoutDate().format(DATE_FORMATTER);
+            detail = WorkoutLogController.describeSaveError(messages.toString());
+        } else {
+            session.evict(MeasurementLogController.WEIGHT_TREND_KEY); // The trend already counted it
+            Measurement measurement = (Measurement) entity;
+            what = "measurement from " + measurement.getRecorddate().format(DATE_FORMATTER);
+            detail = "Failed to save: " + error.getMessage();
+        }
+
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Error");
+        alert.setHeaderText("Failed to save " + what);
+        alert.setContentText(detail);
+        alert.show();
+
+        loadSummaryData();
+    }
+
+    /**
+     * Add the smoothed weight and its projection to the weight chart
+     */
+    private void addTrendSeries(WeightTrend trend) {
+        if (trend == null || trend.isEmpty()) return;
+        DateTimeFormatter chartFormat = DateTimeFormatter.ofPattern("MMM dd");
+
+        XYChart.Series<String, Number> trendSeries = new XYChart.Series<>();
+        trendSeries.setName("Trend (kg)");
+        trend.forEachPoint((date, weight, smoothed) ->
+                trendSeries.getData().add(new XYChart.Data<>(date.format(chartFormat), smoothed)));
+        weightBmiChart.getData().add(trendSeries);
+
+        if (Double.isNaN(trend.slopePerDay())) return;
+        XYChart.Series<String, Number> projectionSeries = new XYChart.Series<>();
+        projectionSeries.setName("Projection (kg)");
+        java.time.LocalDate latest = trend.latestDate();
+        for (int week = 0; week <= 4; week++) {
+            java.time.LocalDate date = latest.plusWeeks(week);
+            projectionSeries.getData().add(new XYChart.Data<>(date.format(chartFormat), trend.forecast(date)));
+        }
+        weightBmiChart.getData().add(projectionSeries);
+    }
+
     /**
      * Get BMI category
      */
@@ -312,18 +746,18 @@ public class DashboardController {
      */
     private void showEditMeasurementDialog(Measurement measurement) {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/MeasurementLogView.fxml"));
-            Parent root = loader.load();
+            FXMLLoader loader = ViewCache.take("MeasurementLogView");
+            Parent root = loader.getRoot();
 
             // Get the controller and initialize it with existing measurement data
             MeasurementLogController controller = loader.getController();
+            controller.setSession(session);
             controller.initializeForEdit(measurement);
 
             Stage editStage = new Stage();
             editStage.setTitle("Edit Measurement");
             editStage.initModality(Modality.APPLICATION_MODAL);
             editStage.setScene(new Scene(root));
-            editStage.setOnHidden(e -> loadSummaryData()); // Refresh data when dialog is closed
             editStage.show();
 
         } catch (IOException e) {
@@ -343,18 +777,18 @@ public class DashboardController {
      */
     private void showEditWorkoutDialog(Workout workout) {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/WorkoutLogView.fxml"));
-            Parent root = loader.load();
+            FXMLLoader loader = ViewCache.take("WorkoutLogView");
+            Parent root = loader.getRoot();
 
             // Get the controller and initialize it with existing workout data
             WorkoutLogController controller = loader.getController();
+            controller.setSession(session);
             controller.initializeForEdit(workout);
 
             Stage editStage = new Stage();
             editStage.setTitle("Edit Workout");
             editStage.initModality(Modality.APPLICATION_MODAL);
             editStage.setScene(new Scene(root));
-            editStage.setOnHidden(e -> loadSummaryData()); // Refresh data when dialog is closed
             editStage.show();
 
         } catch (IOException e) {
@@ -382,14 +816,20 @@ public class DashboardController {
         Optional<ButtonType> result = confirmDialog.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
             try {
-                activityDAO.delete(measurement);
-                loadSummaryData(); // Refresh data after deletion
+                measurementRepository.delete(measurement); // The dashboard refreshes on the delete event
+
+                offerUndo("Measurement deleted successfully.", () -> restoreMeasurements(List.of(measurement)));
 
-                Alert successAlert = new Alert(Alert.AlertType.INFORMATION);
-                successAlert.setTitle("Success");
-                successAlert.setHeaderText(null);
-                successAlert.setContentText("Measurement deleted successfully.");
-                successAlert.showAndWait();
+            } catch (EditConflictException e) {
+                System.out.println("DEBUG: " + e.getMessage());
+                loadSummaryData(); // Show what is stored now
+
+                Alert conflictAlert = new Alert(Alert.AlertType.WARNING);
+                conflictAlert.setTitle("Not Deleted");
+                conflictAlert.setHeaderText("Measurement Changed Elsewhere");
+                conflictAlert.setContentText("This measurement was edited after the dashboard loaded it, so it was not deleted. "
+                        + "Check the refreshed entry and delete it again if needed.");
+                conflictAlert.showAndWait();
 
             } catch (Exception e) {
                 System.err.println("Failed to delete measurement: " + e.getMessage());
@@ -418,14 +858,20 @@ public class DashboardController {
         Optional<ButtonType> result = confirmDialog.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
             try {
-                activityDAO.delete(workout);
-                loadSummaryData(); // Refresh data after deletion
+                workoutRepository.delete(workout); // The dashboard refreshes on the delete event
+
+                offerUndo("Workout deleted successfully.", () -> restoreWorkouts(List.of(workout)));
+
+            } catch (EditConflictException e) {
+                System.out.println("DEBUG: " + e.getMessage());
+                loadSummaryData(); // Show what is stored now
 
-                Alert successAlert = new Alert(Alert.AlertType.INFORMATION);
-                successAlert.setTitle("Success");
-                successAlert.setHeaderText(null);
-                successAlert.setContentText("Workout deleted successfully.");
-                successAlert.showAndWait();
+                Alert conflictAlert = new Alert(Alert.AlertType.WARNING);
+                conflictAlert.setTitle("Not Deleted");
+                conflictAlert.setHeaderText("Workout Changed Elsewhere");
+                conflictAlert.setContentText("This workout was edited after the dashboard loaded it, so it was not deleted. "
+                        + "Check the refreshed entry and delete it again if needed.");
+                conflictAlert.showAndWait();
 
             } catch (Exception e) {
                 System.err.println("Failed to delete workout: " + e.getMessage());
@@ -440,16 +886,294 @@ public class DashboardController {
         }
     }
 
+    /**
+     * Confirm and delete several workouts with one statement
+     */
+    private void confirmAndDeleteWorkouts(List<Workout> workouts) {
+        Alert confirmDialog = new Alert(Alert.AlertType.CONFIRMATION);
+        confirmDialog.setTitle("Confirm Delete");
+        confirmDialog.setHeaderText("Delete " + workouts.size() + " Workouts");
+        confirmDialog.setContentText("Are you sure you want to delete the " + workouts.size() + " selected workouts?");
+
+        Optional<ButtonType> result = confirmDialog.showAndWait();
+        if (result.isPresent() && result.get() == ButtonType.OK) {
+            try {
+                Set<Long> ids = workoutIds(workouts);
+                int deleted = applyLocally(() -> activityDAO.deleteWorkouts(session.getUserId(), ids));
+
+                List<Workout> remaining = new ArrayList<>(workoutTable.getItems());
+                remaining.removeIf(w -> ids.contains(w.getWorkoutId()));
+                refreshAfterBulkChange(remaining, measurementTable.getItems());
+
+                offerUndo(deleted + " workouts deleted.", () -> restoreWorkouts(workouts));
+            } catch (Exception e) {
+                showBulkFailure("Failed to Delete", "delete the workouts", e);
+            }
+        }
+    }
+
+    /**
+     * Confirm and delete several measurements with one statement
+     */
+    private void confirmAndDeleteMeasurements(List<Measurement> measurements) {
+        Alert confirmDialog = new Alert(Alert.AlertType.CONFIRMATION);
+        confirmDialog.setTitle("Confirm Delete");
+        confirmDialog.setHeaderText("Delete " + measurements.size() + " Measurements");
+        confirmDialog.setContentText("Are you sure you want to delete the " + measurements.size() + " selected measurements?");
+
+        Optional<ButtonType> result = confirmDialog.showAndWait();
+        if (result.isPresent() && result.get() == ButtonType.OK) {
+            try {
+                Set<Long> ids = measurementIds(measurements);
+                int deleted = applyLocally(() -> activityDAO.deleteMeasurements(session.getUserId(), ids));
+                session.evict(WorkoutLogController.CALORIE_ESTIMATOR_KEY); // Latest weight may have changed
+                session.evict(MeasurementLogController.WEIGHT_TREND_KEY);
+
+                List<Measurement> remaining = new ArrayList<>(measurementTable.getItems());
+                remaining.removeIf(m -> ids.contains(m.getMeasurementId()));
+                refreshAfterBulkChange(workoutTable.getItems(), remaining);
+
+                offerUndo(deleted + " measurements deleted.", () -> restoreMeasurements(measurements));
+            } catch (Exception e) {
+                showBulkFailure("Failed to Delete", "delete the measurements", e);
+            }
+        }
+    }
+
+    /**
+     * Show a completed delete with a button that takes it back. Deleted rows stay
+     * restorable until the purger removes them.
+     */
+    private void offerUndo(String message, Runnable undo) {
+        ButtonType undoButton = new ButtonType("Undo");
+        Alert successAlert = new Alert(Alert.AlertType.INFORMATION, message, undoButton, ButtonType.OK);
+        successAlert.setTitle("Success");
+        successAlert.setHeaderText(null);
+
+        Optional<ButtonType> result = successAlert.showAndWait();
+        if (result.isPresent() && result.get() == undoButton) {
+            undo.run();
+        }
+    }
+
+    /**
+     * Undo a workout delete and put the rows back on screen
+     */
+    private void restoreWorkouts(List<Workout> deleted) {
+        try {
+            Set<Long> ids = workoutIds(deleted);
+            int restored = applyLocally(() -> activityDAO.restoreWorkouts(session.getUserId(), ids));
+
+            // A sync started by the delete may or may not have repainted yet
+            List<Workout> workouts = new ArrayList<>(workoutTable.getItems());
+            workouts.removeIf(w -> ids.contains(w.getWorkoutId()));
+            workouts.addAll(deleted);
+            workouts.sort(Comparator.comparing(Workout::getWorkoutDate));
+            refreshAfterBulkChange(workouts, measurementTable.getItems());
+
+            if (restored < ids.size()) {
+                loadSummaryData(); // Some rows were already purged; show what is really stored
+            }
+        } catch (Exception e) {
+            showBulkFailure("Failed to Undo", "restore the workouts", e);
+        }
+    }
+
+    /**
+     * Undo a measurement delete and put the rows back on screen
+     */
+    private void restoreMeasurements(List<Measurement> deleted) {
+        try {
+            Set<Long> ids = measurementIds(deleted);
+            int restored = applyLocally(() -> activityDAO.restoreMeasurements(session.getUserId(), ids));
+            session.evict(WorkoutLogController.CALORIE_ESTIMATOR_KEY); // Latest weight may have changed
+            session.evict(MeasurementLogController.WEIGHT_TREND_KEY);
+
+            List<Measurement> measurements = new ArrayList<>(measurementTable.getItems());
+            measurements.removeIf(m -> ids.contains(m.getMeasurementId()));
+            measurements.addAll(deleted);
+            refreshAfterBulkChange(workoutTable.getItems(), measurements);
+
+            if (restored < ids.size()) {
+                loadSummaryData();
+            }
+        } catch (Exception e) {
+            showBulkFailure("Failed to Undo", "restore the measurements", e);
+        }
+    }
+
+    /**
+     * Ask for a workout type and apply it to every selected workout
+     */
+    private void retypeSelectedWorkouts() {
+        List<Workout> selected = new ArrayList<>(workoutTable.getSelectionModel().getSelectedItems());
+        selected.removeIf(Workout::isArchived);
+        if (selected.isEmpty()) return;
+
+        ChoiceDialog<String> dialog = new ChoiceDialog<>(selected.get(0).getWorkoutType(), Workout.WORKOUT_TYPES);
+        dialog.setTitle("Change Type");
+        dialog.setHeaderText("Change the type of " + selected.size() + " workout(s)");
+        dialog.setContentText("New type:");
+
+        Optional<String> type = dialog.showAndWait();
+        if (type.isEmpty()) return;
+
+        try {
+            Set<Long> ids = workoutIds(selected);
+            int updated = applyLocally(() -> activityDAO.retypeWorkouts(session.getUserId(), ids, type.get()));
+
+            for (Workout w : workoutTable.getItems()) {
+                if (ids.contains(w.getWorkoutId())) {
+                    w.setWorkoutType(type.get());
+                    w.setVersion(w.getVersion() + 1);
+                }
+            }
+            refreshAfterBulkChange(workoutTable.getItems(), measurementTable.getItems());
+
+            showBulkSuccess(updated + " workouts changed to " + type.get() + ".");
+        } catch (Exception e) {
+            showBulkFailure("Failed to Update", "change the workout type", e);
+        }
+    }
+
+    /**
+     * Ask for a number of days and move every selected workout by it
+     */
+    private void shiftSelectedWorkouts() {
+        List<Workout> selected = new ArrayList<>(workoutTable.getSelectionModel().getSelectedItems());
+        selected.removeIf(Workout::isArchived);
+        if (selected.isEmpty()) return;
+
+        Integer days = askForDayShift(selected.size() + " workout(s)");
+        if (days == null) return;
+
+        // The database rejects the whole batch if one workout would land in the future
+        java.time.LocalDate today = java.time.LocalDate.now();
+        if (selected.stream().anyMatch(w -> w.getWorkoutDate().plusDays(days).isAfter(today))) {
+            Alert alert = new Alert(Alert.AlertType.WARNING);
+            alert.setTitle("Not Shifted");
+            alert.setHeaderText("Workout date cannot be in the future.");
+            alert.setContentText("Shifting by " + days + " days would move some of the selected workouts past today.");
+            alert.showAndWait();
+            return;
+        }
+
+        try {
+            Set<Long> ids = workoutIds(selected);
+            int updated = applyLocally(() -> activityDAO.shiftWorkoutDates(session.getUserId(), ids, days));
+
+            for (Workout w : workoutTable.getItems()) {
+                if (ids.contains(w.getWorkoutId())) {
+                    w.setWorkoutDate(w.getWorkoutDate().plusDays(days));
+                    w.setVersion(w.getVersion() + 1);
+                }
+            }
+            refreshAfterBulkChange(workoutTable.getItems(), measurementTable.getItems());
+
+            showBulkSuccess(updated + " workouts moved by " + days + " days.");
+        } catch (Exception e) {
+            showBulkFailure("Failed to Update", "shift the workout dates", e);
+        }
+    }
+
+    /**
+     * Ask for a number of days and move every selected measurement by it
+     */
+    private void shiftSelectedMeasurements() {
+        List<Measurement> selected = new ArrayList<>(measurementTable.getSelectionModel().getSelectedItems());
+        selected.removeIf(Measurement::isArchived);
+        if (selected.isEmpty()) return;
+
+        Integer days = askForDayShift(selected.size() + " measurement(s)");
+        if (days == null) return;
+
+        try {
+            Set<Long> ids = measurementIds(selected);
+            int updated = applyLocally(() -> activityDAO.shiftMeasurementDates(session.getUserId(), ids, days));
+            session.evict(WorkoutLogController.CALORIE_ESTIMATOR_KEY); // Latest weight may have changed
+            session.evict(MeasurementLogController.WEIGHT_TREND_KEY);
+
+            for (Measurement m : measurementTable.getItems()) {
+                if (ids.contains(m.getMeasurementId())) {
+                    m.setRecorddate(m.getRecorddate().plusDays(days));
+                    m.setVersion(m.getVersion() + 1);
+                }
+            }
+            refreshAfterBulkChange(workoutTable.getItems(), measurementTable.getItems());
+
+            showBulkSuccess(updated + " measurements moved by " + days + " days.");
+        } catch (Exception e) {
+            showBulkFailure("Failed to Update", "shift the measurement dates", e);
+        }
+    }
+
+    /**
+     * Prompt for a non-zero whole number of days; null if cancelled or invalid
+     */
+    private Integer askForDayShift(String what) {
+        TextInputDialog dialog = new TextInputDialog("-1");
+        dialog.setTitle("Shift Dates");
+        dialog.setHeaderText("Move " + what + " by a number of days");
+        dialog.setContentText("Days (negative for earlier):");
+
+        Optional<String> input = dialog.showAndWait();
+        if (input.isEmpty()) return null;
+
+        try {
+            int days = Integer.parseInt(input.get().trim());
+            if (days != 0) return days;
+        } catch (NumberFormatException ignored) {
+            // Reported below
+        }
+        Alert alert = new Alert(Alert.AlertType.WARNING);
+        alert.setTitle("Invalid Input");
+        alert.setHeaderText(null);
+        alert.setContentText("Please enter a whole number of days other than 0.");
+        alert.showAndWait();
+        return null;
+    }
+
+    private Set<Long> workoutIds(List<Workout> workouts) {
+        return workouts.stream().map(Workout::getWorkoutId).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
+    private Set<Long> measurementIds(List<Measurement> measurements) {
+        return measurements.stream().map(Measurement::getMeasurementId).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
+    private void showBulkSuccess(String message) {
+        Alert successAlert = new Alert(Alert.AlertType.INFORMATION);
+        successAlert.setTitle("Success");
+        successAlert.setHeaderText(null);
+        successAlert.setContentText(message);
+        successAlert.showAndWait();
+    }
+
+    private void showBulkFailure(String header, String action, Exception e) {
+        System.err.println("Failed to " + action + ": " + e.getMessage());
+        e.printStackTrace();
+
+        Alert errorAlert = new Alert(Alert.AlertType.ERROR);
+        errorAlert.setTitle("Error");
+        errorAlert.setHeaderText(header);
+        // A broken rule says what to change; anything else is unexpected
+        errorAlert.setContentText(e instanceof ValidationException
+                ? e.getMessage() + " No entries were changed."
+                : "An error occurred while trying to " + action + ". No entries were changed.");
+        errorAlert.showAndWait();
+    }
+
     @FXML
     private void handleLogWorkout() {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/WorkoutLogView.fxml"));
-            Parent root = loader.load();
+            FXMLLoader loader = ViewCache.take("WorkoutLogView");
+            Parent root = loader.getRoot();
+            WorkoutLogController controller = loader.getController();
+            controller.setSession(session);
 
             Stage logStage = new Stage();
             logStage.setTitle("Log New Workout");
             logStage.setScene(new Scene(root));
-            logStage.setOnHidden(e -> loadSummaryData());
             logStage.show();
         } catch (IOException e) {
             System.err.println("Failed to load WorkoutLogView FXML.");
@@ -457,6 +1181,42 @@ public class DashboardController {
         }
     }
 
+    @FXML
+    private void handleAddGoal() {
+        ChoiceDialog<Goal.Type> typeDialog = new ChoiceDialog<>(Goal.Type.WEEKLY_MINUTES, Goal.Type.values());
+        typeDialog.setTitle("Add Goal");
+        typeDialog.setHeaderText("What do you want to aim for?");
+        typeDialog.setContentText("Goal:");
+        Optional<Goal.Type> type = typeDialog.showAndWait();
+        if (type.isEmpty()) return;
+
+        TextInputDialog targetDialog = new TextInputDialog();
+        targetDialog.setTitle("Add Goal");
+        targetDialog.setHeaderText(type.get().getLabel());
+        targetDialog.setContentText("Target (" + type.get().getUnit() + "):");
+        Optional<String> input = targetDialog.showAndWait();
+        if (input.isEmpty()) return;
+
+        try {
+            goalService.addGoal(new Goal(session.getUserId(), type.get(), Double.parseDouble(input.get().trim())));
+        } catch (IllegalArgumentException e) {
+            // Covers unparseable numbers, broken rules and the goal limit
+            Alert alert = new Alert(Alert.AlertType.WARNING);
+            alert.setTitle("Invalid Goal");
+            alert.setHeaderText(null);
+            alert.setContentText(e instanceof NumberFormatException ? "Please enter a number." : e.getMessage());
+            alert.showAndWait();
+        } catch (Exception e) {
+            System.err.println("Failed to add goal: " + e.getMessage());
+            e.printStackTrace();
+            Alert errorAlert = new Alert(Alert.AlertType.ERROR);
+            errorAlert.setTitle("Error");
+            errorAlert.setHeaderText("Failed to Add Goal");
+            errorAlert.setContentText("An error occurred while trying to save the goal.");
+            errorAlert.showAndWait();
+        }
+    }
+
     @FXML
     private void handleViewReport() {
         try {
@@ -466,7 +1226,8 @@ public class DashboardController {
 
             // Get the controller and set the current user
             ReportController controller = loader.getController();
-            controller.setUser(App.getCurrentUser());
+            controller.setWeightTrend(session.cachedIfPresent(MeasurementLogController.WEIGHT_TREND_KEY));
+            controller.setUser(session.getUser());
 
             // Create and show the simple report window
             Stage reportStage = new Stage();
@@ -483,13 +1244,14 @@ public class DashboardController {
     @FXML
     private void handleLogMeasurement() {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/MeasurementLogView.fxml"));
-            Parent root = loader.load();
+            FXMLLoader loader = ViewCache.take("MeasurementLogView");
+            Parent root = loader.getRoot();
+            MeasurementLogController controller = loader.getController();
+            controller.setSession(session);
 
             Stage logStage = new Stage();
             logStage.setTitle("Log New Measurement");
             logStage.setScene(new Scene(root));
-            logStage.setOnHidden(e -> loadSummaryData());
             logStage.show();
         } catch (IOException e) {
             System.err.println("Failed to load MeasurementLogView FXML.");
@@ -499,6 +1261,10 @@ public class DashboardController {
 
     @FXML
     private void handleLogout() {
+        if (eventSubscription != null) {
+            eventSubscription.close();
+            eventSubscription = null;
+        }
         try {
             App.logout();
         } catch (IOException e) {
@@ -1,8 +1,11 @@
 package com.fitnesstracker.controller;
 
 import com.fitnesstracker.App;
-import com.fitnesstracker.dao.ActivityDAO;
+import com.fitnesstracker.HibernateUtil;
 import com.fitnesstracker.model.User;
+import com.fitnesstracker.service.AuthService;
+import com.fitnesstracker.service.LoginThrottledException;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 
@@ -18,14 +21,34 @@ public class LoginController {
     @FXML
     private Label statusLabel;
 
-    private final ActivityDAO activityDAO = new ActivityDAO();
+    private final AuthService authService = new AuthService();
 
     @FXML
     private void handleLogin() {
+        // The SessionFactory is built in the background at startup; only wait for it on submit
+        if (!HibernateUtil.isReady()) {
+            statusLabel.setText("Connecting to database...");
+            HibernateUtil.buildSessionFactoryAsync().whenComplete((sessionFactory, error) -> Platform.runLater(() -> {
+                if (error != null) {
+                    statusLabel.setText("Could not connect to the database. Please try again later.");
+                } else {
+                    statusLabel.setText("");
+                    handleLogin();
+                }
+            }));
+            return;
+        }
+
         String name = loginNameField.getText();
         String password = loginPasswordField.getText();
 
-        User user = activityDAO.authenticateUser(name, password);
+        User user;
+        try {
+            user = authService.authenticate(name, password);
+        } catch (LoginThrottledException e) {
+            statusLabel.setText(e.getMessage());
+            return;
+        }
 
         if (user != null) {
             try {
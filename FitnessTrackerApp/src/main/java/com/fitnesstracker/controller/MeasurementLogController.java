@@ -1,8 +1,13 @@
 package com.fitnesstracker.controller;
 
-import com.fitnesstracker.App;
-import com.fitnesstracker.dao.ActivityDAO;
+import com.fitnesstracker.dao.EditConflictException;
+import com.fitnesstracker.dao.MeasurementRepository;
+import com.fitnesstracker.dao.WriteBehindQueue;
 import com.fitnesstracker.model.Measurement;
+import com.fitnesstracker.service.WeightTrend;
+import com.fitnesstracker.session.UserSession;
+import com.fitnesstracker.validation.ActivityRules;
+import com.fitnesstracker.validation.Validator;
 import javafx.fxml.FXML;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
@@ -18,15 +23,19 @@ import java.time.LocalDate;
  */
 public class MeasurementLogController {
 
+    // Session cache key of the user's WeightTrend, built by the dashboard
+    static final String WEIGHT_TREND_KEY = "weightTrend";
+
     @FXML private DatePicker measurementDatePicker;
     @FXML private TextField weightField;
     @FXML private TextField heightField;
     @FXML private Label statusLabel;
     @FXML private Label bmiResultLabel;
 
-    private final ActivityDAO activityDAO = new ActivityDAO();
+    private final MeasurementRepository measurements = new MeasurementRepository();
     private Measurement existingMeasurement; // For edit mode
     private boolean editMode = false;
+    private UserSession session; // Owner of new measurements
 
     @FXML
     public void initialize() {
@@ -38,6 +47,13 @@ public class MeasurementLogController {
         heightField.textProperty().addListener((observable, oldValue, newValue) -> calculateAndDisplayBMI());
     }
 
+    /**
+     * Set the session of the user this dialog logs measurements for
+     */
+    public void setSession(UserSession session) {
+        this.session = session;
+    }
+
     /**
      * Initialize this controller for editing an existing measurement
      */
@@ -101,43 +117,23 @@ public class MeasurementLogController {
         String heightText = heightField.getText().trim();
         LocalDate date = measurementDatePicker.getValue();
 
-        // Validation
-        if (date == null) {
-            statusLabel.setText("Please select a date.");
-            statusLabel.setTextFill(Color.RED);
-            return;
-        }
-
-        if (weightText.isEmpty()) {
-            statusLabel.setText("Weight is required.");
-            statusLabel.setTextFill(Color.RED);
-            return;
-        }
-
-        double weight;
-        try {
-            weight = Double.parseDouble(weightText);
-            if (weight <= 0 || weight > 500) {
-                statusLabel.setText("Please enter a valid weight (0-500 kg).");
+        // Parse the numbers here; the rules themselves are shared through ActivityRules
+        Double weight = null;
+        if (!weightText.isEmpty()) {
+            try {
+                weight = Double.parseDouble(weightText);
+            } catch (NumberFormatException e) {
+                statusLabel.setText("Weight must be a valid number.");
                 statusLabel.setTextFill(Color.RED);
                 return;
             }
-        } catch (NumberFormatException e) {
-            statusLabel.setText("Weight must be a valid number.");
-            statusLabel.setTextFill(Color.RED);
-            return;
         }
 
-        // Height is optional but validate if provided
+        // Height is optional but validated if provided
         Double height = null;
         if (!heightText.isEmpty()) {
             try {
                 height = Double.parseDouble(heightText);
-                if (height <= 0 || height > 300) {
-                    statusLabel.setText("Please enter a valid height (0-300 cm).");
-                    statusLabel.setTextFill(Color.RED);
-                    return;
-                }
             } catch (NumberFormatException e) {
                 statusLabel.setText("Height must be a valid number.");
                 statusLabel.setTextFill(Color.RED);
@@ -145,6 +141,14 @@ public class MeasurementLogController {
             }
         }
 
+        Measurement candidate = new Measurement(session.getUser(), date, weight, height);
+        Validator.Violation violation = ActivityRules.MEASUREMENT.firstViolation(candidate);
+        if (violation != null) {
+            statusLabel.setText(violation.getMessage());
+            statusLabel.setTextFill(Color.RED);
+            return;
+        }
+
         try {
             // Different handling for edit vs. new measurement
             if (editMode && existingMeasurement != null) {
@@ -153,19 +157,31 @@ public class MeasurementLogController {
                 existingMeasurement.setWeight(weight);
                 existingMeasurement.setHeight(height);
 
-                activityDAO.update(existingMeasurement);
+                if (WriteBehindQueue.isEnabled()) {
+                    WriteBehindQueue.getInstance().enqueueUpdate(existingMeasurement);
+                } else {
+                    measurements.update(existingMeasurement);
+                }
+                session.evict(WorkoutLogController.CALORIE_ESTIMATOR_KEY);
+                session.evict(WEIGHT_TREND_KEY);
                 System.out.println("✓ Measurement updated successfully!");
                 statusLabel.setTextFill(Color.GREEN);
                 statusLabel.setText("Measurement updated successfully!");
             } else {
-                // Create and save new measurement
-                Measurement measurement = new Measurement();
-                measurement.setUser(App.getCurrentUser());
-                measurement.setRecorddate(date);
-                measurement.setWeight(weight);
-                measurement.setHeight(height);
-
-                activityDAO.save(measurement);
+                // Save the validated measurement
+                Measurement measurement = candidate;
+
+                if (WriteBehindQueue.isEnabled()) {
+                    WriteBehindQueue.getInstance().enqueueSave(measurement);
+                } else {
+                    measurements.save(measurement);
+                }
+                session.evict(WorkoutLogController.CALORIE_ESTIMATOR_KEY);
+                // Usually the newest weigh-in: extend the trend rather than rebuild it
+                WeightTrend trend = session.cachedIfPresent(WEIGHT_TREND_KEY);
+                if (trend != null && !trend.add(date, weight, height)) {
+                    session.evict(WEIGHT_TREND_KEY);
+                }
                 System.out.println("✓ Measurement saved successfully!");
                 statusLabel.setTextFill(Color.GREEN);
                 statusLabel.setText("Measurement saved successfully!");
@@ -184,6 +200,10 @@ public class MeasurementLogController {
                 }
             }).start();
 
+        } catch (EditConflictException e) {
+            System.out.println("DEBUG: " + e.getMessage());
+            statusLabel.setTextFill(Color.RED);
+            statusLabel.setText("This measurement was changed or deleted elsewhere. Close this window and open it again to see the latest version.");
         } catch (Exception e) {
             System.err.println("✗ Failed to save measurement!");
             e.printStackTrace();
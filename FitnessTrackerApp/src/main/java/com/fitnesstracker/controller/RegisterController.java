@@ -2,8 +2,13 @@ package com.fitnesstracker.controller;
 
 import com.fitnesstracker.App;
 import com.fitnesstracker.dao.ActivityDAO;
+import com.fitnesstracker.dao.MeasurementRepository;
+import com.fitnesstracker.dao.UserRepository;
 import com.fitnesstracker.model.Measurement;
 import com.fitnesstracker.model.User;
+import com.fitnesstracker.service.PasswordHasher;
+import com.fitnesstracker.validation.ActivityRules;
+import com.fitnesstracker.validation.Validator;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
@@ -35,6 +40,8 @@ public class RegisterController {
     private Label regstatusLabel;
 
     private final ActivityDAO activityDAO = new ActivityDAO();
+    private final UserRepository users = new UserRepository();
+    private final MeasurementRepository measurements = new MeasurementRepository();
 
     @FXML
     public void initialize() {
@@ -61,8 +68,8 @@ public class RegisterController {
             return;
         }
 
-        if (activityDAO.usernameExists(username)) {
-            regstatusLabel.setText("Username already registered. Try logging in.");
+        if (users.usernameExists(username)) {
+            regstatusLabel.setText(UserRepository.USERNAME_TAKEN);
             return;
         }
 
@@ -84,41 +91,54 @@ public class RegisterController {
             return;
         }
 
+        // If height and weight are provided, create initial measurement; the rules are the
+        // ones the measurement log applies, shared through ActivityRules
+        Measurement initialMeasurement = null;
+        if (!heightText.isEmpty() && !weightText.isEmpty()) {
+            try {
+                initialMeasurement = new Measurement(null, LocalDate.now(),
+                        Double.parseDouble(weightText), Double.parseDouble(heightText));
+            } catch (NumberFormatException e) {
+                regstatusLabel.setText("Height and weight must be valid numbers.");
+                return;
+            }
+            Validator.Violation violation = ActivityRules.MEASUREMENT.firstViolation(initialMeasurement);
+            if (violation != null) {
+                regstatusLabel.setText(violation.getMessage());
+                return;
+            }
+        }
+
         // Create and save user
         User newUser = new User();
         newUser.setUsername(username);
         newUser.setName(name);
         newUser.setAge(age);
         newUser.setGender(gender);
-        newUser.setPassword(password);
+        newUser.setPassword(PasswordHasher.hash(password));
+        if (initialMeasurement != null) {
+            initialMeasurement.setUser(newUser);
+        }
 
         try {
-            activityDAO.save(newUser);
-
-            // If height and weight are provided, create initial measurement
-            if (!heightText.isEmpty() && !weightText.isEmpty()) {
-                try {
-                    Double height = Double.parseDouble(heightText);
-                    Double weight = Double.parseDouble(weightText);
-
-                    if (height > 0 && weight > 0) {
-                        Measurement initialMeasurement = new Measurement();
-                        initialMeasurement.setUser(newUser);
-                        initialMeasurement.setHeight(height); // Convert meters to cm
-                        initialMeasurement.setWeight(weight);
-                        initialMeasurement.setRecorddate(LocalDate.now());
-                        activityDAO.save(initialMeasurement);
-                    }
-                } catch (NumberFormatException e) {
-                    // Skip initial measurement if values are invalid
+            // The account and its first measurement are stored together or not at all
+            Measurement measurement = initialMeasurement;
+            activityDAO.inTransaction("Registration", unit -> {
+                users.save(unit, newUser);
+                if (measurement != null) {
+                    measurements.save(unit, measurement);
                 }
-            }
+                return null;
+            });
 
             regstatusLabel.setTextFill(javafx.scene.paint.Color.GREEN);
             regstatusLabel.setText("Registration successful! Logging you in...");
 
             // Automatically log in the new user
             App.showDashboard(newUser);
+        } catch (IllegalArgumentException e) {
+            // Someone registered the same username since the check above
+            regstatusLabel.setText(e.getMessage());
         } catch (Exception e) {
             regstatusLabel.setText("Registration failed: " + e.getMessage());
             e.printStackTrace();
@@ -2,6 +2,7 @@ package com.fitnesstracker.controller;
 
 import com.fitnesstracker.model.User;
 import com.fitnesstracker.service.ReportService;
+import com.fitnesstracker.service.WeightTrend;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
@@ -25,6 +26,7 @@ public class ReportController {
     @FXML private Button refreshButton;
 
     private User currentUser;
+    private WeightTrend weightTrend;
     private final ReportService reportService = new ReportService();
     private String currentReport;
 
@@ -39,6 +41,13 @@ public class ReportController {
         reportTextArea.setWrapText(false);
     }
 
+    /**
+     * Use the dashboard's weight trend instead of rebuilding it. Call before setUser.
+     */
+    public void setWeightTrend(WeightTrend weightTrend) {
+        this.weightTrend = weightTrend;
+    }
+
     /**
      * Set the user and load the report
      */
@@ -63,7 +72,7 @@ public class ReportController {
             statusLabel.setStyle("-fx-text-fill: black;");
 
             // Generate the report
-            currentReport = reportService.generateReport(currentUser.getUserId());
+            currentReport = reportService.generateReport(currentUser.getUserId(), weightTrend);
 
             // Display in text area
             reportTextArea.setText(currentReport);
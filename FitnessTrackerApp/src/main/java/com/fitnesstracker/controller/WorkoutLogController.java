@@ -1,8 +1,15 @@
 package com.fitnesstracker.controller;
 
-import com.fitnesstracker.App;
-import com.fitnesstracker.dao.ActivityDAO;
+import com.fitnesstracker.dao.EditConflictException;
+import com.fitnesstracker.dao.MeasurementRepository;
+import com.fitnesstracker.dao.WorkoutRepository;
+import com.fitnesstracker.dao.WriteBehindQueue;
 import com.fitnesstracker.model.Workout;
+import com.fitnesstracker.service.CalorieEstimator;
+import com.fitnesstracker.session.UserSession;
+import com.fitnesstracker.validation.ActivityRules;
+import com.fitnesstracker.validation.Validator;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.DatePicker;
@@ -25,9 +32,15 @@ public class WorkoutLogController {
     @FXML private TextField caloriesField;
     @FXML private Label statusLabel;
 
-    private final ActivityDAO activityDAO = new ActivityDAO();
+    private final WorkoutRepository workouts = new WorkoutRepository();
+    private final MeasurementRepository measurements = new MeasurementRepository();
     private Workout existingWorkout; // For edit mode
     private boolean editMode = false;
+    private UserSession session; // Owner of new workouts
+    private CalorieEstimator calorieEstimator; // Null until loaded for the session's user
+
+    // Session cache key of the user's CalorieEstimator; evicted when a measurement changes
+    static final String CALORIE_ESTIMATOR_KEY = "calorieEstimator";
 
     @FXML
     public void initialize() {
@@ -35,28 +48,46 @@ public class WorkoutLogController {
         workoutDatePicker.setValue(LocalDate.now());
 
         // Populate workout type dropdown with predefined options
-        workoutTypeComboBox.getItems().addAll(
-                "Running",
-                "Cycling",
-                "Swimming",
-                "Weight Training",
-                "Yoga",
-                "Walking",
-                "Cardio",
-                "HIIT",
-                "Basketball",
-                "Soccer",
-                "Tennis",
-                "Boxing",
-                "Dancing",
-                "Pilates",
-                "CrossFit",
-                "Stretching",
-                "Other"
-        );
+        workoutTypeComboBox.getItems().addAll(Workout.WORKOUT_TYPES);
 
         // Set default workout type
-        workoutTypeComboBox.setValue("Running");
+        workoutTypeComboBox.setValue(Workout.WORKOUT_TYPES.get(0));
+
+        // Preview the estimated calories while type and duration are edited
+        workoutTypeComboBox.valueProperty().addListener((obs, oldValue, newValue) -> updateCaloriePreview());
+        durationField.textProperty().addListener((obs, oldValue, newValue) -> updateCaloriePreview());
+    }
+
+    /**
+     * Set the session of the user this dialog logs workouts for
+     */
+    public void setSession(UserSession session) {
+        this.session = session;
+
+        // The estimator needs the user's latest measurement; load it off the FX thread once per session
+        session.execute(() -> {
+            CalorieEstimator estimator = session.cached(CALORIE_ESTIMATOR_KEY, () -> CalorieEstimator.forUser(
+                    session.getUser(), measurements.findByUser(session.getUserId())));
+            Platform.runLater(() -> {
+                calorieEstimator = estimator;
+                updateCaloriePreview();
+            });
+        });
+    }
+
+    /**
+     * Shows the estimate as the calories prompt; it is what gets saved if the field is left empty.
+     */
+    private void updateCaloriePreview() {
+        if (calorieEstimator == null) return;
+        try {
+            long duration = Long.parseLong(durationField.getText().trim());
+            caloriesField.setPromptText(duration > 0
+                    ? "≈ " + calorieEstimator.estimate(workoutTypeComboBox.getValue(), duration) + " (estimated)"
+                    : "e.g., 300");
+        } catch (NumberFormatException e) {
+            caloriesField.setPromptText("e.g., 300");
+        }
     }
 
     /**
@@ -70,7 +101,7 @@ public class WorkoutLogController {
         workoutDatePicker.setValue(workout.getWorkoutDate());
         workoutTypeComboBox.setValue(workout.getWorkoutType());
         durationField.setText(String.valueOf(workout.getDurationMinutes()));
-        caloriesField.setText(String.valueOf(workout.getCaloriesBurned()));
+        caloriesField.setText(workout.getCaloriesBurned() != null ? String.valueOf(workout.getCaloriesBurned()) : "");
     }
 
     @FXML
@@ -80,55 +111,39 @@ public class WorkoutLogController {
         String caloriesText = caloriesField.getText().trim();
         LocalDate date = workoutDatePicker.getValue();
 
-        // Validation
-        if (date == null) {
-            statusLabel.setText("Please select a date.");
-            statusLabel.setTextFill(Color.RED);
-            return;
-        }
-
-        if (workoutType == null || workoutType.trim().isEmpty()) {
-            statusLabel.setText("Please select a workout type.");
-            statusLabel.setTextFill(Color.RED);
-            return;
-        }
-
-        if (durationText.isEmpty()) {
-            statusLabel.setText("Duration is required.");
-            statusLabel.setTextFill(Color.RED);
-            return;
-        }
-
-        // Parse duration
-        int duration;
-        try {
-            duration = Integer.parseInt(durationText);
-            if (duration <= 0) {
-                statusLabel.setText("Duration must be greater than 0.");
+        // Parse the numbers here; the rules themselves are shared through ActivityRules
+        Long duration = null;
+        if (!durationText.isEmpty()) {
+            try {
+                duration = Long.parseLong(durationText);
+            } catch (NumberFormatException e) {
+                statusLabel.setText("Duration must be a valid number.");
                 statusLabel.setTextFill(Color.RED);
                 return;
             }
-        } catch (NumberFormatException e) {
-            statusLabel.setText("Duration must be a valid number.");
-            statusLabel.setTextFill(Color.RED);
-            return;
         }
 
-        // Parse calories (OPTIONAL - trigger will auto-calculate if empty)
+        // Calories are optional - estimated here if empty, or by the trigger if the estimator is not loaded yet
         Integer calories = null;
         if (!caloriesText.isEmpty()) {
             try {
                 calories = Integer.parseInt(caloriesText);
-                if (calories < 0) {
-                    statusLabel.setText("Calories must be 0 or greater.");
-                    statusLabel.setTextFill(Color.RED);
-                    return;
-                }
             } catch (NumberFormatException e) {
                 statusLabel.setText("Calories must be a valid number.");
                 statusLabel.setTextFill(Color.RED);
                 return;
             }
+        } else if (calorieEstimator != null && duration != null) {
+            calories = calorieEstimator.estimate(workoutType, duration);
+        }
+
+        // Check the same rules as the database trigger before sending anything
+        Workout candidate = new Workout(session.getUser(), date, workoutType, duration, calories);
+        Validator.Violation violation = ActivityRules.WORKOUT.firstViolation(candidate);
+        if (violation != null) {
+            statusLabel.setText(violation.getMessage());
+            statusLabel.setTextFill(Color.RED);
+            return;
         }
 
         try {
@@ -140,20 +155,23 @@ public class WorkoutLogController {
                 existingWorkout.setDurationMinutes(duration);
                 existingWorkout.setCaloriesBurned(calories);
 
-                activityDAO.update(existingWorkout);
+                if (WriteBehindQueue.isEnabled()) {
+                    WriteBehindQueue.getInstance().enqueueUpdate(existingWorkout);
+                } else {
+                    workouts.update(existingWorkout);
+                }
                 System.out.println("✓ Workout updated successfully!");
                 statusLabel.setTextFill(Color.GREEN);
                 statusLabel.setText("Workout updated successfully!");
             } else {
-                // Create and save new workout
-                Workout workout = new Workout();
-                workout.setUser(App.getCurrentUser());
-                workout.setWorkoutDate(date);
-                workout.setWorkoutType(workoutType);
-                workout.setDurationMinutes(duration);
-                workout.setCaloriesBurned(calories);  // Can be NULL - trigger will calculate
-
-                activityDAO.save(workout);
+                // Save the validated workout; calories are NULL only if no estimate was available - trigger will calculate
+                Workout workout = candidate;
+
+                if (WriteBehindQueue.isEnabled()) {
+                    WriteBehindQueue.getInstance().enqueueSave(workout);
+                } else {
+                    workouts.save(workout);
+                }
                 System.out.println("✓ Workout saved successfully!");
                 statusLabel.setTextFill(Color.GREEN);
                 statusLabel.setText("Workout saved successfully!");
@@ -172,38 +190,35 @@ public class WorkoutLogController {
                 }
             }).start();
 
+        } catch (EditConflictException e) {
+            System.out.println("DEBUG: " + e.getMessage());
+            statusLabel.setTextFill(Color.RED);
+            statusLabel.setText("This workout was changed or deleted elsewhere. Close this window and open it again to see the latest version.");
         } catch (Exception e) {
             System.err.println("✗ Failed to save workout!");
             e.printStackTrace();
             statusLabel.setTextFill(Color.RED);
 
-            // Extract specific error messages from triggers
-            String errorMessage = e.getMessage();
-
-            if (errorMessage.contains("ORA-20001")) {
-                statusLabel.setText("Duration must be greater than 0 minutes");
-            } else if (errorMessage.contains("ORA-20002")) {
-                statusLabel.setText("Duration cannot exceed 600 minutes (10 hours)");
-            } else if (errorMessage.contains("ORA-20003")) {
-                statusLabel.setText("Duration is required");
-            } else if (errorMessage.contains("ORA-20004")) {
-                statusLabel.setText("Calories cannot be negative");
-            } else if (errorMessage.contains("ORA-20005")) {
-                statusLabel.setText("Calories seems unrealistic (over 5000)");
-            } else if (errorMessage.contains("ORA-20006")) {
-                statusLabel.setText("Workout date cannot be in the future");
-            } else if (errorMessage.contains("ORA-20007")) {
-                statusLabel.setText("Workout type is required");
-            } else {
-                statusLabel.setText("Failed to save: " + extractOracleError(errorMessage));
-            }
+            statusLabel.setText(describeSaveError(e.getMessage()));
+        }
+    }
+
+    /**
+     * Message for a save the database rejected. Rule violations are caught before saving, so this
+     * is left for connection problems and constraints only the database can check. Also used by the
+     * dashboard for failures reported asynchronously by the write-behind queue.
+     */
+    static String describeSaveError(String errorMessage) {
+        if (errorMessage == null) {
+            return "Failed to save workout";
         }
+        return "Failed to save: " + extractOracleError(errorMessage);
     }
 
     /**
      * Helper method to extract clean error message
      */
-    private String extractOracleError(String fullError) {
+    private static String extractOracleError(String fullError) {
         if (fullError.contains("ORA-")) {
             int startIndex = fullError.indexOf("ORA-");
             int endIndex = fullError.indexOf("\n", startIndex);
@@ -0,0 +1,310 @@
+package com.fitnesstracker.dao;
+
+import com.fitnesstracker.model.ActivityStats;
+import com.fitnesstracker.model.PersonalRecord;
+import com.fitnesstracker.model.User;
+import com.fitnesstracker.model.Workout;
+import jakarta.persistence.LockModeType;
+import org.hibernate.Session;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaks, personal records and moving averages per user, kept as running aggregates in
+ * ACTIVITY_STATS and PERSONAL_RECORD so that reading them never walks the workout history.
+ *
+ * A workout saved on or after the user's latest workout date is folded in with a constant
+ * number of row reads and writes, in the saving transaction. Anything else that changes
+ * the history (edits, deletes, restores, bulk changes, back-dated workouts) deletes the
+ * user's aggregates instead, and the next read rebuilds them from the full history. Both
+ * sides lock the APP_USER row first, so a rebuild never misses a concurrent change.
+ *
+ * A rebuild only sees detail rows: months that ActivityArchive has compacted into rollups
+ * no longer contribute records or streaks once the user's aggregates are rebuilt.
+ */
+public class ActivityAnalytics {
+
+    // Moving averages span roughly the last eight weeks
+    private static final int AVERAGE_WEEKS = 8;
+    private static final double ALPHA = 2.0 / (AVERAGE_WEEKS + 1);
+
+    /**
+     * A user's aggregates as of a given day. Streaks that have lapsed by then read as 0.
+     *
+     * @param weeklyMinutesAverage Average minutes per week over recent closed weeks (this
+     *                             week's minutes while there is no closed week yet).
+     * @param consistency Share of recent weeks with at least one workout, from 0 to 1.
+     */
+    public record Summary(int workoutCount, long totalMinutes, LocalDate lastWorkoutDate,
+                          int dayStreak, int bestDayStreak, int weekStreak, int bestWeekStreak,
+                          double weeklyMinutesAverage, double consistency,
+                          List<PersonalRecord> personalRecords) {
+
+        /**
+         * @return The longest session of any type, or null if no workout has a duration.
+         */
+        public PersonalRecord longestSession() {
+            return personalRecords.stream()
+                    .filter(r -> r.getLongestMinutes() != null)
+                    .max(Comparator.comparing(PersonalRecord::getLongestMinutes))
+                    .orElse(null);
+        }
+
+        /**
+         * @return The session of any type that burned the most calories, or null if none has calories.
+         */
+        public PersonalRecord mostCaloriesSession() {
+            return personalRecords.stream()
+                    .filter(r -> r.getMostCalories() != null)
+                    .max(Comparator.comparing(PersonalRecord::getMostCalories))
+                    .orElse(null);
+        }
+    }
+
+    private ActivityAnalytics() {}
+
+    /**
+     * Folds a workout just inserted in the session's transaction into its user's aggregates.
+     * Does nothing if the aggregates have not been built; the next read builds them.
+     */
+    static void recordWorkout(Session session, Workout workout) {
+        Long userId = workout.getUser().getUserId();
+        lockUser(session, userId);
+
+        ActivityStats stats = session.get(ActivityStats.class, userId);
+        if (stats == null) return;
+
+        if (stats.getLastWorkoutDate() != null && workout.getWorkoutDate().isBefore(stats.getLastWorkoutDate())) {
+            // Streaks and averages are built in date order; a back-dated workout needs a rebuild
+            deleteAggregates(session, userId);
+            return;
+        }
+
+        Integer calories = storedCalories(session, workout);
+
+        fold(stats, workout.getWorkoutDate(), workout.getDurationMinutes());
+
+        PersonalRecord record = session.get(PersonalRecord.class, new PersonalRecord.Key(userId, workout.getWorkoutType()));
+        if (record == null) {
+            record = new PersonalRecord(userId, workout.getWorkoutType());
+            session.persist(record);
+        }
+        foldRecord(record, workout.getWorkoutDate(), workout.getDurationMinutes(), calories);
+    }
+
+    /**
+     * @return The calories of a workout just inserted in the session's transaction.
+     */
+    static Integer storedCalories(Session session, Workout workout) {
+        if (workout.getCaloriesBurned() != null) {
+            return workout.getCaloriesBurned();
+        }
+        // Left empty by the caller; the WORKOUT trigger has filled it in by now
+        return session.createNamedQuery("Workout.caloriesById", Integer.class)
+                .setParameter("id", workout.getWorkoutId())
+                .uniqueResult();
+    }
+
+    /**
+     * Drops a user's aggregates in the session's transaction after a change that cannot be
+     * folded in; the next read rebuilds them.
+     */
+    static void invalidate(Session session, Long userId) {
+        lockUser(session, userId);
+        deleteAggregates(session, userId);
+    }
+
+    /**
+     * {@link #invalidate} for the owner of a workout.
+     * @return The owner's id, or null if the workout does not exist.
+     */
+    static Long invalidateForWorkout(Session session, Long workoutId) {
+        Long userId = WorkoutRepository.ownerId(session, workoutId);
+        if (userId != null) {
+            invalidate(session, userId);
+        }
+        return userId;
+    }
+
+    /**
+     * @return The user's aggregates as of today, or null if they need to be rebuilt.
+     */
+    static Summary read(Session session, Long userId, LocalDate today) {
+        ActivityStats stats = session.get(ActivityStats.class, userId);
+        if (stats == null) return null;
+        return summarize(stats, readRecords(session, userId), today);
+    }
+
+    /**
+     * Rebuilds the user's aggregates from their history and stores them, unless another
+     * session already has. Must run in a transaction that has called {@link #lockUser}
+     * before the history was read.
+     *
+     * @param history The user's workouts in date order.
+     */
+    static Summary rebuild(Session session, Long userId, List<Workout> history, LocalDate today) {
+        ActivityStats existing = session.get(ActivityStats.class, userId);
+        if (existing != null) {
+            return summarize(existing, readRecords(session, userId), today);
+        }
+
+        ActivityStats stats = new ActivityStats(userId);
+        Map<String, PersonalRecord> records = new HashMap<>();
+        for (Workout w : history) {
+            fold(stats, w.getWorkoutDate(), w.getDurationMinutes());
+            PersonalRecord record = records.computeIfAbsent(w.getWorkoutType(), type -> new PersonalRecord(userId, type));
+            foldRecord(record, w.getWorkoutDate(), w.getDurationMinutes(), w.getCaloriesBurned());
+        }
+
+        session.persist(stats);
+        records.values().forEach(session::persist);
+        System.out.println("DEBUG: Rebuilt activity stats for user " + userId + " from " + history.size() + " workouts");
+
+        List<PersonalRecord> sorted = records.values().stream()
+                .sorted(Comparator.comparing(PersonalRecord::getWorkoutType))
+                .toList();
+        return summarize(stats, sorted, today);
+    }
+
+    /**
+     * Serializes aggregate maintenance per user with SELECT ... FOR UPDATE on APP_USER.
+     */
+    static void lockUser(Session session, Long userId) {
+        session.find(User.class, userId, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    private static void deleteAggregates(Session session, Long userId) {
+        session.createNamedMutationQuery("PersonalRecord.deleteByUser")
+                .setParameter("userId", userId)
+                .executeUpdate();
+        int rows = session.createNamedMutationQuery("ActivityStats.deleteByUser")
+                .setParameter("userId", userId)
+                .executeUpdate();
+        if (rows > 0) {
+            System.out.println("DEBUG: Activity stats for user " + userId + " will be rebuilt");
+        }
+    }
+
+    private static List<PersonalRecord> readRecords(Session session, Long userId) {
+        return session.createNamedQuery("PersonalRecord.findByUser", PersonalRecord.class)
+                .setParameter("userId", userId)
+                .getResultList();
+    }
+
+    // --- Folding ---
+
+    private static void fold(ActivityStats stats, LocalDate date, Long duration) {
+        long minutes = duration != null ? duration : 0;
+        LocalDate week = weekOf(date);
+
+        if (stats.getLastWorkoutDate() == null) {
+            stats.setDayStreak(1);
+            stats.setWeekStart(week);
+            stats.setWeekStreak(1);
+            stats.setWeekMinutes(minutes);
+        } else {
+            long days = ChronoUnit.DAYS.between(stats.getLastWorkoutDate(), date);
+            if (days == 1) {
+                stats.setDayStreak(stats.getDayStreak() + 1);
+            } else if (days > 1) {
+                stats.setDayStreak(1);
+            }
+
+            long weeks = ChronoUnit.WEEKS.between(stats.getWeekStart(), week);
+            if (weeks > 0) {
+                closeWeeks(stats, weeks);
+                stats.setWeekStreak(weeks == 1 ? stats.getWeekStreak() + 1 : 1);
+                stats.setWeekStart(week);
+                stats.setWeekMinutes(minutes);
+            } else {
+                stats.setWeekMinutes(stats.getWeekMinutes() + minutes);
+            }
+        }
+
+        stats.setLastWorkoutDate(date);
+        stats.setWorkoutCount(stats.getWorkoutCount() + 1);
+        stats.setTotalMinutes(stats.getTotalMinutes() + minutes);
+        stats.setBestDayStreak(Math.max(stats.getBestDayStreak(), stats.getDayStreak()));
+        stats.setBestWeekStreak(Math.max(stats.getBestWeekStreak(), stats.getWeekStreak()));
+    }
+
+    private static void foldRecord(PersonalRecord record, LocalDate date, Long duration, Integer calories) {
+        record.setSessionCount(record.getSessionCount() + 1);
+        if (duration != null && (record.getLongestMinutes() == null || duration > record.getLongestMinutes())) {
+            record.setLongestMinutes(duration);
+            record.setLongestOn(date);
+        }
+        if (calories != null && (record.getMostCalories() == null || calories > record.getMostCalories())) {
+            record.setMostCalories(calories);
+            record.setMostCaloriesOn(date);
+        }
+    }
+
+    /**
+     * Folds the open week, followed by weeks - 1 empty ones, into the moving averages.
+     */
+    private static void closeWeeks(ActivityStats stats, long weeks) {
+        double[] averages = averagesAfter(stats, weeks);
+        stats.setWeeklyMinutesAverage(averages[0]);
+        stats.setConsistency(averages[1]);
+        stats.setClosedWeeks(stats.getClosedWeeks() + (int) weeks);
+    }
+
+    private static double[] averagesAfter(ActivityStats stats, long weeks) {
+        double average;
+        double consistency;
+        if (stats.getClosedWeeks() == 0) {
+            // The first closed week seeds the averages
+            average = stats.getWeekMinutes();
+            consistency = 1.0;
+        } else {
+            average = stats.getWeeklyMinutesAverage() + ALPHA * (stats.getWeekMinutes() - stats.getWeeklyMinutesAverage());
+            consistency = stats.getConsistency() + ALPHA * (1.0 - stats.getConsistency());
+        }
+        // Each empty week pulls both towards zero
+        double decay = Math.pow(1.0 - ALPHA, weeks - 1);
+        return new double[]{average * decay, consistency * decay};
+    }
+
+    private static Summary summarize(ActivityStats stats, List<PersonalRecord> records, LocalDate today) {
+        int dayStreak = 0;
+        int weekStreak = 0;
+        double average = stats.getWeeklyMinutesAverage();
+        double consistency = stats.getConsistency();
+
+        if (stats.getLastWorkoutDate() != null) {
+            // A streak is still alive until a whole day (or week) has passed without a workout
+            if (!stats.getLastWorkoutDate().isBefore(today.minusDays(1))) {
+                dayStreak = stats.getDayStreak();
+            }
+            long weeks = ChronoUnit.WEEKS.between(stats.getWeekStart(), weekOf(today));
+            if (weeks <= 1) {
+                weekStreak = stats.getWeekStreak();
+            }
+            if (weeks > 0) {
+                // Close the open week the way the next workout will, without storing it
+                double[] averages = averagesAfter(stats, weeks);
+                average = averages[0];
+                consistency = averages[1];
+            } else if (stats.getClosedWeeks() == 0) {
+                average = stats.getWeekMinutes();
+                consistency = 1.0;
+            }
+        }
+
+        return new Summary(stats.getWorkoutCount(), stats.getTotalMinutes(), stats.getLastWorkoutDate(),
+                dayStreak, stats.getBestDayStreak(), weekStreak, stats.getBestWeekStreak(),
+                average, consistency, List.copyOf(records));
+    }
+
+    private static LocalDate weekOf(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+}
@@ -0,0 +1,430 @@
+package com.fitnesstracker.dao;
+
+import com.fitnesstracker.HibernateUtil;
+import org.hibernate.JDBCException;
+import org.hibernate.Session;
+import org.hibernate.jdbc.ReturningWork;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Application-managed archive for old workouts and measurements.
+ *
+ * Whole calendar months are moved out of WORKOUT and MEASUREMENT into WORKOUT_ARCHIVE and
+ * MEASUREMENT_ARCHIVE, so the hot tables and their indexes only hold recent months however
+ * long the history grows. ARCHIVE_PERIOD lists the months that have moved; the repositories read
+ * it to decide whether a requested date range needs the archive at all. Archived rows are
+ * read-only. An archived month can later be compacted: its rows are replaced by per-user
+ * monthly totals in WORKOUT_ROLLUP and MEASUREMENT_ROLLUP.
+ *
+ * Usage: mvn -Pmigrate compile exec:java -Dexec.mainClass=com.fitnesstracker.dao.ActivityArchive
+ *        -Dexec.args="archive [months] | compact [months] | status"
+ * where months is how many recent months to leave alone (defaults 12 and 36).
+ */
+public class ActivityArchive {
+
+    static final String ARCHIVED = "ARCHIVED";
+    static final String COMPACTED = "COMPACTED";
+
+    private static final String WORKOUT_COLUMNS =
+            "WORKOUTID, USER_ID, WORKOUTDATE, WORKOUTTYPE, DURATIONMINUTES, CALORIESBURNED, VERSION";
+    private static final String MEASUREMENT_COLUMNS =
+            "MEASUREMENTID, USER_ID, RECORDDATE, WEIGHT, HEIGHT, VERSION";
+
+    private static final String COMPACT_WORKOUTS_SQL =
+            "MERGE INTO WORKOUT_ROLLUP r USING ("
+                    + "SELECT USER_ID, WORKOUTTYPE, COUNT(*) CNT, SUM(DURATIONMINUTES) MINS, SUM(CALORIESBURNED) CALS "
+                    + "FROM WORKOUT_ARCHIVE WHERE WORKOUTDATE >= ? AND WORKOUTDATE < ? GROUP BY USER_ID, WORKOUTTYPE) s "
+                    + "ON (r.USER_ID = s.USER_ID AND r.PERIOD_START = ? AND r.WORKOUTTYPE = s.WORKOUTTYPE) "
+                    + "WHEN MATCHED THEN UPDATE SET r.WORKOUT_COUNT = r.WORKOUT_COUNT + s.CNT, "
+                    + "r.TOTAL_MINUTES = COALESCE(r.TOTAL_MINUTES, 0) + COALESCE(s.MINS, 0), "
+                    + "r.TOTAL_CALORIES = COALESCE(r.TOTAL_CALORIES, 0) + COALESCE(s.CALS, 0) "
+                    + "WHEN NOT MATCHED THEN INSERT (USER_ID, PERIOD_START, WORKOUTTYPE, WORKOUT_COUNT, TOTAL_MINUTES, TOTAL_CALORIES) "
+                    + "VALUES (s.USER_ID, ?, s.WORKOUTTYPE, s.CNT, s.MINS, s.CALS)";
+
+    private static final String COMPACT_MEASUREMENTS_SQL =
+            "MERGE INTO MEASUREMENT_ROLLUP r USING ("
+                    + "SELECT USER_ID, COUNT(WEIGHT) CNT, SUM(WEIGHT) WSUM, MIN(WEIGHT) WMIN, MAX(WEIGHT) WMAX "
+                    + "FROM MEASUREMENT_ARCHIVE WHERE RECORDDATE >= ? AND RECORDDATE < ? GROUP BY USER_ID) s "
+                    + "ON (r.USER_ID = s.USER_ID AND r.PERIOD_START = ?) "
+                    + "WHEN MATCHED THEN UPDATE SET r.MEASUREMENT_COUNT = r.MEASUREMENT_COUNT + s.CNT, "
+                    + "r.WEIGHT_SUM = COALESCE(r.WEIGHT_SUM, 0) + COALESCE(s.WSUM, 0), "
+                    + "r.WEIGHT_MIN = LEAST(COALESCE(r.WEIGHT_MIN, s.WMIN), COALESCE(s.WMIN, r.WEIGHT_MIN)), "
+                    + "r.WEIGHT_MAX = GREATEST(COALESCE(r.WEIGHT_MAX, s.WMAX), COALESCE(s.WMAX, r.WEIGHT_MAX)) "
+                    + "WHEN NOT MATCHED THEN INSERT (USER_ID, PERIOD_START, MEASUREMENT_COUNT, WEIGHT_SUM, WEIGHT_MIN, WEIGHT_MAX) "
+                    + "VALUES (s.USER_ID, ?, s.CNT, s.WSUM, s.WMIN, s.WMAX)";
+
+    /**
+     * One user's workouts of one type in a compacted month.
+     */
+    public record WorkoutRollup(LocalDate periodStart, String workoutType, int workoutCount,
+                                long totalMinutes, long totalCalories) {}
+
+    /**
+     * One user's weigh-ins in a compacted month.
+     */
+    public record MeasurementRollup(LocalDate periodStart, int measurementCount,
+                                    Double averageWeight, Double minWeight, Double maxWeight) {}
+
+    // Set once ARCHIVE_PERIOD turns out not to exist, as on databases whose schema was
+    // created by hbm2ddl, so reads stop asking for it
+    private static volatile boolean noArchiveTable;
+
+    private ActivityArchive() {}
+
+    // --- Used by ActivityDAO and the repositories ---
+
+    /**
+     * The archived months whose rows still sit in the archive tables and fall inside
+     * [from, to] (either end may be null). Empty when the range only covers hot months.
+     *
+     * Read from ARCHIVE_PERIOD in the caller's session on every call (a primary key range),
+     * not cached: the archive tool runs in another process, and a reader that missed a month
+     * it just moved would count those rows as gone.
+     */
+    static List<LocalDate> detailMonths(Session session, LocalDate from, LocalDate to) {
+        LocalDate first = from != null ? monthStart(from) : Repository.EARLIEST;
+        LocalDate last = to != null ? monthStart(to) : Repository.LATEST;
+        if (first.isAfter(last)) return List.of();
+
+        return readArchivePeriods(session, List.of(), connection -> {
+            List<LocalDate> months = new ArrayList<>();
+            try (PreparedStatement statement = connection.prepareStatement("SELECT PERIOD_START FROM ARCHIVE_PERIOD "
+                    + "WHERE PERIOD_START BETWEEN ? AND ? AND STATE = '" + ARCHIVED + "' ORDER BY PERIOD_START")) {
+                statement.setDate(1, Date.valueOf(first));
+                statement.setDate(2, Date.valueOf(last));
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        months.add(rs.getDate(1).toLocalDate());
+                    }
+                }
+            }
+            return months;
+        });
+    }
+
+    /**
+     * @return True if any month has been archived; the archive tables exist and are in use.
+     */
+    static boolean isInUse(Session session) {
+        return readArchivePeriods(session, false, connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT 1 FROM ARCHIVE_PERIOD WHERE ROWNUM = 1")) {
+                return rs.next();
+            }
+        });
+    }
+
+    static String archivedWorkoutsSql() {
+        return "SELECT " + WORKOUT_COLUMNS + ", NULL AS DELETED_AT FROM WORKOUT_ARCHIVE "
+                + "WHERE USER_ID = :userId AND WORKOUTDATE >= :from AND WORKOUTDATE < :to";
+    }
+
+    static String archivedMeasurementsSql() {
+        return "SELECT " + MEASUREMENT_COLUMNS + ", NULL AS DELETED_AT FROM MEASUREMENT_ARCHIVE "
+                + "WHERE USER_ID = :userId AND RECORDDATE >= :from AND RECORDDATE < :to";
+    }
+
+    /**
+     * Calories and minutes per user and workout type over archived rows and compacted
+     * rollups together: USER_ID, WORKOUTTYPE, calories, minutes. Either sum may be null.
+     *
+     * @param forUser True to bind a :userId parameter and read one user only.
+     */
+    static String archivedTotalsSql(boolean forUser) {
+        String userFilter = forUser ? " WHERE USER_ID = :userId" : "";
+        return "SELECT USER_ID, WORKOUTTYPE, SUM(CALORIES), SUM(MINUTES) FROM ("
+                + "SELECT USER_ID, WORKOUTTYPE, CALORIESBURNED AS CALORIES, DURATIONMINUTES AS MINUTES "
+                + "FROM WORKOUT_ARCHIVE" + userFilter
+                + " UNION ALL SELECT USER_ID, WORKOUTTYPE, TOTAL_CALORIES, TOTAL_MINUTES FROM WORKOUT_ROLLUP" + userFilter
+                + ") GROUP BY USER_ID, WORKOUTTYPE";
+    }
+
+    static List<WorkoutRollup> readWorkoutRollups(Session session, Long userId) {
+        List<WorkoutRollup> rollups = new ArrayList<>();
+        if (!isInUse(session)) return rollups;
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT PERIOD_START, WORKOUTTYPE, WORKOUT_COUNT, TOTAL_MINUTES, TOTAL_CALORIES "
+                            + "FROM WORKOUT_ROLLUP WHERE USER_ID = ? ORDER BY PERIOD_START, WORKOUTTYPE")) {
+                statement.setLong(1, userId);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        rollups.add(new WorkoutRollup(rs.getDate(1).toLocalDate(), rs.getString(2),
+                                rs.getInt(3), rs.getLong(4), rs.getLong(5)));
+                    }
+                }
+            }
+        });
+        return rollups;
+    }
+
+    static List<MeasurementRollup> readMeasurementRollups(Session session, Long userId) {
+        List<MeasurementRollup> rollups = new ArrayList<>();
+        if (!isInUse(session)) return rollups;
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT PERIOD_START, MEASUREMENT_COUNT, WEIGHT_SUM, WEIGHT_MIN, WEIGHT_MAX "
+                            + "FROM MEASUREMENT_ROLLUP WHERE USER_ID = ? ORDER BY PERIOD_START")) {
+                statement.setLong(1, userId);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        int count = rs.getInt(2);
+                        double sum = rs.getDouble(3);
+                        rollups.add(new MeasurementRollup(rs.getDate(1).toLocalDate(), count,
+                                count > 0 ? sum / count : null, nullableDouble(rs, 4), nullableDouble(rs, 5)));
+                    }
+                }
+            }
+        });
+        return rollups;
+    }
+
+    /**
+     * Deletes up to limit archived and rolled-up rows belonging to accounts deleted before
+     * the cutoff. Runs in the caller's transaction.
+     * @return The number of rows deleted.
+     */
+    static int purgeDeletedUsers(Session session, LocalDateTime cutoff, int limit) {
+        if (!isInUse(session)) return 0;
+        int[] rows = new int[1];
+        session.doWork(connection -> {
+            for (String table : List.of("WORKOUT_ARCHIVE", "MEASUREMENT_ARCHIVE", "WORKOUT_ROLLUP", "MEASUREMENT_ROLLUP")) {
+                if (rows[0] >= limit) break;
+                try (PreparedStatement statement = connection.prepareStatement("DELETE FROM " + table
+                        + " WHERE USER_ID IN (SELECT USERID FROM APP_USER WHERE DELETED_AT < ?) AND ROWNUM <= ?")) {
+                    statement.setTimestamp(1, Timestamp.valueOf(cutoff));
+                    statement.setInt(2, limit - rows[0]);
+                    rows[0] += statement.executeUpdate();
+                }
+            }
+        });
+        return rows[0];
+    }
+
+    /**
+     * Runs a read of ARCHIVE_PERIOD in the session.
+     * @return The read's result, or none if the table does not exist.
+     */
+    private static <R> R readArchivePeriods(Session session, R none, ReturningWork<R> work) {
+        if (noArchiveTable) return none;
+        try {
+            return session.doReturningWork(work);
+        } catch (JDBCException e) {
+            // Only a missing table disables the archive; any other failure is the caller's
+            if (!isMissingTable(e.getSQLException())) throw e;
+            System.out.println("DEBUG: No activity archive in this database: " + e.getSQLException().getMessage());
+            noArchiveTable = true;
+            return none;
+        }
+    }
+
+    // ORA-00942 on Oracle; 42S02 is the standard SQLSTATE, which H2 uses
+    private static boolean isMissingTable(SQLException e) {
+        return e.getErrorCode() == 942 || "42S02".equals(e.getSQLState());
+    }
+
+    private static NavigableMap<LocalDate, String> readPeriods(Connection connection) throws SQLException {
+        NavigableMap<LocalDate, String> result = new TreeMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT PERIOD_START, STATE FROM ARCHIVE_PERIOD")) {
+            while (rs.next()) {
+                result.put(rs.getDate(1).toLocalDate(), rs.getString(2));
+            }
+        }
+        return result;
+    }
+
+    static LocalDate monthStart(LocalDate date) {
+        return date.withDayOfMonth(1);
+    }
+
+    // --- Maintenance ---
+
+    /**
+     * Moves every month that ended more than keepMonths months ago into the archive tables,
+     * one month per transaction. Soft-deleted rows stay behind for the TombstonePurger, so
+     * they can still be restored within the undo window. Rows logged late for a month that
+     * was already compacted are added to its totals.
+     * @return The number of rows moved.
+     */
+    public static long archive(int keepMonths) throws SQLException {
+        LocalDate boundary = monthStart(LocalDate.now()).minusMonths(keepMonths);
+        long[] moved = new long[1];
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            session.doWork(connection -> {
+                connection.setAutoCommit(false);
+                NavigableMap<LocalDate, String> known = readPeriods(connection);
+                for (LocalDate month : hotMonthsBefore(connection, boundary)) {
+                    moved[0] += archiveMonth(connection, month, known.get(month));
+                    connection.commit();
+                    System.out.println("INFO: Archived " + month);
+                }
+            });
+        }
+        return moved[0];
+    }
+
+    /**
+     * Replaces the rows of archived months that ended more than keepMonths months ago with
+     * per-user monthly totals, one month per transaction.
+     * @return The number of months compacted.
+     */
+    public static int compact(int keepMonths) throws SQLException {
+        LocalDate boundary = monthStart(LocalDate.now()).minusMonths(keepMonths);
+        int[] compacted = new int[1];
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            session.doWork(connection -> {
+                connection.setAutoCommit(false);
+                for (Map.Entry<LocalDate, String> period : readPeriods(connection).headMap(boundary, false).entrySet()) {
+                    if (!ARCHIVED.equals(period.getValue())) continue;
+                    compactMonth(connection, period.getKey());
+                    connection.commit();
+                    compacted[0]++;
+                    System.out.println("INFO: Compacted " + period.getKey());
+                }
+            });
+        }
+        return compacted[0];
+    }
+
+    private static List<LocalDate> hotMonthsBefore(Connection connection, LocalDate boundary) throws SQLException {
+        LocalDate oldest = min(minDate(connection, "SELECT MIN(WORKOUTDATE) FROM WORKOUT"),
+                minDate(connection, "SELECT MIN(RECORDDATE) FROM MEASUREMENT"));
+
+        List<LocalDate> months = new ArrayList<>();
+        for (LocalDate month = oldest != null ? monthStart(oldest) : boundary; month.isBefore(boundary); month = month.plusMonths(1)) {
+            months.add(month);
+        }
+        return months;
+    }
+
+    /**
+     * Moves one month's live rows. They are locked first, so no one can change them between
+     * the copy and the delete, and only rows whose copy matches (same id and version) are
+     * deleted: a row saved or moved into the month after the copy stays in the hot table for
+     * the next run. A copy whose row was changed anyway, which only rows committed after the
+     * lock can be, is taken back out of the archive.
+     */
+    private static long archiveMonth(Connection connection, LocalDate month, String state) throws SQLException {
+        Date from = Date.valueOf(month);
+        Date to = Date.valueOf(month.plusMonths(1));
+        long moved = 0;
+
+        moved += moveRows(connection, "WORKOUT", "WORKOUTID", "WORKOUTDATE", WORKOUT_COLUMNS, from, to);
+        moved += moveRows(connection, "MEASUREMENT", "MEASUREMENTID", "RECORDDATE", MEASUREMENT_COLUMNS, from, to);
+
+        if (state == null) {
+            update(connection, "INSERT INTO ARCHIVE_PERIOD (PERIOD_START, STATE) VALUES (?, '" + ARCHIVED + "')", from);
+        } else if (COMPACTED.equals(state)) {
+            compactMonth(connection, month);
+        }
+        return moved;
+    }
+
+    private static long moveRows(Connection connection, String table, String id, String dateColumn, String columns,
+                                 Date from, Date to) throws SQLException {
+        String live = " WHERE " + dateColumn + " >= ? AND " + dateColumn + " < ? AND DELETED_AT IS NULL";
+        try (PreparedStatement lock = connection.prepareStatement("SELECT " + id + " FROM " + table + live + " FOR UPDATE")) {
+            lock.setDate(1, from);
+            lock.setDate(2, to);
+            lock.executeQuery().close();
+        }
+
+        update(connection, "INSERT INTO " + table + "_ARCHIVE (" + columns + ") SELECT " + columns
+                + " FROM " + table + live, from, to);
+        int moved = update(connection, "DELETE FROM " + table + " h" + live + " AND EXISTS (SELECT 1 FROM " + table
+                + "_ARCHIVE a WHERE a." + id + " = h." + id + " AND a.VERSION = h.VERSION)", from, to);
+        update(connection, "DELETE FROM " + table + "_ARCHIVE a WHERE " + dateColumn + " >= ? AND " + dateColumn
+                + " < ? AND EXISTS (SELECT 1 FROM " + table + " h WHERE h." + id + " = a." + id + ")", from, to);
+        return moved;
+    }
+
+    private static void compactMonth(Connection connection, LocalDate month) throws SQLException {
+        Date from = Date.valueOf(month);
+        Date to = Date.valueOf(month.plusMonths(1));
+
+        update(connection, COMPACT_WORKOUTS_SQL, from, to, from, from);
+        update(connection, "DELETE FROM WORKOUT_ARCHIVE WHERE WORKOUTDATE >= ? AND WORKOUTDATE < ?", from, to);
+        update(connection, COMPACT_MEASUREMENTS_SQL, from, to, from, from);
+        update(connection, "DELETE FROM MEASUREMENT_ARCHIVE WHERE RECORDDATE >= ? AND RECORDDATE < ?", from, to);
+        update(connection, "UPDATE ARCHIVE_PERIOD SET STATE = '" + COMPACTED + "', UPDATED_ON = CURRENT_TIMESTAMP "
+                + "WHERE PERIOD_START = ?", from);
+    }
+
+    private static int update(Connection connection, String sql, Date... parameters) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setDate(i + 1, parameters[i]);
+            }
+            return statement.executeUpdate();
+        }
+    }
+
+    private static LocalDate minDate(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            return rs.next() && rs.getDate(1) != null ? rs.getDate(1).toLocalDate() : null;
+        }
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static Double nullableDouble(ResultSet rs, int column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static void status() throws SQLException {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            session.doWork(connection -> {
+                NavigableMap<LocalDate, String> all = readPeriods(connection);
+                System.out.println("INFO: " + all.size() + " archived months");
+                all.forEach((month, state) -> System.out.println("INFO: " + month + " " + state));
+            });
+        }
+    }
+
+    public static void main(String[] args) {
+        String command = args.length > 0 ? args[0] : "status";
+        try {
+            switch (command) {
+                case "archive" -> {
+                    long moved = archive(args.length > 1 ? Integer.parseInt(args[1]) : 12);
+                    System.out.println("INFO: Moved " + moved + " rows to the archive.");
+                }
+                case "compact" -> {
+                    int months = compact(args.length > 1 ? Integer.parseInt(args[1]) : 36);
+                    System.out.println("INFO: Compacted " + months + " months.");
+                }
+                case "status" -> status();
+                default -> {
+                    System.err.println("Usage: ActivityArchive archive [months] | compact [months] | status");
+                    System.exit(2);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("ERROR: Archive maintenance failed: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        } finally {
+            HibernateUtil.shutdown();
+        }
+    }
+}
@@ -1,312 +1,318 @@
 package com.fitnesstracker.dao;
 
-import com.fitnesstracker.model.User;
 import com.fitnesstracker.model.Workout;
 import com.fitnesstracker.model.Measurement;
-import com.fitnesstracker.HibernateUtil;
+import com.fitnesstracker.model.Goal;
+import com.fitnesstracker.event.DomainEvent;
+import com.fitnesstracker.event.DomainEventBus;
+import com.fitnesstracker.validation.ActivityRules;
+import com.fitnesstracker.validation.ValidationException;
 import org.hibernate.Session;
-import org.hibernate.Transaction;
-import org.hibernate.query.Query;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Function;
 
 /**
- * Centralized Data Access Object for all fitness activities and user management.
+ * Data Access Object for operations that span entities or act on many rows at once: bulk
+ * edits, statistics, goals, archive rollups and units of work. Single entities are read and
+ * written through the typed repositories ({@link WorkoutRepository}, {@link MeasurementRepository},
+ * {@link UserRepository}).
  */
 public class ActivityDAO {
 
+    // Oracle rejects IN lists with more than 1000 elements
+    private static final int IN_LIST_LIMIT = 1000;
+
     /**
-     * Save a new entity to the database
+     * Runs several operations in one session and transaction: they all commit together, in
+     * one round trip, or none of them does. See {@link UnitOfWork}.
+     *
+     * @param operation Names the work in log and error messages.
+     * @return Whatever the work returns.
+     * @throws EditConflictException if an update finds the row changed since it was read.
      */
-    public void save(Object entity) {
-        Transaction transaction = null;
-        Session session = null;
-
-        try {
-            System.out.println("DEBUG: Starting save operation for entity: " + entity.getClass().getName());
-            // Open Session and begin Transaction
-            session = HibernateUtil.getSessionFactory().openSession();
-            transaction = session.beginTransaction();
-
-            session.persist(entity);
-
-            // Commit the transaction
-            transaction.commit();
-            System.out.println("DEBUG: Successfully saved entity");
-
-        } catch (Exception e) {
-            System.err.println("ERROR: Failed to save entity: " + e.getMessage());
-            // Rollback if the transaction is active
-            if (transaction != null && transaction.isActive()) {
-                transaction.rollback();
-            }
-            e.printStackTrace();
-            throw new RuntimeException("Database operation failed: " + e.getMessage(), e);
-        } finally {
-            // Close the session in the finally block to release resources
-            if (session != null && session.isOpen()) {
-                session.close();
-            }
-        }
+    public <T> T inTransaction(String operation, UnitOfWork.Work<T> work) {
+        return UnitOfWork.run(operation, work);
     }
 
     /**
-     * Update an existing entity in the database
+     * Marks the user's workouts with the given ids deleted in one transaction, one UPDATE per
+     * {@value #IN_LIST_LIMIT} ids. Ids that are already gone or belong to someone else are skipped.
+     *
+     * @return The number of workouts deleted.
      */
-    public void update(Object entity) {
-        Transaction transaction = null;
-        Session session = null;
-
-        try {
-            System.out.println("DEBUG: Starting update operation for entity: " + entity.getClass().getName());
-            // Open Session and begin Transaction
-            session = HibernateUtil.getSessionFactory().openSession();
-            transaction = session.beginTransaction();
-
-            // For Hibernate 6.0+, use merge() instead of update()
-            session.merge(entity);
-
-            // Commit the transaction
-            transaction.commit();
-            System.out.println("DEBUG: Successfully updated entity");
+    public int deleteWorkouts(Long userId, Collection<Long> workoutIds) {
+        LocalDateTime now = LocalDateTime.now();
+        return executeBulk("Bulk workout delete", workoutIds, userId, Workout.class,
+                ids -> new DomainEvent.EntityDeleted(userId, Workout.class, ids),
+                (session, ids) -> session.createNamedMutationQuery("Workout.bulkSoftDelete")
+                        .setParameter("now", now)
+                        .setParameter("userId", userId)
+                        .setParameterList("ids", ids)
+                        .executeUpdate());
+    }
 
-        } catch (Exception e) {
-            System.err.println("ERROR: Failed to update entity: " + e.getMessage());
-            // Rollback if the transaction is active
-            if (transaction != null && transaction.isActive()) {
-                transaction.rollback();
-            }
-            e.printStackTrace();
-            // Re-throw the exception
-            throw new RuntimeException("Update operation failed: " + e.getMessage(), e);
-        } finally {
-            // Close the session
-            if (session != null && session.isOpen()) {
-                session.close();
-            }
-        }
+    /**
+     * Marks the user's measurements with the given ids deleted in one transaction.
+     *
+     * @return The number of measurements deleted.
+     */
+    public int deleteMeasurements(Long userId, Collection<Long> measurementIds) {
+        LocalDateTime now = LocalDateTime.now();
+        return executeBulk("Bulk measurement delete", measurementIds, userId, Measurement.class,
+                ids -> new DomainEvent.EntityDeleted(userId, Measurement.class, ids),
+                (session, ids) -> session.createNamedMutationQuery("Measurement.bulkSoftDelete")
+                        .setParameter("now", now)
+                        .setParameter("userId", userId)
+                        .setParameterList("ids", ids)
+                        .executeUpdate());
     }
 
     /**
-     * Delete an entity from the database
+     * Brings back the user's deleted workouts with the given ids, for undo. Workouts that were
+     * already purged cannot be restored and are skipped.
+     *
+     * @return The number of workouts restored.
      */
-    public void delete(Object entity) {
-        Transaction transaction = null;
-        Session session = null;
+    public int restoreWorkouts(Long userId, Collection<Long> workoutIds) {
+        return executeBulk("Workout restore", workoutIds, userId, Workout.class,
+                ids -> new DomainEvent.EntityRestored(userId, Workout.class, ids),
+                (session, ids) -> session.createNamedMutationQuery("Workout.bulkRestore")
+                        .setParameter("userId", userId)
+                        .setParameterList("ids", ids)
+                        .executeUpdate());
+    }
 
-        try {
-            System.out.println("DEBUG: Starting delete operation for entity: " + entity.getClass().getName());
+    /**
+     * Brings back the user's deleted measurements with the given ids, for undo.
+     *
+     * @return The number of measurements restored.
+     */
+    public int restoreMeasurements(Long userId, Collection<Long> measurementIds) {
+        return executeBulk("Measurement restore", measurementIds, userId, Measurement.class,
+                ids -> new DomainEvent.EntityRestored(userId, Measurement.class, ids),
+                (session, ids) -> session.createNamedMutationQuery("Measurement.bulkRestore")
+                        .setParameter("userId", userId)
+                        .setParameterList("ids", ids)
+                        .executeUpdate());
+    }
 
-            // Open Session and begin Transaction
-            session = HibernateUtil.getSessionFactory().openSession();
-            transaction = session.beginTransaction();
+    /**
+     * Changes the type of the user's workouts with the given ids in one transaction.
+     * Calories are left as they are. Versions are bumped so open edit dialogs see the change.
+     *
+     * @return The number of workouts updated.
+     * @throws ValidationException if the type breaks one of the ActivityRules.WORKOUT type rules.
+     */
+    public int retypeWorkouts(Long userId, Collection<Long> workoutIds, String workoutType) {
+        Workout retyped = new Workout();
+        retyped.setWorkoutType(workoutType);
+        ActivityRules.WORKOUT.check(retyped, "workoutType");
+        return executeBulk("Bulk workout retype", workoutIds, userId, Workout.class,
+                ids -> new DomainEvent.WorkoutUpdated(userId, ids),
+                (session, ids) -> session.createNamedMutationQuery("Workout.bulkRetype")
+                        .setParameter("type", workoutType)
+                        .setParameter("userId", userId)
+                        .setParameterList("ids", ids)
+                        .executeUpdate());
+    }
 
-            // For entities that might be detached, reattach them
-            if (entity instanceof Workout) {
-                Workout workout = (Workout)entity;
-                System.out.println("DEBUG: Deleting Workout with ID: " + workout.getWorkoutId());
-                if (workout.getWorkoutId() != null) {
-                    Workout managedWorkout = session.get(Workout.class, workout.getWorkoutId());
-                    if (managedWorkout != null) {
-                        session.remove(managedWorkout);
-                        System.out.println("DEBUG: Workout found and removed");
-                    } else {
-                        System.out.println("DEBUG: Workout not found in database");
+    /**
+     * Moves the user's workouts with the given ids by a number of days (negative for earlier)
+     * in one transaction.
+     *
+     * @return The number of workouts updated.
+     * @throws ValidationException if the latest of them would break one of the ActivityRules.WORKOUT
+     *                             date rules (land in the future); nothing is moved.
+     */
+    public int shiftWorkoutDates(Long userId, Collection<Long> workoutIds, int days) {
+        return executeBulk("Bulk workout date shift", workoutIds, userId, Workout.class,
+                ids -> new DomainEvent.WorkoutUpdated(userId, ids),
+                (session, ids) -> {
+                    LocalDate latest = session.createNamedQuery("Workout.latestDateOfIds", LocalDate.class)
+                            .setParameter("userId", userId)
+                            .setParameterList("ids", ids)
+                            .uniqueResult();
+                    if (latest != null) {
+                        Workout shifted = new Workout();
+                        shifted.setWorkoutDate(latest.plusDays(days));
+                        ActivityRules.WORKOUT.check(shifted, "workoutDate");
                     }
-                }
-            }
-            else if (entity instanceof Measurement) {
-                Measurement measurement = (Measurement)entity;
-                System.out.println("DEBUG: Deleting Measurement with ID: " + measurement.getMeasurementId());
-                if (measurement.getMeasurementId() != null) {
-                    Measurement managedMeasurement = session.get(Measurement.class, measurement.getMeasurementId());
-                    if (managedMeasurement != null) {
-                        session.remove(managedMeasurement);
-                        System.out.println("DEBUG: Measurement found and removed");
-                    } else {
-                        System.out.println("DEBUG: Measurement not found in database");
+                    return session.createNamedMutationQuery("Workout.bulkShiftDates")
+                            .setParameter("days", days)
+                            .setParameter("userId", userId)
+                            .setParameterList("ids", ids)
+                            .executeUpdate();
+                });
+    }
+
+    /**
+     * Moves the user's measurements with the given ids by a number of days in one transaction.
+     *
+     * @return The number of measurements updated.
+     * @throws ValidationException if the latest of them would break one of the ActivityRules.MEASUREMENT
+     *                             date rules (land in the future); nothing is moved.
+     */
+    public int shiftMeasurementDates(Long userId, Collection<Long> measurementIds, int days) {
+        return executeBulk("Bulk measurement date shift", measurementIds, userId, Measurement.class,
+                ids -> new DomainEvent.MeasurementUpdated(userId, ids),
+                (session, ids) -> {
+                    LocalDate latest = session.createNamedQuery("Measurement.latestDateOfIds", LocalDate.class)
+                            .setParameter("userId", userId)
+                            .setParameterList("ids", ids)
+                            .uniqueResult();
+                    if (latest != null) {
+                        Measurement shifted = new Measurement();
+                        shifted.setRecorddate(latest.plusDays(days));
+                        ActivityRules.MEASUREMENT.check(shifted, "recorddate");
                     }
-                }
-            }
-            else {
-                // For Hibernate 6.0+, use remove() instead of delete()
-                session.remove(entity);
-            }
+                    return session.createNamedMutationQuery("Measurement.bulkShiftDates")
+                            .setParameter("days", days)
+                            .setParameter("userId", userId)
+                            .setParameterList("ids", ids)
+                            .executeUpdate();
+                });
+    }
 
-            // Commit the transaction
-            transaction.commit();
-            System.out.println("DEBUG: Delete transaction committed successfully");
+    private interface BulkStatement {
+        int execute(Session session, List<Long> ids);
+    }
 
-        } catch (Exception e) {
-            System.err.println("ERROR: Failed to delete entity: " + e.getMessage());
-            // Rollback if the transaction is active
-            if (transaction != null && transaction.isActive()) {
-                transaction.rollback();
+    /**
+     * Runs a set-based statement over the ids in one transaction, split into IN lists Oracle
+     * accepts. Either every chunk is applied or none is.
+     *
+     * @param userId The owner of the rows, whose goals the change invalidates, along with their
+     *               ActivityAnalytics aggregates and leaderboard scores for a workout change.
+     * @param entityType Workout or Measurement.
+     * @param event Builds the event published for the ids once the change has committed.
+     */
+    private int executeBulk(String operation, Collection<Long> ids, Long userId, Class<?> entityType,
+                            Function<List<Long>, DomainEvent> event, BulkStatement statement) {
+        if (ids == null || ids.isEmpty()) return 0;
+        List<Long> all = new ArrayList<>(ids);
+        System.out.println("DEBUG: " + operation + " of " + all.size() + " rows");
+
+        int rows = UnitOfWork.run(operation, unit -> {
+            Session session = unit.session();
+            int changed = 0;
+            for (int from = 0; from < all.size(); from += IN_LIST_LIMIT) {
+                changed += statement.execute(session, all.subList(from, Math.min(from + IN_LIST_LIMIT, all.size())));
             }
-            e.printStackTrace();
-            // Re-throw the exception
-            throw new RuntimeException("Delete operation failed: " + e.getMessage(), e);
-        } finally {
-            // Close the session
-            if (session != null && session.isOpen()) {
-                session.close();
+            if (changed > 0) {
+                boolean workouts = entityType == Workout.class;
+                if (workouts) {
+                    ActivityAnalytics.invalidate(session, userId);
+                }
+                GoalTracker.invalidate(session, userId, workouts ? GoalTracker.WORKOUT_GOALS : GoalTracker.WEIGHT_GOALS);
+                unit.afterCommit(() -> {
+                    if (workouts) {
+                        Leaderboards.getInstance().invalidate(userId);
+                    }
+                    DomainEventBus.getInstance().publish(event.apply(List.copyOf(all)));
+                });
             }
-        }
+            return changed;
+        });
+        System.out.println("DEBUG: " + operation + " affected " + rows + " rows");
+        return rows;
     }
 
     /**
-     * Checks if a user exists with the given name and password.
+     * Streaks, personal records and moving averages for a user as of today. Answered from the
+     * stored aggregates; only the first read after a non-append change walks the history.
+     *
+     * @return The summary, or null if it could not be read.
      */
-    public User authenticateUser(String username, String password) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            System.out.println("DEBUG: Authenticating user: " + username);
-
-            Query<User> query = session.createQuery(
-                    "FROM User WHERE username = :username AND password = :password", User.class);
-            query.setParameter("username", username);
-            query.setParameter("password", password);
-
-            User result = query.uniqueResult();
-            System.out.println("DEBUG: Authentication result: " + (result != null ? "Success" : "Failed"));
+    public ActivityAnalytics.Summary findActivityStats(Long userId) {
+        LocalDate today = LocalDate.now();
+        ActivityAnalytics.Summary summary = Repository.read("load activity stats",
+                session -> ActivityAnalytics.read(session, userId, today), null);
+        if (summary != null) return summary;
 
-            return result;
-        } catch (Exception e) {
-            System.err.println("ERROR: Exception during authentication: " + e.getMessage());
-            e.printStackTrace();
+        try {
+            return UnitOfWork.run("Activity stats rebuild", unit -> {
+                ActivityAnalytics.lockUser(unit.session(), userId);
+                return ActivityAnalytics.rebuild(unit.session(), userId,
+                        WorkoutRepository.query(unit.session(), userId, null, null), today);
+            });
+        } catch (RuntimeException e) {
+            // Logged by the unit of work
             return null;
         }
     }
 
     /**
-     * Checks if a username is already in use by another user.
+     * A user's goals with their progress as of today, oldest first. Answered from the stored
+     * progress; only goals made stale by a non-append change are evaluated again.
+     *
+     * @return The goals, or null if they could not be read.
      */
-    public boolean usernameExists(String username) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            System.out.println("DEBUG: Checking if name exists: " + username);
-
-            // Use the correct field name from the entity
-            Query<Long> query = session.createQuery(
-                    "SELECT count(u.userId) FROM User u WHERE u.username = :username", Long.class);
-            query.setParameter("username", username);
-            Long count = query.uniqueResult();
+    public List<GoalTracker.Progress> findGoals(Long userId) {
+        LocalDate today = LocalDate.now();
+        List<GoalTracker.Progress> goals = Repository.read("load goals",
+                session -> GoalTracker.read(session, userId, today), null);
+        if (goals != null) return goals;
 
-            System.out.println("DEBUG: Name exists check result: Count=" + count);
-            return count != null && count > 0;
-        } catch (Exception e) {
-            System.err.println("ERROR: Exception in nameExists method: " + e.getMessage());
-            e.printStackTrace();
-            return true; // Default to true on error to prevent duplicate entries
+        // A new session, so the goals are read again under the lock rather than reused
+        try {
+            return UnitOfWork.run("Goal evaluation", unit -> GoalTracker.evaluate(unit.session(), userId, today));
+        } catch (RuntimeException e) {
+            // Logged by the unit of work
+            return null;
         }
     }
 
     /**
-     * Retrieves all workouts for a specific user, ordered by date.
+     * Stores a new goal with its progress so far.
+     *
+     * @throws IllegalArgumentException if the user already has {@value GoalTracker#MAX_GOALS_PER_USER}
+     *                                  goals, or sets a target weight before logging a weight.
      */
-    public List<Workout> findAllWorkoutsByUserId(Long userId) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            System.out.println("DEBUG: Finding workouts for user ID: " + userId);
-
-            try {
-                // Use the exact field names from your entity class
-                String hql = "FROM Workout w WHERE w.user.userId = :userId ORDER BY w.workoutdate ASC";
-                System.out.println("DEBUG: Executing HQL: " + hql);
-
-                Query<Workout> query = session.createQuery(hql, Workout.class);
-                query.setParameter("userId", userId);
-                List<Workout> workouts = query.getResultList();
-
-                if (workouts != null && !workouts.isEmpty()) {
-                    System.out.println("DEBUG: Found " + workouts.size() + " workouts in database");
-                    return workouts;
-                } else {
-                    System.out.println("DEBUG: No workouts found in database, using sample data");
-                }
-            } catch (Exception e) {
-                System.err.println("ERROR: Exception when querying workouts: " + e.getMessage());
-                e.printStackTrace();
-            }
-
-            // Provide sample data if database query fails
-            System.out.println("DEBUG: Generating sample workout data");
-            List<Workout> sampleWorkouts = new ArrayList<>();
-            return sampleWorkouts;
-        } catch (Exception e) {
-            System.err.println("ERROR: Failed to load workouts: " + e.getMessage());
-            e.printStackTrace();
-            return new ArrayList<>();
-        }
+    public void saveGoal(Goal goal) {
+        System.out.println("DEBUG: Saving " + goal.getType() + " goal for user " + goal.getUserId());
+        UnitOfWork.run("Database operation", unit -> {
+            GoalTracker.create(unit.session(), goal, LocalDate.now());
+            unit.afterCommit(() -> DomainEventBus.getInstance().publish(new DomainEvent.GoalChanged(goal.getUserId())));
+            return null;
+        });
     }
 
     /**
-     * Retrieves all measurements for a specific user, ordered by date.
+     * Deletes one of the user's goals. A goal that is already gone or belongs to someone else
+     * is not an error.
+     *
+     * @return True if the goal was deleted.
      */
-    public List<Measurement> findAllMeasurementsByUserId(Long userId) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            System.out.println("DEBUG: Finding measurements for user ID: " + userId);
-
-            try {
-                String hql = "FROM Measurement m WHERE m.user.userId = :userId ORDER BY m.recorddate ASC";
-                System.out.println("DEBUG: Executing HQL: " + hql);
-
-                Query<Measurement> query = session.createQuery(hql, Measurement.class);
-                query.setParameter("userId", userId);
-                List<Measurement> measurements = query.getResultList();
-
-                if (measurements != null && !measurements.isEmpty()) {
-                    System.out.println("DEBUG: Found " + measurements.size() + " measurements in database");
-                    return measurements;
-                } else {
-                    System.out.println("DEBUG: No measurements found in database");
-                    return new ArrayList<>();  // ✅ Return empty list instead of sample data
-                }
-            } catch (Exception e) {
-                System.err.println("ERROR: Exception when querying measurements: " + e.getMessage());
-                e.printStackTrace();
-                return new ArrayList<>();  // ✅ Return empty list on error
+    public boolean deleteGoal(Long userId, Long goalId) {
+        return UnitOfWork.run("Goal delete", unit -> {
+            int rows = unit.session().createNamedMutationQuery("Goal.deleteByIdAndUser")
+                    .setParameter("goalId", goalId)
+                    .setParameter("userId", userId)
+                    .executeUpdate();
+            if (rows > 0) {
+                unit.afterCommit(() -> DomainEventBus.getInstance().publish(new DomainEvent.GoalChanged(userId)));
             }
-        } catch (Exception e) {
-            System.err.println("ERROR: Failed to load measurements: " + e.getMessage());
-            e.printStackTrace();
-            return new ArrayList<>();
-        }
-    }
-
-    /**
-     * Find a workout by its ID
-     */
-    public Workout findWorkoutById(Long id) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return session.get(Workout.class, id);
-        } catch (Exception e) {
-            System.err.println("ERROR: Failed to find workout with ID: " + id);
-            e.printStackTrace();
-            return null;
-        }
+            return rows > 0;
+        });
     }
 
     /**
-     * Find a measurement by its ID
+     * Monthly workout totals for the user's compacted months, oldest first.
      */
-    public Measurement findMeasurementById(Long id) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return session.get(Measurement.class, id);
-        } catch (Exception e) {
-            System.err.println("ERROR: Failed to find measurement with ID: " + id);
-            e.printStackTrace();
-            return null;
-        }
+    public List<ActivityArchive.WorkoutRollup> findWorkoutRollups(Long userId) {
+        return Repository.read("load workout rollups",
+                session -> ActivityArchive.readWorkoutRollups(session, userId), new ArrayList<>());
     }
 
     /**
-     * Find a user by their ID
+     * Monthly weight summaries for the user's compacted months, oldest first.
      */
-    public User findUserById(Long id) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return session.get(User.class, id);
-        } catch (Exception e) {
-            System.err.println("ERROR: Failed to find user with ID: " + id);
-            e.printStackTrace();
-            return null;
-        }
+    public List<ActivityArchive.MeasurementRollup> findMeasurementRollups(Long userId) {
+        return Repository.read("load measurement rollups",
+                session -> ActivityArchive.readMeasurementRollups(session, userId), new ArrayList<>());
     }
-}
\ No newline at end of file
+}
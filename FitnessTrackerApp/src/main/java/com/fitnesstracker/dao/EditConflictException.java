@@ -0,0 +1,15 @@
+package com.fitnesstracker.dao;
+
+/**
+ * Thrown when a workout or measurement is updated or deleted using a version that is no
+ * longer the stored one, i.e. someone else changed or deleted it after it was loaded.
+ * Nothing has been written when this is thrown; the caller should reload and retry.
+ */
+public class EditConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public EditConflictException(String message) {
+        super(message);
+    }
+}
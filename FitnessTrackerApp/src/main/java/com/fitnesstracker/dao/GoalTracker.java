@@ -0,0 +1,264 @@
+package com.fitnesstracker.dao;
+
+import com.fitnesstracker.model.Goal;
+import com.fitnesstracker.model.Measurement;
+import com.fitnesstracker.model.Workout;
+import org.hibernate.Session;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Progress towards each user's goals, kept in the GOAL rows so that reading it never
+ * walks the user's history.
+ *
+ * A new workout or weigh-in is applied to the user's goals in the saving transaction:
+ * one indexed read of at most {@link #MAX_GOALS_PER_USER} rows and an update of the ones
+ * it changes, whatever the size of the history or the number of users. Anything else
+ * that changes the history (edits, deletes, restores, bulk changes) marks the user's
+ * goals of that kind stale instead, and the next read evaluates them again with one
+ * aggregate query each. Like ActivityAnalytics, both sides lock the APP_USER row first.
+ */
+public class GoalTracker {
+
+    // Keeps the per-write cost bounded
+    public static final int MAX_GOALS_PER_USER = 20;
+
+    static final Set<Goal.Type> WORKOUT_GOALS = EnumSet.of(Goal.Type.WEEKLY_MINUTES, Goal.Type.MONTHLY_CALORIES);
+    static final Set<Goal.Type> WEIGHT_GOALS = EnumSet.of(Goal.Type.TARGET_WEIGHT);
+
+    /**
+     * A goal as of a given day.
+     *
+     * @param current The total so far this period, or the latest weight.
+     * @param fraction How far along the goal is, from 0 to 1.
+     * @param since The start of the current period, or the day a weight goal was set.
+     */
+    public record Progress(Goal goal, double current, double fraction, boolean achieved, LocalDate since) {}
+
+    private GoalTracker() {}
+
+    /**
+     * Adds a workout just inserted in the session's transaction to its user's weekly and
+     * monthly goals.
+     */
+    static void recordWorkout(Session session, Workout workout) {
+        Long userId = workout.getUser().getUserId();
+        ActivityAnalytics.lockUser(session, userId);
+
+        LocalDate date = workout.getWorkoutDate();
+        Integer calories = null;
+        for (Goal goal : readGoals(session, userId, WORKOUT_GOALS)) {
+            // Stale goals are evaluated on the next read
+            if (goal.getProgress() == null) continue;
+
+            LocalDate period = periodStart(goal.getType(), date);
+            if (goal.getPeriodStart() == null || period.isAfter(goal.getPeriodStart())) {
+                goal.setPeriodStart(period);
+                goal.setProgress(0.0);
+            } else if (period.isBefore(goal.getPeriodStart())) {
+                // Counts towards a period that is already over
+                continue;
+            }
+
+            double amount;
+            if (goal.getType() == Goal.Type.WEEKLY_MINUTES) {
+                amount = workout.getDurationMinutes() != null ? workout.getDurationMinutes() : 0;
+            } else {
+                if (calories == null) {
+                    calories = ActivityAnalytics.storedCalories(session, workout);
+                    if (calories == null) calories = 0;
+                }
+                amount = calories;
+            }
+            goal.setProgress(goal.getProgress() + amount);
+        }
+    }
+
+    /**
+     * Applies a weigh-in just inserted in the session's transaction to its user's target
+     * weight goals.
+     */
+    static void recordMeasurement(Session session, Measurement measurement) {
+        if (measurement.getWeight() == null) return;
+        Long userId = measurement.getUser().getUserId();
+        ActivityAnalytics.lockUser(session, userId);
+
+        LocalDate date = measurement.getRecorddate();
+        double weight = measurement.getWeight();
+        for (Goal goal : readGoals(session, userId, WEIGHT_GOALS)) {
+            if (goal.getProgress() == null) continue;
+
+            if (goal.getProgressOn() == null || !date.isBefore(goal.getProgressOn())) {
+                goal.setProgress(weight);
+                goal.setProgressOn(date);
+            }
+            if (!date.isBefore(goal.getCreatedOn()) && reaches(goal, weight)
+                    && (goal.getAchievedOn() == null || date.isBefore(goal.getAchievedOn()))) {
+                goal.setAchievedOn(date);
+            }
+        }
+    }
+
+    /**
+     * Marks a user's goals of the given kinds stale in the session's transaction after a
+     * change that cannot be applied in place; the next read evaluates them again.
+     */
+    static void invalidate(Session session, Long userId, Set<Goal.Type> types) {
+        ActivityAnalytics.lockUser(session, userId);
+        // Through the loaded entities, so a later write in the same session sees the change
+        for (Goal goal : readGoals(session, userId, types)) {
+            goal.setProgress(null);
+        }
+    }
+
+    /**
+     * {@link #invalidate} for the weight goals of a measurement's owner.
+     * @return The owner's id, or null if the measurement does not exist.
+     */
+    static Long invalidateForMeasurement(Session session, Long measurementId) {
+        Long userId = MeasurementRepository.ownerId(session, measurementId);
+        if (userId != null) {
+            invalidate(session, userId, WEIGHT_GOALS);
+        }
+        return userId;
+    }
+
+    /**
+     * @return The user's goals as of today, or null if some need evaluating again.
+     */
+    static List<Progress> read(Session session, Long userId, LocalDate today) {
+        List<Goal> goals = readGoals(session, userId, EnumSet.allOf(Goal.Type.class));
+        for (Goal goal : goals) {
+            if (goal.getProgress() == null) return null;
+        }
+        return progress(goals, today);
+    }
+
+    /**
+     * Evaluates the user's stale goals from their history and stores the result. Must run
+     * in a transaction.
+     */
+    static List<Progress> evaluate(Session session, Long userId, LocalDate today) {
+        ActivityAnalytics.lockUser(session, userId);
+        List<Goal> goals = readGoals(session, userId, EnumSet.allOf(Goal.Type.class));
+        for (Goal goal : goals) {
+            if (goal.getProgress() == null) {
+                evaluate(session, goal, today);
+            }
+        }
+        return progress(goals, today);
+    }
+
+    /**
+     * Stores a new goal for its user with its progress so far. Must run in a transaction.
+     *
+     * @throws IllegalArgumentException if the user has too many goals, or sets a target
+     *                                  weight without having logged a weight.
+     */
+    static void create(Session session, Goal goal, LocalDate today) {
+        ActivityAnalytics.lockUser(session, goal.getUserId());
+        Long count = session.createNamedQuery("Goal.countByUser", Long.class)
+                .setParameter("userId", goal.getUserId())
+                .uniqueResult();
+        if (count >= MAX_GOALS_PER_USER) {
+            throw new IllegalArgumentException("You can have at most " + MAX_GOALS_PER_USER + " goals.");
+        }
+
+        goal.setCreatedOn(today);
+        if (goal.getType() == Goal.Type.TARGET_WEIGHT) {
+            Measurement latest = latestWeighIn(session, goal.getUserId());
+            if (latest == null) {
+                throw new IllegalArgumentException("Log your weight before setting a target weight.");
+            }
+            goal.setStartValue(latest.getWeight());
+        }
+        evaluate(session, goal, today);
+        session.persist(goal);
+    }
+
+    // --- Evaluation ---
+
+    private static void evaluate(Session session, Goal goal, LocalDate today) {
+        if (goal.getType().isPeriodic()) {
+            LocalDate period = periodStart(goal.getType(), today);
+            String sum = goal.getType() == Goal.Type.WEEKLY_MINUTES ? "Workout.sumMinutesSince" : "Workout.sumCaloriesSince";
+            Number total = session.createNamedQuery(sum, Number.class)
+                    .setParameter("userId", goal.getUserId())
+                    .setParameter("from", period)
+                    .uniqueResult();
+            goal.setPeriodStart(period);
+            goal.setProgress(total != null ? total.doubleValue() : 0.0);
+            return;
+        }
+
+        Measurement latest = latestWeighIn(session, goal.getUserId());
+        goal.setProgress(latest != null ? latest.getWeight() : goal.getStartValue());
+        goal.setProgressOn(latest != null ? latest.getRecorddate() : null);
+        String first = losing(goal) ? "Measurement.firstAtOrBelow" : "Measurement.firstAtOrAbove";
+        goal.setAchievedOn(session.createNamedQuery(first, LocalDate.class)
+                .setParameter("userId", goal.getUserId())
+                .setParameter("since", goal.getCreatedOn())
+                .setParameter("target", goal.getTarget())
+                .uniqueResult());
+    }
+
+    private static Measurement latestWeighIn(Session session, Long userId) {
+        return session.createNamedQuery("Measurement.latestWeighIn", Measurement.class)
+                .setParameter("userId", userId)
+                .setMaxResults(1)
+                .uniqueResult();
+    }
+
+    private static List<Goal> readGoals(Session session, Long userId, Set<Goal.Type> types) {
+        return session.createNamedQuery("Goal.findByUserAndTypes", Goal.class)
+                .setParameter("userId", userId)
+                .setParameterList("types", types)
+                .getResultList();
+    }
+
+    private static List<Progress> progress(List<Goal> goals, LocalDate today) {
+        List<Progress> result = new ArrayList<>(goals.size());
+        for (Goal goal : goals) {
+            result.add(progress(goal, today));
+        }
+        return result;
+    }
+
+    private static Progress progress(Goal goal, LocalDate today) {
+        double target = goal.getTarget();
+        if (goal.getType().isPeriodic()) {
+            LocalDate period = periodStart(goal.getType(), today);
+            // Nothing logged yet in a period that has just begun
+            double current = period.equals(goal.getPeriodStart()) ? goal.getProgress() : 0.0;
+            return new Progress(goal, current, Math.min(1.0, current / target), current >= target, period);
+        }
+
+        double current = goal.getProgress();
+        double start = goal.getStartValue();
+        double fraction = start == target ? 1.0 : (start - current) / (start - target);
+        return new Progress(goal, current, Math.max(0.0, Math.min(1.0, fraction)),
+                goal.getAchievedOn() != null, goal.getCreatedOn());
+    }
+
+    // --- Helpers ---
+
+    private static boolean losing(Goal goal) {
+        return goal.getTarget() <= goal.getStartValue();
+    }
+
+    private static boolean reaches(Goal goal, double weight) {
+        return losing(goal) ? weight <= goal.getTarget() : weight >= goal.getTarget();
+    }
+
+    private static LocalDate periodStart(Goal.Type type, LocalDate date) {
+        return type == Goal.Type.WEEKLY_MINUTES
+                ? date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                : date.withDayOfMonth(1);
+    }
+}
@@ -0,0 +1,499 @@
+package com.fitnesstracker.dao;
+
+import com.fitnesstracker.HibernateUtil;
+import com.fitnesstracker.model.Workout;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Leaderboards across all users, for challenges: calories and minutes in the current
+ * calendar week, the current calendar month and all time, overall and per workout type,
+ * plus current daily streaks.
+ *
+ * Boards are kept in memory as {@link RankedScores}, so a user's rank costs O(log n) and
+ * the top k entries O(log n + k), without touching the database. After the first load:
+ * <ul>
+ *   <li>a workout saved through WorkoutRepository or WriteBehindQueue is added to the boards of
+ *       the windows it falls in once its transaction has committed;</li>
+ *   <li>edits, deletes, restores and bulk changes mark the user stale, and the user's scores
+ *       are re-read from the database before the next query;</li>
+ *   <li>a deleted account leaves every board at once;</li>
+ *   <li>week and month boards start empty when their window ends, and lapsed streaks drop
+ *       out at midnight.</li>
+ * </ul>
+ * {@link #rebuild} reloads every board from the database and reports how many scores it
+ * had to correct, which doubles as a check of the incremental path. It runs every
+ * {@code -Dfitnesstracker.leaderboard.rebuildMinutes} (default 60, 0 for the first load only)
+ * once {@link #start} has been called, and also picks up writes made by other processes.
+ *
+ * All-time totals include archived rows and compacted rollups. Streaks only count the hot
+ * WORKOUT table. Nothing is recorded until the first load has completed.
+ */
+public class Leaderboards {
+
+    public enum Metric { CALORIES, MINUTES, DAY_STREAK }
+
+    public enum Period { WEEK, MONTH, ALL_TIME }
+
+    /**
+     * One line of a leaderboard. Users with equal scores share a rank.
+     */
+    public record Entry(int rank, Long userId, String name, long score) {}
+
+    /**
+     * The top of a board and, if asked for, one user's place on it.
+     *
+     * @param since First day counted, or null for all time.
+     * @param entries Number of users on the board; users without a score are not on it.
+     * @param mine The user's entry, ranked after everyone on the board if they have no score; or null.
+     */
+    public record Standing(Metric metric, Period period, String workoutType, LocalDate since,
+                           int entries, List<Entry> top, Entry mine) {}
+
+    private record BoardKey(Metric metric, Period period, String workoutType) {}
+
+    // Boards, names and streak ends as of one day
+    private static final class State {
+        final Map<BoardKey, RankedScores> boards = new HashMap<>();
+        final Map<Long, String> names = new HashMap<>();
+        // Last workout date of every user with a live streak
+        final Map<Long, LocalDate> streakEnds = new HashMap<>();
+        LocalDate today;
+        LocalDate weekStart;
+        LocalDate monthStart;
+
+        State(LocalDate today) {
+            this.today = today;
+            this.weekStart = weekOf(today);
+            this.monthStart = today.withDayOfMonth(1);
+        }
+
+        RankedScores board(Metric metric, Period period, String workoutType) {
+            return boards.computeIfAbsent(new BoardKey(metric, period, workoutType), key -> new RankedScores());
+        }
+
+        boolean inWindow(Period period, LocalDate date) {
+            return switch (period) {
+                case WEEK -> !date.isBefore(weekStart);
+                case MONTH -> !date.isBefore(monthStart);
+                case ALL_TIME -> true;
+            };
+        }
+
+        LocalDate since(Period period) {
+            return switch (period) {
+                case WEEK -> weekStart;
+                case MONTH -> monthStart;
+                case ALL_TIME -> null;
+            };
+        }
+
+        void rollTo(LocalDate day) {
+            if (!day.isAfter(today)) return;
+            State next = new State(day);
+            if (!next.weekStart.equals(weekStart)) clear(Period.WEEK);
+            if (!next.monthStart.equals(monthStart)) clear(Period.MONTH);
+
+            RankedScores streaks = board(Metric.DAY_STREAK, Period.ALL_TIME, null);
+            streakEnds.entrySet().removeIf(e -> {
+                boolean lapsed = e.getValue().isBefore(day.minusDays(1));
+                if (lapsed) streaks.remove(e.getKey());
+                return lapsed;
+            });
+
+            today = day;
+            weekStart = next.weekStart;
+            monthStart = next.monthStart;
+        }
+
+        void clear(Period period) {
+            boards.forEach((key, board) -> {
+                if (key.period() == period) board.clear();
+            });
+        }
+
+        void removeUser(long userId) {
+            boards.values().forEach(board -> board.remove(userId));
+            names.remove(userId);
+            streakEnds.remove(userId);
+        }
+    }
+
+    private static Leaderboards instance;
+
+    private final long rebuildMillis;
+    private State state;
+    private boolean loaded;
+    // Users whose scores must be re-read before the next query
+    private final Set<Long> dirty = new HashSet<>();
+    // Users being re-read right now
+    private final Set<Long> refreshing = new HashSet<>();
+    // Users changed while a rebuild is reading the database; null when no rebuild runs
+    private Set<Long> touched;
+
+    private volatile boolean running;
+    private Thread rebuildThread;
+
+    Leaderboards(long rebuildMillis) {
+        this.rebuildMillis = rebuildMillis;
+    }
+
+    public static synchronized Leaderboards getInstance() {
+        if (instance == null) {
+            instance = new Leaderboards(Long.getLong("fitnesstracker.leaderboard.rebuildMinutes", 60) * 60_000);
+        }
+        return instance;
+    }
+
+    /**
+     * Loads the boards on a background thread and keeps rebuilding them periodically.
+     */
+    public void start() {
+        synchronized (this) {
+            if (running) return;
+            running = true;
+        }
+        rebuildThread = new Thread(this::runRebuilds, "leaderboard-rebuild");
+        rebuildThread.setDaemon(true);
+        rebuildThread.setPriority(Thread.MIN_PRIORITY);
+        rebuildThread.start();
+    }
+
+    public void shutdown() {
+        synchronized (this) {
+            if (!running) return;
+            running = false;
+        }
+        rebuildThread.interrupt();
+    }
+
+    private void runRebuilds() {
+        while (running) {
+            rebuild();
+            if (rebuildMillis <= 0) return;
+            try {
+                Thread.sleep(rebuildMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    // --- Called by ActivityDAO and the repositories after commit ---
+
+    /**
+     * Adds a newly saved workout to the boards of the windows it falls in.
+     */
+    void recordWorkout(Workout workout) {
+        long userId = workout.getUser().getUserId();
+        Integer calories = workout.getCaloriesBurned();
+        LocalDate date = workout.getWorkoutDate();
+        long minutes = workout.getDurationMinutes() != null ? workout.getDurationMinutes() : 0;
+
+        synchronized (this) {
+            if (touched != null) touched.add(userId);
+            if (!loaded) return;
+            // Calories left to the trigger, new names, and users with a re-read pending or in
+            // flight: read everything back rather than risk counting it twice or not at all
+            if (calories == null || !state.names.containsKey(userId)
+                    || dirty.contains(userId) || refreshing.contains(userId)) {
+                dirty.add(userId);
+                return;
+            }
+
+            state.rollTo(LocalDate.now());
+            for (Period period : Period.values()) {
+                if (!state.inWindow(period, date)) continue;
+                for (String type : new String[]{null, workout.getWorkoutType()}) {
+                    state.board(Metric.CALORIES, period, type).add(userId, calories);
+                    state.board(Metric.MINUTES, period, type).add(userId, minutes);
+                }
+            }
+            if (!recordStreakDay(userId, date)) {
+                dirty.add(userId);
+            }
+        }
+    }
+
+    /**
+     * Marks the user's scores stale after a change that cannot be added incrementally.
+     */
+    synchronized void invalidate(Long userId) {
+        if (userId == null) return;
+        if (touched != null) touched.add(userId);
+        if (loaded) dirty.add(userId);
+    }
+
+    /**
+     * Takes a deleted account off every board.
+     */
+    synchronized void removeUser(Long userId) {
+        if (userId == null) return;
+        if (touched != null) touched.add(userId);
+        if (!loaded) return;
+        state.removeUser(userId);
+        dirty.remove(userId);
+    }
+
+    /**
+     * @return False if the day may join two runs and the streak has to be re-read.
+     */
+    private boolean recordStreakDay(long userId, LocalDate date) {
+        RankedScores streaks = state.board(Metric.DAY_STREAK, Period.ALL_TIME, null);
+        LocalDate end = state.streakEnds.get(userId);
+        LocalDate yesterday = state.today.minusDays(1);
+
+        if (end == null) {
+            // No workout yesterday or today so far; yesterday itself may continue an older run
+            if (date.equals(state.today)) {
+                streaks.put(userId, 1);
+                state.streakEnds.put(userId, date);
+                return true;
+            }
+            return !date.equals(yesterday);
+        }
+
+        long length = streaks.get(userId);
+        if (date.equals(end.plusDays(1))) {
+            streaks.put(userId, length + 1);
+            state.streakEnds.put(userId, date);
+            return true;
+        }
+        // Inside the run, or too old to touch it; the day just before it may join an older run
+        return !date.equals(end.minusDays(length));
+    }
+
+    // --- Queries ---
+
+    /**
+     * The top entries of a board and the user's place on it. Daily streaks only have an
+     * all-time board over all workout types.
+     *
+     * @param workoutType A workout type, or null for all types.
+     * @param userId The user to place, or null.
+     * @return The standing, or null if the boards have not been loaded yet.
+     */
+    public Standing standing(Metric metric, Period period, String workoutType, Long userId, int limit) {
+        if (metric == Metric.DAY_STREAK) {
+            period = Period.ALL_TIME;
+            workoutType = null;
+        }
+        refreshDirty();
+
+        synchronized (this) {
+            if (!loaded) return null;
+            state.rollTo(LocalDate.now());
+            RankedScores board = state.boards.getOrDefault(new BoardKey(metric, period, workoutType), new RankedScores());
+
+            List<Entry> top = new ArrayList<>();
+            board.top(limit, (rank, id, score) -> top.add(new Entry(rank, id, state.names.get(id), score)));
+            Entry mine = userId != null
+                    ? new Entry(board.rank(userId), userId, state.names.get(userId), board.get(userId))
+                    : null;
+            return new Standing(metric, period, workoutType, state.since(period), board.size(), top, mine);
+        }
+    }
+
+    /**
+     * Re-reads the scores of every stale user, outside the lock.
+     */
+    private void refreshDirty() {
+        List<Long> users;
+        synchronized (this) {
+            if (!loaded || dirty.isEmpty()) return;
+            users = new ArrayList<>(dirty);
+            dirty.clear();
+            refreshing.addAll(users);
+        }
+
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            for (Long userId : users) {
+                State fresh = load(session, userId, LocalDate.now());
+                synchronized (this) {
+                    refreshing.remove(userId);
+                    state.rollTo(fresh.today);
+                    fresh.rollTo(state.today);
+                    state.removeUser(userId);
+                    fresh.boards.forEach((key, board) ->
+                            state.board(key.metric(), key.period(), key.workoutType()).put(userId, board.get(userId)));
+                    state.names.putAll(fresh.names);
+                    state.streakEnds.putAll(fresh.streakEnds);
+                }
+            }
+            System.out.println("DEBUG: Re-read leaderboard scores of " + users.size() + " users");
+        } catch (Exception e) {
+            System.err.println("ERROR: Failed to refresh leaderboard scores: " + e.getMessage());
+            e.printStackTrace();
+            synchronized (this) {
+                // Try again on the next query
+                for (Long userId : users) {
+                    if (refreshing.remove(userId)) dirty.add(userId);
+                }
+            }
+        }
+    }
+
+    // --- Rebuild ---
+
+    /**
+     * Reloads every board from the database and swaps them in.
+     * @return The number of scores that differed from the incrementally kept ones (0 on the
+     *         first load), or -1 if the database could not be read.
+     */
+    public int rebuild() {
+        synchronized (this) {
+            touched = new HashSet<>();
+        }
+        long start = System.currentTimeMillis();
+        State fresh;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            fresh = load(session, null, LocalDate.now());
+        } catch (Exception e) {
+            System.err.println("ERROR: Failed to rebuild leaderboards: " + e.getMessage());
+            e.printStackTrace();
+            synchronized (this) {
+                touched = null;
+            }
+            return -1;
+        }
+
+        int corrected = 0;
+        synchronized (this) {
+            if (loaded) {
+                state.rollTo(fresh.today);
+                fresh.rollTo(state.today);
+                Set<Long> skip = new HashSet<>(touched);
+                skip.addAll(dirty);
+                corrected = differences(state, fresh, skip);
+            }
+            state = fresh;
+            // Changes made while the database was being read may be missing; re-read those users
+            dirty.addAll(touched);
+            touched = null;
+            loaded = true;
+        }
+
+        System.out.println("INFO: Leaderboards rebuilt in " + (System.currentTimeMillis() - start) + " ms: "
+                + fresh.names.size() + " users, " + fresh.boards.size() + " boards, " + corrected + " scores corrected");
+        return corrected;
+    }
+
+    private static int differences(State current, State fresh, Set<Long> skip) {
+        Set<BoardKey> keys = new HashSet<>(current.boards.keySet());
+        keys.addAll(fresh.boards.keySet());
+        int count = 0;
+        for (BoardKey key : keys) {
+            Map<Long, Long> a = current.boards.getOrDefault(key, new RankedScores()).asMap();
+            Map<Long, Long> b = fresh.boards.getOrDefault(key, new RankedScores()).asMap();
+            Set<Long> users = new HashSet<>(a.keySet());
+            users.addAll(b.keySet());
+            for (Long userId : users) {
+                if (!skip.contains(userId) && !Objects.equals(a.get(userId), b.get(userId))) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads boards from the database for every live account, or for one user.
+     */
+    private static State load(Session session, Long userId, LocalDate today) {
+        State loaded = new State(today);
+        Query<Object[]> names = session.createNamedQuery(userId != null ? "User.liveName" : "User.liveNames", Object[].class);
+        if (userId != null) names.setParameter("userId", userId);
+        for (Object[] row : names.getResultList()) {
+            loaded.names.put((Long) row[0], (String) row[1]);
+        }
+        if (loaded.names.isEmpty()) return loaded;
+
+        // All three windows in one pass over the hot table
+        Query<Object[]> totals = session.createNamedQuery(
+                userId != null ? "Workout.leaderboardTotalsForUser" : "Workout.leaderboardTotals", Object[].class);
+        totals.setParameter("week", loaded.weekStart);
+        totals.setParameter("month", loaded.monthStart);
+        if (userId != null) totals.setParameter("userId", userId);
+        for (Object[] row : totals.getResultList()) {
+            long id = (Long) row[0];
+            if (!loaded.names.containsKey(id)) continue;
+            String type = (String) row[1];
+            addTotals(loaded, Period.WEEK, id, type, row[2], row[3]);
+            addTotals(loaded, Period.MONTH, id, type, row[4], row[5]);
+            addTotals(loaded, Period.ALL_TIME, id, type, row[6], row[7]);
+        }
+
+        if (ActivityArchive.isInUse(session)) {
+            Query<Object[]> archived = session.createNativeQuery(ActivityArchive.archivedTotalsSql(userId != null), Object[].class);
+            if (userId != null) archived.setParameter("userId", userId);
+            for (Object[] row : archived.getResultList()) {
+                long id = ((Number) row[0]).longValue();
+                if (!loaded.names.containsKey(id)) continue;
+                addTotals(loaded, Period.ALL_TIME, id, (String) row[1], row[2], row[3]);
+            }
+        }
+
+        loadStreaks(session, userId, loaded);
+        return loaded;
+    }
+
+    private static void addTotals(State state, Period period, long userId, String type, Object calories, Object minutes) {
+        long c = calories != null ? ((Number) calories).longValue() : 0;
+        long m = minutes != null ? ((Number) minutes).longValue() : 0;
+        for (String key : new String[]{null, type}) {
+            state.board(Metric.CALORIES, period, key).add(userId, c);
+            state.board(Metric.MINUTES, period, key).add(userId, m);
+        }
+    }
+
+    /**
+     * Walks back from each user's latest workout day; only users who worked out yesterday
+     * or today have their history read.
+     */
+    private static void loadStreaks(Session session, Long userId, State state) {
+        LocalDate yesterday = state.today.minusDays(1);
+        Query<Object[]> query = session.createNamedQuery(
+                userId != null ? "Workout.streakDaysForUser" : "Workout.streakDays", Object[].class);
+        query.setParameter("yesterday", yesterday);
+        if (userId != null) query.setParameter("userId", userId);
+
+        RankedScores streaks = state.board(Metric.DAY_STREAK, Period.ALL_TIME, null);
+        long[] current = {-1, 0};
+        LocalDate[] expected = new LocalDate[1];
+        try (Stream<Object[]> rows = query.setFetchSize(1000).getResultStream()) {
+            rows.forEach(row -> {
+                long id = (Long) row[0];
+                LocalDate date = (LocalDate) row[1];
+                if (!state.names.containsKey(id)) return;
+                if (id != current[0]) {
+                    current[0] = id;
+                    current[1] = 0;
+                    expected[0] = date;
+                    // Dates after today cannot be logged; the latest day starts the run
+                    state.streakEnds.put(id, date);
+                }
+                if (date.equals(expected[0])) {
+                    current[1]++;
+                    expected[0] = date.minusDays(1);
+                    streaks.put(id, current[1]);
+                }
+            });
+        }
+    }
+
+    private static LocalDate weekOf(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+}
@@ -0,0 +1,169 @@
+package com.fitnesstracker.dao;
+
+import com.fitnesstracker.event.DomainEvent;
+import com.fitnesstracker.event.DomainEventBus;
+import com.fitnesstracker.model.Measurement;
+import org.hibernate.Session;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Measurements. Saving a weigh-in updates its user's target weight goals in the same
+ * transaction; any other change marks them stale instead. Every committed change is
+ * published on the {@link DomainEventBus}.
+ */
+public class MeasurementRepository extends Repository<Measurement> {
+
+    public MeasurementRepository() {
+        super(Measurement.class);
+    }
+
+    /**
+     * Retrieves all measurements for a specific user, ordered by date.
+     */
+    public List<Measurement> findByUser(Long userId) {
+        return findByUser(userId, null, null);
+    }
+
+    /**
+     * Retrieves all measurements for a specific user, ordered by date, or empty if the database
+     * could not be read. Unlike {@link #findByUser(Long)}, a failure is not an empty list.
+     */
+    public Optional<List<Measurement>> tryFindByUser(Long userId) {
+        System.out.println("DEBUG: Finding measurements for user ID: " + userId);
+        return tryRead("load measurements", session -> query(session, userId, null, null));
+    }
+
+    /**
+     * Retrieves a user's measurements dated from..to (inclusive; null for open-ended), ordered by date.
+     */
+    public List<Measurement> findByUser(Long userId, LocalDate from, LocalDate to) {
+        System.out.println("DEBUG: Finding measurements for user ID: " + userId);
+        List<Measurement> measurements = read("load measurements", session -> query(session, userId, from, to), new ArrayList<>());
+        System.out.println("DEBUG: Found " + measurements.size() + " measurements in database");
+        return measurements;
+    }
+
+    /**
+     * Updates a measurement with one UPDATE keyed by id and version, without loading the row
+     * first; on commit the entity's version is advanced to match the database.
+     */
+    @Override
+    public void update(UnitOfWork unit, Measurement measurement) {
+        rejectArchived(measurement.isArchived(), "Measurement");
+        Long ownerId = update(unit.session(), measurement);
+        // Its own action, so the entity matches the committed row whatever the others do
+        unit.afterCommit(() -> measurement.setVersion(nextVersion(measurement.getVersion())));
+        unit.afterCommit(() -> DomainEventBus.getInstance().publish(
+                new DomainEvent.MeasurementUpdated(ownerId, List.of(measurement.getMeasurementId()))));
+    }
+
+    /**
+     * Soft-deletes the measurement if it has not changed since it was read.
+     */
+    @Override
+    public void delete(Measurement measurement) {
+        rejectArchived(measurement.isArchived(), "Measurement");
+        deleteById(measurement.getMeasurementId(), measurement.getVersion());
+    }
+
+    /**
+     * Marks a measurement deleted with a single UPDATE. A measurement that is already gone is not an error.
+     *
+     * @param version The version the caller last read, or null to delete whatever is stored.
+     * @throws EditConflictException if the measurement was updated after that version was read.
+     */
+    @Override
+    public void deleteById(Long measurementId, Long version) {
+        super.deleteById(measurementId, version);
+    }
+
+    @Override
+    protected void saved(UnitOfWork unit, Measurement measurement) {
+        GoalTracker.recordMeasurement(unit.session(), measurement);
+        unit.afterCommit(() -> DomainEventBus.getInstance().publish(
+                new DomainEvent.MeasurementLogged(measurement.getUser().getUserId(), measurement)));
+    }
+
+    @Override
+    protected void deleted(UnitOfWork unit, Long measurementId) {
+        Long ownerId = GoalTracker.invalidateForMeasurement(unit.session(), measurementId);
+        if (ownerId != null) {
+            unit.afterCommit(() -> DomainEventBus.getInstance().publish(
+                    new DomainEvent.EntityDeleted(ownerId, Measurement.class, List.of(measurementId))));
+        }
+    }
+
+    @Override
+    protected Long idOf(Measurement measurement) {
+        return measurement.getMeasurementId();
+    }
+
+    @Override
+    protected boolean isDeleted(Measurement measurement) {
+        return measurement.getDeletedAt() != null;
+    }
+
+    // --- Used in other repositories' and DAO transactions ---
+
+    static List<Measurement> query(Session session, Long userId, LocalDate from, LocalDate to) {
+        List<Measurement> measurements = new ArrayList<>(session.createNamedQuery("Measurement.findByUser", Measurement.class)
+                .setParameter("userId", userId)
+                .setParameter("from", from != null ? from : EARLIEST)
+                .setParameter("to", to != null ? to : LATEST)
+                .getResultList());
+
+        List<LocalDate> months = ActivityArchive.detailMonths(session, from, to);
+        if (!months.isEmpty()) {
+            List<Measurement> archived = session.createNativeQuery(ActivityArchive.archivedMeasurementsSql(), Measurement.class)
+                    .setParameter("userId", userId)
+                    .setParameter("from", max(from, months.get(0)))
+                    .setParameter("to", min(to != null ? to.plusDays(1) : null, months.get(months.size() - 1).plusMonths(1)))
+                    .getResultList();
+            // While a month is being archived its rows can briefly be in both tables; the
+            // hot row read above wins
+            Set<Long> hot = measurements.stream().map(Measurement::getMeasurementId).collect(Collectors.toSet());
+            archived = archived.stream().filter(m -> !hot.contains(m.getMeasurementId())).toList();
+            archived.forEach(m -> m.setArchived(true));
+            measurements.addAll(archived);
+            measurements.sort(Comparator.comparing(Measurement::getRecorddate));
+            System.out.println("DEBUG: Read " + archived.size() + " measurements from " + months.size() + " archived months");
+        }
+        return measurements;
+    }
+
+    /**
+     * Writes a measurement's fields in one UPDATE that also checks and bumps its version.
+     * Runs in the caller's transaction; the entity itself is not changed.
+     * @return The id of the measurement's owner.
+     */
+    static Long update(Session session, Measurement measurement) {
+        int rows = session.createNamedMutationQuery("Measurement.update")
+                .setParameter("date", measurement.getRecorddate())
+                .setParameter("weight", measurement.getWeight())
+                .setParameter("height", measurement.getHeight())
+                .setParameter("id", measurement.getMeasurementId())
+                .setParameter("version", measurement.getVersion())
+                .executeUpdate();
+        if (rows == 0) {
+            throw new EditConflictException("Measurement " + measurement.getMeasurementId()
+                    + " was changed or deleted by another session since it was loaded.");
+        }
+        return GoalTracker.invalidateForMeasurement(session, measurement.getMeasurementId());
+    }
+
+    /**
+     * @return The id of the measurement's owner, or null if there is no such measurement.
+     */
+    static Long ownerId(Session session, Long measurementId) {
+        return session.createNamedQuery("Measurement.ownerId", Long.class)
+                .setParameter("id", measurementId)
+                .uniqueResult();
+    }
+}
@@ -0,0 +1,189 @@
+package com.fitnesstracker.dao;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * One leaderboard: a score per user, ordered highest first, answering rank and top-k
+ * queries without sorting.
+ *
+ * Entries sit in a treap keyed by (score descending, user id ascending) where every node
+ * knows the size of its subtree, so updates, removals and "how many users score more than
+ * x" all take O(log n) expected time. Users with a score of 0 are not stored. Not thread
+ * safe; Leaderboards guards all of its boards with one lock.
+ */
+class RankedScores {
+
+    private static final class Node {
+        final long userId;
+        final long score;
+        final int priority;
+        int size = 1;
+        Node left;
+        Node right;
+
+        Node(long userId, long score, int priority) {
+            this.userId = userId;
+            this.score = score;
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * Receives entries in rank order; ties share the rank of the first user with that score.
+     */
+    interface EntryConsumer {
+        void accept(int rank, long userId, long score);
+    }
+
+    private final Map<Long, Long> scores = new HashMap<>();
+    private final SplittableRandom random = new SplittableRandom();
+    private Node root;
+
+    int size() {
+        return scores.size();
+    }
+
+    long get(long userId) {
+        return scores.getOrDefault(userId, 0L);
+    }
+
+    Map<Long, Long> asMap() {
+        return scores;
+    }
+
+    void add(long userId, long delta) {
+        if (delta != 0) {
+            put(userId, get(userId) + delta);
+        }
+    }
+
+    void put(long userId, long score) {
+        Long old = score > 0 ? scores.put(userId, score) : scores.remove(userId);
+        if (old != null) {
+            if (old == score) return;
+            root = delete(root, userId, old);
+        }
+        if (score > 0) {
+            Node[] parts = split(root, score, userId);
+            root = merge(merge(parts[0], new Node(userId, score, random.nextInt())), parts[1]);
+        }
+    }
+
+    void remove(long userId) {
+        put(userId, 0);
+    }
+
+    void clear() {
+        scores.clear();
+        root = null;
+    }
+
+    /**
+     * @return 1 + the number of users with a higher score; users without a score rank after everyone.
+     */
+    int rank(long userId) {
+        long score = get(userId);
+        return score > 0 ? countAbove(score) + 1 : size() + 1;
+    }
+
+    /**
+     * Passes the first limit entries to the consumer in rank order.
+     */
+    void top(int limit, EntryConsumer consumer) {
+        List<Node> stack = new ArrayList<>();
+        Node node = root;
+        int position = 0;
+        int rank = 0;
+        long previous = Long.MIN_VALUE;
+        while ((node != null || !stack.isEmpty()) && position < limit) {
+            while (node != null) {
+                stack.add(node);
+                node = node.left;
+            }
+            node = stack.remove(stack.size() - 1);
+            position++;
+            if (node.score != previous) {
+                rank = position;
+                previous = node.score;
+            }
+            consumer.accept(rank, node.userId, node.score);
+            node = node.right;
+        }
+    }
+
+    private int countAbove(long score) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.score > score) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    // --- Treap operations ---
+
+    // True if (scoreA, userA) orders before (scoreB, userB)
+    private static boolean before(long scoreA, long userA, long scoreB, long userB) {
+        return scoreA != scoreB ? scoreA > scoreB : userA < userB;
+    }
+
+    // Splits into the nodes ordered before (score, userId) and the rest
+    private static Node[] split(Node node, long score, long userId) {
+        if (node == null) return new Node[]{null, null};
+        if (before(node.score, node.userId, score, userId)) {
+            Node[] parts = split(node.right, score, userId);
+            node.right = parts[0];
+            update(node);
+            return new Node[]{node, parts[1]};
+        }
+        Node[] parts = split(node.left, score, userId);
+        node.left = parts[1];
+        update(node);
+        return new Node[]{parts[0], node};
+    }
+
+    // Every node of a orders before every node of b
+    private static Node merge(Node a, Node b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private static Node delete(Node node, long userId, long score) {
+        if (node == null) return null;
+        if (node.userId == userId) {
+            return merge(node.left, node.right);
+        }
+        if (before(score, userId, node.score, node.userId)) {
+            node.left = delete(node.left, userId, score);
+        } else {
+            node.right = delete(node.right, userId, score);
+        }
+        update(node);
+        return node;
+    }
+
+    private static void update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+}
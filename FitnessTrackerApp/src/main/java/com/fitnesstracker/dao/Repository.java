@@ -0,0 +1,224 @@
+package com.fitnesstracker.dao;
+
+import com.fitnesstracker.HibernateUtil;
+import org.hibernate.Session;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Typed access to one entity, with the session handling shared by every repository: reads
+ * run in a short session and report failures as an empty result, writes run in a
+ * {@link UnitOfWork}.
+ *
+ * Queries are named queries declared on the entity (Entity.queryName), which Hibernate
+ * compiles once when the SessionFactory is built instead of parsing HQL on each call.
+ * Every entity declares existsById and softDelete; the rest is up to each repository.
+ *
+ * Each write has two forms: one that commits on its own, and one that takes a unit of work
+ * so that several writes, possibly to different entities, commit together.
+ */
+public abstract class Repository<T> {
+
+    // Bounds for named queries over an optional date range
+    static final LocalDate EARLIEST = LocalDate.of(1, 1, 1);
+    static final LocalDate LATEST = LocalDate.of(9999, 12, 31);
+
+    private final Class<T> type;
+    private final String entityName;
+
+    protected Repository(Class<T> type) {
+        this.type = type;
+        this.entityName = type.getSimpleName();
+    }
+
+    /**
+     * @return The entity, or null if there is none with that id or it was deleted.
+     */
+    public T findById(Long id) {
+        if (id == null) return null;
+        return read("find " + entityName + " " + id, session -> {
+            T entity = session.get(type, id);
+            return entity != null && !isDeleted(entity) ? entity : null;
+        }, null);
+    }
+
+    /**
+     * @return True if a live entity with that id exists; nothing is loaded.
+     */
+    public boolean existsById(Long id) {
+        if (id == null) return false;
+        return read("check " + entityName + " " + id, session -> {
+            Long count = session.createNamedQuery(entityName + ".existsById", Long.class)
+                    .setParameter("id", id)
+                    .uniqueResult();
+            return count != null && count > 0;
+        }, false);
+    }
+
+    /**
+     * Saves a new entity in its own transaction.
+     */
+    public void save(T entity) {
+        System.out.println("DEBUG: Starting save operation for entity: " + entityName);
+        write("Database operation", unit -> {
+            save(unit, entity);
+            return null;
+        });
+    }
+
+    /**
+     * Saves a new entity as part of a unit of work.
+     */
+    public void save(UnitOfWork unit, T entity) {
+        unit.session().persist(entity);
+        saved(unit, entity);
+    }
+
+    /**
+     * Writes a changed entity in its own transaction.
+     *
+     * @throws EditConflictException if the entity was changed or deleted since it was read.
+     * @throws IllegalStateException if the entity was read from the archive.
+     */
+    public void update(T entity) {
+        System.out.println("DEBUG: Starting update operation for entity: " + entityName);
+        write("Update operation", unit -> {
+            update(unit, entity);
+            return null;
+        });
+    }
+
+    /**
+     * Writes a changed entity as part of a unit of work.
+     */
+    public void update(UnitOfWork unit, T entity) {
+        unit.session().merge(entity);
+    }
+
+    /**
+     * Soft-deletes an entity in its own transaction: it disappears from every query at once
+     * and {@link TombstonePurger} removes the row later.
+     *
+     * @throws EditConflictException if the entity was changed since it was read.
+     * @throws IllegalStateException if the entity was read from the archive.
+     */
+    public void delete(T entity) {
+        deleteById(idOf(entity));
+    }
+
+    /**
+     * Soft-deletes whatever is stored under the id. An entity that is already gone is not an error.
+     */
+    public void deleteById(Long id) {
+        deleteById(id, null);
+    }
+
+    /**
+     * Soft-deletes the entity with the id if it is still at the version the caller read.
+     *
+     * @param version The version the caller last read, or null to delete whatever is stored.
+     * @throws EditConflictException if the entity was updated after that version was read.
+     */
+    protected void deleteById(Long id, Long version) {
+        if (id == null) return;
+        System.out.println("DEBUG: Deleting " + entityName + " with ID: " + id);
+        write("Delete operation", unit -> {
+            int rows = unit.session().createNamedMutationQuery(entityName + ".softDelete")
+                    .setParameter("now", LocalDateTime.now())
+                    .setParameter("id", id)
+                    .setParameter("version", version)
+                    .executeUpdate();
+
+            // Only a failed delete needs to know why: the row is either gone already or newer
+            if (rows == 0) {
+                Long count = unit.session().createNamedQuery(entityName + ".existsById", Long.class)
+                        .setParameter("id", id)
+                        .uniqueResult();
+                if (count != null && count > 0) {
+                    throw new EditConflictException(entityName + " " + id + " was changed by another session since it was loaded.");
+                }
+                System.out.println("DEBUG: " + entityName + " not found in database");
+            } else {
+                deleted(unit, id);
+            }
+            return null;
+        });
+    }
+
+    // --- For subclasses ---
+
+    /**
+     * Applies the effects of a new entity that has just been persisted in the unit: derived
+     * state in the same transaction, caches and events through {@link UnitOfWork#afterCommit}.
+     */
+    protected void saved(UnitOfWork unit, T entity) {}
+
+    /**
+     * The same for an entity the unit has just soft-deleted.
+     */
+    protected void deleted(UnitOfWork unit, Long id) {}
+
+    protected abstract Long idOf(T entity);
+
+    protected abstract boolean isDeleted(T entity);
+
+    /**
+     * Runs a read in its own session.
+     *
+     * @param onError Returned if the read fails; the failure is logged.
+     */
+    protected static <R> R read(String operation, Function<Session, R> work, R onError) {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            return work.apply(session);
+        } catch (Exception e) {
+            System.err.println("ERROR: Failed to " + operation + ": " + e.getMessage());
+            e.printStackTrace();
+            return onError;
+        }
+    }
+
+    /**
+     * Runs a read in its own session, for callers that must tell a failure from an empty result.
+     *
+     * @return The result, or empty if the read failed; the failure is logged.
+     */
+    protected static <R> Optional<R> tryRead(String operation, Function<Session, R> work) {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            return Optional.of(work.apply(session));
+        } catch (Exception e) {
+            System.err.println("ERROR: Failed to " + operation + ": " + e.getMessage());
+            e.printStackTrace();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Runs a write in its own {@link UnitOfWork}.
+     */
+    protected static <R> R write(String operation, UnitOfWork.Work<R> work) {
+        return UnitOfWork.run(operation, work);
+    }
+
+    // Archived months are closed; their rows live outside the tables the write paths touch
+    static void rejectArchived(boolean archived, String entityName) {
+        if (archived) {
+            throw new IllegalStateException("Archived " + entityName.toLowerCase() + "s are read-only.");
+        }
+    }
+
+    // Range bounds where null means open-ended
+    static LocalDate max(LocalDate a, LocalDate b) {
+        return a == null || b.isAfter(a) ? b : a;
+    }
+
+    static LocalDate min(LocalDate a, LocalDate b) {
+        return a == null || b.isBefore(a) ? b : a;
+    }
+
+    static Long nextVersion(Long version) {
+        return version != null ? version + 1 : null;
+    }
+}
@@ -0,0 +1,418 @@
+package com.fitnesstracker.dao;
+
+import com.fitnesstracker.model.Measurement;
+import com.fitnesstracker.model.User;
+import com.fitnesstracker.model.Workout;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Local per-user snapshot of workouts and measurements, used to render the dashboard
+ * before the database answers.
+ *
+ * The file is a 16-byte header followed by fixed 64-byte records. Records are only ever
+ * appended (upserts and tombstones); the last record for an id wins. When dead records
+ * outnumber live ones the file is rewritten by {@link #compact()}.
+ */
+public class SnapshotStore {
+
+    private static final int MAGIC = 0x46545353; // "FTSS"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 64;
+    private static final int TYPE_BYTES = 23;
+
+    private static final byte KIND_WORKOUT = 1;
+    private static final byte KIND_MEASUREMENT = 2;
+    private static final byte KIND_WORKOUT_DELETED = 3;
+    private static final byte KIND_MEASUREMENT_DELETED = 4;
+
+    // Flags byte after the record kind; files written before it existed hold 0 there
+    private static final byte FLAG_ARCHIVED = 1;
+
+    // Compact once there are at least this many records and fewer than half are live
+    private static final int COMPACTION_MIN_RECORDS = 64;
+
+    private final User user;
+    private final Path file;
+
+    private final Map<Long, Workout> workouts = new LinkedHashMap<>();
+    private final Map<Long, Measurement> measurements = new LinkedHashMap<>();
+    private long recordCount;
+
+    public SnapshotStore(User user) {
+        this.user = user;
+        String dir = System.getProperty("fitnesstracker.snapshot.dir",
+                Paths.get(System.getProperty("user.home"), ".fitnesstracker", "snapshots").toString());
+        this.file = Paths.get(dir, "user-" + user.getUserId() + ".snap");
+    }
+
+    /**
+     * Maps the snapshot file and replays its records into memory.
+     * A missing or unreadable file leaves the snapshot empty.
+     */
+    public synchronized void load() {
+        workouts.clear();
+        measurements.clear();
+        recordCount = 0;
+
+        if (!Files.exists(file)) {
+            System.out.println("DEBUG: No snapshot found at " + file);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                return;
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getLong(8) != user.getUserId()) {
+                System.err.println("ERROR: Ignoring incompatible snapshot file: " + file);
+                return;
+            }
+
+            // A torn trailing record from an interrupted append is ignored
+            long records = (size - HEADER_SIZE) / RECORD_SIZE;
+            for (int i = 0; i < records; i++) {
+                readRecord(buffer, HEADER_SIZE + i * RECORD_SIZE);
+            }
+            recordCount = records;
+
+            System.out.println("DEBUG: Loaded snapshot with " + workouts.size() + " workouts and "
+                    + measurements.size() + " measurements (" + records + " records)");
+        } catch (IOException e) {
+            System.err.println("ERROR: Failed to read snapshot: " + e.getMessage());
+            e.printStackTrace();
+            workouts.clear();
+            measurements.clear();
+            recordCount = 0;
+        }
+    }
+
+    public synchronized List<Workout> getWorkouts() {
+        List<Workout> result = new ArrayList<>();
+        for (Workout w : workouts.values()) result.add(copyOf(w));
+        result.sort(Comparator.comparing(Workout::getWorkoutDate));
+        return result;
+    }
+
+    public synchronized List<Measurement> getMeasurements() {
+        List<Measurement> result = new ArrayList<>();
+        for (Measurement m : measurements.values()) result.add(copyOf(m));
+        result.sort(Comparator.comparing(Measurement::getRecorddate));
+        return result;
+    }
+
+    public synchronized boolean isEmpty() {
+        return workouts.isEmpty() && measurements.isEmpty();
+    }
+
+    /**
+     * Brings the snapshot in line with the rows just read from the database by appending
+     * only the records that changed, then compacts if the file has grown too sparse.
+     */
+    public synchronized void reconcile(List<Workout> dbWorkouts, List<Measurement> dbMeasurements) {
+        ByteBuffer pending = ByteBuffer.allocate(RECORD_SIZE * 32);
+        List<ByteBuffer> batches = new ArrayList<>();
+
+        Map<Long, Workout> seenWorkouts = new LinkedHashMap<>();
+        for (Workout w : dbWorkouts) {
+            if (w.getWorkoutId() == null) continue;
+            seenWorkouts.put(w.getWorkoutId(), w);
+            Workout cached = workouts.get(w.getWorkoutId());
+            if (cached == null || !sameWorkout(cached, w)) {
+                pending = append(pending, batches, buf -> writeWorkout(buf, w));
+            }
+        }
+        for (Long id : workouts.keySet()) {
+            if (!seenWorkouts.containsKey(id)) {
+                pending = append(pending, batches, buf -> writeTombstone(buf, KIND_WORKOUT_DELETED, id));
+            }
+        }
+
+        Map<Long, Measurement> seenMeasurements = new LinkedHashMap<>();
+        for (Measurement m : dbMeasurements) {
+            if (m.getMeasurementId() == null) continue;
+            seenMeasurements.put(m.getMeasurementId(), m);
+            Measurement cached = measurements.get(m.getMeasurementId());
+            if (cached == null || !sameMeasurement(cached, m)) {
+                pending = append(pending, batches, buf -> writeMeasurement(buf, m));
+            }
+        }
+        for (Long id : measurements.keySet()) {
+            if (!seenMeasurements.containsKey(id)) {
+                pending = append(pending, batches, buf -> writeTombstone(buf, KIND_MEASUREMENT_DELETED, id));
+            }
+        }
+        pending.flip();
+        batches.add(pending);
+
+        workouts.clear();
+        for (Workout w : seenWorkouts.values()) workouts.put(w.getWorkoutId(), copyOf(w));
+        measurements.clear();
+        for (Measurement m : seenMeasurements.values()) measurements.put(m.getMeasurementId(), copyOf(m));
+
+        long appended = batches.stream().mapToLong(b -> b.remaining() / RECORD_SIZE).sum();
+        if (appended == 0) {
+            System.out.println("DEBUG: Snapshot already up to date");
+            return;
+        }
+
+        try {
+            writeRecords(batches.toArray(new ByteBuffer[0]));
+            recordCount += appended;
+            System.out.println("DEBUG: Appended " + appended + " records to snapshot");
+
+            int live = workouts.size() + measurements.size();
+            if (recordCount >= COMPACTION_MIN_RECORDS && recordCount > 2L * live) {
+                compact();
+            }
+        } catch (IOException e) {
+            System.err.println("ERROR: Failed to write snapshot: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Rewrites the snapshot with exactly one record per live row and atomically replaces the old file.
+     */
+    public synchronized void compact() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + RECORD_SIZE * (workouts.size() + measurements.size()));
+        writeHeader(buffer);
+        for (Workout w : workouts.values()) {
+            writeWorkout(buffer, w);
+        }
+        for (Measurement m : measurements.values()) {
+            writeMeasurement(buffer, m);
+        }
+        buffer.flip();
+
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        long before = recordCount;
+        recordCount = workouts.size() + measurements.size();
+        System.out.println("DEBUG: Compacted snapshot from " + before + " to " + recordCount + " records");
+    }
+
+    // --- Record encoding ---
+
+    private interface RecordWriter {
+        void write(ByteBuffer buffer);
+    }
+
+    private static ByteBuffer append(ByteBuffer pending, List<ByteBuffer> batches, RecordWriter writer) {
+        if (pending.remaining() < RECORD_SIZE) {
+            pending.flip();
+            batches.add(pending);
+            pending = ByteBuffer.allocate(pending.capacity());
+        }
+        writer.write(pending);
+        return pending;
+    }
+
+    private void writeRecords(ByteBuffer[] batches) throws IOException {
+        Files.createDirectories(file.getParent());
+        // Nothing loaded from the file (missing, unreadable or an older format): start it over
+        boolean fresh = recordCount == 0 || !Files.exists(file) || Files.size(file) < HEADER_SIZE;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (fresh) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                writeHeader(header);
+                header.flip();
+                channel.truncate(0);
+                channel.write(header, 0);
+                recordCount = 0;
+            }
+            // Drop any torn trailing record before appending
+            channel.position(HEADER_SIZE + recordCount * RECORD_SIZE);
+            channel.truncate(HEADER_SIZE + recordCount * RECORD_SIZE);
+            for (ByteBuffer batch : batches) {
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+            }
+            channel.force(false);
+        }
+    }
+
+    private void writeHeader(ByteBuffer buffer) {
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(user.getUserId());
+    }
+
+    private static void writeWorkout(ByteBuffer buffer, Workout w) {
+        int start = buffer.position();
+        buffer.put(KIND_WORKOUT);
+        buffer.put(w.isArchived() ? FLAG_ARCHIVED : 0);
+        buffer.position(start + 4);
+        buffer.putInt(rowVersion(w.getVersion()));
+        buffer.putLong(w.getWorkoutId());
+        buffer.putLong(w.getWorkoutDate().toEpochDay());
+        buffer.putLong(w.getDurationMinutes() != null ? w.getDurationMinutes() : -1L);
+        buffer.putLong(w.getCaloriesBurned() != null ? w.getCaloriesBurned() : -1L);
+        writeType(buffer, w.getWorkoutType());
+        buffer.position(start + RECORD_SIZE);
+    }
+
+    private static void writeMeasurement(ByteBuffer buffer, Measurement m) {
+        int start = buffer.position();
+        buffer.put(KIND_MEASUREMENT);
+        buffer.put(m.isArchived() ? FLAG_ARCHIVED : 0);
+        buffer.position(start + 4);
+        buffer.putInt(rowVersion(m.getVersion()));
+        buffer.putLong(m.getMeasurementId());
+        buffer.putLong(m.getRecorddate().toEpochDay());
+        buffer.putDouble(m.getWeight() != null ? m.getWeight() : Double.NaN);
+        buffer.putDouble(m.getHeight() != null ? m.getHeight() : Double.NaN);
+        buffer.position(start + RECORD_SIZE);
+    }
+
+    private static void writeTombstone(ByteBuffer buffer, byte kind, long id) {
+        int start = buffer.position();
+        buffer.put(kind);
+        buffer.position(start + 8);
+        buffer.putLong(id);
+        buffer.position(start + RECORD_SIZE);
+    }
+
+    // Row versions only grow by one per edit, so an int in the record's spare bytes is plenty
+    private static int rowVersion(Long version) {
+        return version != null ? (int) Math.min(version, Integer.MAX_VALUE) : -1;
+    }
+
+    private static Long rowVersion(int stored) {
+        return stored >= 0 ? (long) stored : null;
+    }
+
+    private static void writeType(ByteBuffer buffer, String type) {
+        byte[] bytes = type != null ? type.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int length = typeLength(bytes);
+        buffer.put((byte) length);
+        buffer.put(bytes, 0, length);
+    }
+
+    private void readRecord(ByteBuffer buffer, int offset) {
+        byte kind = buffer.get(offset);
+        boolean archived = (buffer.get(offset + 1) & FLAG_ARCHIVED) != 0;
+        long id = buffer.getLong(offset + 8);
+        Long version = rowVersion(buffer.getInt(offset + 4));
+
+        switch (kind) {
+            case KIND_WORKOUT -> {
+                Workout w = new Workout();
+                w.setWorkoutId(id);
+                w.setVersion(version);
+                w.setArchived(archived);
+                w.setUser(user);
+                w.setWorkoutDate(LocalDate.ofEpochDay(buffer.getLong(offset + 16)));
+                long duration = buffer.getLong(offset + 24);
+                w.setDurationMinutes(duration >= 0 ? duration : null);
+                long calories = buffer.getLong(offset + 32);
+                w.setCaloriesBurned(calories >= 0 ? (int) calories : null);
+                int length = buffer.get(offset + 40);
+                byte[] type = new byte[length];
+                buffer.get(offset + 41, type);
+                w.setWorkoutType(new String(type, StandardCharsets.UTF_8));
+                workouts.put(id, w);
+            }
+            case KIND_MEASUREMENT -> {
+                Measurement m = new Measurement();
+                m.setMeasurementId(id);
+                m.setVersion(version);
+                m.setArchived(archived);
+                m.setUser(user);
+                m.setRecorddate(LocalDate.ofEpochDay(buffer.getLong(offset + 16)));
+                double weight = buffer.getDouble(offset + 24);
+                m.setWeight(Double.isNaN(weight) ? null : weight);
+                double height = buffer.getDouble(offset + 32);
+                m.setHeight(Double.isNaN(height) ? null : height);
+                measurements.put(id, m);
+            }
+            case KIND_WORKOUT_DELETED -> workouts.remove(id);
+            case KIND_MEASUREMENT_DELETED -> measurements.remove(id);
+            default -> System.err.println("ERROR: Skipping unknown snapshot record kind " + kind);
+        }
+    }
+
+    private Workout copyOf(Workout source) {
+        Workout w = new Workout(user, source.getWorkoutDate(), source.getWorkoutType(),
+                source.getDurationMinutes(), source.getCaloriesBurned());
+        w.setWorkoutId(source.getWorkoutId());
+        w.setVersion(source.getVersion());
+        w.setArchived(source.isArchived());
+        return w;
+    }
+
+    private Measurement copyOf(Measurement source) {
+        Measurement m = new Measurement(user, source.getRecorddate(), source.getWeight(), source.getHeight());
+        m.setMeasurementId(source.getMeasurementId());
+        m.setVersion(source.getVersion());
+        m.setArchived(source.isArchived());
+        return m;
+    }
+
+    private static boolean sameWorkout(Workout a, Workout b) {
+        return Objects.equals(a.getVersion(), b.getVersion())
+                && a.isArchived() == b.isArchived()
+                && Objects.equals(a.getWorkoutDate(), b.getWorkoutDate())
+                && Objects.equals(truncate(a.getWorkoutType()), truncate(b.getWorkoutType()))
+                && Objects.equals(a.getDurationMinutes(), b.getDurationMinutes())
+                && Objects.equals(a.getCaloriesBurned(), b.getCaloriesBurned());
+    }
+
+    private static boolean sameMeasurement(Measurement a, Measurement b) {
+        return Objects.equals(a.getVersion(), b.getVersion())
+                && a.isArchived() == b.isArchived()
+                && Objects.equals(a.getRecorddate(), b.getRecorddate())
+                && Objects.equals(a.getWeight(), b.getWeight())
+                && Objects.equals(a.getHeight(), b.getHeight());
+    }
+
+    private static String truncate(String type) {
+        if (type == null) return "";
+        byte[] bytes = type.getBytes(StandardCharsets.UTF_8);
+        return bytes.length <= TYPE_BYTES ? type : new String(bytes, 0, typeLength(bytes), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return How many of the UTF-8 bytes fit in TYPE_BYTES without cutting a character in half.
+     */
+    private static int typeLength(byte[] bytes) {
+        if (bytes.length <= TYPE_BYTES) return bytes.length;
+        int length = TYPE_BYTES;
+        // Continuation bytes (10xxxxxx) belong to the character started before them
+        while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        return length;
+    }
+}
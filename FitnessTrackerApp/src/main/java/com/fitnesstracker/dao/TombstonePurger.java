@@ -0,0 +1,218 @@
+package com.fitnesstracker.dao;
+
+import com.fitnesstracker.HibernateUtil;
+import com.fitnesstracker.session.SessionManager;
+import org.hibernate.Session;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Background purger for soft-deleted workouts, measurements and accounts.
+ *
+ * Rows deleted longer ago than the undo window are removed in batches of at most
+ * {@value #BATCH_SIZE} rows, one short transaction each, and only while no session has
+ * been used for a while. If the sessions never go quiet for that long, a purge that has not
+ * finished within {@code MAX_STARVATION} runs anyway, but only {@value #BUSY_BATCHES}
+ * batches per check interval. A deleted account loses its workouts and measurements, archived
+ * ones included, batch by batch before the APP_USER row itself goes, so no single statement
+ * locks much at once. Write-behind tokens are dropped after {@code APPLIED_WRITE_RETENTION}.
+ *
+ * Disabled with {@code -Dfitnesstracker.purge=false}.
+ */
+public class TombstonePurger {
+
+    private static final int BATCH_SIZE = 500;
+    private static final long CHECK_INTERVAL_MILLIS = 60_000;
+    private static final long BATCH_PAUSE_MILLIS = 100;
+    private static final Duration IDLE_BEFORE_PURGE = Duration.ofSeconds(30);
+    // Under steady traffic the purger would never find the sessions idle; past this it purges regardless
+    private static final Duration MAX_STARVATION = Duration.ofMinutes(15);
+    // Batches per check interval while purging regardless of traffic
+    private static final int BUSY_BATCHES = 10;
+    // Deleted rows stay restorable this long
+    static final Duration UNDO_WINDOW = Duration.ofMinutes(10);
+    // Write-behind tokens only matter until their journal entry is replayed
+    private static final Duration APPLIED_WRITE_RETENTION = Duration.ofDays(30);
+
+    // Named queries selecting the ids of due rows and deleting them; :cutoff is bound to now minus UNDO_WINDOW
+    private static final String[][] TARGETS = {
+            {"Workout.dueDeleted", "Workout.purgeByIds"},
+            {"Measurement.dueDeleted", "Measurement.purgeByIds"},
+            {"Workout.dueOfDeletedUsers", "Workout.purgeByIds"},
+            {"Measurement.dueOfDeletedUsers", "Measurement.purgeByIds"}
+    };
+
+    private final SessionManager sessions;
+    private volatile boolean running;
+    private Thread purgerThread;
+    // Only touched by the purger thread
+    private Instant lastFinished = Instant.now();
+    private boolean purgingBusy;
+    private int batchesLeft;
+
+    public TombstonePurger(SessionManager sessions) {
+        this.sessions = sessions;
+    }
+
+    public static boolean isEnabled() {
+        return !"false".equals(System.getProperty("fitnesstracker.purge"));
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        purgerThread = new Thread(this::runPurger, "tombstone-purger");
+        purgerThread.setDaemon(true);
+        purgerThread.setPriority(Thread.MIN_PRIORITY);
+        purgerThread.start();
+    }
+
+    /**
+     * Stops the purger; a batch already running is allowed to commit.
+     */
+    public void shutdown() {
+        Thread thread;
+        synchronized (this) {
+            if (!running) return;
+            running = false;
+            thread = purgerThread;
+        }
+        thread.interrupt();
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runPurger() {
+        while (running) {
+            try {
+                Thread.sleep(CHECK_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            // Never be the one to start (or wait for) the database bootstrap
+            if (!HibernateUtil.isReady()) continue;
+            purgingBusy = !sessions.isIdle(IDLE_BEFORE_PURGE);
+            if (purgingBusy && Duration.between(lastFinished, Instant.now()).compareTo(MAX_STARVATION) < 0) continue;
+
+            try {
+                int purged = purgeDue();
+                if (purged > 0) {
+                    System.out.println("DEBUG: Purged " + purged + " deleted rows");
+                }
+            } catch (Exception e) {
+                System.err.println("ERROR: Tombstone purge failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Purges everything that is due, stopping early as soon as a session becomes active or,
+     * when purging despite active sessions, once the interval's batches are used up.
+     * @return The number of rows removed.
+     */
+    int purgeDue() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(UNDO_WINDOW);
+        int purged = 0;
+        batchesLeft = purgingBusy ? BUSY_BATCHES : Integer.MAX_VALUE;
+
+        for (String[] target : TARGETS) {
+            while (shouldContinue()) {
+                int rows = purgeBatch(target[0], target[1], cutoff);
+                purged += rows;
+                if (rows < BATCH_SIZE) break;
+                pause();
+            }
+        }
+        while (shouldContinue()) {
+            int rows = purgeArchivedRows(cutoff);
+            purged += rows;
+            if (rows < BATCH_SIZE) break;
+            pause();
+        }
+        if (shouldContinue()) {
+            purged += purgeUsers(cutoff);
+        }
+        if (shouldContinue()) {
+            purged += purgeAppliedWrites(LocalDateTime.now().minus(APPLIED_WRITE_RETENTION));
+            lastFinished = Instant.now();
+        }
+        return purged;
+    }
+
+    /**
+     * @return True if the next batch may run; uses up one of the interval's batches.
+     */
+    private boolean shouldContinue() {
+        if (!running || batchesLeft <= 0) return false;
+        if (!purgingBusy && !sessions.isIdle(IDLE_BEFORE_PURGE)) return false;
+        batchesLeft--;
+        return true;
+    }
+
+    /**
+     * Deletes up to BATCH_SIZE due rows of one entity in its own transaction.
+     */
+    private int purgeBatch(String selectQuery, String deleteQuery, LocalDateTime cutoff) {
+        return UnitOfWork.run("Purge of " + selectQuery, unit -> {
+            List<Long> ids = unit.session().createNamedQuery(selectQuery, Long.class)
+                    .setParameter("cutoff", cutoff)
+                    .setMaxResults(BATCH_SIZE)
+                    .getResultList();
+            if (ids.isEmpty()) return 0;
+            return unit.session().createNamedMutationQuery(deleteQuery)
+                    .setParameterList("ids", ids)
+                    .executeUpdate();
+        });
+    }
+
+    /**
+     * Deletes up to BATCH_SIZE archived rows and rollups of due accounts.
+     */
+    private int purgeArchivedRows(LocalDateTime cutoff) {
+        return UnitOfWork.run("Purge of archived rows",
+                unit -> ActivityArchive.purgeDeletedUsers(unit.session(), cutoff, BATCH_SIZE));
+    }
+
+    /**
+     * Deletes due accounts that no longer own any rows, with their activity stats.
+     */
+    private int purgeUsers(LocalDateTime cutoff) {
+        return UnitOfWork.run("Purge of deleted accounts", unit -> {
+            Session session = unit.session();
+            // Normally already gone since the account was deleted; an API session left open may have rebuilt them
+            for (String entity : new String[]{"PersonalRecord", "ActivityStats", "Goal"}) {
+                session.createNamedMutationQuery(entity + ".purgeOfDeletedUsers")
+                        .setParameter("cutoff", cutoff)
+                        .executeUpdate();
+            }
+            return session.createNamedMutationQuery("User.purgeDue")
+                    .setParameter("cutoff", cutoff)
+                    .executeUpdate();
+        });
+    }
+
+    /**
+     * Deletes write-behind tokens older than the cutoff.
+     */
+    private int purgeAppliedWrites(LocalDateTime cutoff) {
+        return UnitOfWork.run("Purge of write-behind tokens",
+                unit -> unit.session().createNamedMutationQuery("AppliedWrite.purgeBefore")
+                        .setParameter("cutoff", cutoff)
+                        .executeUpdate());
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(BATCH_PAUSE_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.fitnesstracker.dao;
+
+import com.fitnesstracker.HibernateUtil;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Several DAO operations in one session and one transaction, so a multi-entity flow such
+ * as registering a user with a first weigh-in either commits as a whole, in one round trip,
+ * or not at all.
+ *
+ * Inside the unit, statements Hibernate can defer (updates, and inserts of rows whose ids
+ * are not assigned by the database) are sent in JDBC batches of up to {@link #BATCH_SIZE}
+ * when the session flushes. Users, workouts and measurements have identity keys, so
+ * Hibernate still inserts each of them when it is saved to learn its id.
+ *
+ * Repositories take the unit as their first argument to join it. The work that follows a
+ * commit (leaderboards, the username filter, domain events) is queued while the unit runs
+ * and done only once everything has committed.
+ *
+ * <pre>
+ * User user = activityDAO.inTransaction("Registration", unit -&gt; {
+ *     users.save(unit, newUser);
+ *     measurements.save(unit, firstMeasurement);
+ *     return newUser;
+ * });
+ * </pre>
+ */
+public class UnitOfWork {
+
+    static final int BATCH_SIZE = 50;
+
+    /**
+     * The operations of a unit of work.
+     */
+    public interface Work<T> {
+        T execute(UnitOfWork unit);
+    }
+
+    private final Session session;
+    private final List<Runnable> afterCommit = new ArrayList<>();
+
+    private UnitOfWork(Session session) {
+        this.session = session;
+    }
+
+    /**
+     * Runs the work in a new transaction and commits it, or rolls everything back if any
+     * operation fails.
+     *
+     * The actions queued with {@link #afterCommit} run after the session is closed, each on
+     * its own: the data is committed by then, so one that fails is logged and neither stops
+     * the others nor fails the call.
+     *
+     * @param operation Names the work in log and error messages.
+     * @throws EditConflictException if an update finds the row changed since it was read.
+     * @throws IllegalArgumentException if the work rejects its input; nothing is written.
+     * @throws IllegalStateException if the work tries to change an archived entry; nothing is written.
+     */
+    static <T> T run(String operation, Work<T> work) {
+        Transaction transaction = null;
+        Session session = null;
+        UnitOfWork unit;
+        T result;
+
+        try {
+            session = HibernateUtil.getSessionFactory().openSession();
+            session.setJdbcBatchSize(BATCH_SIZE);
+            transaction = session.beginTransaction();
+
+            unit = new UnitOfWork(session);
+            result = work.execute(unit);
+
+            transaction.commit();
+            System.out.println("DEBUG: " + operation + " committed");
+        } catch (EditConflictException e) {
+            System.out.println("DEBUG: " + e.getMessage());
+            rollback(transaction);
+            throw e;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            rollback(transaction);
+            throw e;
+        } catch (Exception e) {
+            System.err.println("ERROR: " + operation + " failed: " + e.getMessage());
+            rollback(transaction);
+            e.printStackTrace();
+            throw new RuntimeException(operation + " failed: " + e.getMessage(), e);
+        } finally {
+            if (session != null && session.isOpen()) {
+                session.close();
+            }
+        }
+
+        for (Runnable action : unit.afterCommit) {
+            try {
+                action.run();
+            } catch (Exception e) {
+                System.err.println("ERROR: Action after " + operation + " failed: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The unit's session, for DAO code that works on it directly.
+     */
+    Session session() {
+        return session;
+    }
+
+    /**
+     * Queues an action to run once the unit has committed; skipped if it rolls back.
+     */
+    void afterCommit(Runnable action) {
+        afterCommit.add(action);
+    }
+
+    private static void rollback(Transaction transaction) {
+        if (transaction != null && transaction.isActive()) {
+            transaction.rollback();
+        }
+    }
+}
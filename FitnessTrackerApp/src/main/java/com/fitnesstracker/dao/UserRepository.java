@@ -0,0 +1,159 @@
+package com.fitnesstracker.dao;
+
+import com.fitnesstracker.event.DomainEvent;
+import com.fitnesstracker.event.DomainEventBus;
+import com.fitnesstracker.model.User;
+import org.hibernate.Session;
+import org.hibernate.exception.ConstraintViolationException;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/**
+ * User accounts. New usernames are added to the {@link UsernameFilter} once committed.
+ */
+public class UserRepository extends Repository<User> {
+
+    public static final String USERNAME_TAKEN = "Username already registered. Try logging in.";
+    private static final String USERNAME_CONSTRAINT = "UK_APP_USER_USERNAME";
+
+    public UserRepository() {
+        super(User.class);
+    }
+
+    /**
+     * Finds a user by username. Password checking is done by AuthService, not in the query.
+     */
+    public User findByUsername(String username) {
+        System.out.println("DEBUG: Looking up user: " + username);
+        return read("look up user", session -> session.createNamedQuery("User.findByUsername", User.class)
+                .setParameter("username", username)
+                .uniqueResult(), null);
+    }
+
+    /**
+     * Checks if a username is already in use by another user.
+     * A deleted account keeps its name until TombstonePurger has removed it.
+     */
+    public boolean usernameExists(String username) {
+        // Most registrations pick a free name; the filter answers those without a query
+        UsernameFilter filter = UsernameFilter.getInstance();
+        if (!filter.mightContain(username)) {
+            System.out.println("DEBUG: Name exists check answered by filter: " + username + " is free");
+            return false;
+        }
+
+        System.out.println("DEBUG: Checking if name exists: " + username);
+        // Default to true on error to prevent duplicate entries
+        return read("check username", session -> {
+            Long count = session.createNamedQuery("User.countByUsername", Long.class)
+                    .setParameter("username", username)
+                    .uniqueResult();
+            System.out.println("DEBUG: Name exists check result: Count=" + count);
+            boolean exists = count != null && count > 0;
+            if (!exists) {
+                filter.recordFalsePositive();
+            }
+            return exists;
+        }, true);
+    }
+
+    /**
+     * Replaces a user's stored password hash without loading or merging the user.
+     */
+    public void updatePassword(Long userId, String passwordHash) {
+        write("Password update", unit -> unit.session().createNamedMutationQuery("User.updatePassword")
+                .setParameter("password", passwordHash)
+                .setParameter("userId", userId)
+                .executeUpdate());
+    }
+
+    /**
+     * Deletes an account by marking the user deleted with one UPDATE. The user can no longer
+     * log in; their workouts and measurements are removed by {@link TombstonePurger} in small
+     * batches, so this returns at once however much data the account has.
+     */
+    @Override
+    public void deleteById(Long userId) {
+        if (userId == null) return;
+        System.out.println("DEBUG: Deleting user with ID: " + userId);
+        write("User delete", unit -> {
+            unit.session().createNamedMutationQuery("User.softDelete")
+                    .setParameter("now", LocalDateTime.now())
+                    .setParameter("id", userId)
+                    .executeUpdate();
+            ActivityAnalytics.invalidate(unit.session(), userId);
+            unit.afterCommit(() -> {
+                Leaderboards.getInstance().removeUser(userId);
+                DomainEventBus.getInstance().publish(new DomainEvent.UserDeleted(userId));
+            });
+            return null;
+        });
+    }
+
+    /**
+     * Merges the user's changed fields; the leaderboards pick up a new display name once committed.
+     */
+    @Override
+    public void update(UnitOfWork unit, User user) {
+        super.update(unit, user);
+        unit.afterCommit(() -> Leaderboards.getInstance().invalidate(user.getUserId()));
+    }
+
+    /**
+     * Saves a new user as part of a unit of work.
+     *
+     * @throws IllegalArgumentException with {@link #USERNAME_TAKEN} if the username is taken.
+     *         A usernameExists check beforehand can still lose to a registration that commits
+     *         in between; the unique constraint decides.
+     */
+    @Override
+    public void save(UnitOfWork unit, User user) {
+        try {
+            super.save(unit, user);
+        } catch (RuntimeException e) {
+            if (!isUsernameViolation(e)) throw e;
+            System.out.println("DEBUG: Username taken at insert: " + user.getUsername());
+            // The name is in the table now, so the filter must stop calling it free
+            UsernameFilter.getInstance().add(user.getUsername());
+            throw new IllegalArgumentException(USERNAME_TAKEN, e);
+        }
+    }
+
+    @Override
+    protected void saved(UnitOfWork unit, User user) {
+        unit.afterCommit(() -> UsernameFilter.getInstance().add(user.getUsername()));
+    }
+
+    @Override
+    protected Long idOf(User user) {
+        return user.getUserId();
+    }
+
+    @Override
+    protected boolean isDeleted(User user) {
+        return user.getDeletedAt() != null;
+    }
+
+    private static boolean isUsernameViolation(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ConstraintViolationException violation) {
+                String constraint = violation.getConstraintName() != null
+                        ? violation.getConstraintName() : String.valueOf(violation.getMessage());
+                return constraint.toUpperCase().contains(USERNAME_CONSTRAINT);
+            }
+        }
+        return false;
+    }
+
+    // --- Used in other DAO transactions ---
+
+    /**
+     * Every stored username, deleted accounts included, without loading the users.
+     */
+    static Stream<String> usernames(Session session) {
+        return session.createNamedQuery("User.usernames", String.class)
+                .setFetchSize(1000)
+                .getResultStream();
+    }
+}
@@ -0,0 +1,157 @@
+package com.fitnesstracker.dao;
+
+import com.fitnesstracker.HibernateUtil;
+import org.hibernate.Session;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter over every username in APP_USER, so that registration can rule out a
+ * taken username without a database round trip. A "no" is definite; a "maybe" still
+ * has to be confirmed by UserRepository.usernameExists.
+ *
+ * Sized from {@code -Dfitnesstracker.usernames.expected} (default 100000) and
+ * {@code -Dfitnesstracker.usernames.fpp} (default 0.01). Bits are set lock-free,
+ * so registrations can add names while the filter is being loaded.
+ */
+public class UsernameFilter {
+
+    private static UsernameFilter instance;
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final long expected;
+    private final double targetFpp;
+
+    private volatile boolean loaded;
+    private final AtomicLong size = new AtomicLong();
+
+    // Lookup statistics, for reporting the observed false-positive rate
+    private final AtomicLong definiteMisses = new AtomicLong();
+    private final AtomicLong databaseChecks = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    UsernameFilter(long expected, double targetFpp) {
+        this.expected = Math.max(1, expected);
+        this.targetFpp = targetFpp;
+        // Optimal sizing: m = -n ln p / (ln 2)^2, k = (m / n) ln 2
+        long m = (long) Math.ceil(-this.expected * Math.log(targetFpp) / (Math.log(2) * Math.log(2)));
+        this.bitCount = Math.max(64, (m + 63) / 64 * 64);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / this.expected * Math.log(2)));
+        this.bits = new AtomicLongArray((int) (bitCount / 64));
+    }
+
+    public static synchronized UsernameFilter getInstance() {
+        if (instance == null) {
+            instance = new UsernameFilter(
+                    Long.getLong("fitnesstracker.usernames.expected", 100_000),
+                    Double.parseDouble(System.getProperty("fitnesstracker.usernames.fpp", "0.01")));
+        }
+        return instance;
+    }
+
+    /**
+     * Streams all usernames from the database into the filter. Until this completes,
+     * {@link #mightContain} answers "maybe" for everything.
+     */
+    public void load() {
+        long start = System.currentTimeMillis();
+        try (Session session = HibernateUtil.getSessionFactory().openSession();
+             Stream<String> usernames = UserRepository.usernames(session)) {
+            usernames.forEach(this::add);
+            loaded = true;
+            System.out.println("INFO: Username filter loaded in " + (System.currentTimeMillis() - start)
+                    + " ms. " + describe());
+        } catch (Exception e) {
+            System.err.println("ERROR: Failed to load username filter, all checks will use the database: "
+                    + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    public void add(String username) {
+        long hash = hash64(username);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) break;
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+        size.incrementAndGet();
+    }
+
+    /**
+     * @return false if the username is definitely not taken; true if it might be.
+     */
+    public boolean mightContain(String username) {
+        if (!loaded) {
+            return true;
+        }
+        long hash = hash64(username);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                definiteMisses.incrementAndGet();
+                return false;
+            }
+        }
+        databaseChecks.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Records that a "maybe" from {@link #mightContain} turned out not to exist in the database.
+     */
+    void recordFalsePositive() {
+        falsePositives.incrementAndGet();
+    }
+
+    /**
+     * Expected false-positive rate at the current number of entries: (1 - e^(-kn/m))^k
+     */
+    public double estimatedFpp() {
+        return Math.pow(1 - Math.exp(-(double) hashCount * size.get() / bitCount), hashCount);
+    }
+
+    public long memoryBytes() {
+        return bitCount / 8;
+    }
+
+    public String describe() {
+        long checks = databaseChecks.get();
+        return String.format("Usernames=%d (sized for %d), memory=%.1f KiB, hashes=%d, "
+                        + "target FPP=%.4f, estimated FPP=%.4f, definite misses=%d, DB checks=%d, false positives=%d%s",
+                size.get(), expected, memoryBytes() / 1024.0, hashCount, targetFpp, estimatedFpp(),
+                definiteMisses.get(), checks, falsePositives.get(),
+                checks > 0 ? String.format(" (%.2f%% of DB checks)", 100.0 * falsePositives.get() / checks) : "");
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with a MurmurHash3 mix so both halves are well distributed.
+     */
+    private static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb3fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
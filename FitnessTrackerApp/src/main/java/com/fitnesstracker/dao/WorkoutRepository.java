@@ -0,0 +1,181 @@
+package com.fitnesstracker.dao;
+
+import com.fitnesstracker.event.DomainEvent;
+import com.fitnesstracker.event.DomainEventBus;
+import com.fitnesstracker.model.Workout;
+import org.hibernate.Session;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Workouts. Saving one folds it into its user's {@link ActivityAnalytics} aggregates and
+ * {@link GoalTracker} goals in the same transaction, and into the {@link Leaderboards} once
+ * committed; any other change marks those stale instead. Every committed change is
+ * published on the {@link DomainEventBus}.
+ */
+public class WorkoutRepository extends Repository<Workout> {
+
+    public WorkoutRepository() {
+        super(Workout.class);
+    }
+
+    /**
+     * Retrieves all workouts for a specific user, ordered by date.
+     */
+    public List<Workout> findByUser(Long userId) {
+        return findByUser(userId, null, null);
+    }
+
+    /**
+     * Retrieves all workouts for a specific user, ordered by date, or empty if the database
+     * could not be read. Unlike {@link #findByUser(Long)}, a failure is not an empty list.
+     */
+    public Optional<List<Workout>> tryFindByUser(Long userId) {
+        System.out.println("DEBUG: Finding workouts for user ID: " + userId);
+        return tryRead("load workouts", session -> query(session, userId, null, null));
+    }
+
+    /**
+     * Retrieves a user's workouts dated from..to (inclusive; null for open-ended), ordered by date.
+     * The archive is only read when the range reaches into an archived month; rows from it
+     * come back marked archived. Compacted months are only available as rollups.
+     */
+    public List<Workout> findByUser(Long userId, LocalDate from, LocalDate to) {
+        System.out.println("DEBUG: Finding workouts for user ID: " + userId);
+        List<Workout> workouts = read("load workouts", session -> query(session, userId, from, to), new ArrayList<>());
+        System.out.println("DEBUG: Found " + workouts.size() + " workouts in database");
+        return workouts;
+    }
+
+    /**
+     * Updates a workout with one UPDATE keyed by id and version, without loading the row
+     * first; on commit the entity's version is advanced to match the database.
+     */
+    @Override
+    public void update(UnitOfWork unit, Workout workout) {
+        rejectArchived(workout.isArchived(), "Workout");
+        Long ownerId = update(unit.session(), workout);
+        // Its own action, so the entity matches the committed row whatever the others do
+        unit.afterCommit(() -> workout.setVersion(nextVersion(workout.getVersion())));
+        unit.afterCommit(() -> {
+            Leaderboards.getInstance().invalidate(ownerId);
+            DomainEventBus.getInstance().publish(new DomainEvent.WorkoutUpdated(ownerId, List.of(workout.getWorkoutId())));
+        });
+    }
+
+    /**
+     * Soft-deletes the workout if it has not changed since it was read.
+     */
+    @Override
+    public void delete(Workout workout) {
+        rejectArchived(workout.isArchived(), "Workout");
+        deleteById(workout.getWorkoutId(), workout.getVersion());
+    }
+
+    /**
+     * Marks a workout deleted with a single UPDATE. A workout that is already gone is not an error.
+     *
+     * @param version The version the caller last read, or null to delete whatever is stored.
+     * @throws EditConflictException if the workout was updated after that version was read.
+     */
+    @Override
+    public void deleteById(Long workoutId, Long version) {
+        super.deleteById(workoutId, version);
+    }
+
+    @Override
+    protected void saved(UnitOfWork unit, Workout workout) {
+        ActivityAnalytics.recordWorkout(unit.session(), workout);
+        GoalTracker.recordWorkout(unit.session(), workout);
+        unit.afterCommit(() -> {
+            Leaderboards.getInstance().recordWorkout(workout);
+            DomainEventBus.getInstance().publish(new DomainEvent.WorkoutLogged(workout.getUser().getUserId(), workout));
+        });
+    }
+
+    @Override
+    protected void deleted(UnitOfWork unit, Long workoutId) {
+        Long ownerId = ActivityAnalytics.invalidateForWorkout(unit.session(), workoutId);
+        GoalTracker.invalidate(unit.session(), ownerId, GoalTracker.WORKOUT_GOALS);
+        unit.afterCommit(() -> {
+            Leaderboards.getInstance().invalidate(ownerId);
+            DomainEventBus.getInstance().publish(new DomainEvent.EntityDeleted(ownerId, Workout.class, List.of(workoutId)));
+        });
+    }
+
+    @Override
+    protected Long idOf(Workout workout) {
+        return workout.getWorkoutId();
+    }
+
+    @Override
+    protected boolean isDeleted(Workout workout) {
+        return workout.getDeletedAt() != null;
+    }
+
+    // --- Used in other repositories' and DAO transactions ---
+
+    static List<Workout> query(Session session, Long userId, LocalDate from, LocalDate to) {
+        List<Workout> workouts = new ArrayList<>(session.createNamedQuery("Workout.findByUser", Workout.class)
+                .setParameter("userId", userId)
+                .setParameter("from", from != null ? from : EARLIEST)
+                .setParameter("to", to != null ? to : LATEST)
+                .getResultList());
+
+        List<LocalDate> months = ActivityArchive.detailMonths(session, from, to);
+        if (!months.isEmpty()) {
+            List<Workout> archived = session.createNativeQuery(ActivityArchive.archivedWorkoutsSql(), Workout.class)
+                    .setParameter("userId", userId)
+                    .setParameter("from", max(from, months.get(0)))
+                    .setParameter("to", min(to != null ? to.plusDays(1) : null, months.get(months.size() - 1).plusMonths(1)))
+                    .getResultList();
+            // While a month is being archived its rows can briefly be in both tables; the
+            // hot row read above wins
+            Set<Long> hot = workouts.stream().map(Workout::getWorkoutId).collect(Collectors.toSet());
+            archived = archived.stream().filter(w -> !hot.contains(w.getWorkoutId())).toList();
+            archived.forEach(w -> w.setArchived(true));
+            workouts.addAll(archived);
+            workouts.sort(Comparator.comparing(Workout::getWorkoutDate));
+            System.out.println("DEBUG: Read " + archived.size() + " workouts from " + months.size() + " archived months");
+        }
+        return workouts;
+    }
+
+    /**
+     * Writes a workout's fields in one UPDATE that also checks and bumps its version.
+     * Runs in the caller's transaction; the entity itself is not changed.
+     * @return The id of the workout's owner.
+     */
+    static Long update(Session session, Workout workout) {
+        int rows = session.createNamedMutationQuery("Workout.update")
+                .setParameter("date", workout.getWorkoutDate())
+                .setParameter("type", workout.getWorkoutType())
+                .setParameter("duration", workout.getDurationMinutes())
+                .setParameter("calories", workout.getCaloriesBurned())
+                .setParameter("id", workout.getWorkoutId())
+                .setParameter("version", workout.getVersion())
+                .executeUpdate();
+        if (rows == 0) {
+            throw new EditConflictException("Workout " + workout.getWorkoutId()
+                    + " was changed or deleted by another session since it was loaded.");
+        }
+        Long ownerId = ActivityAnalytics.invalidateForWorkout(session, workout.getWorkoutId());
+        GoalTracker.invalidate(session, ownerId, GoalTracker.WORKOUT_GOALS);
+        return ownerId;
+    }
+
+    /**
+     * @return The id of the workout's owner, or null if there is no such workout.
+     */
+    static Long ownerId(Session session, Long workoutId) {
+        return session.createNamedQuery("Workout.ownerId", Long.class)
+                .setParameter("id", workoutId)
+                .uniqueResult();
+    }
+}
@@ -0,0 +1,536 @@
+package com.fitnesstracker.dao;
+
+import com.fitnesstracker.event.DomainEventBus;
+import com.fitnesstracker.model.AppliedWrite;
+import com.fitnesstracker.model.Measurement;
+import com.fitnesstracker.model.User;
+import com.fitnesstracker.model.Workout;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Optional write-behind queue for workout and measurement saves.
+ *
+ * Each save is appended to a local journal and acknowledged immediately. A background
+ * writer coalesces repeated updates to the same row, applies pending writes in batches
+ * of one transaction each, and reports results to the registered {@link Listener}. Applied
+ * writes are published on the {@link DomainEventBus} like direct saves. A write that fails
+ * for a reason that may pass is retried after a delay, without holding back the others.
+ *
+ * Entries that were not acknowledged are replayed from the journal on the next start. Each
+ * new row is journaled with a token that commits with it in APPLIED_WRITE, so a save that
+ * committed just before a crash is recognised on replay instead of inserted twice.
+ *
+ * Enabled with {@code -Dfitnesstracker.writebehind=true}.
+ */
+public class WriteBehindQueue {
+
+    private static final int BATCH_SIZE = 50;
+    private static final long LINGER_MILLIS = 200;
+    private static final long RETRY_DELAY_MILLIS = 5000;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static WriteBehindQueue instance;
+
+    /**
+     * Receives results from the background writer. Called on the writer thread.
+     */
+    public interface Listener {
+        void onFlushed(int count);
+        void onFailure(Object entity, Exception error);
+    }
+
+    private enum Operation { SAVE, UPDATE }
+
+    private static class PendingWrite {
+        long seq;
+        Operation operation;
+        Object entity;
+        Long userId;
+        // Idempotency token of a save; null for updates and for journals written before tokens
+        String token;
+        int attempts;
+        // Set for replayed and failed writes: one of them may have committed already
+        boolean mayBeApplied;
+        // Epoch millis before which a failed write is not retried
+        long notBefore;
+
+        String key() {
+            // Updates to the same row collapse into the newest one; saves never coalesce
+            if (operation == Operation.UPDATE) {
+                if (entity instanceof Workout) return "W" + ((Workout) entity).getWorkoutId();
+                return "M" + ((Measurement) entity).getMeasurementId();
+            }
+            return "S" + seq;
+        }
+    }
+
+    private final WorkoutRepository workouts = new WorkoutRepository();
+    private final MeasurementRepository measurements = new MeasurementRepository();
+    private final Path journalFile;
+    private final Map<String, PendingWrite> pending = new LinkedHashMap<>();
+    private BufferedWriter journal;
+    private FileChannel journalChannel;
+    private long nextSeq = 1;
+    // Journal entries written but not yet acknowledged or superseded
+    private long unacknowledged;
+    private volatile Listener listener;
+    private volatile boolean running;
+    private Thread writerThread;
+
+    private WriteBehindQueue(Path journalFile) {
+        this.journalFile = journalFile;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean("fitnesstracker.writebehind");
+    }
+
+    public static synchronized WriteBehindQueue getInstance() {
+        if (instance == null) {
+            String dir = System.getProperty("fitnesstracker.journal.dir",
+                    Paths.get(System.getProperty("user.home"), ".fitnesstracker").toString());
+            instance = new WriteBehindQueue(Paths.get(dir, "write-behind.journal"));
+        }
+        return instance;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Replays any unacknowledged journal entries and starts the background writer.
+     */
+    public synchronized void start() {
+        if (running) return;
+
+        try {
+            Files.createDirectories(journalFile.getParent());
+            replayJournal();
+            journalChannel = FileChannel.open(journalFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            journal = new BufferedWriter(Channels.newWriter(journalChannel, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.err.println("ERROR: Failed to open write-behind journal: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Write-behind journal unavailable: " + e.getMessage(), e);
+        }
+
+        running = true;
+        writerThread = new Thread(this::runWriter, "write-behind-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        System.out.println("INFO: Write-behind queue started with " + pending.size() + " pending writes");
+    }
+
+    /**
+     * Stops the writer after it drains what is currently queued.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            if (!running) return;
+            running = false;
+            notifyAll();
+        }
+        try {
+            writerThread.join(10000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("ERROR: Failed to close write-behind journal: " + e.getMessage());
+            }
+        }
+        System.out.println("INFO: Write-behind queue stopped");
+    }
+
+    public void enqueueSave(Object entity) {
+        enqueue(Operation.SAVE, entity);
+    }
+
+    public void enqueueUpdate(Object entity) {
+        enqueue(Operation.UPDATE, entity);
+    }
+
+    private synchronized void enqueue(Operation operation, Object entity) {
+        if (!running) {
+            throw new IllegalStateException("Write-behind queue is not running");
+        }
+        if (!(entity instanceof Workout) && !(entity instanceof Measurement)) {
+            throw new IllegalArgumentException("Unsupported entity for write-behind: " + entity.getClass().getName());
+        }
+
+        PendingWrite write = new PendingWrite();
+        write.seq = nextSeq++;
+        write.operation = operation;
+        User user = entity instanceof Workout ? ((Workout) entity).getUser() : ((Measurement) entity).getUser();
+        write.userId = user.getUserId();
+        if (operation == Operation.SAVE) {
+            write.token = UUID.randomUUID().toString();
+        }
+        // Copy so later edits to the form's entity do not change what was journaled
+        write.entity = detachedCopy(entity, user);
+
+        try {
+            journal.write(encode(write));
+            journal.newLine();
+            journal.flush();
+            journalChannel.force(false);
+        } catch (IOException e) {
+            System.err.println("ERROR: Failed to journal write: " + e.getMessage());
+            throw new RuntimeException("Failed to queue write: " + e.getMessage(), e);
+        }
+
+        if (pending.remove(write.key()) == null) {
+            unacknowledged++;
+        }
+        pending.put(write.key(), write);
+        System.out.println("DEBUG: Queued " + operation + " for " + entity.getClass().getSimpleName()
+                + " (" + pending.size() + " pending)");
+        notifyAll();
+    }
+
+    // --- Writer ---
+
+    private void runWriter() {
+        while (true) {
+            List<PendingWrite> batch;
+            synchronized (this) {
+                long delay;
+                while (running && (delay = untilNextDue()) > 0) {
+                    try {
+                        wait(delay == Long.MAX_VALUE ? 0 : delay);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                // On shutdown, writes still waiting to be retried stay in the journal for the next start
+                if (!running && untilNextDue() > 0) {
+                    return;
+                }
+            }
+
+            // Let a burst of saves accumulate before opening a transaction
+            sleepQuietly(LINGER_MILLIS);
+
+            synchronized (this) {
+                batch = new ArrayList<>();
+                long now = System.currentTimeMillis();
+                Iterator<PendingWrite> it = pending.values().iterator();
+                while (it.hasNext() && batch.size() < BATCH_SIZE) {
+                    PendingWrite write = it.next();
+                    if (write.notBefore <= now) {
+                        batch.add(write);
+                        it.remove();
+                    }
+                }
+            }
+
+            int flushed = flush(batch);
+            if (flushed > 0 && listener != null) {
+                listener.onFlushed(flushed);
+            }
+        }
+    }
+
+    /**
+     * @return Milliseconds until the earliest pending write may be applied: 0 if one is due
+     *         now, Long.MAX_VALUE if nothing is pending.
+     */
+    private long untilNextDue() {
+        long now = System.currentTimeMillis();
+        long earliest = Long.MAX_VALUE;
+        for (PendingWrite write : pending.values()) {
+            earliest = Math.min(earliest, write.notBefore);
+        }
+        return earliest == Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(0, earliest - now);
+    }
+
+    /**
+     * Applies the batch in one transaction. If that fails, each write is retried on its own
+     * so that a single bad row does not hold back the rest.
+     */
+    private int flush(List<PendingWrite> batch) {
+        try {
+            applyInTransaction(batch);
+            acknowledge(batch);
+            System.out.println("DEBUG: Write-behind flushed " + batch.size() + " writes");
+            return batch.size();
+        } catch (Exception batchError) {
+            System.err.println("ERROR: Write-behind batch failed, retrying individually: " + batchError.getMessage());
+        }
+
+        int flushed = 0;
+        List<PendingWrite> retry = new ArrayList<>();
+        for (PendingWrite write : batch) {
+            try {
+                applyInTransaction(List.of(write));
+                acknowledge(List.of(write));
+                flushed++;
+            } catch (Exception e) {
+                write.attempts++;
+                write.mayBeApplied = true;
+                if (isPermanent(e) || write.attempts >= MAX_ATTEMPTS) {
+                    System.err.println("ERROR: Dropping write-behind entry " + write.seq + ": " + e.getMessage());
+                    acknowledge(List.of(write));
+                    if (listener != null) {
+                        listener.onFailure(write.entity, e);
+                    }
+                } else {
+                    retry.add(write);
+                }
+            }
+        }
+
+        if (!retry.isEmpty()) {
+            long retryAt = System.currentTimeMillis() + RETRY_DELAY_MILLIS;
+            List<PendingWrite> superseded = new ArrayList<>();
+            synchronized (this) {
+                for (PendingWrite write : retry) {
+                    write.notBefore = retryAt;
+                    // A newer update to the same row queued meanwhile replaces this one
+                    if (pending.putIfAbsent(write.key(), write) != null) {
+                        superseded.add(write);
+                    }
+                }
+            }
+            if (!superseded.isEmpty()) {
+                acknowledge(superseded);
+            }
+        }
+        return flushed;
+    }
+
+    private void applyInTransaction(List<PendingWrite> batch) {
+        UnitOfWork.run("Write-behind flush", unit -> {
+            for (PendingWrite write : batch) {
+                User user = unit.session().getReference(User.class, write.userId);
+                Object entity = detachedCopy(write.entity, user);
+                if (write.token != null) {
+                    if (write.mayBeApplied && unit.session().find(AppliedWrite.class, write.token) != null) {
+                        System.out.println("DEBUG: Write-behind entry " + write.seq + " was already applied");
+                        continue;
+                    }
+                    unit.session().persist(new AppliedWrite(write.token, LocalDateTime.now()));
+                }
+                // The journal holds both kinds; each goes to its own repository
+                if (entity instanceof Workout) {
+                    if (write.operation == Operation.SAVE) {
+                        workouts.save(unit, (Workout) entity);
+                    } else {
+                        workouts.update(unit, (Workout) entity);
+                    }
+                } else if (write.operation == Operation.SAVE) {
+                    measurements.save(unit, (Measurement) entity);
+                } else {
+                    measurements.update(unit, (Measurement) entity);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Trigger-raised business errors (ORA-20001..ORA-20007) and edit conflicts will fail the
+     * same way on every retry.
+     */
+    private static boolean isPermanent(Exception e) {
+        if (e instanceof EditConflictException) {
+            return true;
+        }
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            String message = t.getMessage();
+            if (message != null && message.contains("ORA-200")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void acknowledge(List<PendingWrite> writes) {
+        try {
+            for (PendingWrite write : writes) {
+                journal.write("A\t" + write.seq);
+                journal.newLine();
+                unacknowledged--;
+            }
+            journal.flush();
+
+            // Nothing outstanding: start the journal over so it does not grow forever
+            if (unacknowledged == 0) {
+                journalChannel.truncate(0);
+            }
+            journalChannel.force(false);
+        } catch (IOException e) {
+            System.err.println("ERROR: Failed to acknowledge write-behind entries: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --- Journal encoding ---
+
+    private void replayJournal() throws IOException {
+        if (!Files.exists(journalFile)) return;
+
+        Map<Long, PendingWrite> entries = new LinkedHashMap<>();
+        Set<Long> acknowledged = new HashSet<>();
+        for (String line : Files.readAllLines(journalFile, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) continue;
+            try {
+                String[] fields = line.split("\t", -1);
+                if (fields[0].equals("A")) {
+                    acknowledged.add(Long.parseLong(fields[1]));
+                } else if (fields[0].equals("E")) {
+                    PendingWrite write = decode(fields);
+                    entries.put(write.seq, write);
+                }
+            } catch (RuntimeException e) {
+                // A torn last line from a crash mid-append
+                System.err.println("ERROR: Skipping unreadable journal line: " + line);
+            }
+        }
+
+        for (PendingWrite write : entries.values()) {
+            nextSeq = Math.max(nextSeq, write.seq + 1);
+            if (!acknowledged.contains(write.seq)) {
+                write.mayBeApplied = true;
+                pending.remove(write.key());
+                pending.put(write.key(), write);
+            }
+        }
+        for (Long seq : acknowledged) {
+            nextSeq = Math.max(nextSeq, seq + 1);
+        }
+
+        // Rewrite the journal with only the entries still outstanding
+        List<String> lines = new ArrayList<>();
+        for (PendingWrite write : pending.values()) {
+            lines.add(encode(write));
+        }
+        Files.write(journalFile, lines, StandardCharsets.UTF_8);
+        unacknowledged = pending.size();
+        System.out.println("DEBUG: Replayed " + pending.size() + " unacknowledged writes from journal");
+    }
+
+    private static String encode(PendingWrite write) {
+        StringBuilder line = new StringBuilder("E\t")
+                .append(write.seq).append('\t')
+                .append(write.operation).append('\t')
+                .append(write.userId).append('\t');
+
+        if (write.entity instanceof Workout) {
+            Workout w = (Workout) write.entity;
+            line.append("W\t")
+                    .append(nullable(w.getWorkoutId())).append('\t')
+                    .append(w.getWorkoutDate()).append('\t')
+                    .append(clean(w.getWorkoutType())).append('\t')
+                    .append(nullable(w.getDurationMinutes())).append('\t')
+                    .append(nullable(w.getCaloriesBurned())).append('\t')
+                    .append(nullable(w.getVersion())).append('\t')
+                    .append(nullable(write.token));
+        } else {
+            Measurement m = (Measurement) write.entity;
+            line.append("M\t")
+                    .append(nullable(m.getMeasurementId())).append('\t')
+                    .append(m.getRecorddate()).append('\t')
+                    .append(nullable(m.getWeight())).append('\t')
+                    .append(nullable(m.getHeight())).append('\t')
+                    .append(nullable(m.getVersion())).append('\t')
+                    .append(nullable(write.token));
+        }
+        return line.toString();
+    }
+
+    private static PendingWrite decode(String[] fields) {
+        PendingWrite write = new PendingWrite();
+        write.seq = Long.parseLong(fields[1]);
+        write.operation = Operation.valueOf(fields[2]);
+        write.userId = Long.parseLong(fields[3]);
+
+        User user = new User();
+        user.setUserId(write.userId);
+
+        if (fields[4].equals("W")) {
+            Workout w = new Workout(user, LocalDate.parse(fields[6]), fields[7],
+                    fields[8].isEmpty() ? null : Long.parseLong(fields[8]),
+                    fields[9].isEmpty() ? null : Integer.parseInt(fields[9]));
+            w.setWorkoutId(fields[5].isEmpty() ? null : Long.parseLong(fields[5]));
+            w.setVersion(optionalLong(fields, 10));
+            write.token = optionalString(fields, 11);
+            write.entity = w;
+        } else {
+            Measurement m = new Measurement(user, LocalDate.parse(fields[6]),
+                    fields[7].isEmpty() ? null : Double.parseDouble(fields[7]),
+                    fields[8].isEmpty() ? null : Double.parseDouble(fields[8]));
+            m.setMeasurementId(fields[5].isEmpty() ? null : Long.parseLong(fields[5]));
+            m.setVersion(optionalLong(fields, 9));
+            write.token = optionalString(fields, 10);
+            write.entity = m;
+        }
+        return write;
+    }
+
+    // Journals written before row versions or tokens existed have fewer columns
+    private static Long optionalLong(String[] fields, int index) {
+        String value = optionalString(fields, index);
+        return value != null ? Long.parseLong(value) : null;
+    }
+
+    private static String optionalString(String[] fields, int index) {
+        return fields.length > index && !fields[index].isEmpty() ? fields[index] : null;
+    }
+
+    private static Object detachedCopy(Object entity, User user) {
+        if (entity instanceof Workout) {
+            Workout source = (Workout) entity;
+            Workout w = new Workout(user, source.getWorkoutDate(), source.getWorkoutType(),
+                    source.getDurationMinutes(), source.getCaloriesBurned());
+            w.setWorkoutId(source.getWorkoutId());
+            w.setVersion(source.getVersion());
+            return w;
+        }
+        Measurement source = (Measurement) entity;
+        Measurement m = new Measurement(user, source.getRecorddate(), source.getWeight(), source.getHeight());
+        m.setMeasurementId(source.getMeasurementId());
+        m.setVersion(source.getVersion());
+        return m;
+    }
+
+    private static String nullable(Object value) {
+        return value == null ? "" : value.toString();
+    }
+
+    private static String clean(String value) {
+        return value == null ? "" : value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+}
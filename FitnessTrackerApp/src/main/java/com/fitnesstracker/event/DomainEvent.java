@@ -0,0 +1,68 @@
+package com.fitnesstracker.event;
+
+import com.fitnesstracker.model.Measurement;
+import com.fitnesstracker.model.Workout;
+
+import java.util.List;
+
+/**
+ * A committed change to one user's data, published on the {@link DomainEventBus} by the
+ * DAO layer once the transaction that made it has committed.
+ *
+ * Events describe what changed, not the new state: a subscriber that needs the current
+ * rows reads them back. Bulk events carry the ids that were asked for; rows that were
+ * already gone or belonged to someone else are among them.
+ */
+public sealed interface DomainEvent {
+
+    /**
+     * @return The user whose data changed.
+     */
+    Long userId();
+
+    record WorkoutLogged(Long userId, Workout workout) implements DomainEvent {}
+
+    record WorkoutUpdated(Long userId, List<Long> workoutIds) implements DomainEvent {}
+
+    record MeasurementLogged(Long userId, Measurement measurement) implements DomainEvent {}
+
+    record MeasurementUpdated(Long userId, List<Long> measurementIds) implements DomainEvent {}
+
+    /**
+     * Workouts or measurements soft-deleted, one at a time or in bulk.
+     * @param entityType Workout.class or Measurement.class.
+     */
+    record EntityDeleted(Long userId, Class<?> entityType, List<Long> ids) implements DomainEvent {}
+
+    /**
+     * Soft-deleted workouts or measurements brought back by an undo.
+     * @param entityType Workout.class or Measurement.class.
+     */
+    record EntityRestored(Long userId, Class<?> entityType, List<Long> ids) implements DomainEvent {}
+
+    /**
+     * A goal was added or removed. Progress changes are not published; they follow from the
+     * workout and measurement events.
+     */
+    record GoalChanged(Long userId) implements DomainEvent {}
+
+    record UserDeleted(Long userId) implements DomainEvent {}
+
+    /**
+     * @return True if the event changes the user's workouts.
+     */
+    default boolean affectsWorkouts() {
+        return this instanceof WorkoutLogged || this instanceof WorkoutUpdated
+                || (this instanceof EntityDeleted d && d.entityType() == Workout.class)
+                || (this instanceof EntityRestored r && r.entityType() == Workout.class);
+    }
+
+    /**
+     * @return True if the event changes the user's measurements.
+     */
+    default boolean affectsMeasurements() {
+        return this instanceof MeasurementLogged || this instanceof MeasurementUpdated
+                || (this instanceof EntityDeleted d && d.entityType() == Measurement.class)
+                || (this instanceof EntityRestored r && r.entityType() == Measurement.class);
+    }
+}
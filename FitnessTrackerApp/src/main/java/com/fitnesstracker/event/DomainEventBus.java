@@ -0,0 +1,175 @@
+package com.fitnesstracker.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * In-process bus for {@link DomainEvent}s, so that caches, views and statistics can follow
+ * committed changes without the writer waiting on them.
+ *
+ * Publishing never blocks: each subscription has its own bounded queue, and its filter runs
+ * on the publishing thread so that events it does not want are never queued. A small pool
+ * of daemon threads delivers each subscription's events in publish order, in batches of up
+ * to {@link #MAX_BATCH}; a subscription with a batch delay waits that long after the first
+ * event of a burst so the rest of the burst arrives in the same batch.
+ *
+ * A subscriber that falls behind until its queue is full loses the newer events rather
+ * than slowing down writers. Its next batch is then flagged as missed, and it should
+ * reload whatever it keeps from the database instead of applying the batch alone.
+ *
+ * Queue size per subscription: -Dfitnesstracker.events.queueSize (default 1024).
+ */
+public class DomainEventBus {
+
+    static final int MAX_BATCH = 256;
+    private static final int QUEUE_SIZE = Integer.getInteger("fitnesstracker.events.queueSize", 1024);
+    private static final int DISPATCH_THREADS = 2;
+
+    private static final DomainEventBus INSTANCE = new DomainEventBus();
+
+    /**
+     * Receives events on a dispatcher thread. Should return quickly and hand longer work to
+     * its own thread; a slow subscriber holds up delivery to others on the same thread.
+     */
+    public interface Subscriber {
+        /**
+         * @param events The next events, in publish order.
+         * @param missed True if events were dropped before this batch because the queue was full.
+         */
+        void onEvents(List<DomainEvent> events, boolean missed);
+    }
+
+    /**
+     * A registered subscriber. Closing it stops delivery; events already queued are dropped.
+     */
+    public final class Subscription implements AutoCloseable {
+        private final String name;
+        private final Predicate<DomainEvent> filter;
+        private final long batchDelayMillis;
+        private final Subscriber subscriber;
+        private final BlockingQueue<DomainEvent> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+        // True while a delivery is scheduled or running; at most one at a time keeps events in order
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean overflowed = new AtomicBoolean();
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile boolean closed;
+
+        private Subscription(String name, Predicate<DomainEvent> filter, long batchDelayMillis, Subscriber subscriber) {
+            this.name = name;
+            this.filter = filter;
+            this.batchDelayMillis = batchDelayMillis;
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * @return The number of events dropped because this subscriber fell behind.
+         */
+        public long getDroppedCount() {
+            return dropped.get();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            subscriptions.remove(this);
+            queue.clear();
+        }
+
+        private void offer(DomainEvent event) {
+            if (closed || !filter.test(event)) return;
+            if (!queue.offer(event)) {
+                dropped.incrementAndGet();
+                if (overflowed.compareAndSet(false, true)) {
+                    System.out.println("INFO: Event subscriber '" + name + "' is behind; dropping events until it catches up");
+                }
+            }
+            schedule(batchDelayMillis);
+        }
+
+        private void schedule(long delayMillis) {
+            if (!closed && scheduled.compareAndSet(false, true)) {
+                dispatcher.schedule(this::deliver, delayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void deliver() {
+            try {
+                // Read the flag first: an event dropped after this point is reported with the next batch
+                boolean missed = overflowed.getAndSet(false);
+                List<DomainEvent> batch = new ArrayList<>(Math.min(queue.size(), MAX_BATCH));
+                queue.drainTo(batch, MAX_BATCH);
+                if (!closed && (missed || !batch.isEmpty())) {
+                    subscriber.onEvents(batch, missed);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("ERROR: Event subscriber '" + name + "' failed: " + e.getMessage());
+                e.printStackTrace();
+            } finally {
+                scheduled.set(false);
+            }
+            // Events published while this batch was delivered
+            if (!queue.isEmpty() || overflowed.get()) {
+                schedule(0);
+            }
+        }
+    }
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService dispatcher;
+
+    private DomainEventBus() {
+        AtomicInteger threadCount = new AtomicInteger();
+        dispatcher = Executors.newScheduledThreadPool(DISPATCH_THREADS, task -> {
+            Thread thread = new Thread(task, "domain-events-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static DomainEventBus getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers a subscriber.
+     *
+     * @param name Used in log messages.
+     * @param filter Selects the events to deliver; runs on the publishing thread, so it must be cheap.
+     * @param batchDelayMillis How long to wait after the first event of a burst before delivering, or 0.
+     */
+    public Subscription subscribe(String name, Predicate<DomainEvent> filter, long batchDelayMillis,
+                                  Subscriber subscriber) {
+        Subscription subscription = new Subscription(name, filter, batchDelayMillis, subscriber);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Queues an event for every subscriber that wants it. Call only after the change has
+     * committed. Never blocks.
+     */
+    public void publish(DomainEvent event) {
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    /**
+     * {@link #publish} for each event, in order.
+     */
+    public void publishAll(List<? extends DomainEvent> events) {
+        for (DomainEvent event : events) {
+            publish(event);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.fitnesstracker.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Maps to the ACTIVITY_STATS table: running workout aggregates for one user, maintained
+ * by ActivityAnalytics. Weeks start on Monday; the week holding the latest workout stays
+ * open and is only folded into the averages once a later week begins.
+ */
+@Entity
+@Table(name = "ACTIVITY_STATS")
+// Compiled when the SessionFactory is built; used by ActivityAnalytics and TombstonePurger
+@NamedQuery(name = "ActivityStats.deleteByUser", query = "DELETE FROM ActivityStats s WHERE s.userId = :userId")
+@NamedQuery(name = "ActivityStats.purgeOfDeletedUsers", query = "DELETE FROM ActivityStats s "
+        + "WHERE s.userId IN (SELECT u.userId FROM User u WHERE u.deletedAt < :cutoff)")
+public class ActivityStats {
+
+    @Id
+    @Column(name = "USER_ID")
+    private Long userId;
+
+    @Column(name = "WORKOUT_COUNT", nullable = false)
+    private int workoutCount;
+
+    @Column(name = "TOTAL_MINUTES", nullable = false)
+    private long totalMinutes;
+
+    @Column(name = "LAST_WORKOUT_DATE")
+    private LocalDate lastWorkoutDate;
+
+    // Consecutive days with a workout, ending on LAST_WORKOUT_DATE
+    @Column(name = "DAY_STREAK", nullable = false)
+    private int dayStreak;
+
+    @Column(name = "BEST_DAY_STREAK", nullable = false)
+    private int bestDayStreak;
+
+    // Monday of the week holding LAST_WORKOUT_DATE, and the minutes logged in it so far
+    @Column(name = "WEEK_START")
+    private LocalDate weekStart;
+
+    @Column(name = "WEEK_MINUTES", nullable = false)
+    private long weekMinutes;
+
+    // Consecutive weeks with at least one workout, ending with WEEK_START
+    @Column(name = "WEEK_STREAK", nullable = false)
+    private int weekStreak;
+
+    @Column(name = "BEST_WEEK_STREAK", nullable = false)
+    private int bestWeekStreak;
+
+    // Weeks folded into the averages below, empty ones included
+    @Column(name = "CLOSED_WEEKS", nullable = false)
+    private int closedWeeks;
+
+    // Exponential moving averages over closed weeks: minutes per week, and the share of weeks with a workout
+    @Column(name = "WEEKLY_MINUTES_AVG", nullable = false)
+    private double weeklyMinutesAverage;
+
+    @Column(name = "CONSISTENCY", nullable = false)
+    private double consistency;
+
+    public ActivityStats() {}
+
+    public ActivityStats(Long userId) {
+        this.userId = userId;
+    }
+
+    // --- Getters and Setters ---
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public int getWorkoutCount() { return workoutCount; }
+    public void setWorkoutCount(int workoutCount) { this.workoutCount = workoutCount; }
+    public long getTotalMinutes() { return totalMinutes; }
+    public void setTotalMinutes(long totalMinutes) { this.totalMinutes = totalMinutes; }
+    public LocalDate getLastWorkoutDate() { return lastWorkoutDate; }
+    public void setLastWorkoutDate(LocalDate lastWorkoutDate) { this.lastWorkoutDate = lastWorkoutDate; }
+    public int getDayStreak() { return dayStreak; }
+    public void setDayStreak(int dayStreak) { this.dayStreak = dayStreak; }
+    public int getBestDayStreak() { return bestDayStreak; }
+    public void setBestDayStreak(int bestDayStreak) { this.bestDayStreak = bestDayStreak; }
+    public LocalDate getWeekStart() { return weekStart; }
+    public void setWeekStart(LocalDate weekStart) { this.weekStart = weekStart; }
+    public long getWeekMinutes() { return weekMinutes; }
+    public void setWeekMinutes(long weekMinutes) { this.weekMinutes = weekMinutes; }
+    public int getWeekStreak() { return weekStreak; }
+    public void setWeekStreak(int weekStreak) { this.weekStreak = weekStreak; }
+    public int getBestWeekStreak() { return bestWeekStreak; }
+    public void setBestWeekStreak(int bestWeekStreak) { this.bestWeekStreak = bestWeekStreak; }
+    public int getClosedWeeks() { return closedWeeks; }
+    public void setClosedWeeks(int closedWeeks) { this.closedWeeks = closedWeeks; }
+    public double getWeeklyMinutesAverage() { return weeklyMinutesAverage; }
+    public void setWeeklyMinutesAverage(double weeklyMinutesAverage) { this.weeklyMinutesAverage = weeklyMinutesAverage; }
+    public double getConsistency() { return consistency; }
+    public void setConsistency(double consistency) { this.consistency = consistency; }
+}
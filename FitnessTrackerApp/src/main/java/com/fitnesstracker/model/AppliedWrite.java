@@ -0,0 +1,36 @@
+package com.fitnesstracker.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Maps to the APPLIED_WRITE table: the token of each write-behind save, stored in the
+ * transaction that applied it. Replaying a journal entry whose token is already here
+ * means the save committed but its acknowledgement never reached the journal.
+ */
+@Entity
+@Table(name = "APPLIED_WRITE", indexes = {
+        // Serves TombstonePurger: drops tokens past their retention
+        @Index(name = "IDX_APPLIED_WRITE_AT", columnList = "APPLIED_AT")
+})
+// Compiled when the SessionFactory is built; used by TombstonePurger
+@NamedQuery(name = "AppliedWrite.purgeBefore", query = "DELETE FROM AppliedWrite a WHERE a.appliedAt < :cutoff")
+public class AppliedWrite {
+
+    @Id
+    @Column(name = "TOKEN", length = 36)
+    private String token;
+
+    @Column(name = "APPLIED_AT", nullable = false)
+    private LocalDateTime appliedAt;
+
+    public AppliedWrite() {}
+
+    public AppliedWrite(String token, LocalDateTime appliedAt) {
+        this.token = token;
+        this.appliedAt = appliedAt;
+    }
+
+    public String getToken() { return token; }
+    public LocalDateTime getAppliedAt() { return appliedAt; }
+}
@@ -0,0 +1,119 @@
+package com.fitnesstracker.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Maps to the GOAL table: a target one user has set, with the progress GoalTracker keeps
+ * for it. PROGRESS is NULL while the goal needs evaluating again.
+ *
+ * For a weekly or monthly goal, PROGRESS is the total logged in the period starting on
+ * PERIOD_START. For a target weight it is the latest weigh-in (taken on PROGRESS_ON),
+ * START_VALUE the weight when the goal was set, and ACHIEVED_ON the first weigh-in since
+ * then that reached the target.
+ */
+@Entity
+@Table(name = "GOAL", indexes = {
+        // Every workout and weigh-in looks up its user's goals
+        @Index(name = "IDX_GOAL_USER", columnList = "USER_ID")
+})
+// Compiled when the SessionFactory is built; used by GoalTracker, ActivityDAO and TombstonePurger
+@NamedQuery(name = "Goal.countByUser", query = "SELECT COUNT(g) FROM Goal g WHERE g.userId = :userId")
+@NamedQuery(name = "Goal.findByUserAndTypes", query = "FROM Goal g WHERE g.userId = :userId AND g.type IN :types ORDER BY g.goalId")
+@NamedQuery(name = "Goal.deleteByIdAndUser", query = "DELETE FROM Goal g WHERE g.goalId = :goalId AND g.userId = :userId")
+@NamedQuery(name = "Goal.purgeOfDeletedUsers", query = "DELETE FROM Goal g "
+        + "WHERE g.userId IN (SELECT u.userId FROM User u WHERE u.deletedAt < :cutoff)")
+public class Goal {
+
+    public enum Type {
+        TARGET_WEIGHT("Target weight", "kg"),
+        WEEKLY_MINUTES("Weekly minutes", "min"),
+        MONTHLY_CALORIES("Monthly calories", "kcal");
+
+        private final String label;
+        private final String unit;
+
+        Type(String label, String unit) {
+            this.label = label;
+            this.unit = unit;
+        }
+
+        public String getLabel() { return label; }
+        public String getUnit() { return unit; }
+
+        /**
+         * @return True for goals counted over a repeating period of workouts.
+         */
+        public boolean isPeriodic() {
+            return this != TARGET_WEIGHT;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "GOAL_ID")
+    private Long goalId;
+
+    @Column(name = "USER_ID", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "GOAL_TYPE", length = 20, nullable = false)
+    private Type type;
+
+    @Column(name = "TARGET", nullable = false)
+    private double target;
+
+    @Column(name = "START_VALUE")
+    private Double startValue;
+
+    @Column(name = "CREATED_ON", nullable = false)
+    private LocalDate createdOn;
+
+    @Column(name = "PERIOD_START")
+    private LocalDate periodStart;
+
+    @Column(name = "PROGRESS")
+    private Double progress;
+
+    @Column(name = "PROGRESS_ON")
+    private LocalDate progressOn;
+
+    @Column(name = "ACHIEVED_ON")
+    private LocalDate achievedOn;
+
+    public Goal() {}
+
+    public Goal(Long userId, Type type, double target) {
+        this.userId = userId;
+        this.type = type;
+        this.target = target;
+    }
+
+    // --- Getters and Setters ---
+    public Long getGoalId() { return goalId; }
+    public void setGoalId(Long goalId) { this.goalId = goalId; }
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+    public double getTarget() { return target; }
+    public void setTarget(double target) { this.target = target; }
+    public Double getStartValue() { return startValue; }
+    public void setStartValue(Double startValue) { this.startValue = startValue; }
+    public LocalDate getCreatedOn() { return createdOn; }
+    public void setCreatedOn(LocalDate createdOn) { this.createdOn = createdOn; }
+    public LocalDate getPeriodStart() { return periodStart; }
+    public void setPeriodStart(LocalDate periodStart) { this.periodStart = periodStart; }
+    public Double getProgress() { return progress; }
+    public void setProgress(Double progress) { this.progress = progress; }
+    public LocalDate getProgressOn() { return progressOn; }
+    public void setProgressOn(LocalDate progressOn) { this.progressOn = progressOn; }
+    public LocalDate getAchievedOn() { return achievedOn; }
+    public void setAchievedOn(LocalDate achievedOn) { this.achievedOn = achievedOn; }
+}
@@ -2,12 +2,52 @@ package com.fitnesstracker.model;
 
 import jakarta.persistence.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 /**
  * Measurement entity - Simplified version without body fat percentage
  */
 @Entity
-@Table(name = "MEASUREMENT")
+@Table(name = "MEASUREMENT", indexes = {
+        // Serves MeasurementRepository.findByUser: filter on USER_ID, rows already in RECORDDATE order
+        @Index(name = "IDX_MEASUREMENT_USER_DATE", columnList = "USER_ID, RECORDDATE"),
+        // Serves TombstonePurger: finds soft-deleted rows without scanning the live ones
+        @Index(name = "IDX_MEASUREMENT_DELETED", columnList = "DELETED_AT"),
+        // Serves ActivityArchive: moves one month of rows at a time
+        @Index(name = "IDX_MEASUREMENT_DATE", columnList = "RECORDDATE")
+})
+// Compiled when the SessionFactory is built; used by MeasurementRepository
+@NamedQuery(name = "Measurement.findByUser", query = "FROM Measurement m WHERE m.user.userId = :userId AND m.deletedAt IS NULL "
+        + "AND m.recorddate BETWEEN :from AND :to ORDER BY m.recorddate ASC")
+@NamedQuery(name = "Measurement.existsById", query = "SELECT count(m) FROM Measurement m WHERE m.measurementId = :id AND m.deletedAt IS NULL")
+@NamedQuery(name = "Measurement.ownerId", query = "SELECT m.user.userId FROM Measurement m WHERE m.measurementId = :id")
+// A null :version skips the check, for entities saved before row versions existed
+@NamedQuery(name = "Measurement.update", query = "UPDATE Measurement m SET m.recorddate = :date, m.weight = :weight, "
+        + "m.height = :height, m.version = m.version + 1 "
+        + "WHERE m.measurementId = :id AND m.deletedAt IS NULL AND (:version IS NULL OR m.version = :version)")
+@NamedQuery(name = "Measurement.softDelete", query = "UPDATE Measurement m SET m.deletedAt = :now "
+        + "WHERE m.measurementId = :id AND m.deletedAt IS NULL AND (:version IS NULL OR m.version = :version)")
+// Used by GoalTracker for target weight goals
+@NamedQuery(name = "Measurement.latestWeighIn", query = "FROM Measurement m WHERE m.user.userId = :userId "
+        + "AND m.deletedAt IS NULL AND m.weight IS NOT NULL ORDER BY m.recorddate DESC, m.measurementId DESC")
+@NamedQuery(name = "Measurement.firstAtOrBelow", query = "SELECT MIN(m.recorddate) FROM Measurement m "
+        + "WHERE m.user.userId = :userId AND m.deletedAt IS NULL AND m.recorddate >= :since AND m.weight <= :target")
+@NamedQuery(name = "Measurement.firstAtOrAbove", query = "SELECT MIN(m.recorddate) FROM Measurement m "
+        + "WHERE m.user.userId = :userId AND m.deletedAt IS NULL AND m.recorddate >= :since AND m.weight >= :target")
+// Bulk edits in ActivityDAO; ids the user does not own are skipped
+@NamedQuery(name = "Measurement.bulkSoftDelete", query = "UPDATE Measurement m SET m.deletedAt = :now "
+        + "WHERE m.user.userId = :userId AND m.measurementId IN (:ids) AND m.deletedAt IS NULL")
+@NamedQuery(name = "Measurement.bulkRestore", query = "UPDATE Measurement m SET m.deletedAt = NULL "
+        + "WHERE m.user.userId = :userId AND m.measurementId IN (:ids) AND m.deletedAt IS NOT NULL")
+@NamedQuery(name = "Measurement.bulkShiftDates", query = "UPDATE Measurement m SET m.recorddate = m.recorddate + :days day, "
+        + "m.version = m.version + 1 WHERE m.user.userId = :userId AND m.measurementId IN (:ids) AND m.deletedAt IS NULL")
+@NamedQuery(name = "Measurement.latestDateOfIds", query = "SELECT MAX(m.recorddate) FROM Measurement m "
+        + "WHERE m.user.userId = :userId AND m.measurementId IN (:ids) AND m.deletedAt IS NULL")
+// TombstonePurger: rows past the undo window, then rows of accounts past it
+@NamedQuery(name = "Measurement.dueDeleted", query = "SELECT m.measurementId FROM Measurement m WHERE m.deletedAt < :cutoff")
+@NamedQuery(name = "Measurement.dueOfDeletedUsers", query = "SELECT m.measurementId FROM Measurement m "
+        + "WHERE m.user.userId IN (SELECT u.userId FROM User u WHERE u.deletedAt < :cutoff)")
+@NamedQuery(name = "Measurement.purgeByIds", query = "DELETE FROM Measurement m WHERE m.measurementId IN (:ids)")
 public class Measurement {
 
     @Id
@@ -28,6 +68,19 @@ public class Measurement {
     @Column(name = "HEIGHT")
     private Double height;
 
+    // Bumped on every update; an update or delete made against an older version is rejected
+    @Version
+    @Column(name = "VERSION", nullable = false)
+    private Long version;
+
+    // Set when the measurement is deleted; MeasurementRepository hides it and TombstonePurger removes it later
+    @Column(name = "DELETED_AT")
+    private LocalDateTime deletedAt;
+
+    // True when read from MEASUREMENT_ARCHIVE; archived measurements are read-only
+    @Transient
+    private boolean archived;
+
     // Constructors
     public Measurement() {}
 
@@ -43,6 +96,10 @@ public class Measurement {
         return measurementId;
     }
 
+    public void setMeasurementId(Long measurementId) {
+        this.measurementId = measurementId;
+    }
+
     public User getUser() {
         return user;
     }
@@ -74,4 +131,28 @@ public class Measurement {
     public void setHeight(Double height) {
         this.height = height;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+
+    public boolean isArchived() {
+        return archived;
+    }
+
+    public void setArchived(boolean archived) {
+        this.archived = archived;
+    }
 }
\ No newline at end of file
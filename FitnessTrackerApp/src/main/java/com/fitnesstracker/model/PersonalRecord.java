@@ -0,0 +1,94 @@
+package com.fitnesstracker.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Maps to the PERSONAL_RECORD table: a user's best single session of one workout type,
+ * maintained by ActivityAnalytics. An equal result later on does not replace the record.
+ */
+@Entity
+@Table(name = "PERSONAL_RECORD")
+@IdClass(PersonalRecord.Key.class)
+// Compiled when the SessionFactory is built; used by ActivityAnalytics and TombstonePurger
+@NamedQuery(name = "PersonalRecord.findByUser", query = "FROM PersonalRecord r WHERE r.userId = :userId ORDER BY r.workoutType")
+@NamedQuery(name = "PersonalRecord.deleteByUser", query = "DELETE FROM PersonalRecord r WHERE r.userId = :userId")
+@NamedQuery(name = "PersonalRecord.purgeOfDeletedUsers", query = "DELETE FROM PersonalRecord r "
+        + "WHERE r.userId IN (SELECT u.userId FROM User u WHERE u.deletedAt < :cutoff)")
+public class PersonalRecord {
+
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Long userId;
+        private String workoutType;
+
+        public Key() {}
+
+        public Key(Long userId, String workoutType) {
+            this.userId = userId;
+            this.workoutType = workoutType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Objects.equals(userId, key.userId) && Objects.equals(workoutType, key.workoutType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, workoutType);
+        }
+    }
+
+    @Id
+    @Column(name = "USER_ID")
+    private Long userId;
+
+    @Id
+    @Column(name = "WORKOUTTYPE", length = 20)
+    private String workoutType;
+
+    @Column(name = "SESSION_COUNT", nullable = false)
+    private int sessionCount;
+
+    @Column(name = "LONGEST_MINUTES")
+    private Long longestMinutes;
+
+    @Column(name = "LONGEST_ON")
+    private LocalDate longestOn;
+
+    @Column(name = "MOST_CALORIES")
+    private Integer mostCalories;
+
+    @Column(name = "MOST_CALORIES_ON")
+    private LocalDate mostCaloriesOn;
+
+    public PersonalRecord() {}
+
+    public PersonalRecord(Long userId, String workoutType) {
+        this.userId = userId;
+        this.workoutType = workoutType;
+    }
+
+    // --- Getters and Setters ---
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public String getWorkoutType() { return workoutType; }
+    public void setWorkoutType(String workoutType) { this.workoutType = workoutType; }
+    public int getSessionCount() { return sessionCount; }
+    public void setSessionCount(int sessionCount) { this.sessionCount = sessionCount; }
+    public Long getLongestMinutes() { return longestMinutes; }
+    public void setLongestMinutes(Long longestMinutes) { this.longestMinutes = longestMinutes; }
+    public LocalDate getLongestOn() { return longestOn; }
+    public void setLongestOn(LocalDate longestOn) { this.longestOn = longestOn; }
+    public Integer getMostCalories() { return mostCalories; }
+    public void setMostCalories(Integer mostCalories) { this.mostCalories = mostCalories; }
+    public LocalDate getMostCaloriesOn() { return mostCaloriesOn; }
+    public void setMostCaloriesOn(LocalDate mostCaloriesOn) { this.mostCaloriesOn = mostCaloriesOn; }
+}
@@ -1,6 +1,7 @@
 package com.fitnesstracker.model;
 
 import jakarta.persistence.*;
+import java.time.LocalDateTime;
 import java.util.Set;
 
 /**
@@ -8,7 +9,26 @@ import java.util.Set;
  * This is the parent entity for workouts and measurements.
  */
 @Entity
-@Table(name = "APP_USER")
+@Table(name = "APP_USER", uniqueConstraints = {
+        // usernameExists and authenticateUser look users up by USERNAME through this index
+        @UniqueConstraint(name = "UK_APP_USER_USERNAME", columnNames = "USERNAME")
+}, indexes = {
+        @Index(name = "IDX_APP_USER_DELETED", columnList = "DELETED_AT")
+})
+// Compiled when the SessionFactory is built; used by UserRepository
+@NamedQuery(name = "User.findByUsername", query = "FROM User u WHERE u.username = :username AND u.deletedAt IS NULL")
+@NamedQuery(name = "User.countByUsername", query = "SELECT count(u.userId) FROM User u WHERE u.username = :username")
+@NamedQuery(name = "User.existsById", query = "SELECT count(u) FROM User u WHERE u.userId = :id AND u.deletedAt IS NULL")
+@NamedQuery(name = "User.usernames", query = "SELECT u.username FROM User u")
+@NamedQuery(name = "User.updatePassword", query = "UPDATE User u SET u.password = :password WHERE u.userId = :userId")
+@NamedQuery(name = "User.softDelete", query = "UPDATE User u SET u.deletedAt = :now WHERE u.userId = :id AND u.deletedAt IS NULL")
+// Leaderboards
+@NamedQuery(name = "User.liveNames", query = "SELECT u.userId, u.name FROM User u WHERE u.deletedAt IS NULL")
+@NamedQuery(name = "User.liveName", query = "SELECT u.userId, u.name FROM User u WHERE u.deletedAt IS NULL AND u.userId = :userId")
+// TombstonePurger: accounts past the undo window whose rows are all gone
+@NamedQuery(name = "User.purgeDue", query = "DELETE FROM User u WHERE u.deletedAt < :cutoff "
+        + "AND NOT EXISTS (SELECT w.workoutId FROM Workout w WHERE w.user.userId = u.userId) "
+        + "AND NOT EXISTS (SELECT m.measurementId FROM Measurement m WHERE m.user.userId = u.userId)")
 public class User {
 
     @Id
@@ -16,7 +36,7 @@ public class User {
     @Column(name = "USERID")
     private Long userId;
 
-    @Column(name = "USERNAME", length = 50, nullable = false, unique = true)
+    @Column(name = "USERNAME", length = 50, nullable = false)
     private String username;
 
     @Column(name = "NAME", length = 100)
@@ -25,17 +45,24 @@ public class User {
     @Column(name = "AGE")
     private Integer age;
 
-    @Column(name = "PASSWORD", length = 50, nullable = false)
+    // Holds a PasswordHasher hash (pbkdf2$iterations$salt$hash), never the plain password
+    @Column(name = "PASSWORD", length = 255, nullable = false)
     private String password;
 
     @Column(name = "GENDER", length = 6, nullable = false)
     private String gender;
 
-    // One-to-Many relationships defined for navigation
-    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
+    // Set when the account is deleted; the user can no longer log in and TombstonePurger
+    // removes the account and its rows later in small batches
+    @Column(name = "DELETED_AT")
+    private LocalDateTime deletedAt;
+
+    // One-to-Many relationships defined for navigation only. No cascade: removing a user
+    // would otherwise load and delete every row it owns in one transaction.
+    @OneToMany(mappedBy = "user")
     private Set<Workout> workouts;
 
-    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OneToMany(mappedBy = "user")
     private Set<Measurement> measurements;
 
     public User() {}
@@ -59,6 +86,9 @@ public class User {
     public String getGender() { return gender; }
     public void setGender(String gender) { this.gender = gender; }
 
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+    public void setDeletedAt(LocalDateTime deletedAt) { this.deletedAt = deletedAt; }
+
     // Getters for workouts and measurements
     public Set<Workout> getWorkouts() { return workouts; }
     public Set<Measurement> getMeasurements() { return measurements; }
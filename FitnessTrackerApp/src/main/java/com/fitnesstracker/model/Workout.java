@@ -2,14 +2,99 @@ package com.fitnesstracker.model;
 
 import jakarta.persistence.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Maps to the Workout table. Linked to User via user_id.
  */
 @Entity
-@Table(name = "WORKOUT")
+@Table(name = "WORKOUT", indexes = {
+        // Serves WorkoutRepository.findByUser: filter on USER_ID, rows already in WORKOUTDATE order
+        @Index(name = "IDX_WORKOUT_USER_DATE", columnList = "USER_ID, WORKOUTDATE"),
+        // Serves TombstonePurger: finds soft-deleted rows without scanning the live ones
+        @Index(name = "IDX_WORKOUT_DELETED", columnList = "DELETED_AT"),
+        // Serves ActivityArchive: moves one month of rows at a time
+        @Index(name = "IDX_WORKOUT_DATE", columnList = "WORKOUTDATE")
+})
+// Compiled when the SessionFactory is built; used by WorkoutRepository
+@NamedQuery(name = "Workout.findByUser", query = "FROM Workout w WHERE w.user.userId = :userId AND w.deletedAt IS NULL "
+        + "AND w.workoutdate BETWEEN :from AND :to ORDER BY w.workoutdate ASC")
+@NamedQuery(name = "Workout.existsById", query = "SELECT count(w) FROM Workout w WHERE w.workoutId = :id AND w.deletedAt IS NULL")
+@NamedQuery(name = "Workout.ownerId", query = "SELECT w.user.userId FROM Workout w WHERE w.workoutId = :id")
+// A null :version skips the check, for entities saved before row versions existed
+@NamedQuery(name = "Workout.update", query = "UPDATE Workout w SET w.workoutdate = :date, w.workoutType = :type, "
+        + "w.durationMinutes = :duration, w.caloriesBurned = :calories, w.version = w.version + 1 "
+        + "WHERE w.workoutId = :id AND w.deletedAt IS NULL AND (:version IS NULL OR w.version = :version)")
+@NamedQuery(name = "Workout.softDelete", query = "UPDATE Workout w SET w.deletedAt = :now "
+        + "WHERE w.workoutId = :id AND w.deletedAt IS NULL AND (:version IS NULL OR w.version = :version)")
+// Used by ActivityAnalytics and GoalTracker
+@NamedQuery(name = "Workout.caloriesById", query = "SELECT w.caloriesBurned FROM Workout w WHERE w.workoutId = :id")
+@NamedQuery(name = "Workout.sumMinutesSince", query = "SELECT SUM(w.durationMinutes) FROM Workout w "
+        + "WHERE w.user.userId = :userId AND w.deletedAt IS NULL AND w.workoutdate >= :from")
+@NamedQuery(name = "Workout.sumCaloriesSince", query = "SELECT SUM(w.caloriesBurned) FROM Workout w "
+        + "WHERE w.user.userId = :userId AND w.deletedAt IS NULL AND w.workoutdate >= :from")
+// Bulk edits in ActivityDAO; ids the user does not own are skipped
+@NamedQuery(name = "Workout.bulkSoftDelete", query = "UPDATE Workout w SET w.deletedAt = :now "
+        + "WHERE w.user.userId = :userId AND w.workoutId IN (:ids) AND w.deletedAt IS NULL")
+@NamedQuery(name = "Workout.bulkRestore", query = "UPDATE Workout w SET w.deletedAt = NULL "
+        + "WHERE w.user.userId = :userId AND w.workoutId IN (:ids) AND w.deletedAt IS NOT NULL")
+@NamedQuery(name = "Workout.bulkRetype", query = "UPDATE Workout w SET w.workoutType = :type, w.version = w.version + 1 "
+        + "WHERE w.user.userId = :userId AND w.workoutId IN (:ids) AND w.deletedAt IS NULL")
+@NamedQuery(name = "Workout.bulkShiftDates", query = "UPDATE Workout w SET w.workoutdate = w.workoutdate + :days day, "
+        + "w.version = w.version + 1 WHERE w.user.userId = :userId AND w.workoutId IN (:ids) AND w.deletedAt IS NULL")
+@NamedQuery(name = "Workout.latestDateOfIds", query = "SELECT MAX(w.workoutdate) FROM Workout w "
+        + "WHERE w.user.userId = :userId AND w.workoutId IN (:ids) AND w.deletedAt IS NULL")
+// Leaderboards: separate all-users and one-user forms, so the one-user reload can use IDX_WORKOUT_USER_DATE
+@NamedQuery(name = "Workout.leaderboardTotals", query = Workout.LEADERBOARD_TOTALS + " GROUP BY w.user.userId, w.workoutType")
+@NamedQuery(name = "Workout.leaderboardTotalsForUser", query = Workout.LEADERBOARD_TOTALS
+        + " AND w.user.userId = :userId GROUP BY w.user.userId, w.workoutType")
+@NamedQuery(name = "Workout.streakDays", query = Workout.STREAK_DAYS + " ORDER BY w.user.userId, w.workoutdate DESC")
+@NamedQuery(name = "Workout.streakDaysForUser", query = Workout.STREAK_DAYS
+        + " AND w.user.userId = :userId ORDER BY w.user.userId, w.workoutdate DESC")
+// TombstonePurger: rows past the undo window, then rows of accounts past it
+@NamedQuery(name = "Workout.dueDeleted", query = "SELECT w.workoutId FROM Workout w WHERE w.deletedAt < :cutoff")
+@NamedQuery(name = "Workout.dueOfDeletedUsers", query = "SELECT w.workoutId FROM Workout w "
+        + "WHERE w.user.userId IN (SELECT u.userId FROM User u WHERE u.deletedAt < :cutoff)")
+@NamedQuery(name = "Workout.purgeByIds", query = "DELETE FROM Workout w WHERE w.workoutId IN (:ids)")
 public class Workout {
 
+    // All three leaderboard windows in one pass over the table
+    static final String LEADERBOARD_TOTALS = "SELECT w.user.userId, w.workoutType, "
+            + "SUM(CASE WHEN w.workoutdate >= :week THEN COALESCE(w.caloriesBurned, 0) ELSE 0 END), "
+            + "SUM(CASE WHEN w.workoutdate >= :week THEN COALESCE(w.durationMinutes, 0) ELSE 0 END), "
+            + "SUM(CASE WHEN w.workoutdate >= :month THEN COALESCE(w.caloriesBurned, 0) ELSE 0 END), "
+            + "SUM(CASE WHEN w.workoutdate >= :month THEN COALESCE(w.durationMinutes, 0) ELSE 0 END), "
+            + "SUM(COALESCE(w.caloriesBurned, 0)), SUM(COALESCE(w.durationMinutes, 0)) "
+            + "FROM Workout w WHERE w.deletedAt IS NULL";
+
+    // Workout days of users who worked out since :yesterday
+    static final String STREAK_DAYS = "SELECT DISTINCT w.user.userId, w.workoutdate FROM Workout w "
+            + "WHERE w.deletedAt IS NULL AND w.user.userId IN (SELECT r.user.userId FROM Workout r "
+            + "WHERE r.deletedAt IS NULL AND r.workoutdate >= :yesterday)";
+
+    // The workout types the app offers, first one the default: the workout form, the bulk
+    // re-type dialog, the calorie estimator and the bench data generators all use this list
+    public static final List<String> WORKOUT_TYPES = List.of(
+            "Running",
+            "Cycling",
+            "Swimming",
+            "Weight Training",
+            "Yoga",
+            "Walking",
+            "Cardio",
+            "HIIT",
+            "Basketball",
+            "Soccer",
+            "Tennis",
+            "Boxing",
+            "Dancing",
+            "Pilates",
+            "CrossFit",
+            "Stretching",
+            "Other"
+    );
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "WORKOUTID")
@@ -32,6 +117,19 @@ public class Workout {
     @Column(name = "CALORIESBURNED")
     private Integer caloriesBurned;
 
+    // Bumped on every update; an update or delete made against an older version is rejected
+    @Version
+    @Column(name = "VERSION", nullable = false)
+    private Long version;
+
+    // Set when the workout is deleted; WorkoutRepository hides it and TombstonePurger removes it later
+    @Column(name = "DELETED_AT")
+    private LocalDateTime deletedAt;
+
+    // True when read from WORKOUT_ARCHIVE; archived workouts are read-only
+    @Transient
+    private boolean archived;
+
     public Workout() {}
 
     // Constructor for easy creation
@@ -45,6 +143,7 @@ public class Workout {
 
     // --- Getters and Setters ---
     public Long getWorkoutId() { return workoutId; }
+    public void setWorkoutId(Long workoutId) { this.workoutId = workoutId; }
     public User getUser() { return user; }
     public void setUser(User user) { this.user = user; }
     public LocalDate getWorkoutDate() { return workoutdate; }
@@ -57,4 +156,13 @@ public class Workout {
     public void setDurationMinutes(int durationMinutes) { this.durationMinutes = (long) durationMinutes; }
     public Integer getCaloriesBurned() { return caloriesBurned; }
     public void setCaloriesBurned(Integer caloriesBurned) { this.caloriesBurned = caloriesBurned; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+    public void setDeletedAt(LocalDateTime deletedAt) { this.deletedAt = deletedAt; }
+
+    public boolean isArchived() { return archived; }
+    public void setArchived(boolean archived) { this.archived = archived; }
 }
\ No newline at end of file
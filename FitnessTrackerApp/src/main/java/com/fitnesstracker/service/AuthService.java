@@ -0,0 +1,77 @@
+package com.fitnesstracker.service;
+
+import com.fitnesstracker.dao.UserRepository;
+import com.fitnesstracker.model.User;
+
+/**
+ * Service layer for login: throttling, password verification and upgrading stored hashes.
+ */
+public class AuthService {
+
+    // Shared by every login screen in the process so the limit is per username, not per window
+    private static final LoginThrottle THROTTLE = new LoginThrottle(
+            Integer.getInteger("fitnesstracker.login.maxAttempts", 5),
+            Double.parseDouble(System.getProperty("fitnesstracker.login.refillPerMinute", "2")));
+
+    // Checked first, so spraying many usernames from one address is cut off before any hashing.
+    // Successful logins give their attempt back; only failures use up a source's budget.
+    private static final LoginThrottle SOURCE_THROTTLE = new LoginThrottle(
+            Integer.getInteger("fitnesstracker.login.maxAttemptsPerSource", 20),
+            Double.parseDouble(System.getProperty("fitnesstracker.login.sourceRefillPerMinute", "10")));
+
+    private final UserRepository users = new UserRepository();
+
+    /**
+     * Authenticates a user by username and password from inside the process, e.g. the login window.
+     * @return The User, or null if the username or password is wrong.
+     * @throws LoginThrottledException if the username has too many recent attempts.
+     */
+    public User authenticate(String username, String password) {
+        return authenticate(username, password, null);
+    }
+
+    /**
+     * Authenticates a user by username and password.
+     * @param source Where the attempt comes from, e.g. a client address; limited on its own
+     *               before the username is looked at. Null for in-process callers and for
+     *               sources that cannot be told apart.
+     * @return The User, or null if the username or password is wrong.
+     * @throws LoginThrottledException if the source or the username has too many recent attempts.
+     */
+    public User authenticate(String username, String password, String source) {
+        if (source != null && !SOURCE_THROTTLE.tryAcquire(source)) {
+            throw new LoginThrottledException(SOURCE_THROTTLE.secondsUntilNextAttempt(source));
+        }
+        if (!THROTTLE.tryAcquire(username)) {
+            throw new LoginThrottledException(THROTTLE.secondsUntilNextAttempt(username));
+        }
+
+        User user = users.findByUsername(username);
+        if (user == null) {
+            PasswordHasher.verifyDummy(password);
+            return null;
+        }
+
+        if (!PasswordHasher.verify(password, user.getPassword())) {
+            return null;
+        }
+        THROTTLE.reset(username);
+        if (source != null) {
+            SOURCE_THROTTLE.refund(source);
+        }
+
+        // Transparently upgrade plain-text or under-strength hashes while we have the password
+        if (PasswordHasher.needsRehash(user.getPassword())) {
+            String upgraded = PasswordHasher.hash(password);
+            try {
+                users.updatePassword(user.getUserId(), upgraded);
+                user.setPassword(upgraded);
+                System.out.println("DEBUG: Upgraded password hash for user ID: " + user.getUserId());
+            } catch (Exception e) {
+                // The login itself succeeded; try again next time
+                System.err.println("ERROR: Failed to upgrade password hash: " + e.getMessage());
+            }
+        }
+        return user;
+    }
+}
@@ -0,0 +1,192 @@
+package com.fitnesstracker.service;
+
+import com.fitnesstracker.HibernateUtil;
+import org.hibernate.Session;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+/**
+ * Fills in CALORIESBURNED for workouts saved without it, using {@link CalorieEstimator} with
+ * the weight and height the user had on the day of each workout: the latest of each recorded
+ * on or before that day, since a weigh-in may leave either out.
+ *
+ * Workouts and measurements are read as two cursors ordered by user and date and merged in
+ * one pass, so memory use does not depend on the table size. Updates are sent in JDBC batches
+ * and committed every {@link #BATCH_SIZE} rows, so an interrupted run can simply be restarted.
+ *
+ * Usage: mvn -Pmigrate compile exec:java -Dexec.mainClass=com.fitnesstracker.service.CalorieBackfill
+ */
+public class CalorieBackfill {
+
+    static final int BATCH_SIZE = 1000;
+
+    private static final String WORKOUTS_SQL =
+            "SELECT w.WORKOUTID, w.USER_ID, w.WORKOUTDATE, w.WORKOUTTYPE, w.DURATIONMINUTES, u.AGE, u.GENDER "
+                    + "FROM WORKOUT w JOIN APP_USER u ON u.USERID = w.USER_ID "
+                    + "WHERE w.CALORIESBURNED IS NULL AND w.DELETED_AT IS NULL ORDER BY w.USER_ID, w.WORKOUTDATE";
+
+    private static final String MEASUREMENTS_SQL =
+            "SELECT m.USER_ID, m.RECORDDATE, m.WEIGHT, m.HEIGHT FROM MEASUREMENT m "
+                    + "WHERE m.DELETED_AT IS NULL "
+                    + "AND m.USER_ID IN (SELECT w.USER_ID FROM WORKOUT w WHERE w.CALORIESBURNED IS NULL AND w.DELETED_AT IS NULL) "
+                    + "ORDER BY m.USER_ID, m.RECORDDATE";
+
+    private static final String UPDATE_SQL =
+            "UPDATE WORKOUT SET CALORIESBURNED = ? WHERE WORKOUTID = ? AND CALORIESBURNED IS NULL";
+
+    // New calories can change personal records and calorie goals; dropped aggregates are
+    // rebuilt and stale goals evaluated again on the next read
+    private static final String[] STATS_SQL = {
+            "DELETE FROM PERSONAL_RECORD WHERE USER_ID = ?",
+            "DELETE FROM ACTIVITY_STATS WHERE USER_ID = ?",
+            "UPDATE GOAL SET PROGRESS = NULL WHERE USER_ID = ? AND GOAL_TYPE = 'MONTHLY_CALORIES'"
+    };
+
+    /**
+     * @return The number of workouts updated.
+     */
+    public long run() {
+        long[] updated = new long[1];
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            session.doWork(connection -> updated[0] = backfill(connection));
+        } catch (Exception e) {
+            System.err.println("ERROR: Calorie backfill failed: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Calorie backfill failed: " + e.getMessage(), e);
+        }
+        return updated[0];
+    }
+
+    private long backfill(Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
+        long updated = 0;
+        int pending = 0;
+
+        try (Statement workoutQuery = openCursor(connection);
+             Statement measurementQuery = openCursor(connection);
+             ResultSet workouts = workoutQuery.executeQuery(WORKOUTS_SQL);
+             ResultSet measurements = measurementQuery.executeQuery(MEASUREMENTS_SQL);
+             PreparedStatement update = connection.prepareStatement(UPDATE_SQL);
+             PreparedStatement deleteRecords = connection.prepareStatement(STATS_SQL[0]);
+             PreparedStatement deleteStats = connection.prepareStatement(STATS_SQL[1]);
+             PreparedStatement staleGoals = connection.prepareStatement(STATS_SQL[2])) {
+
+            boolean hasMeasurement = measurements.next();
+            long currentUser = -1;
+            Double weight = null;
+            Double height = null;
+            CalorieEstimator estimator = null;
+
+            while (workouts.next()) {
+                long workoutId = workouts.getLong(1);
+                long userId = workouts.getLong(2);
+                LocalDate date = workouts.getDate(3).toLocalDate();
+
+                if (userId != currentUser) {
+                    currentUser = userId;
+                    weight = null;
+                    height = null;
+                    estimator = null;
+
+                    deleteRecords.setLong(1, userId);
+                    deleteRecords.executeUpdate();
+                    deleteStats.setLong(1, userId);
+                    deleteStats.executeUpdate();
+                    staleGoals.setLong(1, userId);
+                    staleGoals.executeUpdate();
+                }
+
+                // Advance past the measurements on or before the workout date, keeping the
+                // last weight and the last height seen
+                boolean changed = false;
+                while (hasMeasurement && (measurements.getLong(1) < userId
+                        || (measurements.getLong(1) == userId && !measurements.getDate(2).toLocalDate().isAfter(date)))) {
+                    if (measurements.getLong(1) == userId) {
+                        Double measuredWeight = nullableDouble(measurements, 3);
+                        Double measuredHeight = nullableDouble(measurements, 4);
+                        if (measuredWeight != null) weight = measuredWeight;
+                        if (measuredHeight != null) height = measuredHeight;
+                        changed |= measuredWeight != null || measuredHeight != null;
+                    }
+                    hasMeasurement = measurements.next();
+                }
+                // Workouts before the first weight or height use the next measurement's
+                if ((weight == null || height == null) && hasMeasurement && measurements.getLong(1) == userId) {
+                    Double measuredWeight = nullableDouble(measurements, 3);
+                    Double measuredHeight = nullableDouble(measurements, 4);
+                    if (weight == null && measuredWeight != null) {
+                        weight = measuredWeight;
+                        changed = true;
+                    }
+                    if (height == null && measuredHeight != null) {
+                        height = measuredHeight;
+                        changed = true;
+                    }
+                }
+
+                if (estimator == null || changed) {
+                    int age = workouts.getInt(6);
+                    estimator = new CalorieEstimator(weight, height,
+                            workouts.wasNull() ? null : age, workouts.getString(7));
+                }
+
+                long duration = workouts.getLong(5);
+                if (workouts.wasNull()) continue;
+
+                update.setInt(1, estimator.estimate(workouts.getString(4), duration));
+                update.setLong(2, workoutId);
+                update.addBatch();
+                if (++pending >= BATCH_SIZE) {
+                    updated += executeAndCommit(update, connection);
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                updated += executeAndCommit(update, connection);
+            }
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        }
+        return updated;
+    }
+
+    private static Statement openCursor(Connection connection) throws SQLException {
+        // The cursors must stay open across the commits of each update batch
+        Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY, ResultSet.HOLD_CURSORS_OVER_COMMIT);
+        statement.setFetchSize(BATCH_SIZE);
+        return statement;
+    }
+
+    private static long executeAndCommit(PreparedStatement update, Connection connection) throws SQLException {
+        long count = 0;
+        for (int result : update.executeBatch()) {
+            // Oracle reports SUCCESS_NO_INFO for batched updates
+            count += result == Statement.SUCCESS_NO_INFO ? 1 : result;
+        }
+        connection.commit();
+        return count;
+    }
+
+    private static Double nullableDouble(ResultSet rs, int column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    public static void main(String[] args) {
+        long start = System.currentTimeMillis();
+        try {
+            long updated = new CalorieBackfill().run();
+            System.out.println("INFO: Estimated calories for " + updated + " workouts in "
+                    + (System.currentTimeMillis() - start) + " ms.");
+        } finally {
+            HibernateUtil.shutdown();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.fitnesstracker.service;
+
+import com.fitnesstracker.model.Measurement;
+import com.fitnesstracker.model.User;
+import com.fitnesstracker.model.Workout;
+import com.fitnesstracker.validation.ActivityRules;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimates calories burned from workout type, duration and the user's body data, so the
+ * workout form can preview the value and store it instead of leaving it to the database trigger.
+ *
+ * Energy = MET of the workout type x the user's resting energy expenditure x minutes.
+ * The resting rate comes from the Mifflin-St Jeor equation (weight, height, age, gender),
+ * which corrects the textbook "1 MET = 1 kcal/kg/h" for people whose resting rate differs
+ * from the 70 kg reference. Without a height the textbook rate is used.
+ *
+ * An estimator is built once per user; {@link #estimate(int, long)} only does arithmetic
+ * on precomputed tables, so it can be called per keystroke or per row in a backfill.
+ */
+public class CalorieEstimator {
+
+    // Weight used when the user has never logged a measurement
+    private static final double DEFAULT_WEIGHT_KG = 70.0;
+
+    // MET values from the Compendium of Physical Activities, indexed like Workout.WORKOUT_TYPES
+    private static final double[] MET_BY_TYPE;
+    private static final Map<String, Integer> TYPE_INDEX = new HashMap<>();
+    private static final int OTHER;
+
+    static {
+        Map<String, Double> mets = new HashMap<>();
+        mets.put("Running", 9.8);
+        mets.put("Cycling", 7.5);
+        mets.put("Swimming", 7.0);
+        mets.put("Weight Training", 5.0);
+        mets.put("Yoga", 2.5);
+        mets.put("Walking", 3.5);
+        mets.put("Cardio", 7.0);
+        mets.put("HIIT", 8.0);
+        mets.put("Basketball", 6.5);
+        mets.put("Soccer", 7.0);
+        mets.put("Tennis", 7.3);
+        mets.put("Boxing", 7.8);
+        mets.put("Dancing", 5.0);
+        mets.put("Pilates", 3.0);
+        mets.put("CrossFit", 8.0);
+        mets.put("Stretching", 2.3);
+        mets.put("Other", 4.0);
+
+        List<String> types = Workout.WORKOUT_TYPES;
+        MET_BY_TYPE = new double[types.size()];
+        for (int i = 0; i < types.size(); i++) {
+            MET_BY_TYPE[i] = mets.getOrDefault(types.get(i), 4.0);
+            TYPE_INDEX.put(types.get(i), i);
+        }
+        OTHER = TYPE_INDEX.get("Other");
+    }
+
+    // Resting energy expenditure in kcal per minute, i.e. the kcal of one MET-minute for this user
+    private final double kcalPerMetMinute;
+
+    // kcal for one minute of each workout type, precomputed for this user
+    private final double[] kcalPerMinute = new double[MET_BY_TYPE.length];
+
+    /**
+     * @param weightKg Body weight, or null for the 70 kg default.
+     * @param heightCm Height, or null to use the weight-only formula.
+     * @param age Age in years, or null.
+     * @param gender "Male", "Female" or anything else (averaged).
+     */
+    public CalorieEstimator(Double weightKg, Double heightCm, Integer age, String gender) {
+        double weight = weightKg != null && weightKg > 0 ? weightKg : DEFAULT_WEIGHT_KG;
+        if (heightCm != null && heightCm > 0 && age != null && age > 0) {
+            double offset = "Male".equals(gender) ? 5 : "Female".equals(gender) ? -161 : -78;
+            double restingKcalPerDay = 10 * weight + 6.25 * heightCm - 5 * age + offset;
+            kcalPerMetMinute = Math.max(restingKcalPerDay, 500) / 1440.0;
+        } else {
+            kcalPerMetMinute = weight / 60.0;
+        }
+        for (int i = 0; i < MET_BY_TYPE.length; i++) {
+            kcalPerMinute[i] = MET_BY_TYPE[i] * kcalPerMetMinute;
+        }
+    }
+
+    /**
+     * Builds the estimator from the user's most recent weight and most recent height. Height
+     * is often left out of later weigh-ins, so each comes from the latest measurement that has it.
+     */
+    public static CalorieEstimator forUser(User user, List<Measurement> measurements) {
+        Measurement latestWeight = null;
+        Measurement latestHeight = null;
+        for (Measurement m : measurements) {
+            if (m.getWeight() != null && (latestWeight == null || m.getRecorddate().isAfter(latestWeight.getRecorddate()))) {
+                latestWeight = m;
+            }
+            if (m.getHeight() != null && (latestHeight == null || m.getRecorddate().isAfter(latestHeight.getRecorddate()))) {
+                latestHeight = m;
+            }
+        }
+        return new CalorieEstimator(latestWeight != null ? latestWeight.getWeight() : null,
+                latestHeight != null ? latestHeight.getHeight() : null, user.getAge(), user.getGender());
+    }
+
+    /**
+     * @return The index of the type in the MET table; unknown types count as "Other".
+     */
+    public static int typeIndex(String workoutType) {
+        Integer index = workoutType != null ? TYPE_INDEX.get(workoutType) : null;
+        return index != null ? index : OTHER;
+    }
+
+    public static double metOf(String workoutType) {
+        return MET_BY_TYPE[typeIndex(workoutType)];
+    }
+
+    public int estimate(int typeIndex, long durationMinutes) {
+        if (durationMinutes <= 0) return 0;
+        return (int) Math.min(ActivityRules.MAX_CALORIES, Math.round(kcalPerMinute[typeIndex] * durationMinutes));
+    }
+
+    public int estimate(String workoutType, long durationMinutes) {
+        return estimate(typeIndex(workoutType), durationMinutes);
+    }
+}
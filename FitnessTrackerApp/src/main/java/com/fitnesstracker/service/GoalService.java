@@ -0,0 +1,45 @@
+package com.fitnesstracker.service;
+
+import com.fitnesstracker.dao.ActivityDAO;
+import com.fitnesstracker.dao.GoalTracker;
+import com.fitnesstracker.model.Goal;
+import com.fitnesstracker.validation.ActivityRules;
+import com.fitnesstracker.validation.ValidationException;
+import java.util.List;
+
+/**
+ * Service layer for the goals users set themselves. Progress is kept up to date as
+ * workouts and measurements are logged (see GoalTracker).
+ */
+public class GoalService {
+    private final ActivityDAO activityDAO = new ActivityDAO();
+
+    /**
+     * Validates and stores a new goal with its progress so far.
+     * @param goal The goal to save.
+     * @throws ValidationException if the goal breaks one of ActivityRules.GOAL.
+     * @throws IllegalArgumentException if the user has too many goals, or sets a target
+     *                                  weight before logging a weight.
+     */
+    public void addGoal(Goal goal) {
+        ActivityRules.GOAL.check(goal);
+        activityDAO.saveGoal(goal);
+    }
+
+    /**
+     * A user's goals with their progress as of today, oldest first.
+     * @param userId The ID of the user.
+     * @return The goals, or null if they could not be read.
+     */
+    public List<GoalTracker.Progress> getGoals(Long userId) {
+        return activityDAO.findGoals(userId);
+    }
+
+    /**
+     * Deletes one of the user's goals.
+     * @return True if the goal was deleted.
+     */
+    public boolean deleteGoal(Long userId, Long goalId) {
+        return activityDAO.deleteGoal(userId, goalId);
+    }
+}
@@ -0,0 +1,131 @@
+package com.fitnesstracker.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-process login rate limiter using lock-free token buckets, keyed by username or by
+ * the source of the attempts.
+ *
+ * Each key gets a bucket of {@code capacity} attempts that refills at
+ * {@code refillPerMinute}. State is an immutable snapshot swapped with compare-and-set,
+ * so concurrent attempts for the same key never block each other.
+ *
+ * At most {@value #MAX_TRACKED_KEYS} keys are tracked. Past that, the buckets holding the
+ * most attempts are dropped first, since forgetting them costs the least: a full bucket holds
+ * nothing a new one would not, and a throttled key is kept as long as possible.
+ */
+public class LoginThrottle {
+
+    private static final int MAX_TRACKED_KEYS = 10_000;
+    // Eviction frees this many slots at once so it does not run on every new key
+    private static final int EVICTION_HEADROOM = MAX_TRACKED_KEYS / 10;
+
+    private static final class Bucket {
+        final double tokens;
+        final long updatedNanos;
+
+        Bucket(double tokens, long updatedNanos) {
+            this.tokens = tokens;
+            this.updatedNanos = updatedNanos;
+        }
+    }
+
+    private final ConcurrentHashMap<String, AtomicReference<Bucket>> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final int capacity;
+    private final double tokensPerNano;
+
+    public LoginThrottle(int capacity, double refillPerMinute) {
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerMinute / 60_000_000_000.0;
+    }
+
+    /**
+     * Takes one attempt from the key's bucket.
+     * @return true if the attempt is allowed, false if the key is currently throttled.
+     */
+    public boolean tryAcquire(String key) {
+        String normalized = normalize(key);
+        if (buckets.size() >= MAX_TRACKED_KEYS && !buckets.containsKey(normalized)) {
+            evict();
+        }
+        AtomicReference<Bucket> ref = buckets.computeIfAbsent(normalized,
+                k -> new AtomicReference<>(new Bucket(capacity, System.nanoTime())));
+
+        while (true) {
+            Bucket current = ref.get();
+            long now = System.nanoTime();
+            double tokens = refill(current, now);
+            if (tokens < 1.0) {
+                return false;
+            }
+            if (ref.compareAndSet(current, new Bucket(tokens - 1.0, now))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back one attempt taken by {@link #tryAcquire}, e.g. when it turned out to be a
+     * successful login that should not count against the key.
+     */
+    public void refund(String key) {
+        AtomicReference<Bucket> ref = buckets.get(normalize(key));
+        if (ref == null) return;
+        ref.updateAndGet(current -> {
+            long now = System.nanoTime();
+            return new Bucket(Math.min(capacity, refill(current, now) + 1.0), now);
+        });
+    }
+
+    /**
+     * Seconds until the key gets its next attempt back.
+     */
+    public long secondsUntilNextAttempt(String key) {
+        AtomicReference<Bucket> ref = buckets.get(normalize(key));
+        if (ref == null) return 0;
+        double missing = 1.0 - refill(ref.get(), System.nanoTime());
+        if (missing <= 0) return 0;
+        return (long) Math.ceil(missing / tokensPerNano / 1_000_000_000.0);
+    }
+
+    /**
+     * Forgets the key's failed attempts, e.g. after a successful login.
+     */
+    public void reset(String key) {
+        buckets.remove(normalize(key));
+    }
+
+    private double refill(Bucket bucket, long now) {
+        return Math.min(capacity, bucket.tokens + (now - bucket.updatedNanos) * tokensPerNano);
+    }
+
+    private void evict() {
+        // One thread evicts; the others go ahead and may overshoot the cap by a few keys
+        if (!evicting.compareAndSet(false, true)) return;
+        try {
+            long now = System.nanoTime();
+            buckets.entrySet().removeIf(e -> refill(e.getValue().get(), now) >= capacity);
+            int excess = buckets.size() - (MAX_TRACKED_KEYS - EVICTION_HEADROOM);
+            if (excess > 0) {
+                // Snapshot the token counts so concurrent attempts cannot reorder the sort
+                buckets.entrySet().stream()
+                        .map(e -> Map.entry(e.getKey(), refill(e.getValue().get(), now)))
+                        .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                        .limit(excess)
+                        .map(Map.Entry::getKey)
+                        .toList()
+                        .forEach(buckets::remove);
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static String normalize(String key) {
+        return key == null ? "" : key.trim().toLowerCase();
+    }
+}
@@ -0,0 +1,21 @@
+package com.fitnesstracker.service;
+
+/**
+ * Thrown by {@link AuthService} when a username or a source has used up its login
+ * attempts. The password was not checked; the caller may try again after the delay.
+ */
+public class LoginThrottledException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(long retryAfterSeconds) {
+        super("Too many login attempts. Try again in " + retryAfterSeconds + " seconds.");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,7 +1,9 @@
 package com.fitnesstracker.service;
 
-import com.fitnesstracker.dao.ActivityDAO;
+import com.fitnesstracker.dao.MeasurementRepository;
 import com.fitnesstracker.model.Measurement;
+import com.fitnesstracker.validation.ActivityRules;
+import com.fitnesstracker.validation.ValidationException;
 import java.util.List;
 
 /**
@@ -9,17 +11,16 @@ import java.util.List;
  * related to body measurements (e.g., validation, BMI calculation).
  */
 public class MeasurementService {
-    private final ActivityDAO activityDAO = new ActivityDAO();
+    private final MeasurementRepository measurements = new MeasurementRepository();
 
     /**
      * Validates and logs a new body measurement.
      * @param measurement The measurement entity to save.
+     * @throws ValidationException if the measurement breaks one of ActivityRules.MEASUREMENT.
      */
     public void logMeasurement(Measurement measurement) {
-        if (measurement.getWeight() <= 0 || measurement.getHeight() <= 0) {
-            throw new IllegalArgumentException("Invalid measurement data: Weight and height must be positive values.");
-        }
-        activityDAO.save(measurement);
+        ActivityRules.MEASUREMENT.check(measurement);
+        measurements.save(measurement);
     }
 
     /**
@@ -28,7 +29,7 @@ public class MeasurementService {
      * @return A list of Measurement objects.
      */
     public List<Measurement> getMeasurementsByUser(Long userId) {
-        return activityDAO.findAllMeasurementsByUserId(userId);
+        return measurements.findByUser(userId);
     }
 
     /**
@@ -0,0 +1,155 @@
+package com.fitnesstracker.service;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Salted PBKDF2-HMAC-SHA256 password hashing with a tunable work factor.
+ *
+ * Stored format: {@code pbkdf2$<iterations>$<base64 salt>$<base64 hash>}. Anything without
+ * the prefix is a legacy plain-text password; it still verifies, and {@link #needsRehash}
+ * tells the caller to replace it.
+ *
+ * The iteration count comes from {@code -Dfitnesstracker.password.iterations}, or is
+ * calibrated at startup to {@code -Dfitnesstracker.password.targetMillis} per hash.
+ */
+public class PasswordHasher {
+
+    private static final String PREFIX = "pbkdf2$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final int DEFAULT_ITERATIONS = 210_000;
+    private static final int MIN_ITERATIONS = 50_000;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int ITERATIONS = resolveIterations();
+
+    // Verified against when the username does not exist, so both paths cost the same
+    private static final String DUMMY_HASH = hash("not-a-real-password");
+
+    public static int getIterations() {
+        return ITERATIONS;
+    }
+
+    /**
+     * Hashes a password with a fresh random salt at the configured work factor.
+     */
+    public static String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        byte[] hash = pbkdf2(password, salt, ITERATIONS);
+        return PREFIX + ITERATIONS + "$" + Base64.getEncoder().encodeToString(salt)
+                + "$" + Base64.getEncoder().encodeToString(hash);
+    }
+
+    /**
+     * Checks a password against a stored value in constant time.
+     * Accepts legacy plain-text values as well as hashes.
+     */
+    public static boolean verify(String password, String stored) {
+        if (password == null || stored == null) {
+            return false;
+        }
+
+        if (!stored.startsWith(PREFIX)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                    stored.getBytes(StandardCharsets.UTF_8));
+        }
+
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+        try {
+            int iterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            return MessageDigest.isEqual(pbkdf2(password, salt, iterations), expected);
+        } catch (IllegalArgumentException e) {
+            System.err.println("ERROR: Malformed password hash");
+            return false;
+        }
+    }
+
+    /**
+     * Burns the same CPU as a real verification, for logins with an unknown username.
+     */
+    public static void verifyDummy(String password) {
+        verify(password, DUMMY_HASH);
+    }
+
+    /**
+     * @return true if the stored value is plain text or was hashed with fewer iterations than configured.
+     */
+    public static boolean needsRehash(String stored) {
+        if (stored == null || !stored.startsWith(PREFIX)) {
+            return true;
+        }
+        String[] parts = stored.split("\\$");
+        try {
+            return parts.length != 4 || Integer.parseInt(parts[1]) < ITERATIONS;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Measures this machine and returns the iteration count that takes about targetMillis per hash.
+     */
+    public static int calibrate(long targetMillis) {
+        byte[] salt = new byte[SALT_BYTES];
+        int probe = 20_000;
+        pbkdf2("calibration", salt, probe); // warm up the JIT
+
+        long start = System.nanoTime();
+        pbkdf2("calibration", salt, probe);
+        double millisPerIteration = (System.nanoTime() - start) / 1_000_000.0 / probe;
+
+        int iterations = (int) Math.min(Integer.MAX_VALUE, targetMillis / millisPerIteration);
+        return Math.max(MIN_ITERATIONS, iterations);
+    }
+
+    private static int resolveIterations() {
+        Integer configured = Integer.getInteger("fitnesstracker.password.iterations");
+        if (configured != null) {
+            return Math.max(MIN_ITERATIONS, configured);
+        }
+        Long targetMillis = Long.getLong("fitnesstracker.password.targetMillis");
+        if (targetMillis != null) {
+            int calibrated = calibrate(targetMillis);
+            System.out.println("INFO: Password hashing calibrated to " + calibrated
+                    + " iterations for ~" + targetMillis + " ms per login");
+            return calibrated;
+        }
+        return DEFAULT_ITERATIONS;
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    /**
+     * Prints the iteration count for a target latency: PasswordHasher [targetMillis]
+     */
+    public static void main(String[] args) {
+        long target = args.length > 0 ? Long.parseLong(args[0]) : 250;
+        int iterations = calibrate(target);
+        long start = System.nanoTime();
+        pbkdf2("benchmark", new byte[SALT_BYTES], iterations);
+        long took = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Target " + target + " ms -> " + iterations + " iterations (measured " + took + " ms)");
+    }
+}
@@ -14,6 +14,9 @@ import java.util.*;
  */
 public class ReportService {
 
+    // How far ahead the weight trend is projected
+    private static final int PROJECTION_WEEKS = 4;
+
     private static class ReportData {
         int totalWorkouts;
         int totalCalories;
@@ -22,6 +25,7 @@ public class ReportService {
         double latestHeight;
         List<WorkoutData> workouts = new ArrayList<>();
         List<MeasurementData> measurements = new ArrayList<>();
+        WeightTrend weightTrend;
     }
 
     private static class WorkoutData {
@@ -45,6 +49,17 @@ public class ReportService {
      * @return Simple text report
      */
     public String generateReport(Long userId) {
+        return generateReport(userId, null);
+    }
+
+    /**
+     * Generate a simple text report for the user using stored procedure
+     * @param userId The user's ID
+     * @param weightTrend The user's current weight trend, or null to build one from the
+     *                    measurements in the report
+     * @return Simple text report
+     */
+    public String generateReport(Long userId, WeightTrend weightTrend) {
         Session session = HibernateUtil.getSessionFactory().openSession();
 
         try {
@@ -131,6 +146,7 @@ public class ReportService {
                 }
             });
 
+            reportData.weightTrend = weightTrend != null ? weightTrend : buildWeightTrend(reportData.measurements);
             return buildReportString(reportData);
 
         } catch (Exception e) {
@@ -142,6 +158,18 @@ public class ReportService {
         }
     }
 
+    private WeightTrend buildWeightTrend(List<MeasurementData> measurements) {
+        List<MeasurementData> sorted = new ArrayList<>(measurements);
+        sorted.sort(Comparator.comparing(m -> m.recordDate));
+
+        WeightTrend trend = new WeightTrend();
+        for (MeasurementData m : sorted) {
+            // The cursor reads missing values as 0
+            trend.add(m.recordDate, m.weight > 0 ? m.weight : null, m.height > 0 ? m.height : null);
+        }
+        return trend;
+    }
+
     private String buildReportString(ReportData data) {
         StringBuilder report = new StringBuilder();
         DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("dd/MM/yyyy");
@@ -185,6 +213,30 @@ public class ReportService {
 
         report.append("\n");
 
+        // Weight trend section
+        report.append("--- WEIGHT TREND ---\n");
+        WeightTrend trend = data.weightTrend;
+        if (trend == null || trend.isEmpty()) {
+            report.append("No weigh-ins recorded yet.\n");
+        } else {
+            double smoothed = trend.latestSmoothed();
+            report.append(String.format("Trend Weight        %.1f kg%s\n", smoothed, formatBmi(trend.bmi(smoothed))));
+
+            double slope = trend.slopePerDay();
+            if (Double.isNaN(slope)) {
+                report.append("Weekly Change       N/A\n");
+                report.append("4-Week Projection   N/A (needs more weigh-ins)\n");
+            } else {
+                LocalDate target = trend.latestDate().plusWeeks(PROJECTION_WEEKS);
+                double projected = trend.forecast(target);
+                report.append(String.format("Weekly Change       %+.2f kg\n", slope * 7));
+                report.append(String.format("4-Week Projection   %.1f kg%s on %s\n",
+                        projected, formatBmi(trend.bmi(projected)), target.format(dateFormat)));
+            }
+        }
+
+        report.append("\n");
+
         // Workouts section
         report.append("--- DETAILED WORKOUTS ---\n");
         report.append("Workout ID  Date        Type        Duration (min)  Calories Burned\n");
@@ -231,6 +283,10 @@ public class ReportService {
         return report.toString();
     }
 
+    private String formatBmi(double bmi) {
+        return Double.isNaN(bmi) ? "" : String.format(" (BMI %.1f)", bmi);
+    }
+
     /**
      * Export simple report to a text file
      * @param userId The user's ID
@@ -0,0 +1,208 @@
+package com.fitnesstracker.service;
+
+import com.fitnesstracker.model.Measurement;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Smoothed weight trend and short-term projection for one user's weigh-ins.
+ *
+ * Points are kept in parallel primitive arrays, one entry per day (several weigh-ins on the
+ * same day are averaged). Each new point updates, in constant time:
+ * <ul>
+ *   <li>an exponentially weighted moving average whose weight depends on the gap since the
+ *       previous point, so irregular weigh-ins are handled without resampling;</li>
+ *   <li>least-squares sums over the last {@value #REGRESSION_DAYS} days, from which the
+ *       current rate of change is read.</li>
+ * </ul>
+ * The projection continues the smoothed weight along that rate. BMI values use the latest
+ * recorded height.
+ *
+ * Points must arrive in date order; {@link #add} refuses an earlier one so the caller can
+ * rebuild with {@link #of}. Safe for concurrent use.
+ */
+public class WeightTrend {
+
+    // Time constant of the moving average: a weigh-in has lost ~63% of its pull after this many days
+    private static final double SMOOTHING_DAYS = 10.0;
+    // The rate of change is fitted over this many most recent days
+    static final int REGRESSION_DAYS = 28;
+
+    /**
+     * Receives the points of the trend in date order.
+     */
+    public interface PointConsumer {
+        void accept(LocalDate date, double weight, double smoothed);
+    }
+
+    private long[] days = new long[16];
+    private double[] weights = new double[16];
+    private int[] readings = new int[16];
+    private double[] smoothed = new double[16];
+    private int size;
+
+    // Running sums for the regression over points windowStart..size-1; x is days since the first point
+    private int windowStart;
+    private double sumX;
+    private double sumY;
+    private double sumXX;
+    private double sumXY;
+
+    private double height = Double.NaN;
+
+    /**
+     * Builds the trend from a user's measurements in any order. Measurements without a weight
+     * only contribute their height.
+     */
+    public static WeightTrend of(List<Measurement> measurements) {
+        List<Measurement> sorted = new ArrayList<>(measurements);
+        sorted.sort(Comparator.comparing(Measurement::getRecorddate));
+        WeightTrend trend = new WeightTrend();
+        for (Measurement m : sorted) {
+            trend.add(m.getRecorddate(), m.getWeight(), m.getHeight());
+        }
+        return trend;
+    }
+
+    /**
+     * Adds a weigh-in dated on or after the latest one.
+     * @return false if the date is earlier than the latest point; nothing is changed then.
+     */
+    public synchronized boolean add(LocalDate date, Double weight, Double height) {
+        long day = date.toEpochDay();
+        if (size > 0 && day < days[size - 1]) {
+            return false;
+        }
+        if (height != null && height > 0) {
+            this.height = height;
+        }
+        if (weight == null) {
+            return true;
+        }
+
+        if (size > 0 && day == days[size - 1]) {
+            mergeIntoLast(weight);
+        } else {
+            append(day, weight);
+        }
+        slideWindow();
+        return true;
+    }
+
+    private void append(long day, double weight) {
+        if (size == days.length) {
+            int capacity = size * 2;
+            days = Arrays.copyOf(days, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+            readings = Arrays.copyOf(readings, capacity);
+            smoothed = Arrays.copyOf(smoothed, capacity);
+        }
+        days[size] = day;
+        weights[size] = weight;
+        readings[size] = 1;
+        smoothed[size] = smooth(size, weight);
+        size++;
+
+        double x = day - days[0];
+        sumX += x;
+        sumY += weight;
+        sumXX += x * x;
+        sumXY += x * weight;
+    }
+
+    private void mergeIntoLast(double weight) {
+        int last = size - 1;
+        double mean = (weights[last] * readings[last] + weight) / (readings[last] + 1);
+        double delta = mean - weights[last];
+        weights[last] = mean;
+        readings[last]++;
+        smoothed[last] = smooth(last, mean);
+
+        double x = days[last] - days[0];
+        sumY += delta;
+        sumXY += x * delta;
+    }
+
+    // The moving average at index i from the one before it
+    private double smooth(int i, double weight) {
+        if (i == 0) return weight;
+        double alpha = 1.0 - Math.exp(-(days[i] - days[i - 1]) / SMOOTHING_DAYS);
+        return smoothed[i - 1] + alpha * (weight - smoothed[i - 1]);
+    }
+
+    // Drop points that have fallen out of the regression window
+    private void slideWindow() {
+        long oldest = days[size - 1] - REGRESSION_DAYS + 1;
+        while (days[windowStart] < oldest) {
+            double x = days[windowStart] - days[0];
+            double y = weights[windowStart];
+            sumX -= x;
+            sumY -= y;
+            sumXX -= x * x;
+            sumXY -= x * y;
+            windowStart++;
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    public synchronized LocalDate latestDate() {
+        return size > 0 ? LocalDate.ofEpochDay(days[size - 1]) : null;
+    }
+
+    /**
+     * @return The smoothed weight at the latest weigh-in, or NaN if there is none.
+     */
+    public synchronized double latestSmoothed() {
+        return size > 0 ? smoothed[size - 1] : Double.NaN;
+    }
+
+    /**
+     * @return The fitted rate of change in kg per day over the last {@value #REGRESSION_DAYS}
+     *         days, or NaN with fewer than two weigh-in days in that window.
+     */
+    public synchronized double slopePerDay() {
+        int n = size - windowStart;
+        if (n < 2) return Double.NaN;
+        double denominator = n * sumXX - sumX * sumX;
+        if (Math.abs(denominator) < 1e-9) return Double.NaN;
+        return (n * sumXY - sumX * sumY) / denominator;
+    }
+
+    /**
+     * @return The projected weight on the given day, or NaN if there is not enough data.
+     */
+    public synchronized double forecast(LocalDate date) {
+        double slope = slopePerDay();
+        if (Double.isNaN(slope)) return Double.NaN;
+        return smoothed[size - 1] + slope * (date.toEpochDay() - days[size - 1]);
+    }
+
+    /**
+     * @return The BMI for a weight at the latest recorded height, or NaN if no height is known.
+     */
+    public synchronized double bmi(double weight) {
+        if (Double.isNaN(height) || Double.isNaN(weight)) return Double.NaN;
+        double meters = height / 100.0;
+        return weight / (meters * meters);
+    }
+
+    /**
+     * Passes every point to the consumer, oldest first.
+     */
+    public synchronized void forEachPoint(PointConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(LocalDate.ofEpochDay(days[i]), weights[i], smoothed[i]);
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package com.fitnesstracker.service;
 
+import com.fitnesstracker.dao.ActivityAnalytics;
 import com.fitnesstracker.dao.ActivityDAO;
+import com.fitnesstracker.dao.Leaderboards;
+import com.fitnesstracker.dao.WorkoutRepository;
 import com.fitnesstracker.model.Workout;
+import com.fitnesstracker.validation.ActivityRules;
+import com.fitnesstracker.validation.ValidationException;
 import java.util.List;
 
 /**
@@ -10,16 +15,17 @@ import java.util.List;
  */
 public class WorkoutService {
     private final ActivityDAO activityDAO = new ActivityDAO();
+    private final WorkoutRepository workouts = new WorkoutRepository();
 
     /**
      * Validates and logs a new workout.
      * @param workout The workout entity to save.
+     * @throws ValidationException if the workout breaks one of ActivityRules.WORKOUT.
      */
     public void logWorkout(Workout workout) {
-        if (workout.getCaloriesBurned() < 0 || workout.getDurationMinutes() <= 0) {
-            throw new IllegalArgumentException("Invalid workout data: Duration must be positive and calories must be non-negative.");
-        }
-        activityDAO.save(workout);
+        // Calories are optional; the database computes them when left empty
+        ActivityRules.WORKOUT.check(workout);
+        workouts.save(workout);
     }
 
     /**
@@ -28,6 +34,27 @@ public class WorkoutService {
      * @return A list of Workout objects.
      */
     public List<Workout> getWorkoutsByUser(Long userId) {
-        return activityDAO.findAllWorkoutsByUserId(userId);
+        return workouts.findByUser(userId);
+    }
+
+    /**
+     * Streaks, personal records and weekly averages for a user, from stored running totals.
+     * @param userId The ID of the user.
+     * @return The summary, or null if it could not be read.
+     */
+    public ActivityAnalytics.Summary getActivityStats(Long userId) {
+        return activityDAO.findActivityStats(userId);
+    }
+
+    /**
+     * The top of a leaderboard across all users, and the user's place on it.
+     * @param workoutType A workout type, or null for all types.
+     * @param userId The user to place, or null.
+     * @param limit How many top entries to return.
+     * @return The standing, or null while the leaderboards are still loading.
+     */
+    public Leaderboards.Standing getLeaderboard(Leaderboards.Metric metric, Leaderboards.Period period,
+                                                String workoutType, Long userId, int limit) {
+        return Leaderboards.getInstance().standing(metric, period, workoutType, userId, limit);
     }
 }
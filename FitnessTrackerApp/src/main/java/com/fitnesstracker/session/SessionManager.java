@@ -0,0 +1,114 @@
+package com.fitnesstracker.session;
+
+import com.fitnesstracker.model.User;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the open user sessions of one application instance (the desktop app or the
+ * headless service) and owns the thread pool their background work runs on.
+ */
+public class SessionManager {
+
+    private final ConcurrentHashMap<String, UserSession> sessions = new ConcurrentHashMap<>();
+    private final ExecutorService pool;
+
+    public SessionManager(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "session-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public SessionManager() {
+        this(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Starts a new session for an authenticated user.
+     */
+    public UserSession open(User user) {
+        UserSession session = new UserSession(user, pool);
+        sessions.put(session.getId(), session);
+        System.out.println("DEBUG: Opened session " + session.getId() + " for user ID: " + user.getUserId()
+                + " (" + sessions.size() + " open)");
+        return session;
+    }
+
+    /**
+     * @return The open session with this ID, or null if it does not exist or was closed.
+     */
+    public UserSession get(String sessionId) {
+        UserSession session = sessionId != null ? sessions.get(sessionId) : null;
+        if (session != null) {
+            session.touch();
+        }
+        return session;
+    }
+
+    public void close(UserSession session) {
+        if (session == null) return;
+        if (sessions.remove(session.getId()) != null) {
+            session.close();
+            System.out.println("DEBUG: Closed session " + session.getId() + " (" + sessions.size() + " open)");
+        }
+    }
+
+    /**
+     * Closes sessions not used for longer than maxIdle.
+     * @return The number of sessions closed.
+     */
+    public int closeIdle(Duration maxIdle) {
+        Instant cutoff = Instant.now().minus(maxIdle);
+        int closed = 0;
+        for (UserSession session : sessions.values()) {
+            if (session.getLastAccess().isBefore(cutoff)) {
+                close(session);
+                closed++;
+            }
+        }
+        return closed;
+    }
+
+    /**
+     * @return True if no open session has been used within the given time.
+     */
+    public boolean isIdle(Duration quietFor) {
+        Instant cutoff = Instant.now().minus(quietFor);
+        for (UserSession session : sessions.values()) {
+            if (session.getLastAccess().isAfter(cutoff)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Collection<UserSession> getOpenSessions() {
+        return Collections.unmodifiableCollection(sessions.values());
+    }
+
+    /**
+     * Closes every session and stops the worker pool.
+     */
+    public void shutdown() {
+        for (UserSession session : sessions.values()) {
+            close(session);
+        }
+        pool.shutdown();
+        try {
+            pool.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
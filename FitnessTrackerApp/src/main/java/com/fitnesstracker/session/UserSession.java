@@ -0,0 +1,143 @@
+package com.fitnesstracker.session;
+
+import com.fitnesstracker.model.User;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Everything that belongs to one logged-in user: the user, per-session caches and a
+ * background executor. One exists per desktop window or per API client, so many users
+ * can be served in the same JVM without any static "current user".
+ *
+ * Safe for concurrent use. Tasks submitted to {@link #execute(Runnable)} run one at a
+ * time, in order, on a pool shared by all sessions.
+ */
+public class UserSession implements Executor {
+
+    private final String id = UUID.randomUUID().toString();
+    private final User user;
+    private final Executor sharedPool;
+    private final Instant createdAt = Instant.now();
+    private volatile Instant lastAccess = createdAt;
+    private volatile boolean closed;
+
+    private final ConcurrentHashMap<String, Object> cache = new ConcurrentHashMap<>();
+    // Bumped by every eviction, so a value built across one is not kept
+    private final AtomicLong evictions = new AtomicLong();
+
+    // Serial execution on top of the shared pool
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private boolean draining;
+
+    UserSession(User user, Executor sharedPool) {
+        this.user = user;
+        this.sharedPool = sharedPool;
+    }
+
+    public String getId() { return id; }
+    public User getUser() { return user; }
+    public Long getUserId() { return user.getUserId(); }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getLastAccess() { return lastAccess; }
+    public boolean isClosed() { return closed; }
+
+    /**
+     * Marks the session as used, for idle expiry.
+     */
+    public void touch() {
+        lastAccess = Instant.now();
+    }
+
+    /**
+     * Returns the session's cached value for the key, creating it on first use.
+     *
+     * The factory runs outside the map, since factories query the database and
+     * computeIfAbsent would hold a lock on the key's bin until they return. Two callers may
+     * both build the value; the first one stored is kept. A value built while the key was
+     * evicted is returned but not kept, as it may predate the change behind the eviction.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T cached(String key, Supplier<T> factory) {
+        Object value = cache.get(key);
+        if (value != null) return (T) value;
+
+        long evictionsBefore = evictions.get();
+        T created = factory.get();
+        if (created == null) return null;
+        Object existing = cache.putIfAbsent(key, created);
+        if (existing != null) return (T) existing;
+        if (evictions.get() != evictionsBefore) {
+            cache.remove(key, created);
+        }
+        return created;
+    }
+
+    /**
+     * Returns the session's cached value for the key, or null if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T cachedIfPresent(String key) {
+        return (T) cache.get(key);
+    }
+
+    public void evict(String key) {
+        evictions.incrementAndGet();
+        cache.remove(key);
+    }
+
+    /**
+     * Runs the task in the background, after any earlier tasks of this session.
+     */
+    @Override
+    public void execute(Runnable task) {
+        synchronized (tasks) {
+            if (closed) {
+                throw new RejectedExecutionException("Session " + id + " is closed");
+            }
+            tasks.add(task);
+            lastAccess = Instant.now(); // Dashboard reloads count as use of the session
+            if (draining) return;
+            draining = true;
+        }
+        sharedPool.execute(this::drain);
+    }
+
+    private void drain() {
+        while (true) {
+            Runnable task;
+            synchronized (tasks) {
+                task = tasks.poll();
+                if (task == null) {
+                    draining = false;
+                    return;
+                }
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.err.println("ERROR: Background task failed in session " + id + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Drops queued tasks and cached state. Tasks already running are allowed to finish.
+     */
+    void close() {
+        synchronized (tasks) {
+            closed = true;
+            tasks.clear();
+        }
+        evictions.incrementAndGet();
+        cache.clear();
+    }
+}
@@ -0,0 +1,86 @@
+package com.fitnesstracker.validation;
+
+import com.fitnesstracker.model.Goal;
+import com.fitnesstracker.model.Measurement;
+import com.fitnesstracker.model.Workout;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * The rules a workout, measurement or goal must satisfy before it is sent to the database.
+ * The workout rules are the ones the WORKOUT trigger enforces (ORA-20001..ORA-20007),
+ * checked here so an invalid row never costs a round trip and a rollback.
+ */
+public final class ActivityRules {
+
+    public static final int MAX_DURATION_MINUTES = 600;
+    public static final int MAX_CALORIES = 5000;
+    public static final int MAX_WORKOUT_TYPE_LENGTH = 20;
+    public static final double MAX_WEIGHT_KG = 500;
+    public static final double MAX_HEIGHT_CM = 300;
+    public static final int MAX_WEEKLY_MINUTES = 7 * 24 * 60;
+    public static final int MAX_MONTHLY_CALORIES = 31 * MAX_CALORIES;
+
+    public static final Validator<Workout> WORKOUT = new Validator<Workout>()
+            .rule("workoutDate", w -> w.getWorkoutDate() != null,
+                    "Please select a date.")
+            .rule("workoutDate", w -> w.getWorkoutDate() == null || !w.getWorkoutDate().isAfter(today()),
+                    "Workout date cannot be in the future.")                      // ORA-20006
+            .rule("workoutType", w -> w.getWorkoutType() != null && !w.getWorkoutType().isBlank(),
+                    "Please select a workout type.")                              // ORA-20007
+            .rule("workoutType", w -> w.getWorkoutType() == null || w.getWorkoutType().length() <= MAX_WORKOUT_TYPE_LENGTH,
+                    "Workout type cannot be longer than " + MAX_WORKOUT_TYPE_LENGTH + " characters.")
+            .rule("durationMinutes", w -> w.getDurationMinutes() != null,
+                    "Duration is required.")                                      // ORA-20003
+            .rule("durationMinutes", w -> w.getDurationMinutes() == null || w.getDurationMinutes() > 0,
+                    "Duration must be greater than 0.")                           // ORA-20001
+            .rule("durationMinutes", w -> w.getDurationMinutes() == null || w.getDurationMinutes() <= MAX_DURATION_MINUTES,
+                    "Duration cannot exceed " + MAX_DURATION_MINUTES + " minutes (10 hours).") // ORA-20002
+            .rule("caloriesBurned", w -> w.getCaloriesBurned() == null || w.getCaloriesBurned() >= 0,
+                    "Calories must be 0 or greater.")                             // ORA-20004
+            .rule("caloriesBurned", w -> w.getCaloriesBurned() == null || w.getCaloriesBurned() <= MAX_CALORIES,
+                    "Calories seem unrealistic (over " + MAX_CALORIES + ").");    // ORA-20005
+
+    public static final Validator<Measurement> MEASUREMENT = new Validator<Measurement>()
+            .rule("recorddate", m -> m.getRecorddate() != null,
+                    "Please select a date.")
+            .rule("recorddate", m -> m.getRecorddate() == null || !m.getRecorddate().isAfter(today()),
+                    "Measurement date cannot be in the future.")
+            .rule("weight", m -> m.getWeight() != null,
+                    "Weight is required.")
+            .rule("weight", m -> m.getWeight() == null || (m.getWeight() > 0 && m.getWeight() <= MAX_WEIGHT_KG),
+                    "Please enter a valid weight (0-500 kg).")
+            .rule("height", m -> m.getHeight() == null || (m.getHeight() > 0 && m.getHeight() <= MAX_HEIGHT_CM),
+                    "Please enter a valid height (0-300 cm).");
+
+    public static final Validator<Goal> GOAL = new Validator<Goal>()
+            .rule("type", g -> g.getType() != null,
+                    "Please choose a goal type.")
+            .rule("target", g -> g.getTarget() > 0,
+                    "Target must be greater than 0.")
+            .rule("target", g -> g.getType() != Goal.Type.TARGET_WEIGHT || g.getTarget() <= MAX_WEIGHT_KG,
+                    "Please enter a valid weight (0-500 kg).")
+            .rule("target", g -> g.getType() != Goal.Type.WEEKLY_MINUTES || g.getTarget() <= MAX_WEEKLY_MINUTES,
+                    "A week only has " + MAX_WEEKLY_MINUTES + " minutes.")
+            .rule("target", g -> g.getType() != Goal.Type.MONTHLY_CALORIES || g.getTarget() <= MAX_MONTHLY_CALORIES,
+                    "Calories seem unrealistic (over " + MAX_MONTHLY_CALORIES + " a month).");
+
+    // LocalDate.now() resolves the clock and time zone on every call; per-row checks reuse it until midnight
+    private static volatile LocalDate today = LocalDate.now();
+    private static volatile long nextMidnightMillis = nextMidnight();
+
+    static LocalDate today() {
+        if (System.currentTimeMillis() >= nextMidnightMillis) {
+            today = LocalDate.now();
+            nextMidnightMillis = nextMidnight();
+        }
+        return today;
+    }
+
+    private static long nextMidnight() {
+        return LocalDate.now().plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private ActivityRules() {}
+}
@@ -0,0 +1,21 @@
+package com.fitnesstracker.validation;
+
+/**
+ * Thrown by the services when an entity breaks one of its {@link ActivityRules}.
+ * The message is the rule's user-facing message.
+ */
+public class ValidationException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Validator.Violation violation;
+
+    public ValidationException(Validator.Violation violation) {
+        super(violation.getMessage());
+        this.violation = violation;
+    }
+
+    public Validator.Violation getViolation() {
+        return violation;
+    }
+}
@@ -0,0 +1,115 @@
+package com.fitnesstracker.validation;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An ordered list of rules for one entity type, declared once and shared by the forms,
+ * the services and bulk loads (see {@link ActivityRules}).
+ *
+ * Each rule is a plain predicate over the entity with a prebuilt {@link Violation}, so
+ * checking a valid row allocates nothing and costs a handful of field reads.
+ */
+public class Validator<T> {
+
+    public interface Check<T> {
+        boolean isValid(T value);
+    }
+
+    /**
+     * A broken rule: the field it concerns and the message to show the user.
+     */
+    public static final class Violation implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String field;
+        private final String message;
+
+        Violation(String field, String message) {
+            this.field = field;
+            this.message = message;
+        }
+
+        public String getField() { return field; }
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() {
+            return field + ": " + message;
+        }
+    }
+
+    private final List<Check<T>> checks = new ArrayList<>();
+    private final List<Violation> violations = new ArrayList<>();
+
+    /**
+     * Adds a rule. Rules are evaluated in the order they are declared.
+     */
+    public Validator<T> rule(String field, Check<T> check, String message) {
+        checks.add(check);
+        violations.add(new Violation(field, message));
+        return this;
+    }
+
+    /**
+     * @return The first broken rule, or null if the value is valid.
+     */
+    public Violation firstViolation(T value) {
+        for (int i = 0; i < checks.size(); i++) {
+            if (!checks.get(i).isValid(value)) {
+                return violations.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Every broken rule, in declaration order; empty if the value is valid.
+     */
+    public List<Violation> validate(T value) {
+        List<Violation> broken = Collections.emptyList();
+        for (int i = 0; i < checks.size(); i++) {
+            if (!checks.get(i).isValid(value)) {
+                if (broken.isEmpty()) broken = new ArrayList<>();
+                broken.add(violations.get(i));
+            }
+        }
+        return broken;
+    }
+
+    /**
+     * @return The first broken rule about the given field, or null if that field is valid.
+     */
+    public Violation firstViolation(T value, String field) {
+        for (int i = 0; i < checks.size(); i++) {
+            if (violations.get(i).getField().equals(field) && !checks.get(i).isValid(value)) {
+                return violations.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @throws ValidationException with the first broken rule, if any.
+     */
+    public void check(T value) {
+        Violation violation = firstViolation(value);
+        if (violation != null) {
+            throw new ValidationException(violation);
+        }
+    }
+
+    /**
+     * Checks only the rules about one field, for changes that set just that field on many rows.
+     *
+     * @throws ValidationException with the first broken rule about the field, if any.
+     */
+    public void check(T value, String field) {
+        Violation violation = firstViolation(value, field);
+        if (violation != null) {
+            throw new ValidationException(violation);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+-- Tables as previously created by hbm2ddl.auto=update.
+-- Existing databases should record this version with "baseline" instead of running it.
+
+CREATE TABLE APP_USER (
+    USERID NUMBER(19) GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    USERNAME VARCHAR2(50 CHAR) NOT NULL,
+    NAME VARCHAR2(100 CHAR),
+    AGE NUMBER(10),
+    PASSWORD VARCHAR2(50 CHAR) NOT NULL,
+    GENDER VARCHAR2(6 CHAR) NOT NULL,
+    CONSTRAINT UK_APP_USER_USERNAME UNIQUE (USERNAME)
+);
+
+CREATE TABLE WORKOUT (
+    WORKOUTID NUMBER(19) GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    USER_ID NUMBER(19) NOT NULL,
+    WORKOUTDATE DATE NOT NULL,
+    WORKOUTTYPE VARCHAR2(20 CHAR) NOT NULL,
+    DURATIONMINUTES NUMBER(19),
+    CALORIESBURNED NUMBER(10),
+    CONSTRAINT FK_WORKOUT_USER FOREIGN KEY (USER_ID) REFERENCES APP_USER (USERID)
+);
+
+CREATE TABLE MEASUREMENT (
+    MEASUREMENTID NUMBER(19) GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    USER_ID NUMBER(19) NOT NULL,
+    RECORDDATE DATE NOT NULL,
+    WEIGHT FLOAT(53),
+    HEIGHT FLOAT(53),
+    CONSTRAINT FK_MEASUREMENT_USER FOREIGN KEY (USER_ID) REFERENCES APP_USER (USERID)
+);
@@ -0,0 +1,6 @@
+-- Per-user, date-ordered lookups used by ActivityDAO.findAllWorkoutsByUserId
+-- and ActivityDAO.findAllMeasurementsByUserId.
+
+CREATE INDEX IDX_WORKOUT_USER_DATE ON WORKOUT (USER_ID, WORKOUTDATE);
+
+CREATE INDEX IDX_MEASUREMENT_USER_DATE ON MEASUREMENT (USER_ID, RECORDDATE);
@@ -0,0 +1,4 @@
+-- PASSWORD now stores salted PBKDF2 hashes (about 90 characters) instead of plain text.
+-- Existing plain-text values are rehashed on each user's next successful login.
+
+ALTER TABLE APP_USER MODIFY (PASSWORD VARCHAR2(255 CHAR));
@@ -0,0 +1,7 @@
+-- Row versions for optimistic locking. Every update and delete of a workout or
+-- measurement checks and bumps VERSION, so an edit made in one window cannot
+-- silently overwrite a newer edit made elsewhere.
+
+ALTER TABLE WORKOUT ADD (VERSION NUMBER(19) DEFAULT 0 NOT NULL);
+
+ALTER TABLE MEASUREMENT ADD (VERSION NUMBER(19) DEFAULT 0 NOT NULL);
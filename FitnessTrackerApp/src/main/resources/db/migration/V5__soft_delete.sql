@@ -0,0 +1,16 @@
+-- Soft delete. Deleting a workout, measurement or user only sets DELETED_AT;
+-- TombstonePurger removes the rows later in small batches while the app is idle.
+
+ALTER TABLE WORKOUT ADD (DELETED_AT TIMESTAMP);
+
+ALTER TABLE MEASUREMENT ADD (DELETED_AT TIMESTAMP);
+
+ALTER TABLE APP_USER ADD (DELETED_AT TIMESTAMP);
+
+-- Oracle leaves all-NULL keys out of B-tree indexes, so these hold only tombstones
+-- and stay small however large the tables grow.
+CREATE INDEX IDX_WORKOUT_DELETED ON WORKOUT (DELETED_AT);
+
+CREATE INDEX IDX_MEASUREMENT_DELETED ON MEASUREMENT (DELETED_AT);
+
+CREATE INDEX IDX_APP_USER_DELETED ON APP_USER (DELETED_AT);
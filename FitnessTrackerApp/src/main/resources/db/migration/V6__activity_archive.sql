@@ -0,0 +1,58 @@
+-- Application-managed archive. ActivityArchive moves whole calendar months of old rows
+-- out of WORKOUT and MEASUREMENT so the hot tables stay small, and can later compact
+-- an archived month into per-user monthly totals.
+
+-- One row per month that has been moved; STATE is ARCHIVED or COMPACTED
+CREATE TABLE ARCHIVE_PERIOD (
+    PERIOD_START DATE PRIMARY KEY,
+    STATE VARCHAR2(10 CHAR) NOT NULL,
+    UPDATED_ON TIMESTAMP DEFAULT SYSTIMESTAMP NOT NULL
+);
+
+CREATE TABLE WORKOUT_ARCHIVE (
+    WORKOUTID NUMBER(19) PRIMARY KEY,
+    USER_ID NUMBER(19) NOT NULL,
+    WORKOUTDATE DATE NOT NULL,
+    WORKOUTTYPE VARCHAR2(20 CHAR) NOT NULL,
+    DURATIONMINUTES NUMBER(19),
+    CALORIESBURNED NUMBER(10),
+    VERSION NUMBER(19) DEFAULT 0 NOT NULL
+);
+
+CREATE INDEX IDX_WORKOUT_ARCHIVE_USER_DATE ON WORKOUT_ARCHIVE (USER_ID, WORKOUTDATE);
+
+CREATE TABLE MEASUREMENT_ARCHIVE (
+    MEASUREMENTID NUMBER(19) PRIMARY KEY,
+    USER_ID NUMBER(19) NOT NULL,
+    RECORDDATE DATE NOT NULL,
+    WEIGHT FLOAT(53),
+    HEIGHT FLOAT(53),
+    VERSION NUMBER(19) DEFAULT 0 NOT NULL
+);
+
+CREATE INDEX IDX_MEASUREMENT_ARCHIVE_USER ON MEASUREMENT_ARCHIVE (USER_ID, RECORDDATE);
+
+CREATE TABLE WORKOUT_ROLLUP (
+    USER_ID NUMBER(19) NOT NULL,
+    PERIOD_START DATE NOT NULL,
+    WORKOUTTYPE VARCHAR2(20 CHAR) NOT NULL,
+    WORKOUT_COUNT NUMBER(10) NOT NULL,
+    TOTAL_MINUTES NUMBER(19),
+    TOTAL_CALORIES NUMBER(19),
+    CONSTRAINT PK_WORKOUT_ROLLUP PRIMARY KEY (USER_ID, PERIOD_START, WORKOUTTYPE)
+);
+
+CREATE TABLE MEASUREMENT_ROLLUP (
+    USER_ID NUMBER(19) NOT NULL,
+    PERIOD_START DATE NOT NULL,
+    MEASUREMENT_COUNT NUMBER(10) NOT NULL,
+    WEIGHT_SUM FLOAT(53),
+    WEIGHT_MIN FLOAT(53),
+    WEIGHT_MAX FLOAT(53),
+    CONSTRAINT PK_MEASUREMENT_ROLLUP PRIMARY KEY (USER_ID, PERIOD_START)
+);
+
+-- Lets the archive job find a month's rows without scanning the whole hot table
+CREATE INDEX IDX_WORKOUT_DATE ON WORKOUT (WORKOUTDATE);
+
+CREATE INDEX IDX_MEASUREMENT_DATE ON MEASUREMENT (RECORDDATE);
@@ -0,0 +1,31 @@
+-- Running per-user workout aggregates kept by ActivityAnalytics. A new workout updates
+-- them in place; any other change deletes the user's rows and the next read rebuilds
+-- them from the workout history, so both tables can be emptied at any time.
+
+CREATE TABLE ACTIVITY_STATS (
+    USER_ID NUMBER(19) PRIMARY KEY,
+    WORKOUT_COUNT NUMBER(10) NOT NULL,
+    TOTAL_MINUTES NUMBER(19) NOT NULL,
+    LAST_WORKOUT_DATE DATE,
+    DAY_STREAK NUMBER(10) NOT NULL,
+    BEST_DAY_STREAK NUMBER(10) NOT NULL,
+    WEEK_START DATE,
+    WEEK_MINUTES NUMBER(19) NOT NULL,
+    WEEK_STREAK NUMBER(10) NOT NULL,
+    BEST_WEEK_STREAK NUMBER(10) NOT NULL,
+    CLOSED_WEEKS NUMBER(10) NOT NULL,
+    WEEKLY_MINUTES_AVG FLOAT(53) NOT NULL,
+    CONSISTENCY FLOAT(53) NOT NULL
+);
+
+-- One row per user and workout type
+CREATE TABLE PERSONAL_RECORD (
+    USER_ID NUMBER(19) NOT NULL,
+    WORKOUTTYPE VARCHAR2(20 CHAR) NOT NULL,
+    SESSION_COUNT NUMBER(10) NOT NULL,
+    LONGEST_MINUTES NUMBER(19),
+    LONGEST_ON DATE,
+    MOST_CALORIES NUMBER(10),
+    MOST_CALORIES_ON DATE,
+    CONSTRAINT PK_PERSONAL_RECORD PRIMARY KEY (USER_ID, WORKOUTTYPE)
+);
@@ -0,0 +1,19 @@
+-- Goals users set for themselves, with the progress GoalTracker keeps for each. A new
+-- workout or weigh-in updates PROGRESS in place; any other change to the user's history
+-- sets it to NULL and the next read evaluates the goal again from the stored rows.
+
+CREATE TABLE GOAL (
+    GOAL_ID NUMBER(19) GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    USER_ID NUMBER(19) NOT NULL,
+    GOAL_TYPE VARCHAR2(20 CHAR) NOT NULL,
+    TARGET FLOAT(53) NOT NULL,
+    START_VALUE FLOAT(53),
+    CREATED_ON DATE NOT NULL,
+    PERIOD_START DATE,
+    PROGRESS FLOAT(53),
+    PROGRESS_ON DATE,
+    ACHIEVED_ON DATE,
+    CONSTRAINT FK_GOAL_USER FOREIGN KEY (USER_ID) REFERENCES APP_USER (USERID)
+);
+
+CREATE INDEX IDX_GOAL_USER ON GOAL (USER_ID);
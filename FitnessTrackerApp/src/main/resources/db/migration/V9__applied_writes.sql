@@ -0,0 +1,10 @@
+-- Tokens of applied write-behind saves. A save and its token commit together, so a
+-- journal entry replayed after a crash between commit and acknowledgement is recognised
+-- instead of inserting the row twice. TombstonePurger drops tokens after 30 days.
+
+CREATE TABLE APPLIED_WRITE (
+    TOKEN VARCHAR2(36 CHAR) PRIMARY KEY,
+    APPLIED_AT TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IDX_APPLIED_WRITE_AT ON APPLIED_WRITE (APPLIED_AT);